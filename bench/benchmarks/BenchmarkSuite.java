@@ -0,0 +1,385 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import appDomain.ReportWriter;
+import appDomain.RepositoryFile;
+import appDomain.TopWords;
+import appDomain.TrackedWord;
+import appDomain.WordTracker;
+import implementations.BSTree;
+import implementations.PersistentBSTree;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * Class Description: Regression suite covering the BSTree operations, each
+ * traversal, ingestion with WordTracker.processFile, each report format and
+ * saving and loading the repository. Run it before and after a change with
+ * the same settings and compare the tables; bench/baseline.txt holds the
+ * reference numbers and can be passed back with -baseline to print the
+ * ratio to it.
+ *
+ * Usage: java benchmarks.BenchmarkSuite [-w warmups] [-i iterations]
+ * [-t millis] [-baseline file] [name filter...]
+ */
+public class BenchmarkSuite
+{
+	/** Keys in the trees built from random keys. */
+	private static final int RANDOM_KEYS = 10000;
+
+	/**
+	 * Keys in the trees built from sorted keys, which a BSTree stores as a
+	 * list, so every operation is linear.
+	 */
+	private static final int SORTED_KEYS = 2000;
+
+	/** Copies of res/test3.txt in the scaled-up corpus. */
+	private static final int SCALED_COPIES = 20;
+
+	/**
+	 * Registers the benchmarks and runs those matching the filters.
+	 *
+	 * @param args options and name filters
+	 * @throws Exception if a benchmark fails
+	 */
+	public static void main( String[] args ) throws Exception
+	{
+		int warmups = 5;
+		int iterations = 5;
+		long millis = 500;
+		Map<String, Double> baseline = new HashMap<>();
+		List<String> filters = new ArrayList<>();
+		for( int i = 0; i < args.length; i++ )
+		{
+			switch( args[i] )
+			{
+				case "-w":
+					warmups = Integer.parseInt( args[++i] );
+					break;
+				case "-i":
+					iterations = Integer.parseInt( args[++i] );
+					break;
+				case "-t":
+					millis = Long.parseLong( args[++i] );
+					break;
+				case "-baseline":
+					baseline = Harness.readBaseline( new File( args[++i] ) );
+					break;
+				default:
+					filters.add( args[i] );
+			}
+		}
+
+		System.out.println( "# " + System.getProperty( "java.vm.name" ) + " " + System.getProperty( "java.version" )
+				+ ", " + Runtime.getRuntime().availableProcessors() + " processors, " + warmups + " warmup and "
+				+ iterations + " measured iterations of " + millis + " ms" );
+		Harness harness = new Harness( warmups, iterations, millis );
+		addTreeBenchmarks( harness );
+		addIngestBenchmarks( harness );
+		addReportBenchmarks( harness );
+		addRepositoryBenchmarks( harness );
+		harness.run( filters, baseline, System.out );
+	}
+
+	/**
+	 * Helper: add, search and contains on random and sorted keys, rank and
+	 * select, rebalance, persistent tree updates, and every traversal in both
+	 * iterator modes and with Morris traversal.
+	 * Times are per key.
+	 */
+	private static void addTreeBenchmarks( Harness harness )
+	{
+		Random random = new Random( 42 );
+		List<TrackedWord> randomKeys = keys( RANDOM_KEYS, random );
+		Collections.shuffle( randomKeys, random );
+		List<TrackedWord> sortedKeys = keys( SORTED_KEYS, random );
+		Collections.sort( sortedKeys );
+
+		for( String order : new String[] { "random", "sorted" } )
+		{
+			List<TrackedWord> keys = order.equals( "random" ) ? randomKeys : sortedKeys;
+			BSTree<TrackedWord> tree = build( keys );
+
+			// Lookups in a different order than the keys were added, half of
+			// them for keys that are not in the tree
+			List<TrackedWord> lookups = new ArrayList<>( keys );
+			Collections.shuffle( lookups, random );
+			List<TrackedWord> probes = new ArrayList<>();
+			for( TrackedWord key : lookups )
+			{
+				probes.add( key );
+				probes.add( new TrackedWord( key.getKey() + "~" ) );
+			}
+
+			harness.add( "tree.add." + order, keys.size(), () -> build( keys ).size() );
+			harness.add( "tree.search." + order, lookups.size(), () -> {
+				long found = 0;
+				for( TrackedWord key : lookups )
+					found += tree.search( key ).getElement().getKey().length();
+				return found;
+			} );
+			harness.add( "tree.contains." + order, probes.size(), () -> {
+				long found = 0;
+				for( TrackedWord key : probes )
+				{
+					if( tree.contains( key ) )
+						found++;
+				}
+				return found;
+			} );
+		}
+
+		// Order statistics: the position of every word, and the word at every
+		// position in a shuffled order
+		BSTree<TrackedWord> ranked = build( randomKeys );
+		List<Integer> positions = new ArrayList<>();
+		for( int i = 0; i < ranked.size(); i++ )
+			positions.add( i );
+		Collections.shuffle( positions, random );
+		harness.add( "tree.rank.random", randomKeys.size(), () -> {
+			long sum = 0;
+			for( TrackedWord key : randomKeys )
+				sum += ranked.rank( key );
+			return sum;
+		} );
+		harness.add( "tree.select.random", positions.size(), () -> {
+			long sum = 0;
+			for( int position : positions )
+				sum += ranked.select( position ).getKey().length();
+			return sum;
+		} );
+
+		BSTree<TrackedWord> unbalanced = build( sortedKeys );
+		harness.add( "tree.rebalance", sortedKeys.size(), () -> {
+			unbalanced.rebalance();
+			return unbalanced.size();
+		} );
+
+		// Persistent trees: adding with no snapshots, and a snapshot before
+		// each lookup, which makes getOrAdd copy the path and the word
+		harness.add( "persistent.add.random", randomKeys.size(), () -> {
+			PersistentBSTree<TrackedWord> persistent = new PersistentBSTree<>( TrackedWord::copy );
+			for( TrackedWord key : randomKeys )
+				persistent.add( key );
+			return persistent.size();
+		} );
+		PersistentBSTree<TrackedWord> versioned = new PersistentBSTree<>( TrackedWord::copy );
+		for( TrackedWord key : randomKeys )
+			versioned.add( key );
+		harness.add( "persistent.snapshot.getOrAdd", randomKeys.size(), () -> {
+			long sum = 0;
+			for( TrackedWord key : randomKeys )
+			{
+				sum += versioned.snapshot().size();
+				sum += versioned.getOrAdd( key ).getKey().length();
+			}
+			return sum;
+		} );
+
+		BSTree<TrackedWord> tree = build( randomKeys );
+		for( BSTree.IteratorMode mode : BSTree.IteratorMode.values() )
+		{
+			String suffix = "." + mode.name().toLowerCase();
+			harness.add( "traverse.inorder" + suffix, tree.size(), () -> {
+				tree.setIteratorMode( mode );
+				return drain( tree.inorderIterator() );
+			} );
+			harness.add( "traverse.preorder" + suffix, tree.size(), () -> {
+				tree.setIteratorMode( mode );
+				return drain( tree.preorderIterator() );
+			} );
+			harness.add( "traverse.postorder" + suffix, tree.size(), () -> {
+				tree.setIteratorMode( mode );
+				return drain( tree.postorderIterator() );
+			} );
+		}
+		// Morris traversals, with constant extra memory
+		harness.add( "traverse.inorder.morris", tree.size(), () -> {
+			long[] sum = new long[1];
+			tree.forEachInorder( word -> sum[0] += word.getKey().length() );
+			return sum[0];
+		} );
+		harness.add( "traverse.preorder.morris", tree.size(), () -> {
+			long[] sum = new long[1];
+			tree.forEachPreorder( word -> sum[0] += word.getKey().length() );
+			return sum[0];
+		} );
+		harness.add( "traverse.postorder.morris", tree.size(), () -> {
+			long[] sum = new long[1];
+			tree.forEachPostorder( word -> sum[0] += word.getKey().length() );
+			return sum[0];
+		} );
+	}
+
+	/**
+	 * Helper: processFile on each sample input and on a larger file made of
+	 * copies of res/test3.txt. Times are per file.
+	 */
+	private static void addIngestBenchmarks( Harness harness ) throws IOException
+	{
+		for( String name : new String[] { "test1", "test2", "test3" } )
+		{
+			String input = "res/" + name + ".txt";
+			harness.add( "ingest." + name, () -> ingest( input ) );
+		}
+		File scaled = File.createTempFile( "scaled", ".txt" );
+		scaled.deleteOnExit();
+		byte[] bytes = Files.readAllBytes( new File( Corpus.DEFAULT_INPUT ).toPath() );
+		for( int c = 0; c < SCALED_COPIES; c++ )
+			Files.write( scaled.toPath(), bytes, StandardOpenOption.APPEND );
+		harness.add( "ingest.test3x" + SCALED_COPIES, () -> ingest( scaled.getPath() ) );
+	}
+
+	/**
+	 * Helper: each report format for a repository of renamed copies of
+	 * res/test3.txt, written to a Writer that discards it, and the -pt report
+	 * of the 10 most frequent words against sorting every word by its total.
+	 * Times are per report.
+	 */
+	private static void addReportBenchmarks( Harness harness ) throws IOException
+	{
+		BSTree<TrackedWord> tree = (BSTree<TrackedWord>)Corpus.fill( Corpus.DEFAULT_INPUT, SCALED_COPIES,
+				new BSTree<TrackedWord>() );
+		tree.setIteratorMode( BSTree.IteratorMode.FAIL_FAST );
+		for( String option : new String[] { "-pf", "-pl", "-po" } )
+		{
+			harness.add( "report" + option.replace( '-', '.' ), () -> {
+				CountingWriter out = new CountingWriter();
+				new ReportWriter( out, option ).write( tree.inorderIterator() );
+				return out.chars;
+			} );
+		}
+		harness.add( "report.pt10", () -> {
+			CountingWriter out = new CountingWriter();
+			new ReportWriter( out, "-pt" ).write( TopWords.select( tree.inorderIterator(), 10 ) );
+			return out.chars;
+		} );
+		harness.add( "report.pt10.sorted", () -> {
+			List<TrackedWord> words = new ArrayList<>( tree.size() );
+			Iterator<TrackedWord> it = tree.inorderIterator();
+			while( it.hasNext() )
+				words.add( it.next() );
+			words.sort( TopWords.ORDER );
+			CountingWriter out = new CountingWriter();
+			new ReportWriter( out, "-pt" ).write( words.subList( 0, 10 ) );
+			return out.chars;
+		} );
+	}
+
+	/**
+	 * Helper: saving and loading the same repository with RepositoryFile, as
+	 * WordTracker's saveTree and loadTree do. Times are per repository.
+	 */
+	private static void addRepositoryBenchmarks( Harness harness ) throws IOException
+	{
+		BSTreeADT<TrackedWord> tree = Corpus.fill( Corpus.DEFAULT_INPUT, SCALED_COPIES, new BSTree<TrackedWord>() );
+		File file = File.createTempFile( "repository", ".bin" );
+		file.deleteOnExit();
+		RepositoryFile.save( tree, file );
+		harness.add( "repository.save", () -> {
+			RepositoryFile.save( tree, file );
+			return file.length();
+		} );
+		harness.add( "repository.load", () -> RepositoryFile.load( file ).size() );
+	}
+
+	/**
+	 * Helper: distinct words made of random letters.
+	 */
+	private static List<TrackedWord> keys( int count, Random random )
+	{
+		List<TrackedWord> keys = new ArrayList<>( count );
+		Set<String> seen = new HashSet<>();
+		while( keys.size() < count )
+		{
+			char[] chars = new char[3 + random.nextInt( 8 )];
+			for( int i = 0; i < chars.length; i++ )
+				chars[i] = (char)( 'a' + random.nextInt( 26 ) );
+			String key = new String( chars );
+			if( seen.add( key ) )
+				keys.add( new TrackedWord( key ) );
+		}
+		return keys;
+	}
+
+	/**
+	 * Helper: adds the keys in order to a new tree.
+	 */
+	private static BSTree<TrackedWord> build( List<TrackedWord> keys )
+	{
+		BSTree<TrackedWord> tree = new BSTree<>();
+		for( TrackedWord key : keys )
+			tree.add( key );
+		return tree;
+	}
+
+	/**
+	 * Helper: reads an iterator to the end.
+	 */
+	private static long drain( Iterator<TrackedWord> it )
+	{
+		long sum = 0;
+		while( it.hasNext() )
+			sum += it.next().getKey().length();
+		return sum;
+	}
+
+	/**
+	 * Helper: indexes a file into a new tree as WordTracker does.
+	 */
+	private static long ingest( String filename )
+	{
+		BSTreeADT<TrackedWord> tree = new BSTree<>();
+		WordTracker.processFile( filename, tree );
+		return tree.size();
+	}
+
+	/**
+	 * Writer that only counts what is written to it.
+	 */
+	private static class CountingWriter extends Writer
+	{
+		private long chars;
+
+		@Override
+		public void write( char[] cbuf, int off, int len )
+		{
+			chars += len;
+		}
+
+		@Override
+		public void write( String str, int off, int len )
+		{
+			chars += len;
+		}
+
+		@Override
+		public void write( int c )
+		{
+			chars++;
+		}
+
+		@Override
+		public void flush()
+		{
+		}
+
+		@Override
+		public void close()
+		{
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import appDomain.ChunkIndexer;
+import appDomain.TrackedWord;
+import appDomain.WordTracker;
+import implementations.AVLTree;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * Class Description: Measures how ChunkIndexer scales with the number of
+ * worker threads on one large file, against WordTracker.processFile reading
+ * the same file on one thread. Every parallel result is checked against the
+ * sequential one before its time is printed.
+ *
+ * Usage: java benchmarks.ChunkedIngestBenchmark [input.txt] [copies] [rounds] [maxThreads]
+ */
+public class ChunkedIngestBenchmark
+{
+	/**
+	 * Writes the input repeated <code>copies</code> times to a temporary file
+	 * and indexes it with 1, 2, 4, ... threads.
+	 *
+	 * @param args optional input file, number of copies, rounds and the
+	 *            largest thread count
+	 * @throws IOException if a file cannot be written or read
+	 */
+	public static void main( String[] args ) throws IOException
+	{
+		String input = args.length > 0 ? args[0] : Corpus.DEFAULT_INPUT;
+		int copies = args.length > 1 ? Integer.parseInt( args[1] ) : 200;
+		int rounds = args.length > 2 ? Integer.parseInt( args[2] ) : 3;
+		int maxThreads = args.length > 3 ? Integer.parseInt( args[3] )
+				: Math.max( 8, Runtime.getRuntime().availableProcessors() );
+
+		File big = File.createTempFile( "chunked", ".txt" );
+		big.deleteOnExit();
+		byte[] bytes = Files.readAllBytes( new File( input ).toPath() );
+		for( int c = 0; c < copies; c++ )
+		{
+			Files.write( big.toPath(), bytes, StandardOpenOption.APPEND );
+		}
+		System.out.println( "Input: " + copies + " copies of " + input + " (" + big.length() / ( 1024 * 1024 )
+				+ " MB), " + Runtime.getRuntime().availableProcessors() + " processors" );
+
+		long sequential = Long.MAX_VALUE;
+		String expected = null;
+		for( int round = 0; round < rounds; round++ )
+		{
+			BSTreeADT<TrackedWord> tree = new AVLTree<>();
+			long start = System.nanoTime();
+			WordTracker.processFile( big.getPath(), tree );
+			sequential = Math.min( sequential, System.nanoTime() - start );
+			expected = checksum( tree.inorderIterator() );
+		}
+		System.out.printf( "%-12s %10s %8s%n", "threads", "ms", "speedup" );
+		System.out.printf( "%-12s %10.1f %8.2f%n", "processFile", sequential / 1e6, 1.0 );
+
+		for( int threads = 1; threads <= maxThreads; threads *= 2 )
+		{
+			ForkJoinPool pool = new ForkJoinPool( threads );
+			long best = Long.MAX_VALUE;
+			for( int round = 0; round < rounds; round++ )
+			{
+				long start = System.nanoTime();
+				List<TrackedWord> words = ChunkIndexer.index( big.getPath(), pool );
+				best = Math.min( best, System.nanoTime() - start );
+				if( !expected.equals( checksum( words.iterator() ) ) )
+				{
+					throw new IllegalStateException( "Result with " + threads + " threads differs" );
+				}
+			}
+			pool.shutdown();
+			System.out.printf( "%-12d %10.1f %8.2f%n", threads, best / 1e6, (double)sequential / best );
+		}
+	}
+
+	/**
+	 * Helper: summarizes every word, count and line in order.
+	 */
+	private static String checksum( Iterator<TrackedWord> it )
+	{
+		return checksum( new java.util.Iterator<TrackedWord>()
+		{
+			@Override
+			public boolean hasNext()
+			{
+				return it.hasNext();
+			}
+
+			@Override
+			public TrackedWord next()
+			{
+				return it.next();
+			}
+		} );
+	}
+
+	/**
+	 * Helper: summarizes every word, count and line in order.
+	 */
+	private static String checksum( java.util.Iterator<TrackedWord> it )
+	{
+		long hash = 17;
+		int words = 0;
+		while( it.hasNext() )
+		{
+			TrackedWord word = it.next();
+			hash = hash * 31 + word.getDisplayWord().hashCode();
+			for( int f = 0; f < word.getFileCount(); f++ )
+			{
+				TrackedWord.FileInfo fi = word.getFileInfo( f );
+				hash = hash * 31 + fi.getCount();
+				for( int line : fi.getLines() )
+				{
+					hash = hash * 31 + line;
+				}
+			}
+			words++;
+		}
+		return words + ":" + hash;
+	}
+}
@@ -0,0 +1,134 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import appDomain.FileTable;
+import appDomain.TrackedWord;
+import implementations.AVLTree;
+import implementations.ConcurrentBSTree;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * Class Description: Measures how ingestion into one shared tree scales with
+ * the number of threads. Every thread looks up the tokens of the input in its
+ * own shuffled order and records an occurrence of each, either in a
+ * ConcurrentBSTree with TrackedWord.addSharedOccurrence or in an AVLTree
+ * guarded by a single lock. Both start from an empty tree, so the threads
+ * contend for the same words and the same empty slots while the vocabulary
+ * is built.
+ *
+ * Usage: java benchmarks.ConcurrentTreeBenchmark [input.txt] [rounds] [maxThreads]
+ */
+public class ConcurrentTreeBenchmark
+{
+	/**
+	 * Runs both trees with 1, 2, 4, ... threads and prints the throughput.
+	 *
+	 * @param args optional input file, rounds and the largest thread count
+	 * @throws Exception if the input cannot be read or a thread fails
+	 */
+	public static void main( String[] args ) throws Exception
+	{
+		String input = args.length > 0 ? args[0] : Corpus.DEFAULT_INPUT;
+		int rounds = args.length > 1 ? Integer.parseInt( args[1] ) : 5;
+		int maxThreads = args.length > 2 ? Integer.parseInt( args[2] )
+				: Math.max( 8, Runtime.getRuntime().availableProcessors() );
+
+		List<String> tokens = Corpus.tokenize( input );
+		System.out.println( "Input: " + input + " (" + tokens.size() + " tokens per thread), "
+				+ Runtime.getRuntime().availableProcessors() + " processors" );
+		System.out.printf( "%-8s %16s %16s %8s%n", "threads", "locked Mops/s", "concurrent Mops/s", "ratio" );
+		for( int threads = 1; threads <= maxThreads; threads *= 2 )
+		{
+			List<List<String>> orders = orders( tokens, threads );
+			double locked = 0;
+			double concurrent = 0;
+			for( int round = 0; round < rounds; round++ )
+			{
+				locked = Math.max( locked, run( orders, false ) );
+				concurrent = Math.max( concurrent, run( orders, true ) );
+			}
+			System.out.printf( "%-8d %16.2f %16.2f %8.2f%n", threads, locked, concurrent, concurrent / locked );
+		}
+	}
+
+	/**
+	 * Helper: the tokens in a different random order for each thread.
+	 */
+	private static List<List<String>> orders( List<String> tokens, int threads )
+	{
+		List<List<String>> orders = new ArrayList<>();
+		for( int t = 0; t < threads; t++ )
+		{
+			List<String> order = new ArrayList<>( tokens );
+			Collections.shuffle( order, new Random( t ) );
+			orders.add( order );
+		}
+		return orders;
+	}
+
+	/**
+	 * Helper: indexes each order on its own thread into a new shared tree and
+	 * returns millions of tokens per second. Checks that every thread's
+	 * occurrences were recorded.
+	 */
+	private static double run( List<List<String>> orders, boolean concurrent ) throws Exception
+	{
+		BSTreeADT<TrackedWord> tree = concurrent ? new ConcurrentBSTree<>() : new AVLTree<>();
+		int fileId = FileTable.idOf( "bench" );
+		CountDownLatch start = new CountDownLatch( 1 );
+		List<Thread> threads = new ArrayList<>();
+		for( List<String> order : orders )
+		{
+			Thread thread = new Thread( () -> {
+				try
+				{
+					start.await();
+				}
+				catch( InterruptedException e )
+				{
+					return;
+				}
+				int line = 0;
+				for( String token : order )
+				{
+					TrackedWord word = new TrackedWord( token.toLowerCase(), token );
+					if( concurrent )
+					{
+						tree.getOrAdd( word ).addSharedOccurrence( fileId, ++line );
+					}
+					else
+					{
+						synchronized( tree )
+						{
+							tree.getOrAdd( word ).addOccurrence( fileId, ++line );
+						}
+					}
+				}
+			} );
+			thread.start();
+			threads.add( thread );
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		for( Thread thread : threads )
+			thread.join();
+		long elapsed = System.nanoTime() - begin;
+
+		long tokens = 0;
+		long counted = 0;
+		for( List<String> order : orders )
+			tokens += order.size();
+		Iterator<TrackedWord> it = tree.inorderIterator();
+		while( it.hasNext() )
+			counted += it.next().getFile( fileId ).getCount();
+		if( counted != tokens )
+			throw new IllegalStateException( "Recorded " + counted + " of " + tokens + " occurrences" );
+		return tokens * 1e3 / elapsed;
+	}
+}
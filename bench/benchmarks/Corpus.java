@@ -0,0 +1,116 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import appDomain.TrackedWord;
+import utilities.BSTreeADT;
+
+/**
+ * Class Description: Helpers shared by the benchmarks for reading the sample
+ * inputs in res/ and building repositories of a chosen size from them.
+ */
+public class Corpus
+{
+	/** Default input used when a benchmark is not given one. */
+	public static final String DEFAULT_INPUT = "res/test3.txt";
+
+	private Corpus()
+	{
+	}
+
+	/**
+	 * Splits the input the same way WordTracker.processFile does.
+	 *
+	 * @param filename input file
+	 * @return every token in file order
+	 * @throws IOException if the input file cannot be read
+	 */
+	public static List<String> tokenize( String filename ) throws IOException
+	{
+		List<String> tokens = new ArrayList<>();
+		try( Scanner scanner = new Scanner( new File( filename ) ) )
+		{
+			while( scanner.hasNextLine() )
+			{
+				for( String word : scanner.nextLine().split( "[^a-zA-Z0-9']+" ) )
+				{
+					if( !word.isEmpty() )
+						tokens.add( word );
+				}
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Fills a tree with <code>copies</code> renamed copies of the input. Copy
+	 * <code>c</code> is recorded as file <code>partC.txt</code> and its words
+	 * get the suffix <code>_C</code>, so both the vocabulary and the number of
+	 * files grow with the number of copies.
+	 *
+	 * @param filename input file
+	 * @param copies number of copies to ingest
+	 * @param tree tree to fill
+	 * @return the tree
+	 * @throws IOException if the input file cannot be read
+	 */
+	public static BSTreeADT<TrackedWord> fill( String filename, int copies, BSTreeADT<TrackedWord> tree )
+			throws IOException
+	{
+		List<String> lines = new ArrayList<>();
+		try( Scanner scanner = new Scanner( new File( filename ) ) )
+		{
+			while( scanner.hasNextLine() )
+				lines.add( scanner.nextLine() );
+		}
+		for( int c = 0; c < copies; c++ )
+		{
+			String part = "part" + c + ".txt";
+			String suffix = c == 0 ? "" : "_" + c;
+			for( int n = 0; n < lines.size(); n++ )
+			{
+				for( String word : lines.get( n ).split( "[^a-zA-Z0-9']+" ) )
+				{
+					if( word.isEmpty() )
+						continue;
+					String display = word + suffix;
+					tree.getOrAdd( new TrackedWord( display.toLowerCase(), display ) ).addOccurrence( part, n + 1 );
+				}
+			}
+		}
+		return tree;
+	}
+
+	/**
+	 * Writes the lines <code>copies</code> times to a temporary file that is
+	 * deleted on exit. When renamed is true, every word of copy
+	 * <code>c</code> after the first gets the suffix <code>qc</code>, so the
+	 * vocabulary grows with each copy.
+	 *
+	 * @param lines lines of the input
+	 * @param copies number of copies to write
+	 * @param renamed whether the words of each copy are renamed
+	 * @return the file written
+	 * @throws IOException if the file cannot be written
+	 */
+	public static File writeCopies( List<String> lines, int copies, boolean renamed ) throws IOException
+	{
+		File file = File.createTempFile( renamed ? "renamed" : "repeated", ".txt" );
+		file.deleteOnExit();
+		try( PrintWriter out = new PrintWriter( file ) )
+		{
+			for( int c = 0; c < copies; c++ )
+			{
+				String suffix = !renamed || c == 0 ? "" : "q" + c;
+				for( String line : lines )
+					out.println( suffix.isEmpty() ? line : line.replaceAll( "([a-zA-Z0-9']+)", "$1" + suffix ) );
+			}
+		}
+		return file;
+	}
+}
@@ -0,0 +1,101 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+
+import appDomain.TrackedWord;
+import implementations.BSTree;
+import utilities.BSTreeADT;
+
+/**
+ * Class Description: Compares the ingestion loop that WordTracker used to run
+ * (contains, then search, then add) with the single-descent getOrAdd on the
+ * same token stream. Reports compareTo calls per token and the time taken.
+ *
+ * Usage: java benchmarks.GetOrAddBenchmark [input.txt] [rounds]
+ */
+public class GetOrAddBenchmark
+{
+	/** Number of compareTo calls made since the last reset. */
+	private static long comparisons;
+
+	/**
+	 * TrackedWord that counts how often it is compared. The trees always call
+	 * compareTo on the entry being looked up, so counting the probe is enough.
+	 */
+	private static class CountingWord extends TrackedWord
+	{
+		private static final long serialVersionUID = 1L;
+
+		public CountingWord( String key, String displayWord )
+		{
+			super( key, displayWord );
+		}
+
+		@Override
+		public int compareTo( TrackedWord other )
+		{
+			comparisons++;
+			return super.compareTo( other );
+		}
+	}
+
+	/**
+	 * Runs both ingestion loops over the input file and prints the results.
+	 *
+	 * @param args optional input file (default res/test3.txt) and rounds
+	 * @throws IOException if the input file cannot be read
+	 */
+	public static void main( String[] args ) throws IOException
+	{
+		String input = args.length > 0 ? args[0] : Corpus.DEFAULT_INPUT;
+		int rounds = args.length > 1 ? Integer.parseInt( args[1] ) : 10;
+		List<String> tokens = Corpus.tokenize( input );
+
+		System.out.println( "Input: " + input + " (" + tokens.size() + " tokens)" );
+		for( int round = 1; round <= rounds; round++ )
+		{
+			boolean last = round == rounds;
+			run( "contains+search+add", tokens, false, last );
+			run( "getOrAdd", tokens, true, last );
+		}
+	}
+
+	/**
+	 * Helper: ingests every token into a fresh tree with either loop.
+	 */
+	private static void run( String name, List<String> tokens, boolean single, boolean print )
+	{
+		BSTreeADT<TrackedWord> tree = new BSTree<>();
+		comparisons = 0;
+		long start = System.nanoTime();
+		for( String word : tokens )
+		{
+			String key = word.toLowerCase();
+			TrackedWord found;
+			if( single )
+			{
+				found = tree.getOrAdd( new CountingWord( key, word ) );
+			}
+			else
+			{
+				TrackedWord searchWord = new CountingWord( key, key );
+				found = null;
+				if( tree.contains( searchWord ) )
+					found = tree.search( searchWord ).getElement();
+				if( found == null )
+				{
+					found = new CountingWord( key, word );
+					tree.add( found );
+				}
+			}
+			found.addOccurrence( "bench", 1 );
+		}
+		long elapsed = System.nanoTime() - start;
+		if( print )
+		{
+			System.out.printf( "%-22s %8.2f compareTo/token %10.3f ms%n", name,
+					(double)comparisons / tokens.size(), elapsed / 1e6 );
+		}
+	}
+}
@@ -0,0 +1,210 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class Description: A small benchmark runner that works like JMH's average
+ * time mode without needing JMH on the classpath. Each benchmark is run for a
+ * number of warmup iterations that are thrown away, then for a number of
+ * measured iterations of a fixed length. The mean time per operation and its
+ * standard deviation across the measured iterations are printed in a table
+ * that can be saved and later passed back as a baseline.
+ */
+public class Harness
+{
+	/**
+	 * Code being measured. The value it returns is added to a sink so the JIT
+	 * cannot remove the work that produced it.
+	 */
+	public interface Body
+	{
+		/**
+		 * Runs the measured code once.
+		 *
+		 * @return any value computed from the result
+		 * @throws Exception if the code fails, which stops the run
+		 */
+		long run() throws Exception;
+	}
+
+	/** Result of one benchmark. */
+	public static class Result
+	{
+		/** Name of the benchmark. */
+		public final String name;
+		/** Mean nanoseconds per operation. */
+		public final double mean;
+		/** Standard deviation of the iteration means. */
+		public final double deviation;
+
+		Result( String name, double mean, double deviation )
+		{
+			this.name = name;
+			this.mean = mean;
+			this.deviation = deviation;
+		}
+	}
+
+	/** Receives the value of every call so it is never dead code. */
+	private static volatile long sink;
+
+	private final int warmups;
+	private final int iterations;
+	private final long iterationNanos;
+	private final Map<String, Body> bodies = new LinkedHashMap<>();
+	private final Map<String, Integer> operations = new LinkedHashMap<>();
+
+	/**
+	 * Creates a harness.
+	 *
+	 * @param warmups iterations run before measuring
+	 * @param iterations iterations measured
+	 * @param iterationMillis length of each iteration in milliseconds
+	 */
+	public Harness( int warmups, int iterations, long iterationMillis )
+	{
+		this.warmups = warmups;
+		this.iterations = iterations;
+		this.iterationNanos = iterationMillis * 1000000L;
+	}
+
+	/**
+	 * Adds a benchmark whose body is one operation.
+	 *
+	 * @param name unique name, used for filtering and in the baseline
+	 * @param body code to measure
+	 */
+	public void add( String name, Body body )
+	{
+		add( name, 1, body );
+	}
+
+	/**
+	 * Adds a benchmark whose body performs several operations, such as one
+	 * lookup per key, so the time is reported per operation.
+	 *
+	 * @param name unique name, used for filtering and in the baseline
+	 * @param operationsPerCall operations performed by each call of the body
+	 * @param body code to measure
+	 */
+	public void add( String name, int operationsPerCall, Body body )
+	{
+		if( bodies.containsKey( name ) )
+			throw new IllegalArgumentException( "Duplicate benchmark: " + name );
+		bodies.put( name, body );
+		operations.put( name, operationsPerCall );
+	}
+
+	/**
+	 * Runs every benchmark whose name contains one of the filters and prints
+	 * a line for each as it finishes.
+	 *
+	 * @param filters name fragments to run; all benchmarks if empty
+	 * @param baseline earlier results by name to compare with; may be empty
+	 * @param out where the table is printed
+	 * @return the results in the order the benchmarks were added
+	 * @throws Exception if a benchmark fails
+	 */
+	public List<Result> run( List<String> filters, Map<String, Double> baseline, PrintStream out ) throws Exception
+	{
+		List<Result> results = new ArrayList<>();
+		out.printf( "%-36s %14s %12s %8s%n", "Benchmark", "ns/op", "+- stddev", "vs base" );
+		for( Map.Entry<String, Body> entry : bodies.entrySet() )
+		{
+			String name = entry.getKey();
+			if( !matches( name, filters ) )
+				continue;
+			Result result = measure( name, entry.getValue(), operations.get( name ) );
+			results.add( result );
+			Double base = baseline.get( name );
+			out.printf( "%-36s %14.1f %12.1f %8s%n", name, result.mean, result.deviation,
+					base == null ? "" : String.format( "x%.2f", result.mean / base ) );
+		}
+		return results;
+	}
+
+	/**
+	 * Reads the scores of a table printed by {@link #run}.
+	 *
+	 * @param file saved output of an earlier run
+	 * @return mean ns/op by benchmark name
+	 * @throws IOException if the file cannot be read
+	 */
+	public static Map<String, Double> readBaseline( File file ) throws IOException
+	{
+		Map<String, Double> scores = new LinkedHashMap<>();
+		for( String line : Files.readAllLines( file.toPath(), StandardCharsets.UTF_8 ) )
+		{
+			String[] parts = line.trim().split( "\\s+" );
+			if( parts.length < 3 || line.startsWith( "#" ) )
+				continue;
+			try
+			{
+				scores.put( parts[0], Double.parseDouble( parts[1] ) );
+			}
+			catch( NumberFormatException e )
+			{
+				// Header or comment line
+			}
+		}
+		return scores;
+	}
+
+	/**
+	 * Helper: runs the warmup and measured iterations of one benchmark.
+	 */
+	private Result measure( String name, Body body, int operationsPerCall ) throws Exception
+	{
+		double[] means = new double[iterations];
+		for( int i = -warmups; i < iterations; i++ )
+		{
+			long calls = 0;
+			long sum = 0;
+			long start = System.nanoTime();
+			long elapsed;
+			do
+			{
+				sum += body.run();
+				calls++;
+				elapsed = System.nanoTime() - start;
+			}
+			while( elapsed < iterationNanos );
+			sink += sum;
+			if( i >= 0 )
+				means[i] = (double)elapsed / ( calls * operationsPerCall );
+		}
+
+		double mean = 0;
+		for( double m : means )
+			mean += m;
+		mean /= means.length;
+		double variance = 0;
+		for( double m : means )
+			variance += ( m - mean ) * ( m - mean );
+		double deviation = means.length > 1 ? Math.sqrt( variance / ( means.length - 1 ) ) : 0;
+		return new Result( name, mean, deviation );
+	}
+
+	/**
+	 * Helper: true if the name contains one of the filters, or there are none.
+	 */
+	private static boolean matches( String name, List<String> filters )
+	{
+		if( filters.isEmpty() )
+			return true;
+		for( String filter : filters )
+		{
+			if( name.contains( filter ) )
+				return true;
+		}
+		return false;
+	}
+}
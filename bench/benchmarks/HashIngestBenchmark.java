@@ -0,0 +1,121 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import appDomain.FileTable;
+import appDomain.TrackedWord;
+import appDomain.WordTracker;
+import implementations.AVLTree;
+import implementations.BSTree;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * Class Description: Compares the ways one file can be indexed into sorted
+ * words: WordTracker.processFile into an AVLTree or a BSTree, which is then
+ * walked in order, and WordTracker.indexFile, which collects the words in a
+ * WordTable and sorts them once. Each is run on the input, on the input
+ * repeated (same vocabulary, more tokens) and on renamed copies of the input
+ * (vocabulary grows with the tokens). The results are checked against each
+ * other before the times are printed.
+ *
+ * Usage: java benchmarks.HashIngestBenchmark [input.txt] [copies] [rounds]
+ */
+public class HashIngestBenchmark
+{
+	/**
+	 * Writes the larger inputs to temporary files and times each way of
+	 * indexing them.
+	 *
+	 * @param args optional input file, number of copies and rounds
+	 * @throws IOException if a file cannot be written or read
+	 */
+	public static void main( String[] args ) throws IOException
+	{
+		String input = args.length > 0 ? args[0] : Corpus.DEFAULT_INPUT;
+		int copies = args.length > 1 ? Integer.parseInt( args[1] ) : 50;
+		int rounds = args.length > 2 ? Integer.parseInt( args[2] ) : 10;
+
+		List<String> lines = Files.readAllLines( new File( input ).toPath() );
+		File repeated = Corpus.writeCopies( lines, copies, false );
+		File renamed = Corpus.writeCopies( lines, copies, true );
+
+		System.out.printf( "%-28s %8s %8s %12s %12s %12s %8s%n", "input", "tokens", "words", "avl ms", "bst ms",
+				"hash ms", "avl/hash" );
+		for( File file : new File[] { new File( input ), repeated, renamed } )
+		{
+			String name = file == repeated ? "repeated x" + copies
+					: file == renamed ? "renamed x" + copies : input;
+			run( name, file.getPath(), rounds );
+		}
+	}
+
+	/**
+	 * Helper: indexes the file each way for the given number of rounds and
+	 * prints the best time of each.
+	 */
+	private static void run( String name, String filename, int rounds )
+	{
+		long avl = Long.MAX_VALUE;
+		long bst = Long.MAX_VALUE;
+		long hash = Long.MAX_VALUE;
+		List<TrackedWord> expected = null;
+		List<TrackedWord> actual = null;
+		for( int round = 0; round < rounds; round++ )
+		{
+			long start = System.nanoTime();
+			expected = treeIndex( filename, new AVLTree<>() );
+			avl = Math.min( avl, System.nanoTime() - start );
+
+			start = System.nanoTime();
+			treeIndex( filename, new BSTree<>() );
+			bst = Math.min( bst, System.nanoTime() - start );
+
+			start = System.nanoTime();
+			actual = WordTracker.indexFile( filename );
+			hash = Math.min( hash, System.nanoTime() - start );
+		}
+		check( expected, actual, filename );
+
+		long tokens = 0;
+		int fileId = FileTable.idOf( filename );
+		for( TrackedWord word : actual )
+			tokens += word.getFile( fileId ).getCount();
+		System.out.printf( "%-28s %8d %8d %12.2f %12.2f %12.2f %8.2f%n", name, tokens, actual.size(), avl / 1e6,
+				bst / 1e6, hash / 1e6, (double)avl / hash );
+	}
+
+	/**
+	 * Helper: the current path, processFile into a tree walked in order.
+	 */
+	private static List<TrackedWord> treeIndex( String filename, BSTreeADT<TrackedWord> tree )
+	{
+		WordTracker.processFile( filename, tree );
+		List<TrackedWord> words = new ArrayList<>( tree.size() );
+		Iterator<TrackedWord> it = tree.inorderIterator();
+		while( it.hasNext() )
+			words.add( it.next() );
+		return words;
+	}
+
+	/**
+	 * Helper: throws if the two results differ in their words or postings.
+	 */
+	private static void check( List<TrackedWord> expected, List<TrackedWord> actual, String filename )
+	{
+		if( expected.size() != actual.size() )
+			throw new IllegalStateException( "Word counts differ: " + expected.size() + " and " + actual.size() );
+		for( int i = 0; i < expected.size(); i++ )
+		{
+			TrackedWord e = expected.get( i );
+			TrackedWord a = actual.get( i );
+			if( !e.getKey().equals( a.getKey() ) || !e.getDisplayWord().equals( a.getDisplayWord() )
+					|| !e.getFile( filename ).getLines().equals( a.getFile( filename ).getLines() ) )
+				throw new IllegalStateException( "Results differ at " + e.getKey() + " and " + a.getKey() );
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package benchmarks;
+
+import appDomain.TrackedWord;
+import implementations.AVLTree;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * Class Description: Measures the heap a repository keeps alive, and how long
+ * it takes to read every line of every posting. Run it with the same -Xmx on
+ * each version being compared.
+ *
+ * Usage: java benchmarks.PostingsMemoryBenchmark [input.txt] [copies]
+ */
+public class PostingsMemoryBenchmark
+{
+	/**
+	 * Builds a repository from the input and prints its retained heap.
+	 *
+	 * @param args optional input file and number of copies
+	 * @throws Exception if the input file cannot be read
+	 */
+	public static void main( String[] args ) throws Exception
+	{
+		String input = args.length > 0 ? args[0] : Corpus.DEFAULT_INPUT;
+		int copies = args.length > 1 ? Integer.parseInt( args[1] ) : 50;
+
+		long before = usedHeap();
+		BSTreeADT<TrackedWord> tree = Corpus.fill( input, copies, new AVLTree<TrackedWord>() );
+		long after = usedHeap();
+
+		long occurrences = 0;
+		long lines = 0;
+		long start = System.nanoTime();
+		Iterator<TrackedWord> it = tree.inorderIterator();
+		while( it.hasNext() )
+		{
+			TrackedWord word = it.next();
+			for( int f = 0; f < word.getFileCount(); f++ )
+			{
+				TrackedWord.FileInfo fi = word.getFileInfo( f );
+				occurrences += fi.getCount();
+				for( int line : fi.getLines() )
+				{
+					lines += line;
+				}
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+
+		System.out.println( "Repository: " + tree.size() + " words, " + occurrences + " occurrences from "
+				+ copies + " copies of " + input );
+		System.out.printf( "retained heap  %12d bytes%n", after - before );
+		System.out.printf( "per word       %12.1f bytes%n", (double)( after - before ) / tree.size() );
+		System.out.printf( "per occurrence %12.1f bytes%n", (double)( after - before ) / occurrences );
+		System.out.printf( "read lines     %12.2f ms (checksum %d)%n", elapsed / 1e6, lines );
+	}
+
+	/**
+	 * Helper: heap in use after collecting garbage until it stops shrinking.
+	 */
+	private static long usedHeap() throws InterruptedException
+	{
+		Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for( int i = 0; i < 10; i++ )
+		{
+			System.gc();
+			Thread.sleep( 50 );
+			long now = runtime.totalMemory() - runtime.freeMemory();
+			if( now >= used )
+				break;
+			used = now;
+		}
+		return used;
+	}
+}
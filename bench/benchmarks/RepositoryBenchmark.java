@@ -0,0 +1,80 @@
+package benchmarks;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import appDomain.RepositoryFile;
+import appDomain.TrackedWord;
+import implementations.AVLTree;
+import utilities.BSTreeADT;
+
+/**
+ * Class Description: Compares saving and loading a repository with Java
+ * serialization (the old repository.ser) and with the binary format of
+ * RepositoryFile. Reports file size and the best time of several rounds.
+ *
+ * Usage: java benchmarks.RepositoryBenchmark [input.txt] [copies] [rounds]
+ */
+public class RepositoryBenchmark
+{
+	/**
+	 * Builds a repository from the input and times both formats.
+	 *
+	 * @param args optional input file, number of copies and rounds
+	 * @throws Exception if a file cannot be written or read
+	 */
+	public static void main( String[] args ) throws Exception
+	{
+		String input = args.length > 0 ? args[0] : Corpus.DEFAULT_INPUT;
+		int copies = args.length > 1 ? Integer.parseInt( args[1] ) : 20;
+		int rounds = args.length > 2 ? Integer.parseInt( args[2] ) : 5;
+
+		// AVLTree keeps Java serialization from recursing too deep
+		BSTreeADT<TrackedWord> tree = Corpus.fill( input, copies, new AVLTree<TrackedWord>() );
+		File ser = File.createTempFile( "repository", ".ser" );
+		File bin = File.createTempFile( "repository", ".bin" );
+		ser.deleteOnExit();
+		bin.deleteOnExit();
+
+		long serSave = Long.MAX_VALUE, serLoad = Long.MAX_VALUE;
+		long binSave = Long.MAX_VALUE, binLoad = Long.MAX_VALUE;
+		for( int round = 0; round < rounds; round++ )
+		{
+			long start = System.nanoTime();
+			try( ObjectOutputStream out = new ObjectOutputStream(
+					new BufferedOutputStream( new FileOutputStream( ser ) ) ) )
+			{
+				out.writeObject( tree );
+			}
+			serSave = Math.min( serSave, System.nanoTime() - start );
+
+			start = System.nanoTime();
+			try( ObjectInputStream in = new ObjectInputStream(
+					new BufferedInputStream( new FileInputStream( ser ) ) ) )
+			{
+				in.readObject();
+			}
+			serLoad = Math.min( serLoad, System.nanoTime() - start );
+
+			start = System.nanoTime();
+			RepositoryFile.save( tree, bin );
+			binSave = Math.min( binSave, System.nanoTime() - start );
+
+			start = System.nanoTime();
+			RepositoryFile.load( bin );
+			binLoad = Math.min( binLoad, System.nanoTime() - start );
+		}
+
+		System.out.println( "Repository: " + tree.size() + " words from " + copies + " copies of " + input );
+		System.out.printf( "%-20s %12s %10s %10s%n", "format", "bytes", "save ms", "load ms" );
+		System.out.printf( "%-20s %12d %10.2f %10.2f%n", "java serialization", ser.length(), serSave / 1e6,
+				serLoad / 1e6 );
+		System.out.printf( "%-20s %12d %10.2f %10.2f%n", "binary", bin.length(), binSave / 1e6, binLoad / 1e6 );
+	}
+}
@@ -0,0 +1,221 @@
+package benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import appDomain.TrackedWord;
+import appDomain.WordTracker;
+import appDomain.WordTrie;
+import implementations.AVLTree;
+import implementations.BSTree;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * Class Description: Compares WordTrie with BSTree and AVLTree as the
+ * repository: WordTracker.processFile into each, a search for every word,
+ * and the heap each keeps on top of the words it holds. Each is run on the
+ * input, on the input repeated (same vocabulary, more tokens) and on renamed
+ * copies of the input (vocabulary grows with the tokens, and the words share
+ * long prefixes). Run it with the same -Xmx on each version being compared.
+ *
+ * Usage: java benchmarks.TrieBenchmark [input.txt] [copies] [rounds]
+ */
+public class TrieBenchmark
+{
+	/** The kinds of repository compared, by name. */
+	private static final String[] NAMES = { "bst", "avl", "trie" };
+
+	/**
+	 * Writes the larger inputs to temporary files and times each repository
+	 * on them.
+	 *
+	 * @param args optional input file, number of copies and rounds
+	 * @throws Exception if a file cannot be written or read
+	 */
+	public static void main( String[] args ) throws Exception
+	{
+		String input = args.length > 0 ? args[0] : Corpus.DEFAULT_INPUT;
+		int copies = args.length > 1 ? Integer.parseInt( args[1] ) : 50;
+		int rounds = args.length > 2 ? Integer.parseInt( args[2] ) : 10;
+
+		List<String> lines = Files.readAllLines( new File( input ).toPath() );
+		File repeated = Corpus.writeCopies( lines, copies, false );
+		File renamed = Corpus.writeCopies( lines, copies, true );
+
+		// Compile the code being timed before the first numbers are taken
+		run( input, input, rounds, false );
+
+		System.out.printf( "%-16s %-5s %8s %12s %14s %14s%n", "input", "repo", "words", "ingest ms", "search ns/word",
+				"heap B/word" );
+		for( File file : new File[] { new File( input ), repeated, renamed } )
+		{
+			String name = file == repeated ? "repeated x" + copies
+					: file == renamed ? "renamed x" + copies : input.substring( input.lastIndexOf( '/' ) + 1 );
+			run( name, file.getPath(), rounds, true );
+		}
+	}
+
+	/**
+	 * Helper: makes an empty repository of the kind.
+	 */
+	private static BSTreeADT<TrackedWord> newTree( String name )
+	{
+		switch( name )
+		{
+			case "bst":
+				return new BSTree<>();
+			case "avl":
+				return new AVLTree<>();
+			default:
+				return new WordTrie();
+		}
+	}
+
+	/**
+	 * Helper: builds a repository of the kind from words in key order.
+	 */
+	private static BSTreeADT<TrackedWord> build( String name, List<TrackedWord> sorted )
+	{
+		switch( name )
+		{
+			case "bst":
+				return new BSTree<>( sorted );
+			case "avl":
+				return new AVLTree<>( sorted );
+			default:
+				return new WordTrie( sorted );
+		}
+	}
+
+	/**
+	 * Helper: ingests the file into each kind of repository, searches it for
+	 * every word and measures its heap, and prints one line for each unless
+	 * this is the warm-up run.
+	 */
+	private static void run( String name, String filename, int rounds, boolean print ) throws InterruptedException
+	{
+		List<String> expected = null;
+		for( String repo : NAMES )
+		{
+			long[] times = new long[2];
+			List<TrackedWord> words = ingestAndSearch( repo, filename, rounds, times );
+			List<String> keys = new ArrayList<>( words.size() );
+			for( TrackedWord word : words )
+				keys.add( word.getKey() );
+			if( expected == null )
+				expected = keys;
+			else if( !expected.equals( keys ) )
+				throw new IllegalStateException( repo + " holds different words" );
+
+			if( print )
+			{
+				double heap = retained( words, sorted -> build( repo, sorted ) );
+				System.out.printf( "%-16s %-5s %8d %12.2f %14.1f %14.1f%n", name, repo, words.size(),
+						times[0] / 1e6, (double)times[1] / words.size(), heap / words.size() );
+			}
+		}
+	}
+
+	/**
+	 * Helper: the best times of ingesting the file and of searching for every
+	 * word, in nanoseconds, stored in times. Returns the words in order; the
+	 * repository itself is unreachable once this returns, so it does not
+	 * count in the heap measured next.
+	 */
+	private static List<TrackedWord> ingestAndSearch( String repo, String filename, int rounds, long[] times )
+	{
+		long ingest = Long.MAX_VALUE;
+		BSTreeADT<TrackedWord> tree = null;
+		for( int round = 0; round < rounds; round++ )
+		{
+			tree = newTree( repo );
+			long start = System.nanoTime();
+			WordTracker.processFile( filename, tree );
+			ingest = Math.min( ingest, System.nanoTime() - start );
+		}
+
+		List<TrackedWord> words = new ArrayList<>( tree.size() );
+		List<TrackedWord> probes = new ArrayList<>( tree.size() );
+		Iterator<TrackedWord> it = tree.inorderIterator();
+		while( it.hasNext() )
+		{
+			TrackedWord word = it.next();
+			words.add( word );
+			probes.add( new TrackedWord( word.getKey() ) );
+		}
+		BSTreeADT<TrackedWord> searched = tree;
+		times[0] = ingest;
+		times[1] = best( rounds, () -> {
+			int found = 0;
+			for( TrackedWord probe : probes )
+				found += searched.search( probe ) != null ? 1 : 0;
+			return found;
+		} );
+		return words;
+	}
+
+	/**
+	 * Helper: best time in nanoseconds of the body over the rounds.
+	 */
+	private static long best( int rounds, Supplier<Integer> body )
+	{
+		long best = Long.MAX_VALUE;
+		int check = 0;
+		for( int round = 0; round < rounds; round++ )
+		{
+			long start = System.nanoTime();
+			check += body.get();
+			best = Math.min( best, System.nanoTime() - start );
+		}
+		if( check < 0 )
+			System.out.println( check );
+		return best;
+	}
+
+	/**
+	 * Helper: heap a repository built from the words keeps alive, not
+	 * counting the words themselves, which are already held by the list.
+	 * Enough repositories are built to hold about a million words between
+	 * them, so the collector's noise is small next to what is measured.
+	 */
+	private static double retained( List<TrackedWord> sorted,
+			Function<List<TrackedWord>, BSTreeADT<TrackedWord>> builder ) throws InterruptedException
+	{
+		int copies = Math.max( 1, 1000000 / Math.max( 1, sorted.size() ) );
+		List<BSTreeADT<TrackedWord>> trees = new ArrayList<>( copies );
+		long before = usedHeap();
+		for( int i = 0; i < copies; i++ )
+			trees.add( builder.apply( sorted ) );
+		long after = usedHeap();
+		for( BSTreeADT<TrackedWord> tree : trees )
+		{
+			if( tree.size() != sorted.size() )
+				throw new IllegalStateException( "Lost words" );
+		}
+		return (double)( after - before ) / copies;
+	}
+
+	/**
+	 * Helper: heap in use after collecting garbage until it stops shrinking.
+	 */
+	private static long usedHeap() throws InterruptedException
+	{
+		Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for( int i = 0; i < 10; i++ )
+		{
+			System.gc();
+			Thread.sleep( 50 );
+			long now = runtime.totalMemory() - runtime.freeMemory();
+			if( now >= used )
+				break;
+			used = now;
+		}
+		return used;
+	}
+}
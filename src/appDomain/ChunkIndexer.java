@@ -0,0 +1,201 @@
+package appDomain;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Indexes one large input file on several workers. The file is cut into
+// chunks just after a '\n' byte, each chunk is read by its own tokenizer into
+// its own WordTable with lines counted from 1, and the chunks are then moved
+// to their real line numbers and merged in file order. The result is the
+// same as WordTracker.processFile on the whole file.
+public class ChunkIndexer {
+
+    // Files smaller than this are read as a single chunk
+    static final int MIN_CHUNK_SIZE = 1024 * 1024;
+
+    // Chunks are made smaller than this when there are fewer workers than
+    // chunks of this size
+    static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    // Largest chunk that can be read, reached only by very long lines
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    // Size of the buffer used to find the end of a line
+    private static final int SCAN_SIZE = 8 * 1024;
+
+    // The words and line count of one chunk
+    private static class Chunk {
+        List<TrackedWord> words;
+        int lines;
+
+        // True if the chunk could not be decoded to the end
+        boolean stopped;
+    }
+
+    // Utility class, no instances
+    private ChunkIndexer() {
+    }
+
+    // Returns the words of the file in sorted order, read by the workers of
+    // the pool
+    public static List<TrackedWord> index(String filename, ForkJoinPool pool) throws IOException {
+        Charset charset = Charset.defaultCharset();
+        try (FileChannel channel = FileChannel.open(new File(filename).toPath(), StandardOpenOption.READ)) {
+            long[] bounds = split(channel, pool.getParallelism());
+
+            // A '\n' byte can only be a line end in charsets that extend ASCII,
+            // and a chunk has to fit in an array
+            if (bounds.length == 2 || "\n".getBytes(charset).length != 1 || longestChunk(bounds) > MAX_ARRAY_SIZE) {
+                return WordTracker.indexFile(filename);
+            }
+
+            // Read every chunk with lines counted from the start of the chunk
+            List<Callable<Chunk>> reads = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long start = bounds[i];
+                int length = (int) (bounds[i + 1] - start);
+                reads.add(() -> read(channel, start, length, filename, charset));
+            }
+            List<Chunk> chunks = getAll(pool.invokeAll(reads));
+
+            // Move each chunk to its place in the file. Reading stops at the
+            // first bytes that cannot be decoded, so later chunks are dropped too.
+            List<Callable<List<TrackedWord>>> shifts = new ArrayList<>();
+            int offset = 0;
+            for (Chunk chunk : chunks) {
+                int lines = offset;
+                shifts.add(() -> shift(chunk.words, filename, lines));
+                if (chunk.stopped) {
+                    break;
+                }
+                offset += chunk.lines;
+            }
+            List<List<TrackedWord>> lists = getAll(pool.invokeAll(shifts));
+
+            // Merge neighbouring chunks until one list is left
+            while (lists.size() > 1) {
+                List<Callable<List<TrackedWord>>> merges = new ArrayList<>();
+                for (int i = 0; i < lists.size(); i += 2) {
+                    List<TrackedWord> first = lists.get(i);
+                    List<TrackedWord> second = i + 1 < lists.size() ? lists.get(i + 1) : new ArrayList<>();
+                    merges.add(() -> IndexTask.merge(first, second));
+                }
+                lists = getAll(pool.invokeAll(merges));
+            }
+            return lists.get(0);
+        }
+    }
+
+    // Returns the chunk boundaries: 0, each chunk end, and the file size
+    static long[] split(FileChannel channel, int workers) throws IOException {
+        long size = channel.size();
+        long count = Math.max(1, Math.min(workers, size / MIN_CHUNK_SIZE));
+        count = Math.max(count, (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE);
+        for (long i = 1; i < count; i++) {
+            long last = bounds.get(bounds.size() - 1);
+            long end = lineEnd(channel, Math.max(size * i / count, last), buffer);
+            if (end > last && end < size) {
+                bounds.add(end);
+            }
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    // Length of the longest chunk
+    private static long longestChunk(long[] bounds) {
+        long longest = 0;
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            longest = Math.max(longest, bounds[i + 1] - bounds[i]);
+        }
+        return longest;
+    }
+
+    // Position just after the first '\n' at or after from, or the file size
+    private static long lineEnd(FileChannel channel, long from, ByteBuffer buffer) throws IOException {
+        long position = from;
+        while (true) {
+            buffer.clear();
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < n; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+    }
+
+    // Indexes one chunk into its own table
+    private static Chunk read(FileChannel channel, long start, int length, String filename, Charset charset)
+            throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, start + bytes.position()) < 0) {
+                throw new IOException("File changed while reading: " + filename);
+            }
+        }
+
+        WordTable table = new WordTable();
+        Chunk chunk = new Chunk();
+        WordTokenizer tokenizer = new WordTokenizer(WordTokenizer.newReader(
+                Channels.newChannel(new ByteArrayInputStream(bytes.array())), charset));
+        chunk.lines = tokenizer.indexLines(filename, table);
+        chunk.stopped = tokenizer.ioException() != null;
+        chunk.words = table.sortedWords();
+        return chunk;
+    }
+
+    // Adds offset to every line the words have in the file
+    private static List<TrackedWord> shift(List<TrackedWord> words, String filename, int offset) {
+        if (offset != 0) {
+            for (TrackedWord word : words) {
+                word.getFile(filename).shiftLines(offset);
+            }
+        }
+        return words;
+    }
+
+    // Waits for every task and returns their results in order
+    private static <T> List<T> getAll(List<Future<T>> futures) throws IOException {
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while indexing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to index chunk", e.getCause());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,64 @@
+package appDomain;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Gives every file name used in the repository a small int id, so words
+// store the ids of the files they appear in instead of the names. The table
+// is shared by every repository in the process and only grows; ids are not
+// saved, a saved repository numbers its own files.
+public final class FileTable {
+
+    // Ids of the names seen so far
+    private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    // Names indexed by id; replaced, never changed, when it grows
+    private static volatile String[] names = new String[16];
+
+    // Number of ids given out
+    private static volatile int size;
+
+    // Utility class, no instances
+    private FileTable() {
+    }
+
+    // Returns the id of the file name, giving it the next id if it is new
+    public static int idOf(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : add(name);
+    }
+
+    // Returns the id of the file name, or -1 if it has none
+    public static int find(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : -1;
+    }
+
+    // Returns the name of the file with the id
+    public static String nameOf(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("Unknown file id: " + id);
+        }
+        return names[id];
+    }
+
+    // Returns the number of file names in the table
+    public static int size() {
+        return size;
+    }
+
+    // Adds a name under the lock so every name gets exactly one id
+    private static synchronized int add(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size] = name;
+        size++;
+        ids.put(name, size - 1);
+        return size - 1;
+    }
+}
@@ -0,0 +1,127 @@
+package appDomain;
+
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Merges word indexes in one pass over their words in sorted order, instead
+// of looking each word of one index up in the other. Two indexes of n and m
+// words are merged in O(n + m) and the result is built balanced from the
+// merged list. A word in both indexes keeps the entry from the first, with
+// the occurrences from the second added after its own, so the words of the
+// first index are updated in place and end up shared with the result.
+public class IndexMerger {
+
+    // Utility class, no instances
+    private IndexMerger() {
+    }
+
+    // Merges two trees into a new balanced tree of the same kind as first
+    public static BSTreeADT<TrackedWord> merge(BSTreeADT<TrackedWord> first, BSTreeADT<TrackedWord> second) {
+        List<TrackedWord> words = merge(first.inorderIterator(), second.inorderIterator(),
+                first.size() + second.size());
+        return build(first, words);
+    }
+
+    // Merges sorted words into a tree, returning a new balanced tree of the
+    // same kind; the words are not changed
+    public static BSTreeADT<TrackedWord> merge(BSTreeADT<TrackedWord> tree, List<TrackedWord> sorted) {
+        List<TrackedWord> words = merge(tree.inorderIterator(), iterator(sorted), tree.size() + sorted.size());
+        return build(tree, words);
+    }
+
+    // Returns whether merging m sorted words into a tree of n words is
+    // cheaper than looking each of them up: m lookups cost about m log n
+    // comparisons, a merge about n + m steps
+    public static boolean isCheaper(int n, int m) {
+        int log = 32 - Integer.numberOfLeadingZeros(n);
+        return (long) m * log >= n;
+    }
+
+    // Merges two streams of words in sorted order into a sorted list
+    static List<TrackedWord> merge(Iterator<TrackedWord> first, Iterator<TrackedWord> second, int capacity) {
+        List<TrackedWord> merged = new ArrayList<>(capacity);
+        TrackedWord a = first.hasNext() ? first.next() : null;
+        TrackedWord b = second.hasNext() ? second.next() : null;
+        while (a != null && b != null) {
+            int cmp = a.compareTo(b);
+            if (cmp < 0) {
+                merged.add(a);
+                a = first.hasNext() ? first.next() : null;
+            } else if (cmp > 0) {
+                merged.add(b);
+                b = second.hasNext() ? second.next() : null;
+            } else {
+                a.merge(b);
+                merged.add(a);
+                a = first.hasNext() ? first.next() : null;
+                b = second.hasNext() ? second.next() : null;
+            }
+        }
+        for (; a != null; a = first.hasNext() ? first.next() : null) {
+            merged.add(a);
+        }
+        for (; b != null; b = second.hasNext() ? second.next() : null) {
+            merged.add(b);
+        }
+        return merged;
+    }
+
+    // Loads each repository file, merges them in the order given and saves
+    // the result as a repository of the same kind as the first
+    public static void mergeFiles(List<File> inputs, File output) throws IOException {
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("No repositories to merge");
+        }
+        BSTreeADT<TrackedWord> merged = load(inputs.get(0));
+        for (int i = 1; i < inputs.size(); i++) {
+            merged = merge(merged, load(inputs.get(i)));
+        }
+        RepositoryFile.save(merged, output);
+    }
+
+    // Loads a repository file and replays the journal kept next to it, as a
+    // normal run does, so runs saved with -journal are merged too. Unlike a
+    // normal run, a journal that cannot be read stops the merge instead of
+    // being left for the next save.
+    private static BSTreeADT<TrackedWord> load(File input) throws IOException {
+        BSTreeADT<TrackedWord> tree = RepositoryFile.load(input);
+        RepositoryJournal.forSnapshot(input).replay(tree);
+        return tree;
+    }
+
+    // Builds a balanced tree of the same kind as tree from sorted words
+    private static BSTreeADT<TrackedWord> build(BSTreeADT<TrackedWord> tree, List<TrackedWord> words) {
+        try {
+            return RepositoryFile.build(RepositoryFile.typeOf(tree), words);
+        } catch (IOException e) {
+            // typeOf only returns types build knows
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Reads a list with the tree iterator interface
+    static Iterator<TrackedWord> iterator(List<TrackedWord> words) {
+        return new Iterator<TrackedWord>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < words.size();
+            }
+
+            @Override
+            public TrackedWord next() throws NoSuchElementException {
+                if (next >= words.size()) {
+                    throw new NoSuchElementException();
+                }
+                return words.get(next++);
+            }
+        };
+    }
+}
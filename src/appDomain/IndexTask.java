@@ -0,0 +1,56 @@
+package appDomain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+// Indexes a range of input files on a ForkJoinPool. Each file is read into
+// its own WordTable and sorted once, and the sorted word lists are merged
+// pairwise on the way back up, earlier files first, so the result does not
+// depend on which worker ran which file.
+class IndexTask extends RecursiveTask<List<TrackedWord>> {
+
+    // Used for object serialization
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> filenames;
+    private final int from;
+    private final int to;
+
+    // Creates a task for all of the given files, in the order given
+    IndexTask(List<String> filenames) {
+        this(filenames, 0, filenames.size());
+    }
+
+    private IndexTask(List<String> filenames, int from, int to) {
+        this.filenames = filenames;
+        this.from = from;
+        this.to = to;
+    }
+
+    // Returns the words of the files in sorted order, each holding the
+    // occurrences of every file in the range
+    @Override
+    protected List<TrackedWord> compute() {
+        if (to - from == 0) {
+            return new ArrayList<>();
+        }
+        if (to - from == 1) {
+            return WordTracker.indexFile(filenames.get(from));
+        }
+
+        int middle = (from + to) >>> 1;
+        IndexTask left = new IndexTask(filenames, from, middle);
+        IndexTask right = new IndexTask(filenames, middle, to);
+        right.fork();
+        List<TrackedWord> first = left.compute();
+        return merge(first, right.join());
+    }
+
+    // Merges two sorted word lists. A word in both keeps the entry from
+    // first, with the occurrences from second added after its own.
+    static List<TrackedWord> merge(List<TrackedWord> first, List<TrackedWord> second) {
+        return IndexMerger.merge(IndexMerger.iterator(first), IndexMerger.iterator(second),
+                first.size() + second.size());
+    }
+}
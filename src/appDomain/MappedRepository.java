@@ -0,0 +1,625 @@
+package appDomain;
+
+import implementations.AVLTree;
+import implementations.BSTree;
+import implementations.BSTreeNode;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntPredicate;
+
+// Repository that reads a saved repository file through a memory mapping
+// instead of loading it into a tree. Words are found by binary search over
+// the key index of the file and turned into TrackedWord objects only when
+// they are looked up. Those words, and any new ones, are kept in a small
+// in-memory tree; save() writes them back and copies every other entry of
+// the old file unchanged, so heap use and start-up time depend on the words
+// touched rather than on the size of the repository.
+//
+// The file must use version 2 or later of the RepositoryFile format and be
+// smaller than 2 GB. Nodes are only kept for materialized words, so getRoot()
+// is not supported and range queries search the key index instead.
+public class MappedRepository implements BSTreeADT<TrackedWord> {
+
+    // Used for object serialization
+    private static final long serialVersionUID = 1L;
+
+    // The mapped file, or null for a repository that has not been saved yet
+    private transient MappedByteBuffer map;
+
+    // Tree type recorded in the file header
+    private byte type = RepositoryFile.TYPE_BST;
+
+    // FileTable ids of the files of the mapped file, indexed by their id in
+    // the file
+    private int[] fileIds = new int[0];
+
+    // Number of words in the mapped file
+    private int wordCount;
+
+    // Offset of the key index in the mapped file
+    private long indexOffset;
+
+    // Mapped words still in the repository are positions first..last; words
+    // removed by removeMin/removeMax are always at either end
+    private int first;
+    private int last = -1;
+
+    // Words looked up from the file plus words added since it was mapped
+    private final BSTree<TrackedWord> materialized = new AVLTree<>();
+
+    // How many of the materialized words also exist in the mapped file
+    private int fromFile;
+
+    // Number of structural modifications, used by the in-order iterator
+    private transient int modCount;
+
+    // Creates an empty repository that is not backed by a file yet
+    public MappedRepository() {
+        materialized.setIteratorMode(BSTree.IteratorMode.FAIL_FAST);
+    }
+
+    // Maps the repository file, or returns an empty repository if it does not exist
+    public static MappedRepository open(File file) throws IOException {
+        MappedRepository repository = new MappedRepository();
+        if (file.exists()) {
+            repository.map(file);
+        }
+        return repository;
+    }
+
+    // Maps the file and reads its header, file table and trailer; the words
+    // in memory are left to the caller
+    private void map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Repository too large to map: " + file);
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                if (data.getInt(0) != RepositoryFile.MAGIC) {
+                    throw new IOException("Not a repository file: " + file);
+                }
+                int version = data.getInt(4);
+                if (version < 2 || version > RepositoryFile.VERSION) {
+                    throw new IOException("Repository version " + version + " has no key index: " + file);
+                }
+                RepositoryFile.Input in = new RepositoryFile.Input(at(data, 8));
+                byte newType = in.readByte();
+                int[] newIds = new int[in.readInt()];
+                int newCount = in.readInt();
+                for (int i = 0; i < newIds.length; i++) {
+                    newIds[i] = FileTable.idOf(in.readString());
+                }
+                long newIndex = data.getLong(data.limit() - 8);
+                if (newIndex < 0 || newIndex + (long) newCount * RepositoryFile.INDEX_ENTRY_SIZE + 8 != data.limit()) {
+                    throw new IOException("Corrupt repository index: " + file);
+                }
+
+                map = data;
+                type = newType;
+                fileIds = newIds;
+                wordCount = newCount;
+                indexOffset = newIndex;
+                first = 0;
+                last = newCount - 1;
+            } catch (IndexOutOfBoundsException | NegativeArraySizeException e) {
+                throw new IOException("Corrupt repository file: " + file, e);
+            }
+        }
+        modCount++;
+    }
+
+    // Releases the mapping now instead of when the buffer is collected, since
+    // a file that is still mapped cannot be replaced on every platform (on
+    // Windows the move fails). Java has no public call for this, so the JDK's
+    // own cleaner for direct buffers is used: Unsafe.invokeCleaner from Java 9,
+    // the buffer's cleaner() on Java 8. If neither can be reached the mapping
+    // stays until the buffer is collected, as before. The buffer must not be
+    // read again afterwards.
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            return;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Not Java 9 or later, try the Java 8 way
+        }
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Left to the garbage collector
+        }
+    }
+
+    // Returns a view of the mapped data starting at the given offset
+    private static ByteBuffer at(ByteBuffer data, long offset) {
+        ByteBuffer view = data.duplicate();
+        view.position((int) offset);
+        return view;
+    }
+
+    // Offset of the word entry of the mapped word at position i
+    private long wordOffset(int i) {
+        return map.getLong((int) (indexOffset + (long) i * RepositoryFile.INDEX_ENTRY_SIZE));
+    }
+
+    // Offset of the postings entry of the mapped word at position i
+    private long postingsOffset(int i) {
+        return map.getLong((int) (indexOffset + (long) i * RepositoryFile.INDEX_ENTRY_SIZE + 8));
+    }
+
+    // Reads the key of the mapped word at position i
+    private String keyAt(int i) {
+        try {
+            return new RepositoryFile.Input(at(map, wordOffset(i))).readString();
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt repository entry " + i, e);
+        }
+    }
+
+    // Decodes the mapped word at position i with all of its postings
+    private TrackedWord wordAt(int i) {
+        try {
+            TrackedWord word = RepositoryFile.readWord(new RepositoryFile.Input(at(map, wordOffset(i))));
+            RepositoryFile.readPostings(new RepositoryFile.Input(at(map, postingsOffset(i))), word, fileIds);
+            return word;
+        } catch (IOException | IndexOutOfBoundsException e) {
+            throw new IllegalStateException("Corrupt repository entry " + i, e);
+        }
+    }
+
+    // Binary searches the remaining mapped words for the key, returns the
+    // position or -1
+    private int find(String key) {
+        int lo = first;
+        int hi = last;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = key.compareTo(keyAt(mid));
+            if (cmp == 0) {
+                return mid;
+            } else if (cmp < 0) {
+                hi = mid - 1;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return -1;
+    }
+
+    // Looks the entry up in memory and then in the file, materializing it if
+    // it is only in the file; returns null if it is in neither
+    private BSTreeNode<TrackedWord> lookup(TrackedWord entry) {
+        BSTreeNode<TrackedWord> node = materialized.search(entry);
+        if (node == null) {
+            int position = find(entry.getKey());
+            if (position >= 0) {
+                TrackedWord word = wordAt(position);
+                materialized.add(word);
+                fromFile++;
+                node = materialized.search(word);
+            }
+        }
+        return node;
+    }
+
+    // Returns how many words have been turned into objects so far
+    public int materializedCount() {
+        return materialized.size();
+    }
+
+    // Not supported: only materialized words have nodes, which is why
+    // rangeIterator is overridden rather than walking down from a root
+    @Override
+    public BSTreeNode<TrackedWord> getRoot() throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("A mapped repository has no node structure");
+    }
+
+    // The mapping cannot be serialized; use save() instead
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        throw new NotSerializableException("MappedRepository is saved with save(File)");
+    }
+
+    // Returns the number of steps a binary search over the words may take
+    @Override
+    public int getHeight() {
+        return 32 - Integer.numberOfLeadingZeros(size());
+    }
+
+    // Returns the number of words in the file plus the words added
+    @Override
+    public int size() {
+        return (last - first + 1) + (materialized.size() - fromFile);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // Drops every word; the file is only replaced by the next save
+    @Override
+    public void clear() {
+        first = 0;
+        last = -1;
+        materialized.clear();
+        fromFile = 0;
+        modCount++;
+    }
+
+    // Checks the words in memory and then the file, without materializing
+    @Override
+    public boolean contains(TrackedWord entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException("Null entry");
+        }
+        return materialized.contains(entry) || find(entry.getKey()) >= 0;
+    }
+
+    // Returns the node of the word, materializing it from the file if needed
+    @Override
+    public BSTreeNode<TrackedWord> search(TrackedWord entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException("Null entry");
+        }
+        return lookup(entry);
+    }
+
+    // Adds the word unless it is already in memory or in the file
+    @Override
+    public boolean add(TrackedWord newEntry) throws NullPointerException {
+        int before = size();
+        getOrAdd(newEntry);
+        return size() != before;
+    }
+
+    // Returns the stored word, materializing it from the file if needed, or
+    // adds the entry if the word is new
+    @Override
+    public TrackedWord getOrAdd(TrackedWord newEntry) throws NullPointerException {
+        if (newEntry == null) {
+            throw new NullPointerException("Null entry");
+        }
+        BSTreeNode<TrackedWord> node = lookup(newEntry);
+        if (node != null) {
+            return node.getElement();
+        }
+        materialized.add(newEntry);
+        modCount++;
+        return newEntry;
+    }
+
+    // Removes the smallest word, whether it is in memory or only in the file
+    @Override
+    public BSTreeNode<TrackedWord> removeMin() {
+        return removeEnd(true);
+    }
+
+    // Removes the largest word, whether it is in memory or only in the file
+    @Override
+    public BSTreeNode<TrackedWord> removeMax() {
+        return removeEnd(false);
+    }
+
+    // Removes the smallest or largest word
+    private BSTreeNode<TrackedWord> removeEnd(boolean min) {
+        if (isEmpty()) {
+            return null;
+        }
+        int position = min ? first : last;
+        TrackedWord memory = materialized.isEmpty() ? null : end(min);
+
+        // Negative if the word at this end is only in the file, positive if it
+        // is only in memory, zero if it was materialized from the file
+        int cmp;
+        if (first > last) {
+            cmp = 1;
+        } else if (memory == null) {
+            cmp = -1;
+        } else {
+            cmp = keyAt(position).compareTo(memory.getKey());
+            if (!min) {
+                cmp = -cmp;
+            }
+        }
+
+        BSTreeNode<TrackedWord> removed;
+        if (cmp < 0) {
+            removed = new BSTreeNode<>(wordAt(position));
+        } else {
+            removed = min ? materialized.removeMin() : materialized.removeMax();
+            if (cmp == 0) {
+                fromFile--;
+            }
+        }
+        if (cmp <= 0) {
+            if (min) {
+                first++;
+            } else {
+                last--;
+            }
+        }
+        modCount++;
+        return removed;
+    }
+
+    // Returns the smallest or largest materialized word
+    private TrackedWord end(boolean min) {
+        BSTreeNode<TrackedWord> node = materialized.getRoot();
+        while ((min ? node.getLeft() : node.getRight()) != null) {
+            node = min ? node.getLeft() : node.getRight();
+        }
+        return node.getElement();
+    }
+
+    // Iterates every word in sorted order, merging the file with the words in
+    // memory; words only in the file are decoded one at a time and not kept
+    @Override
+    public Iterator<TrackedWord> inorderIterator() {
+        return new MergeIterator(materialized.inorderIterator(), first, last);
+    }
+
+    // Iterates the words within the bounds in sorted order: two binary
+    // searches find the mapped words in range, and only those are decoded
+    @Override
+    public Iterator<TrackedWord> rangeIterator(Comparable<? super TrackedWord> low, boolean lowInclusive,
+                                               Comparable<? super TrackedWord> high, boolean highInclusive) {
+        Iterator<TrackedWord> memory = materialized.rangeIterator(low, lowInclusive, high, highInclusive);
+        int from = first;
+        if (low != null) {
+            from = firstWhere(position -> {
+                int cmp = low.compareTo(new TrackedWord(keyAt(position)));
+                return cmp < 0 || (cmp == 0 && lowInclusive);
+            });
+        }
+        int to = last;
+        if (high != null) {
+            to = firstWhere(position -> {
+                int cmp = high.compareTo(new TrackedWord(keyAt(position)));
+                return cmp < 0 || (cmp == 0 && !highInclusive);
+            }) - 1;
+        }
+        return new MergeIterator(memory, from, to);
+    }
+
+    // Counts the words before the entry with a binary search over the mapped
+    // words; words added since the file was saved are counted by a walk
+    @Override
+    public int rank(TrackedWord entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException("Null entry");
+        }
+        if (materialized.size() != fromFile) {
+            return BSTreeADT.super.rank(entry);
+        }
+        return firstWhere(position -> entry.getKey().compareTo(keyAt(position)) <= 0) - first;
+    }
+
+    // Returns the word at the index, decoding only that one word unless
+    // words were added since the file was saved
+    @Override
+    public TrackedWord select(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        if (materialized.size() != fromFile) {
+            return BSTreeADT.super.select(index);
+        }
+        return lookup(new TrackedWord(keyAt(first + index))).getElement();
+    }
+
+    // Binary searches the remaining mapped words for the first position the
+    // test holds for, or last + 1; the test must hold for every position
+    // after one it holds for
+    private int firstWhere(IntPredicate test) {
+        int lo = first;
+        int hi = last + 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (test.test(mid)) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    // Pre-order has no meaning without nodes; this materializes a balanced
+    // copy of the whole repository
+    @Override
+    public Iterator<TrackedWord> preorderIterator() {
+        return balancedCopy().preorderIterator();
+    }
+
+    // Post-order has no meaning without nodes; this materializes a balanced
+    // copy of the whole repository
+    @Override
+    public Iterator<TrackedWord> postorderIterator() {
+        return balancedCopy().postorderIterator();
+    }
+
+    // Builds a balanced tree holding every word
+    private BSTree<TrackedWord> balancedCopy() {
+        List<TrackedWord> words = new ArrayList<>(size());
+        Iterator<TrackedWord> it = inorderIterator();
+        while (it.hasNext()) {
+            words.add(it.next());
+        }
+        return new BSTree<>(words);
+    }
+
+    // Writes the repository to the file and maps the new file; materialized
+    // words are written from memory and all other entries are copied as bytes.
+    // The old file is unmapped before the new one replaces it, so the same
+    // repository can be saved any number of times
+    public void save(File file) throws IOException {
+        // Keep the old file ids and append files that are new in memory
+        RepositoryFile.FileIds ids = new RepositoryFile.FileIds();
+        for (int fileId : fileIds) {
+            ids.add(fileId);
+        }
+        Iterator<TrackedWord> memory = materialized.inorderIterator();
+        while (memory.hasNext()) {
+            ids.addAll(memory.next());
+        }
+
+        File temp = new File(file.getPath() + ".tmp");
+        int total = size();
+        try (RepositoryFile.Output out = RepositoryFile.Output.create(temp)) {
+            RepositoryFile.writeHeader(out, type, ids.names(), total);
+            long[] wordOffsets = new long[total];
+            long[] postingsOffsets = new long[total];
+
+            for (int pass = 0; pass < 2; pass++) {
+                boolean words = pass == 0;
+                int i = 0;
+                int position = first;
+                memory = materialized.inorderIterator();
+                TrackedWord next = memory.hasNext() ? memory.next() : null;
+                while (position <= last || next != null) {
+                    int cmp = position > last ? 1
+                            : next == null ? -1 : keyAt(position).compareTo(next.getKey());
+                    if (words) {
+                        wordOffsets[i] = out.position();
+                    } else {
+                        postingsOffsets[i] = out.position();
+                    }
+                    if (cmp < 0) {
+                        // Unchanged word, copy its entry
+                        out.write(words ? wordBytes(position) : postingsBytes(position));
+                        position++;
+                    } else {
+                        if (words) {
+                            RepositoryFile.writeWord(out, next);
+                        } else {
+                            RepositoryFile.writePostings(out, next, ids);
+                        }
+                        if (cmp == 0) {
+                            position++;
+                        }
+                        next = memory.hasNext() ? memory.next() : null;
+                    }
+                    i++;
+                }
+            }
+            RepositoryFile.writeIndex(out, wordOffsets, postingsOffsets);
+        }
+
+        // Everything still needed from the old mapping is in the temporary
+        // file now; nothing may read the old buffer once it is unmapped
+        MappedByteBuffer old = map;
+        int oldFirst = first;
+        int oldLast = last;
+        map = null;
+        modCount++;
+        if (old != null) {
+            unmap(old);
+        }
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // The old file is unchanged; map it again so nothing is lost
+            if (old != null) {
+                try {
+                    map(file);
+                    first = oldFirst;
+                    last = oldLast;
+                } catch (IOException remap) {
+                    e.addSuppressed(remap);
+                }
+            }
+            throw e;
+        }
+        map(file);
+        materialized.clear();
+        fromFile = 0;
+    }
+
+    // Bytes of the word entry of the mapped word at position i
+    private ByteBuffer wordBytes(int i) {
+        long end = i + 1 < wordCount ? wordOffset(i + 1) : postingsOffset(0);
+        return slice(wordOffset(i), end);
+    }
+
+    // Bytes of the postings entry of the mapped word at position i
+    private ByteBuffer postingsBytes(int i) {
+        long end = i + 1 < wordCount ? postingsOffset(i + 1) : indexOffset;
+        return slice(postingsOffset(i), end);
+    }
+
+    // Returns the mapped bytes between two offsets
+    private ByteBuffer slice(long start, long end) {
+        ByteBuffer view = at(map, start);
+        view.limit((int) end);
+        return view;
+    }
+
+    // Merges mapped words from..to with materialized words in order
+    private class MergeIterator implements Iterator<TrackedWord> {
+        private final int expectedModCount = modCount;
+        private final Iterator<TrackedWord> memory;
+        private TrackedWord nextMemory;
+        private int position;
+        private final int end;
+
+        MergeIterator(Iterator<TrackedWord> memory, int from, int to) {
+            this.memory = memory;
+            nextMemory = memory.hasNext() ? memory.next() : null;
+            position = from;
+            end = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position <= end || nextMemory != null;
+        }
+
+        @Override
+        public TrackedWord next() throws NoSuchElementException {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (nextMemory != null) {
+                int cmp = position > end ? 1 : keyAt(position).compareTo(nextMemory.getKey());
+                if (cmp >= 0) {
+                    TrackedWord word = nextMemory;
+                    nextMemory = memory.hasNext() ? memory.next() : null;
+                    if (cmp == 0) {
+                        position++;
+                    }
+                    return word;
+                }
+            }
+            return wordAt(position++);
+        }
+    }
+}
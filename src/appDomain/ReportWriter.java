@@ -0,0 +1,121 @@
+package appDomain;
+
+import utilities.Iterator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+// Writes the -pf, -pl, -po or -pt report one word at a time while the tree is
+// iterated, so the report is never held in memory. Nothing is copied for a
+// word: file names come from the FileTable, lines straight from each
+// FileInfo, and numbers are formatted into a reused buffer.
+public class ReportWriter {
+
+    private final Writer out;
+    private final String option;
+
+    // Whether line numbers are written, for -pl and -po
+    private final boolean lines;
+
+    // Whether the total number of occurrences is written, for -po and -pt
+    private final boolean totals;
+
+    // Digits of the number being written, filled from the end
+    private final char[] digits = new char[11];
+
+    // Creates a writer for the option; the caller buffers and closes out
+    public ReportWriter(Writer out, String option) {
+        if (!isOption(option)) {
+            throw new IllegalArgumentException("Invalid option: " + option);
+        }
+        this.out = out;
+        this.option = option;
+        this.lines = option.equals("-pl") || option.equals("-po");
+        this.totals = option.equals("-po") || option.equals("-pt");
+    }
+
+    // Returns whether the option is one of the report formats
+    public static boolean isOption(String option) {
+        return option.equals("-pf") || option.equals("-pl") || option.equals("-po") || option.equals("-pt");
+    }
+
+    // Writes the whole report: the header, then every word in iterator order
+    public void write(Iterator<TrackedWord> words) throws IOException {
+        writeHeader();
+        while (words.hasNext()) {
+            writeWord(words.next());
+        }
+        out.flush();
+    }
+
+    // Writes the whole report for words already picked, such as the -pt
+    // words from TopWords, in list order
+    public void write(List<TrackedWord> words) throws IOException {
+        writeHeader();
+        for (TrackedWord word : words) {
+            writeWord(word);
+        }
+        out.flush();
+    }
+
+    // Writes the line naming the format
+    public void writeHeader() throws IOException {
+        out.write("Displaying ");
+        out.write(option);
+        out.write(" format\n");
+    }
+
+    // Writes the line of one word
+    public void writeWord(TrackedWord word) throws IOException {
+        out.write("Key : ===");
+        out.write(word.getDisplayWord());
+        out.write("===");
+
+        // -po and -pt show the total number of times the word appears
+        if (totals) {
+            out.write(" number of entries: ");
+            writeNumber(word.getTotalCount());
+        }
+
+        for (int f = 0; f < word.getFileCount(); f++) {
+            // Files are separated by a space, and -pl, -po and -pt also put
+            // one before the first
+            if (f > 0 || lines || totals) {
+                out.write(' ');
+            }
+            out.write("found in file: ");
+            out.write(FileTable.nameOf(word.getFileId(f)));
+
+            if (lines) {
+                out.write(" on lines: ");
+                PrimitiveIterator.OfInt it = word.getFileInfo(f).lineIterator();
+                while (it.hasNext()) {
+                    writeNumber(it.nextInt());
+                    out.write(',');
+                }
+            }
+        }
+
+        out.write(System.lineSeparator());
+    }
+
+    // Writes a number in decimal without making a String
+    private void writeNumber(int value) throws IOException {
+        if (value == Integer.MIN_VALUE) {
+            out.write(Integer.toString(value));
+            return;
+        }
+        int pos = digits.length;
+        int n = Math.abs(value);
+        do {
+            digits[--pos] = (char) ('0' + n % 10);
+            n /= 10;
+        } while (n > 0);
+        if (value < 0) {
+            digits[--pos] = '-';
+        }
+        out.write(digits, pos, digits.length - pos);
+    }
+}
@@ -0,0 +1,474 @@
+package appDomain;
+
+import implementations.AVLTree;
+import implementations.ArrayBSTree;
+import implementations.BSTree;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+// Reads and writes the repository in a compact, versioned binary format.
+//
+// Layout (all fixed-size numbers big-endian):
+//   header    magic "WTRP", int version, byte tree type, int file count,
+//             int word count
+//   files     file count strings, the index of a file is its id
+//   words     word count entries in sorted order: key string, then a flag
+//             byte and the display string if it differs from the key
+//   postings  one entry per word in the same order: varint file count, then
+//             for each file varint id, varint count, varint line count and
+//             the lines as zigzag varint deltas
+//   index     (version 2) one entry per word: long offset of its word entry
+//             and long offset of its postings entry
+//   trailer   (version 2) long offset of the index
+//
+// Strings are a varint byte length followed by UTF-8 bytes. The index lets
+// MappedRepository binary search the words without reading the whole file.
+public class RepositoryFile {
+
+    // Identifies a repository file
+    static final int MAGIC = 0x57545250;
+
+    // Current format version
+    static final int VERSION = 2;
+
+    // Tree types stored in the header so a repository reloads as the same kind
+    static final byte TYPE_BST = 0;
+    static final byte TYPE_AVL = 1;
+    static final byte TYPE_POOL = 2;
+    static final byte TYPE_TRIE = 3;
+
+    // Size of the header: magic, version, tree type, file count, word count
+    static final int HEADER_SIZE = 17;
+
+    // Size of one index entry: word offset and postings offset
+    static final int INDEX_ENTRY_SIZE = 16;
+
+    // Size of the NIO buffers used for reading and writing
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Utility class, no instances
+    private RepositoryFile() {
+    }
+
+    // Writes the tree to the file, replacing it only once the write succeeded
+    public static void save(BSTreeADT<TrackedWord> tree, File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+
+        // First pass: give every file an id in this file
+        FileIds fileIds = new FileIds();
+        Iterator<TrackedWord> it = tree.inorderIterator();
+        while (it.hasNext()) {
+            fileIds.addAll(it.next());
+        }
+
+        try (Output out = Output.create(temp)) {
+            writeHeader(out, typeOf(tree), fileIds.names(), tree.size());
+            long[] wordOffsets = new long[tree.size()];
+            long[] postingsOffsets = new long[tree.size()];
+
+            // Second pass: the words in sorted order
+            int i = 0;
+            it = tree.inorderIterator();
+            while (it.hasNext()) {
+                wordOffsets[i++] = out.position();
+                writeWord(out, it.next());
+            }
+
+            // Third pass: the postings of each word
+            i = 0;
+            it = tree.inorderIterator();
+            while (it.hasNext()) {
+                postingsOffsets[i++] = out.position();
+                writePostings(out, it.next(), fileIds);
+            }
+
+            writeIndex(out, wordOffsets, postingsOffsets);
+        }
+
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Reads a repository written by save and rebuilds it as a balanced tree
+    public static BSTreeADT<TrackedWord> load(File file) throws IOException {
+        try (Input in = new Input(FileChannel.open(file.toPath(), StandardOpenOption.READ))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a repository file: " + file);
+            }
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported repository version " + version + ": " + file);
+            }
+            byte type = in.readByte();
+            int[] fileIds = new int[in.readInt()];
+            int wordCount = in.readInt();
+
+            for (int i = 0; i < fileIds.length; i++) {
+                fileIds[i] = FileTable.idOf(in.readString());
+            }
+
+            List<TrackedWord> words = new ArrayList<>(wordCount);
+            for (int i = 0; i < wordCount; i++) {
+                words.add(readWord(in));
+            }
+
+            // The postings follow in the same order; the index is not needed
+            for (TrackedWord word : words) {
+                readPostings(in, word, fileIds);
+            }
+
+            // The words are already sorted, so the tree is built in O(n)
+            return build(type, words);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Corrupt repository file: " + file, e);
+        }
+    }
+
+    // Writes the header and the file name table
+    static void writeHeader(Output out, byte type, List<String> fileNames, int wordCount) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeByte(type);
+        out.writeInt(fileNames.size());
+        out.writeInt(wordCount);
+        for (String name : fileNames) {
+            out.writeString(name);
+        }
+    }
+
+    // Writes the entry of a word in the words section
+    static void writeWord(Output out, TrackedWord word) throws IOException {
+        out.writeString(word.getKey());
+        if (word.getDisplayWord().equals(word.getKey())) {
+            out.writeByte(0);
+        } else {
+            out.writeByte(1);
+            out.writeString(word.getDisplayWord());
+        }
+    }
+
+    // Reads the entry of a word in the words section
+    static TrackedWord readWord(Input in) throws IOException {
+        String key = in.readString();
+        String display = in.readByte() == 0 ? key : in.readString();
+        return new TrackedWord(key, display);
+    }
+
+    // Writes the postings entry of a word using the given file ids
+    static void writePostings(Output out, TrackedWord word, FileIds fileIds) throws IOException {
+        out.writeVarInt(word.getFileCount());
+        for (int f = 0; f < word.getFileCount(); f++) {
+            TrackedWord.FileInfo fi = word.getFileInfo(f);
+            out.writeVarInt(fileIds.get(word.getFileId(f)));
+            out.writeVarInt(fi.getCount());
+            out.writeVarInt(fi.getLineCount());
+            int previous = 0;
+            PrimitiveIterator.OfInt lines = fi.lineIterator();
+            while (lines.hasNext()) {
+                int line = lines.nextInt();
+                out.writeVarInt(zigzag(line - previous));
+                previous = line;
+            }
+        }
+    }
+
+    // Reads a postings entry into the word; fileIds maps the ids in the file
+    // to FileTable ids
+    static void readPostings(Input in, TrackedWord word, int[] fileIds) throws IOException {
+        int fileCount = in.readVarInt();
+        for (int f = 0; f < fileCount; f++) {
+            int fileId = fileIds[in.readVarInt()];
+            TrackedWord.FileInfo fi = word.loadFile(fileId, in.readVarInt());
+            int lineCount = in.readVarInt();
+            int line = 0;
+            for (int l = 0; l < lineCount; l++) {
+                line += unzigzag(in.readVarInt());
+                fi.loadLine(line);
+            }
+        }
+    }
+
+    // Writes the key index and the trailer that points at it
+    static void writeIndex(Output out, long[] wordOffsets, long[] postingsOffsets) throws IOException {
+        long indexOffset = out.position();
+        for (int i = 0; i < wordOffsets.length; i++) {
+            out.writeLong(wordOffsets[i]);
+            out.writeLong(postingsOffsets[i]);
+        }
+        out.writeLong(indexOffset);
+    }
+
+    // Builds a balanced tree of the given type from sorted words
+    static BSTreeADT<TrackedWord> build(byte type, List<TrackedWord> words) throws IOException {
+        switch (type) {
+            case TYPE_BST:
+                return new BSTree<>(words);
+            case TYPE_AVL:
+                return new AVLTree<>(words);
+            case TYPE_POOL:
+                return new ArrayBSTree<>(words);
+            case TYPE_TRIE:
+                return new WordTrie(words);
+            default:
+                throw new IOException("Unknown tree type " + type);
+        }
+    }
+
+    // Returns the header code for the kind of tree being saved
+    static byte typeOf(BSTreeADT<TrackedWord> tree) {
+        if (tree instanceof AVLTree) {
+            return TYPE_AVL;
+        } else if (tree instanceof ArrayBSTree) {
+            return TYPE_POOL;
+        } else if (tree instanceof WordTrie) {
+            return TYPE_TRIE;
+        }
+        return TYPE_BST;
+    }
+
+    // Maps a signed delta to an unsigned value so small negatives stay small
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    // Reverses zigzag
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Numbers the files of the words being written in the order they are
+    // first seen, so a saved file keeps its own small ids and names
+    static class FileIds {
+
+        // Local id + 1 of each FileTable id, 0 for files not numbered yet
+        private int[] local = new int[FileTable.size()];
+
+        // Names of the files in local id order
+        private final List<String> names = new ArrayList<>();
+
+        // Gives the file the next local id if it has none yet
+        void add(int fileId) {
+            if (fileId >= local.length) {
+                local = Arrays.copyOf(local, Math.max(fileId + 1, local.length * 2));
+            }
+            if (local[fileId] == 0) {
+                names.add(FileTable.nameOf(fileId));
+                local[fileId] = names.size();
+            }
+        }
+
+        // Gives local ids to the files of the word
+        void addAll(TrackedWord word) {
+            for (int f = 0; f < word.getFileCount(); f++) {
+                add(word.getFileId(f));
+            }
+        }
+
+        // Returns the local id of a file that was added
+        int get(int fileId) {
+            return local[fileId] - 1;
+        }
+
+        // Returns the names of the files in local id order
+        List<String> names() {
+            return names;
+        }
+    }
+
+    // Buffered writer on top of a channel, usually a FileChannel
+    static class Output implements AutoCloseable {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        // Bytes already handed to the channel
+        private long written;
+
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        // Opens a new, empty file for writing
+        static Output create(File file) throws IOException {
+            return new Output(FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+        }
+
+        // Makes room for at least n more bytes
+        private void reserve(int n) throws IOException {
+            if (buffer.remaining() < n) {
+                flush();
+            }
+        }
+
+        void writeByte(int value) throws IOException {
+            reserve(1);
+            buffer.put((byte) value);
+        }
+
+        void writeInt(int value) throws IOException {
+            reserve(4);
+            buffer.putInt(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            reserve(8);
+            buffer.putLong(value);
+        }
+
+        // Writes an unsigned value in 7-bit groups, low group first
+        void writeVarInt(int value) throws IOException {
+            reserve(5);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                reserve(1);
+                int n = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, n);
+                offset += n;
+            }
+        }
+
+        // Copies the remaining bytes of src, used to copy entries unchanged
+        void write(ByteBuffer src) throws IOException {
+            if (src.remaining() > buffer.capacity()) {
+                flush();
+                while (src.hasRemaining()) {
+                    written += channel.write(src);
+                }
+                return;
+            }
+            reserve(src.remaining());
+            buffer.put(src);
+        }
+
+        // Number of bytes written so far
+        long position() {
+            return written + buffer.position();
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // Buffered reader on top of a FileChannel, or over a buffer that already
+    // holds the data such as a mapped file
+    static class Input implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        Input(FileChannel channel) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.flip();
+        }
+
+        Input(ByteBuffer data) {
+            this.channel = null;
+            this.buffer = data;
+        }
+
+        // Makes sure at least n bytes are buffered
+        private void require(int n) throws IOException {
+            if (buffer.remaining() >= n) {
+                return;
+            }
+            if (channel == null) {
+                throw new EOFException("Repository file is truncated");
+            }
+            buffer.compact();
+            while (buffer.position() < n) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Repository file is truncated");
+                }
+            }
+            buffer.flip();
+        }
+
+        byte readByte() throws IOException {
+            require(1);
+            return buffer.get();
+        }
+
+        int readInt() throws IOException {
+            require(4);
+            return buffer.getInt();
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in repository file");
+        }
+
+        String readString() throws IOException {
+            int length = readVarInt();
+            if (buffer.hasArray() && length <= buffer.capacity()) {
+                require(length);
+                String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                        length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+                return value;
+            }
+            byte[] bytes = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                require(1);
+                int n = Math.min(buffer.remaining(), length - offset);
+                buffer.get(bytes, offset, n);
+                offset += n;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            // A buffer has no channel to close
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
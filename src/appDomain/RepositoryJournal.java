@@ -0,0 +1,232 @@
+package appDomain;
+
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// Append-only log of the occurrences added by each run, kept next to the
+// repository snapshot so a small run does not have to rewrite the snapshot.
+//
+// Layout (all fixed-size numbers big-endian):
+//   header    magic "WTRJ", int version, long length and long last-modified
+//             time of the snapshot the journal applies to
+//   records   one per run: int payload length, int CRC32 of the payload,
+//             then the payload: varint file count, the file names, varint
+//             word count, and for each word its word entry followed by its
+//             postings entry as in RepositoryFile
+//
+// A record that is cut short or fails its checksum ends the journal; it is
+// what is left of a run that did not finish appending, and is cut off
+// before the next append.
+public class RepositoryJournal {
+
+    // Identifies a journal file
+    static final int MAGIC = 0x5754524A;
+
+    // Current journal version
+    static final int VERSION = 1;
+
+    // Size of the header: magic, version, snapshot length and time
+    static final int HEADER_SIZE = 24;
+
+    // Size of the length and checksum in front of each record
+    static final int RECORD_HEADER_SIZE = 8;
+
+    // Journals smaller than this are never compacted
+    static final long MIN_COMPACT_SIZE = 256 * 1024;
+
+    private final File file;
+    private final File snapshot;
+
+    // End of the last complete record found by replay
+    private long validLength;
+
+    // Creates a journal for the given snapshot file
+    public RepositoryJournal(File file, File snapshot) {
+        this.file = file;
+        this.snapshot = snapshot;
+    }
+
+    // Returns the journal kept next to a snapshot, named after it with the
+    // extension .journal: repository.bin has repository.journal
+    public static RepositoryJournal forSnapshot(File snapshot) {
+        String name = snapshot.getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return new RepositoryJournal(new File(snapshot.getParentFile(), base + ".journal"), snapshot);
+    }
+
+    // Applies every complete record to the tree loaded from the snapshot and
+    // returns how many were applied. A journal written for another snapshot
+    // is left alone; the next save replaces it.
+    public int replay(BSTreeADT<TrackedWord> tree) throws IOException {
+        validLength = 0;
+        if (!file.exists() || !snapshot.exists()) {
+            return 0;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (!readFully(channel, header, 0) || header.getInt() != MAGIC || header.getInt() != VERSION
+                    || header.getLong() != snapshot.length() || header.getLong() != snapshot.lastModified()) {
+                return 0;
+            }
+
+            int records = 0;
+            long position = HEADER_SIZE;
+            ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+            while (readFully(channel, recordHeader, position)) {
+                int length = recordHeader.getInt();
+                int checksum = recordHeader.getInt();
+                if (length < 0 || length > channel.size() - position - RECORD_HEADER_SIZE) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                if (!readFully(channel, payload, position + RECORD_HEADER_SIZE) || checksum(payload) != checksum) {
+                    break;
+                }
+                apply(payload, tree);
+                position += RECORD_HEADER_SIZE + length;
+                records++;
+            }
+            validLength = position;
+            return records;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Corrupt journal file: " + file, e);
+        }
+    }
+
+    // Returns true if the journal has grown large enough that the next save
+    // should write a new snapshot instead of appending
+    public boolean needsCompaction() {
+        if (!snapshot.exists() || validLength == 0) {
+            return true;
+        }
+        return validLength > Math.max(MIN_COMPACT_SIZE, snapshot.length() / 2);
+    }
+
+    // Appends the occurrences of one run. Only valid after replay found the
+    // journal current, or after compact.
+    public void append(BSTreeADT<TrackedWord> delta) throws IOException {
+        if (validLength == 0) {
+            throw new IllegalStateException("Journal does not match the snapshot");
+        }
+
+        byte[] payload = encode(delta);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        record.putInt(payload.length);
+        record.putInt(checksum(ByteBuffer.wrap(payload)));
+        record.put(payload);
+        record.flip();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            // Drop what is left of a run that did not finish appending
+            channel.truncate(validLength);
+            long position = validLength;
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+            channel.force(false);
+            validLength = position;
+        }
+    }
+
+    // Starts an empty journal for the snapshot that was just written
+    public void compact() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putLong(snapshot.length());
+        header.putLong(snapshot.lastModified());
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            channel.force(false);
+        }
+        validLength = HEADER_SIZE;
+    }
+
+    // Removes the journal once a snapshot holds everything it recorded
+    public void delete() throws IOException {
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Cannot delete journal file: " + file);
+        }
+        validLength = 0;
+    }
+
+    // Encodes the words of a run as one record payload
+    private static byte[] encode(BSTreeADT<TrackedWord> delta) throws IOException {
+        RepositoryFile.FileIds fileIds = new RepositoryFile.FileIds();
+        Iterator<TrackedWord> it = delta.inorderIterator();
+        while (it.hasNext()) {
+            fileIds.addAll(it.next());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (RepositoryFile.Output out = new RepositoryFile.Output(Channels.newChannel(bytes))) {
+            out.writeVarInt(fileIds.names().size());
+            for (String name : fileIds.names()) {
+                out.writeString(name);
+            }
+            out.writeVarInt(delta.size());
+            it = delta.inorderIterator();
+            while (it.hasNext()) {
+                TrackedWord word = it.next();
+                RepositoryFile.writeWord(out, word);
+                RepositoryFile.writePostings(out, word, fileIds);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    // Merges the words of one record payload into the tree
+    private static void apply(ByteBuffer payload, BSTreeADT<TrackedWord> tree) throws IOException {
+        RepositoryFile.Input in = new RepositoryFile.Input(payload);
+        int[] fileIds = new int[in.readVarInt()];
+        for (int i = 0; i < fileIds.length; i++) {
+            fileIds[i] = FileTable.idOf(in.readString());
+        }
+        int wordCount = in.readVarInt();
+        for (int i = 0; i < wordCount; i++) {
+            TrackedWord word = RepositoryFile.readWord(in);
+            RepositoryFile.readPostings(in, word, fileIds);
+            TrackedWord found = tree.getOrAdd(word);
+            if (found != word) {
+                found.merge(word);
+            }
+        }
+    }
+
+    // Reads until the buffer is full; false if the file ends first
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                return false;
+            }
+            position += n;
+        }
+        buffer.flip();
+        return true;
+    }
+
+    // CRC32 of the remaining bytes, leaving the buffer position unchanged
+    private static int checksum(ByteBuffer data) {
+        CRC32 crc = new CRC32();
+        crc.update(data.duplicate());
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,275 @@
+package appDomain;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Counters and phase timings for one WordTracker run, collected only when
+// enabled with -stats. Code on the hot path reads the flag once, when a
+// tokenizer is made or a merge starts, and keeps its counts in plain local
+// fields that are added here at the end, so the cost when disabled is one
+// branch per word and there is no shared state to contend on when enabled.
+// While enabled the counters can also be read live over JMX.
+public final class Stats {
+
+    // Phases of a run, in the order they happen
+    public enum Phase { LOAD, TOKENIZE, INSERT, SAVE, REPORT }
+
+    // Name the counters are registered under on the platform MBean server
+    public static final String OBJECT_NAME = "appDomain:type=WordTrackerStats";
+
+    // Whether counters are collected
+    private static volatile boolean enabled;
+
+    private static final long[] phaseNanos = new long[Phase.values().length];
+    private static long tokens;
+    private static long runWords;
+    private static long newWords;
+
+    // compareTo calls per lookup in the per-file trees while tokenizing, and
+    // in the repository tree while inserting the words of the run
+    private static final Histogram tokenizeLookups = new Histogram();
+    private static final Histogram insertLookups = new Histogram();
+
+    // Utility class, no instances
+    private Stats() {
+    }
+
+    // Turns collection on or off and clears the counters; on also makes
+    // them readable over JMX
+    public static synchronized void setEnabled(boolean on) {
+        reset();
+        enabled = on;
+        if (on) {
+            register();
+        }
+    }
+
+    // Returns whether counters are collected
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    // Clears every counter
+    public static synchronized void reset() {
+        Arrays.fill(phaseNanos, 0);
+        tokens = 0;
+        runWords = 0;
+        newWords = 0;
+        tokenizeLookups.clear();
+        insertLookups.clear();
+    }
+
+    // Returns the time to pass to end, or 0 when disabled
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    // Adds the time since start to the phase
+    public static void end(Phase phase, long start) {
+        if (enabled) {
+            long elapsed = System.nanoTime() - start;
+            synchronized (Stats.class) {
+                phaseNanos[phase.ordinal()] += elapsed;
+            }
+        }
+    }
+
+    // Adds the counts a tokenizer kept for one file
+    static synchronized void addTokens(long count, Histogram lookups) {
+        tokens += count;
+        tokenizeLookups.addAll(lookups);
+    }
+
+    // Adds the counts of inserting a run's words into the repository
+    static synchronized void addInsert(long words, long added, Histogram lookups) {
+        runWords += words;
+        newWords += added;
+        insertLookups.addAll(lookups);
+    }
+
+    // Returns the number of words read
+    public static synchronized long getTokens() {
+        return tokens;
+    }
+
+    // Returns the number of different words in the files read
+    public static synchronized long getRunWords() {
+        return runWords;
+    }
+
+    // Returns the number of words the repository did not have yet
+    public static synchronized long getNewWords() {
+        return newWords;
+    }
+
+    // Returns the milliseconds spent in each phase
+    public static synchronized Map<String, Double> getPhaseMillis() {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            millis.put(phase.name().toLowerCase(), phaseNanos[phase.ordinal()] / 1e6);
+        }
+        return millis;
+    }
+
+    // Returns the mean compareTo calls per lookup while tokenizing
+    public static synchronized double getTokenizeComparesPerLookup() {
+        return tokenizeLookups.mean();
+    }
+
+    // Returns the mean compareTo calls per lookup in the repository tree
+    public static synchronized double getInsertComparesPerLookup() {
+        return insertLookups.mean();
+    }
+
+    // Prints the summary of the run
+    public static synchronized void print(PrintStream out) {
+        out.println("WordTracker stats");
+        StringBuilder phases = new StringBuilder("  phases (ms):");
+        double total = 0;
+        for (Map.Entry<String, Double> entry : getPhaseMillis().entrySet()) {
+            phases.append(String.format(" %s %.1f,", entry.getKey(), entry.getValue()));
+            total += entry.getValue();
+        }
+        out.println(phases.append(String.format(" total %.1f", total)));
+        out.println("  tokens: " + tokens);
+        out.println("  words: " + runWords + " in the files read, " + newWords + " new, "
+                + (runWords - newWords) + " already in the repository");
+        out.println(String.format("  compareTo per lookup: tokenize mean %.1f max %d, insert mean %.1f max %d",
+                tokenizeLookups.mean(), tokenizeLookups.max, insertLookups.mean(), insertLookups.max));
+        out.println("  lookup depth (compareTo calls)   tokenize     insert");
+        int last = Math.max(tokenizeLookups.lastBucket(), insertLookups.lastBucket());
+        for (int b = 0; b <= last; b++) {
+            String range = b == 0 ? "0" : b == 1 ? "1" : (1 << (b - 1)) + "-" + ((1 << b) - 1);
+            out.println(String.format("    %-28s %10d %10d", range, tokenizeLookups.buckets[b],
+                    insertLookups.buckets[b]));
+        }
+    }
+
+    // Registers the counters on the platform MBean server once
+    private static void register() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new View(), name);
+            }
+        } catch (JMException e) {
+            System.err.println("Cannot register stats over JMX: " + e.getMessage());
+        }
+    }
+
+    // Counts lookups by the number of compareTo calls they made, in buckets
+    // of powers of two: 0, 1, 2-3, 4-7 and so on
+    static final class Histogram {
+        private final long[] buckets = new long[33];
+        private long count;
+        private long compares;
+        private int max;
+
+        // Adds one lookup
+        void add(int calls) {
+            buckets[32 - Integer.numberOfLeadingZeros(calls)]++;
+            count++;
+            compares += calls;
+            max = Math.max(max, calls);
+        }
+
+        // Adds every lookup of another histogram
+        void addAll(Histogram other) {
+            for (int b = 0; b < buckets.length; b++) {
+                buckets[b] += other.buckets[b];
+            }
+            count += other.count;
+            compares += other.compares;
+            max = Math.max(max, other.max);
+        }
+
+        void clear() {
+            Arrays.fill(buckets, 0);
+            count = 0;
+            compares = 0;
+            max = 0;
+        }
+
+        double mean() {
+            return count == 0 ? 0 : (double) compares / count;
+        }
+
+        // Highest bucket with a lookup in it
+        int lastBucket() {
+            int b = buckets.length - 1;
+            while (b > 0 && buckets[b] == 0) {
+                b--;
+            }
+            return b;
+        }
+    }
+
+    // Looks a word up in the repository tree counting the compareTo calls,
+    // and hands the word itself to the tree if it is new
+    static final class Probe implements Comparable<TrackedWord>, Supplier<TrackedWord> {
+        private TrackedWord word;
+        private int calls;
+
+        // Sets the word for the next lookup
+        Probe reset(TrackedWord next) {
+            word = next;
+            calls = 0;
+            return this;
+        }
+
+        // Returns the compareTo calls since the last reset
+        int calls() {
+            return calls;
+        }
+
+        @Override
+        public int compareTo(TrackedWord other) {
+            calls++;
+            return word.compareTo(other);
+        }
+
+        @Override
+        public TrackedWord get() {
+            return word;
+        }
+    }
+
+    // The live counters as seen over JMX
+    private static final class View implements StatsMXBean {
+        @Override
+        public long getTokens() {
+            return Stats.getTokens();
+        }
+
+        @Override
+        public long getRunWords() {
+            return Stats.getRunWords();
+        }
+
+        @Override
+        public long getNewWords() {
+            return Stats.getNewWords();
+        }
+
+        @Override
+        public Map<String, Double> getPhaseMillis() {
+            return Stats.getPhaseMillis();
+        }
+
+        @Override
+        public double getTokenizeComparesPerLookup() {
+            return Stats.getTokenizeComparesPerLookup();
+        }
+
+        @Override
+        public double getInsertComparesPerLookup() {
+            return Stats.getInsertComparesPerLookup();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package appDomain;
+
+import java.util.Map;
+
+// The counters of Stats as they are published over JMX while a run with
+// -stats is in progress, for jconsole, Mission Control or any JMX client
+public interface StatsMXBean {
+
+    // Words read so far
+    long getTokens();
+
+    // Different words in the files read
+    long getRunWords();
+
+    // Words the repository did not have yet
+    long getNewWords();
+
+    // Milliseconds spent in each phase so far
+    Map<String, Double> getPhaseMillis();
+
+    // Mean compareTo calls per lookup while tokenizing
+    double getTokenizeComparesPerLookup();
+
+    // Mean compareTo calls per lookup in the repository tree
+    double getInsertComparesPerLookup();
+}
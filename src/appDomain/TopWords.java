@@ -0,0 +1,50 @@
+package appDomain;
+
+import utilities.Iterator;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Picks the most frequent words for the -pt report in one pass over the
+// words. Only the best n seen so far are kept, in a heap with the weakest on
+// top, so a word that does not beat it costs one comparison of the running
+// totals and the whole selection costs O(words * log n) instead of sorting
+// every word by its total.
+public class TopWords {
+
+    // Highest total first, then alphabetical, which is the order of the report
+    public static final Comparator<TrackedWord> ORDER =
+            Comparator.comparingInt(TrackedWord::getTotalCount).reversed()
+                    .thenComparing(Comparator.naturalOrder());
+
+    // Heap slots allocated up front, so a large n does not cost memory
+    // until that many words are seen
+    private static final int INITIAL_CAPACITY = 256;
+
+    private TopWords() {
+    }
+
+    // Returns the n words with the highest totals in report order, or all of
+    // them if there are fewer
+    public static List<TrackedWord> select(Iterator<TrackedWord> words, int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Invalid count: " + n);
+        }
+        PriorityQueue<TrackedWord> heap = new PriorityQueue<>(Math.min(n, INITIAL_CAPACITY), ORDER.reversed());
+        while (words.hasNext()) {
+            TrackedWord word = words.next();
+            if (heap.size() < n) {
+                heap.add(word);
+            } else if (ORDER.compare(word, heap.peek()) < 0) {
+                // The word beats the weakest one kept, which makes room for it
+                heap.poll();
+                heap.add(word);
+            }
+        }
+        TrackedWord[] top = heap.toArray(new TrackedWord[0]);
+        Arrays.sort(top, ORDER);
+        return Arrays.asList(top);
+    }
+}
@@ -1,7 +1,12 @@
 package appDomain;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.*;
+import java.util.function.IntConsumer;
 
 // Represents a word that is being tracked in the file(s)
 public class TrackedWord implements Comparable<TrackedWord>, Serializable {
@@ -9,14 +14,37 @@ public class TrackedWord implements Comparable<TrackedWord>, Serializable {
     // Used for object serialization
     private static final long serialVersionUID = 1L;
 
-    // Lowercase version of the word used for sorting and comparisons
-    private final String key;
+    // The serialized form keeps the fields of earlier versions, with the
+    // files as a map from file name to FileInfo, so repository.ser files
+    // written by them still load
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("key", String.class),
+        new ObjectStreamField("displayWord", String.class),
+        new ObjectStreamField("files", LinkedHashMap.class)
+    };
+
+    // Lowercase version of the word used for sorting and comparisons; only
+    // set again when the word is deserialized
+    private String key;
 
     // Original version of the word for displaying output
     private String displayWord;
 
-    // Stores file names and their associated word info
-    private final LinkedHashMap<String, FileInfo> files = new LinkedHashMap<>();
+    // The files the word appears in, in the order they were added, as
+    // FileTable ids with their word info. Most words are in one file, which
+    // is kept in the first two fields; any others are in the arrays.
+    private int firstId;
+    private FileInfo first;
+    private int[] moreIds;
+    private FileInfo[] moreInfos;
+
+    // Number of files the word appears in
+    private int fileCount;
+
+    // Number of times the word appears in all its files, the sum of their
+    // counts, kept up to date as occurrences are added so the reports need
+    // not add them up for every word
+    private int totalCount;
 
     // Constructor when only the key is provided
     public TrackedWord(String key) {
@@ -44,28 +72,188 @@ public class TrackedWord implements Comparable<TrackedWord>, Serializable {
         this.displayWord = displayWord;
     }
 
-    // Returns the map of files and their info
+    // Returns the files and their info in the order they were added, as a
+    // new map from file name to FileInfo
     public Map<String, FileInfo> getFiles() {
+        Map<String, FileInfo> files = new LinkedHashMap<>();
+        for (int i = 0; i < fileCount; i++) {
+            files.put(FileTable.nameOf(getFileId(i)), getFileInfo(i));
+        }
         return files;
     }
 
     // Returns a list of file names where the word appears
     public List<String> getFileList() {
-        return new ArrayList<>(files.keySet());
+        List<String> names = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            names.add(FileTable.nameOf(getFileId(i)));
+        }
+        return names;
+    }
+
+    // Returns the number of files the word appears in
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    // Returns how many times the word appears in all its files
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    // Returns the FileTable id of the i-th file the word was found in
+    public int getFileId(int i) {
+        if (i < 0 || i >= fileCount) {
+            throw new IndexOutOfBoundsException("File " + i + " of " + fileCount);
+        }
+        return i == 0 ? firstId : moreIds[i - 1];
+    }
+
+    // Returns the info of the i-th file the word was found in
+    public FileInfo getFileInfo(int i) {
+        if (i < 0 || i >= fileCount) {
+            throw new IndexOutOfBoundsException("File " + i + " of " + fileCount);
+        }
+        return i == 0 ? first : moreInfos[i - 1];
+    }
+
+    // Returns the info of the file with the name, or null if the word is not
+    // in it
+    public FileInfo getFile(String filename) {
+        int fileId = FileTable.find(filename);
+        return fileId < 0 ? null : getFile(fileId);
+    }
+
+    // Returns the info of the file with the FileTable id, or null if the word
+    // is not in it
+    public FileInfo getFile(int fileId) {
+        int i = indexOf(fileId);
+        return i < 0 ? null : getFileInfo(i);
     }
 
     // Adds a new occurrence of the word in a file and line number
     public void addOccurrence(String filename, int lineno) {
-        FileInfo fi = files.get(filename);
+        addOccurrence(FileTable.idOf(filename), lineno);
+    }
+
+    // Adds a new occurrence of the word in the file with the FileTable id
+    public void addOccurrence(int fileId, int lineno) {
+        FileInfo fi = getFile(fileId);
 
         // Create a new FileInfo if the file has not been seen before
         if (fi == null) {
-            fi = new FileInfo();
-            files.put(filename, fi);
+            fi = addFile(fileId);
         }
 
         // Record the line number
         fi.addLine(lineno);
+        totalCount++;
+    }
+
+    // Adds a new occurrence like addOccurrence, for a word that several
+    // threads record occurrences in at once, such as one found in a
+    // ConcurrentBSTree. Reading the word is only safe once they are done.
+    public synchronized void addSharedOccurrence(int fileId, int lineno) {
+        addOccurrence(fileId, lineno);
+    }
+
+    // Adds an empty FileInfo for a file
+    private FileInfo addFile(int fileId) {
+        FileInfo fi = new FileInfo();
+        addFile(fileId, fi);
+        return fi;
+    }
+
+    // Adds a FileInfo with the count read from a saved repository; its lines
+    // are loaded into it afterwards
+    FileInfo loadFile(int fileId, int count) {
+        FileInfo fi = addFile(fileId);
+        fi.setCount(count);
+        totalCount += count;
+        return fi;
+    }
+
+    // Adds the occurrences recorded in another TrackedWord with the same key,
+    // giving the same result as adding them here one at a time
+    void merge(TrackedWord other) {
+        for (int i = 0; i < other.fileCount; i++) {
+            int fileId = other.getFileId(i);
+            FileInfo fi = getFile(fileId);
+            if (fi == null) {
+                fi = addFile(fileId);
+            }
+            fi.merge(other.getFileInfo(i));
+        }
+        totalCount += other.totalCount;
+    }
+
+    // Returns a copy with its own postings, so adding occurrences to one
+    // does not change the other
+    public TrackedWord copy() {
+        TrackedWord copy = new TrackedWord(key, displayWord);
+        copy.merge(this);
+        return copy;
+    }
+
+    // Finds the position of a file; the file added last is checked first
+    // because words are added one file at a time
+    private int indexOf(int fileId) {
+        if (fileCount == 0) {
+            return -1;
+        }
+        if (getFileId(fileCount - 1) == fileId) {
+            return fileCount - 1;
+        }
+        for (int i = 0; i < fileCount - 1; i++) {
+            if (getFileId(i) == fileId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Appends a file after the others
+    private void addFile(int fileId, FileInfo fi) {
+        if (fileCount == 0) {
+            firstId = fileId;
+            first = fi;
+        } else {
+            int n = fileCount - 1;
+            if (moreIds == null) {
+                moreIds = new int[1];
+                moreInfos = new FileInfo[1];
+            } else if (n == moreIds.length) {
+                moreIds = Arrays.copyOf(moreIds, n * 2);
+                moreInfos = Arrays.copyOf(moreInfos, n * 2);
+            }
+            moreIds[n] = fileId;
+            moreInfos[n] = fi;
+        }
+        fileCount++;
+    }
+
+    // Writes the fields of earlier versions
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("key", key);
+        fields.put("displayWord", displayWord);
+        fields.put("files", (LinkedHashMap<String, FileInfo>) getFiles());
+        out.writeFields();
+    }
+
+    // Reads the fields of earlier versions, giving each file name an id
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        key = (String) fields.get("key", null);
+        displayWord = (String) fields.get("displayWord", null);
+        Map<?, ?> files = (Map<?, ?>) fields.get("files", null);
+        if (files != null) {
+            for (Map.Entry<?, ?> entry : files.entrySet()) {
+                FileInfo fi = (FileInfo) entry.getValue();
+                addFile(FileTable.idOf((String) entry.getKey()), fi);
+                totalCount += fi.getCount();
+            }
+        }
     }
 
     // Compares two TrackedWord objects alphabetically
@@ -87,16 +275,116 @@ public class TrackedWord implements Comparable<TrackedWord>, Serializable {
         // Used for object serialization
         private static final long serialVersionUID = 1L;
 
-        // Stores unique line numbers where the word appears
-        private final LinkedHashSet<Integer> lines = new LinkedHashSet<>();
+        // The serialized form keeps the fields of earlier versions, so
+        // repository.ser files written by them still load
+        private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("lines", LinkedHashSet.class),
+            new ObjectStreamField("count", int.class)
+        };
+
+        // Shared by every FileInfo without lines
+        private static final byte[] EMPTY = new byte[0];
+
+        // Smallest number of lines kept as a bitmap
+        private static final int MIN_BITMAP_LINES = 16;
+
+        // Unique line numbers in the order they were first added, stored as
+        // zigzag varint deltas from the previous line. While they are
+        // ascending and close together they are stored instead as a bitmap
+        // with bit i set for line base + i.
+        private byte[] data = EMPTY;
+
+        // Bytes of data in use
+        private int length;
+
+        // True while data holds a bitmap
+        private boolean bitmap;
+
+        // Number of unique lines
+        private int size;
+
+        // Line added last, highest line, and the first line while ascending
+        private int last;
+        private int max;
+        private int base;
+
+        // False once a line was added below the highest line, which happens
+        // when a file that changed is read again
+        private boolean ascending = true;
+
+        // Length of the varint form, kept in both forms to choose between them
+        private int deltaBytes;
+
+        // Where contains stopped in the varint form: the byte after the last
+        // line read, and that line
+        private int cursorPos;
+        private int cursorLine;
 
         // Total number of times the word appears in the file
         private int count = 0;
 
         // Adds a line number and increases the count
         public void addLine(int lineno) {
-            lines.add(lineno);
             count++;
+            addDistinct(lineno);
+        }
+
+        // Adds a line read from a saved repository, where lines are unique
+        void loadLine(int lineno) {
+            append(lineno);
+        }
+
+        // Adds the lines and count of another FileInfo; lines already
+        // present keep their place
+        void merge(FileInfo other) {
+            if (size == 0) {
+                data = Arrays.copyOf(other.data, other.length);
+                length = other.length;
+                bitmap = other.bitmap;
+                size = other.size;
+                last = other.last;
+                max = other.max;
+                base = other.base;
+                ascending = other.ascending;
+                deltaBytes = other.deltaBytes;
+            } else {
+                PrimitiveIterator.OfInt lines = other.lineIterator();
+                while (lines.hasNext()) {
+                    addDistinct(lines.nextInt());
+                }
+            }
+            count += other.count;
+        }
+
+        // Adds offset to every line number, used when a file is read in parts
+        void shiftLines(int offset) {
+            if (size == 0) {
+                return;
+            }
+            if (!bitmap) {
+                // Only the first delta, which is from 0, changes
+                int pos = 0;
+                int first = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = data[pos++];
+                    first |= (b & 0x7F) << shift;
+                    if (b >= 0) {
+                        break;
+                    }
+                }
+                int head = RepositoryFile.zigzag(RepositoryFile.unzigzag(first) + offset);
+                byte[] shifted = new byte[varIntSize(head) + length - pos];
+                int n = writeVarInt(shifted, 0, head);
+                System.arraycopy(data, pos, shifted, n, length - pos);
+                deltaBytes += n - pos;
+                data = shifted;
+                length = shifted.length;
+            }
+            last += offset;
+            max += offset;
+            base += offset;
+            cursorPos = 0;
+            cursorLine = 0;
         }
 
         // Returns how many times the word appears in the file
@@ -104,22 +392,262 @@ public class TrackedWord implements Comparable<TrackedWord>, Serializable {
             return count;
         }
 
-        // Returns the list of line numbers
+        // Restores the count of a FileInfo read from a saved repository
+        void setCount(int count) {
+            this.count = count;
+        }
+
+        // Returns the number of unique lines
+        public int getLineCount() {
+            return size;
+        }
+
+        // Returns the list of line numbers; lineIterator and forEachLine do
+        // not make a copy
         public List<Integer> getLines() {
-            return new ArrayList<>(lines);
+            List<Integer> lines = new ArrayList<>(size);
+            forEachLine(lines::add);
+            return lines;
+        }
+
+        // Returns the line numbers in the order they were first added
+        public PrimitiveIterator.OfInt lineIterator() {
+            return new LineIterator();
+        }
+
+        // Calls action with each line number in the order they were first added
+        public void forEachLine(IntConsumer action) {
+            lineIterator().forEachRemaining(action);
         }
 
         // Returns the line numbers as a formatted string
         public String linesString() {
             StringBuilder sb = new StringBuilder();
             sb.append("[lines: ");
-            int i = 0;
-            for (Integer ln : lines) {
-                if (i++ > 0) sb.append(", ");
-                sb.append(ln);
+            PrimitiveIterator.OfInt lines = lineIterator();
+            for (int i = 0; lines.hasNext(); i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(lines.nextInt());
             }
             sb.append("]");
             return sb.toString();
         }
+
+        // Adds the line if it is not there yet, without counting it
+        private void addDistinct(int lineno) {
+            if (size > 0 && (lineno == last || (lineno <= max && contains(lineno)))) {
+                return;
+            }
+            append(lineno);
+        }
+
+        // Returns true if the line was added before
+        private boolean contains(int lineno) {
+            if (bitmap) {
+                int bit = lineno - base;
+                return bit >= 0 && (data[bit >>> 3] & (1 << (bit & 7))) != 0;
+            }
+            if (!ascending || lineno <= cursorLine) {
+                cursorPos = 0;
+                cursorLine = 0;
+            }
+
+            // Ascending lines are looked up in ascending order while a file is
+            // read again, so the scan carries on from where it stopped
+            int pos = cursorPos;
+            int line = cursorLine;
+            while (pos < length) {
+                int delta = 0;
+                int next = pos;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = data[next++];
+                    delta |= (b & 0x7F) << shift;
+                    if (b >= 0) {
+                        break;
+                    }
+                }
+                int value = line + RepositoryFile.unzigzag(delta);
+                if (value == lineno) {
+                    return true;
+                }
+                if (ascending && value > lineno) {
+                    break;
+                }
+                pos = next;
+                line = value;
+                if (ascending) {
+                    cursorPos = pos;
+                    cursorLine = line;
+                }
+            }
+            return false;
+        }
+
+        // Adds a line that is not there yet at the end
+        private void append(int lineno) {
+            if (size == 0) {
+                base = lineno;
+                max = lineno;
+            } else if (lineno < max) {
+                // The lines are no longer ascending; only varints keep the order
+                if (bitmap) {
+                    toVarInts();
+                }
+                ascending = false;
+            }
+            int delta = RepositoryFile.zigzag(lineno - last);
+            deltaBytes += varIntSize(delta);
+
+            if (bitmap && bitmapSize(lineno) > deltaBytes) {
+                // Too far past the other lines for a bitmap
+                toVarInts();
+            }
+            if (bitmap) {
+                int bit = lineno - base;
+                int needed = (bit >>> 3) + 1;
+                if (needed > length) {
+                    ensureCapacity(needed);
+                    length = needed;
+                }
+                data[bit >>> 3] |= 1 << (bit & 7);
+            } else {
+                ensureCapacity(length + 5);
+                length = writeVarInt(data, length, delta);
+            }
+
+            size++;
+            last = lineno;
+            max = Math.max(max, lineno);
+            if (!bitmap && ascending && size >= MIN_BITMAP_LINES && bitmapSize(max) * 2 <= deltaBytes) {
+                toBitmap();
+            }
+        }
+
+        // Bytes a bitmap needs to reach the line
+        private int bitmapSize(int lineno) {
+            return ((lineno - base) >>> 3) + 1;
+        }
+
+        // Switches from varints to a bitmap
+        private void toBitmap() {
+            byte[] bits = new byte[bitmapSize(max)];
+            PrimitiveIterator.OfInt lines = lineIterator();
+            while (lines.hasNext()) {
+                int bit = lines.nextInt() - base;
+                bits[bit >>> 3] |= 1 << (bit & 7);
+            }
+            data = bits;
+            length = bits.length;
+            bitmap = true;
+        }
+
+        // Switches from a bitmap to varints
+        private void toVarInts() {
+            byte[] bytes = new byte[deltaBytes + 5];
+            int pos = 0;
+            int previous = 0;
+            PrimitiveIterator.OfInt lines = lineIterator();
+            while (lines.hasNext()) {
+                int line = lines.nextInt();
+                pos = writeVarInt(bytes, pos, RepositoryFile.zigzag(line - previous));
+                previous = line;
+            }
+            data = bytes;
+            length = pos;
+            bitmap = false;
+            cursorPos = 0;
+            cursorLine = 0;
+        }
+
+        // Grows data to hold at least n bytes
+        private void ensureCapacity(int n) {
+            if (data.length < n) {
+                data = Arrays.copyOf(data, Math.max(n, data.length + (data.length >> 1)));
+            }
+        }
+
+        // Writes an unsigned varint at pos and returns the position after it
+        private static int writeVarInt(byte[] bytes, int pos, int value) {
+            while ((value & ~0x7F) != 0) {
+                bytes[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[pos++] = (byte) value;
+            return pos;
+        }
+
+        // Number of bytes the unsigned varint takes
+        private static int varIntSize(int value) {
+            int n = 1;
+            while ((value & ~0x7F) != 0) {
+                value >>>= 7;
+                n++;
+            }
+            return n;
+        }
+
+        // Writes the fields of earlier versions
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            ObjectOutputStream.PutField fields = out.putFields();
+            fields.put("lines", new LinkedHashSet<>(getLines()));
+            fields.put("count", count);
+            out.writeFields();
+        }
+
+        // Reads the fields of earlier versions
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            ObjectInputStream.GetField fields = in.readFields();
+            data = EMPTY;
+            ascending = true;
+            Collection<?> lines = (Collection<?>) fields.get("lines", null);
+            if (lines != null) {
+                for (Object line : lines) {
+                    addDistinct((Integer) line);
+                }
+            }
+            count = fields.get("count", 0);
+        }
+
+        // Reads the lines from either form; the FileInfo must not change
+        // while it is used
+        private class LineIterator implements PrimitiveIterator.OfInt {
+            private int remaining = size;
+            private int pos;
+            private int line;
+
+            // Bits of the current bitmap byte, data[pos - 1], not returned yet
+            private int bits;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                remaining--;
+                if (bitmap) {
+                    while (bits == 0) {
+                        bits = data[pos++] & 0xFF;
+                    }
+                    int bit = Integer.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    return base + ((pos - 1) << 3) + bit;
+                }
+                int delta = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = data[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    if (b >= 0) {
+                        break;
+                    }
+                }
+                line += RepositoryFile.unzigzag(delta);
+                return line;
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,31 @@
+package appDomain;
+
+// Compares equal to every word whose key starts with a prefix, less than the
+// words after them and greater than the words before them, so a tree's
+// matchIterator returns just the words with the prefix
+public class WordPrefix implements Comparable<TrackedWord> {
+
+    // Lowercase prefix, matched against the lowercase keys
+    private final String prefix;
+
+    // Creates a probe for the words starting with the prefix, in any case
+    public WordPrefix(String prefix) {
+        this.prefix = prefix.toLowerCase();
+    }
+
+    // Returns the lowercase prefix
+    public String getPrefix() {
+        return prefix;
+    }
+
+    // Zero if the word starts with the prefix, else the order of the prefix
+    // and the key; every key between two matching keys also matches
+    @Override
+    public int compareTo(TrackedWord word) {
+        String key = word.getKey();
+        if (key.startsWith(prefix)) {
+            return 0;
+        }
+        return prefix.compareTo(key);
+    }
+}
@@ -0,0 +1,127 @@
+package appDomain;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Collects the words of one ingestion in an open-addressing hash table keyed
+// by the lowercase key. Finding a word costs one hash of its characters and
+// usually one comparison, whatever the number of words, and nothing is kept
+// in order until sortedWords() sorts them once at the end. Slots are probed
+// one after another from the slot the hash picks; the table doubles before it
+// is half full, so runs of used slots stay short.
+public class WordTable {
+
+    // Slots in a new table; always a power of two
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    // Multiplier that spreads the hash over the bits used for the slot
+    private static final int SPREAD = 0x9E3779B9;
+
+    // The words and the hashes of their keys, slot by slot; null for a free
+    // slot
+    private TrackedWord[] words;
+    private int[] hashes;
+
+    // Number of words stored
+    private int size;
+
+    // 32 minus the number of bits in a slot index
+    private int shift;
+
+    // Creates an empty table
+    public WordTable() {
+        this(DEFAULT_CAPACITY / 2);
+    }
+
+    // Creates an empty table with room for the given number of words before
+    // it grows
+    public WordTable(int expected) {
+        if (expected < 0) {
+            throw new IllegalArgumentException("Negative size: " + expected);
+        }
+        int capacity = Integer.highestOneBit(Math.max(expected, 2) * 2 - 1) * 2;
+        words = new TrackedWord[capacity];
+        hashes = new int[capacity];
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    // Returns the number of words stored
+    public int size() {
+        return size;
+    }
+
+    // Returns the stored word with the same key, adding the word if there is
+    // none
+    public TrackedWord getOrAdd(TrackedWord word) {
+        if (word == null) {
+            throw new NullPointerException("Null entry");
+        }
+        return getOrAdd(word.getKey().hashCode(), word, () -> word);
+    }
+
+    // Returns the stored word the probe compares equal to, adding the word
+    // made by the factory if there is none. The hash must be the hashCode of
+    // the key of that word, so a lookup can hash the characters it has
+    // without making the key String first.
+    public TrackedWord getOrAdd(int hash, Comparable<? super TrackedWord> probe,
+                                Supplier<? extends TrackedWord> factory) {
+        if (probe == null || factory == null) {
+            throw new NullPointerException("Null probe");
+        }
+        int mask = words.length - 1;
+        int slot = (hash * SPREAD) >>> shift;
+        while (words[slot] != null) {
+            if (hashes[slot] == hash && probe.compareTo(words[slot]) == 0) {
+                return words[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        TrackedWord created = factory.get();
+        if (created == null) {
+            throw new NullPointerException("Factory returned null");
+        }
+        words[slot] = created;
+        hashes[slot] = hash;
+        if (++size * 2 > words.length) {
+            grow();
+        }
+        return created;
+    }
+
+    // Moves every word into a table twice the size
+    private void grow() {
+        TrackedWord[] oldWords = words;
+        int[] oldHashes = hashes;
+        words = new TrackedWord[oldWords.length * 2];
+        hashes = new int[oldWords.length * 2];
+        shift--;
+        int mask = words.length - 1;
+        for (int i = 0; i < oldWords.length; i++) {
+            if (oldWords[i] != null) {
+                int slot = (oldHashes[i] * SPREAD) >>> shift;
+                while (words[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                words[slot] = oldWords[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    // Returns the words sorted by key, ready for a tree to be built from in
+    // one pass. The table is emptied, since its words now belong to the list.
+    public List<TrackedWord> sortedWords() {
+        TrackedWord[] sorted = new TrackedWord[size];
+        int n = 0;
+        for (TrackedWord word : words) {
+            if (word != null) {
+                sorted[n++] = word;
+            }
+        }
+        Arrays.sort(sorted);
+        Arrays.fill(words, null);
+        size = 0;
+        return Arrays.asList(sorted);
+    }
+}
@@ -0,0 +1,286 @@
+package appDomain;
+
+import implementations.ConcurrentBSTree;
+import utilities.BSTreeADT;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.function.Supplier;
+
+// Splits text into words exactly like Scanner.nextLine followed by
+// split("[^a-zA-Z0-9']+") and toLowerCase, without creating objects for each
+// word. Characters are read into a reused buffer and classified with a
+// lookup table; a word is looked up in the tree or WordTable by comparing
+// its characters with the stored keys, or read character by character by a
+// WordTrie, and Strings are only made for words that are new.
+public class WordTokenizer implements Comparable<TrackedWord>, Supplier<TrackedWord>, CharSequence {
+
+    // Characters read from the reader at a time
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    // True for the characters a word is made of: a-z, A-Z, 0-9 and '
+    private static final boolean[] WORD = new boolean[128];
+
+    // Lowercase of each word character as String.toLowerCase gives it in the
+    // default locale
+    private static final char[] LOWER = new char[128];
+
+    // False if some word character does not lowercase to a single character,
+    // in which case keys are always made with String.toLowerCase
+    private static final boolean LOWER_TABLE;
+
+    static {
+        boolean single = true;
+        for (char c = 0; c < 128; c++) {
+            WORD[c] = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '\'';
+            if (WORD[c]) {
+                String lower = String.valueOf(c).toLowerCase();
+                single &= lower.length() == 1;
+                LOWER[c] = lower.charAt(0);
+            }
+        }
+        LOWER_TABLE = single;
+    }
+
+    private final Reader reader;
+    private char[] buffer = new char[BUFFER_SIZE];
+
+    // The word being looked up: its place in the buffer
+    private int start;
+    private int length;
+
+    // Where the words go: a tree, or a hash table when table is not null
+    private BSTreeADT<TrackedWord> tree;
+    private WordTable table;
+
+    // True while indexing into a tree other threads add to as well, whose
+    // words need their occurrences recorded under a lock
+    private boolean shared;
+
+    // The error that ended reading early, as Scanner.ioException reports it
+    private IOException error;
+
+    // Counts for Stats, kept only if it was enabled when the tokenizer was
+    // made: words read, compareTo calls made and calls per lookup
+    private final boolean stats = Stats.isEnabled();
+    private long tokens;
+    private int calls;
+    private Stats.Histogram lookups;
+
+    // Creates a tokenizer reading from the reader
+    public WordTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    // Opens a reader that decodes like new Scanner(File): an error is
+    // reported at the first bytes that are not valid in the charset
+    public static Reader newReader(ReadableByteChannel channel, Charset charset) {
+        return Channels.newReader(channel, charset.newDecoder(), -1);
+    }
+
+    // Reads to the end, tracking every word in the tree as found in filename
+    // on its line, and returns the number of lines read. Lines end where
+    // Scanner ends them: at CR LF, LF, CR, NEL, LINE SEPARATOR or PARAGRAPH
+    // SEPARATOR, and a last line without an end counts only if it is not
+    // empty.
+    public int indexLines(String filename, BSTreeADT<TrackedWord> tree) {
+        this.tree = tree;
+        table = null;
+        shared = tree instanceof ConcurrentBSTree;
+        return indexLines(FileTable.idOf(filename));
+    }
+
+    // Reads to the end like indexLines(String, BSTreeADT), but collects the
+    // words in a hash table, which finds each one without comparing it
+    // against others; the table sorts them once when they are taken out
+    public int indexLines(String filename, WordTable table) {
+        tree = null;
+        this.table = table;
+        shared = false;
+        return indexLines(FileTable.idOf(filename));
+    }
+
+    // Reads to the end, tracking every word in the tree or table
+    private int indexLines(int fileId) {
+        int lineNum = 1;
+        boolean afterCR = false;
+        boolean partial = false;
+        int wordStart = -1;
+        int pos = 0;
+        int limit = 0;
+
+        while (true) {
+            if (pos == limit) {
+                // Keep the word being read at the front of the buffer
+                int keep = wordStart < 0 ? 0 : limit - wordStart;
+                if (keep == buffer.length) {
+                    char[] larger = new char[buffer.length * 2];
+                    System.arraycopy(buffer, wordStart, larger, 0, keep);
+                    buffer = larger;
+                } else if (keep > 0) {
+                    System.arraycopy(buffer, wordStart, buffer, 0, keep);
+                }
+                wordStart = wordStart < 0 ? -1 : 0;
+                pos = keep;
+                limit = keep + fill(keep);
+                if (limit == keep) {
+                    break;
+                }
+            }
+
+            char c = buffer[pos];
+            if (c < 128 && WORD[c]) {
+                if (wordStart < 0) {
+                    wordStart = pos;
+                }
+                partial = true;
+                afterCR = false;
+                pos++;
+                continue;
+            }
+
+            if (wordStart >= 0) {
+                track(wordStart, pos - wordStart, fileId, lineNum);
+                wordStart = -1;
+            }
+            if (c == '\n') {
+                // The \n of \r\n ends the line the \r already ended
+                if (!afterCR) {
+                    lineNum++;
+                }
+                partial = false;
+                afterCR = false;
+            } else if (c == '\r' || c == '\u2028' || c == '\u2029' || c == '\u0085') {
+                lineNum++;
+                partial = false;
+                afterCR = c == '\r';
+            } else {
+                partial = true;
+                afterCR = false;
+            }
+            pos++;
+        }
+
+        if (wordStart >= 0) {
+            track(wordStart, limit - wordStart, fileId, lineNum);
+        }
+        if (stats && lookups != null) {
+            Stats.addTokens(tokens, lookups);
+            tokens = 0;
+            lookups = null;
+        }
+        return partial ? lineNum : lineNum - 1;
+    }
+
+    // Returns the error that ended reading early, or null if the reader was
+    // read to its end
+    public IOException ioException() {
+        return error;
+    }
+
+    // Reads more characters into the buffer from offset; 0 at the end
+    private int fill(int offset) {
+        if (error != null) {
+            return 0;
+        }
+        try {
+            int n;
+            do {
+                n = reader.read(buffer, offset, buffer.length - offset);
+            } while (n == 0);
+            return Math.max(n, 0);
+        } catch (IOException e) {
+            // Scanner treats an error as the end of the input
+            error = e;
+            return 0;
+        }
+    }
+
+    // Finds the word, or adds it if it is new, and records where it appears
+    private void track(int wordStart, int wordLength, int fileId, int lineNum) {
+        start = wordStart;
+        length = wordLength;
+        calls = 0;
+        TrackedWord found;
+        if (table != null) {
+            found = LOWER_TABLE ? table.getOrAdd(hash(), this, this) : table.getOrAdd(get());
+        } else {
+            found = LOWER_TABLE ? tree.getOrAdd(this, this) : tree.getOrAdd(get());
+        }
+        if (shared) {
+            found.addSharedOccurrence(fileId, lineNum);
+        } else {
+            found.addOccurrence(fileId, lineNum);
+        }
+        if (stats) {
+            if (lookups == null) {
+                lookups = new Stats.Histogram();
+            }
+            tokens++;
+            lookups.add(calls);
+        }
+    }
+
+    // Hashes the current word, lowercased, the way String.hashCode hashes the
+    // key made from it
+    private int hash() {
+        int h = 0;
+        for (int i = start; i < start + length; i++) {
+            h = 31 * h + LOWER[buffer[i]];
+        }
+        return h;
+    }
+
+    // Compares the current word, lowercased, with the key of a stored word
+    // the way TrackedWord.compareTo compares keys
+    @Override
+    public int compareTo(TrackedWord other) {
+        calls++;
+        if (other == null) return 1;
+        String key = other.getKey();
+        int n = Math.min(length, key.length());
+        for (int i = 0; i < n; i++) {
+            char a = LOWER[buffer[start + i]];
+            char b = key.charAt(i);
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return length - key.length();
+    }
+
+    // The current word, lowercased, as the characters of its key
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length);
+        }
+        return LOWER[buffer[start + index]];
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        return toString().subSequence(from, to);
+    }
+
+    // Returns the key of the current word, without making a TrackedWord
+    @Override
+    public String toString() {
+        return new String(buffer, start, length).toLowerCase();
+    }
+
+    // Makes the TrackedWord for the current word when it is added
+    @Override
+    public TrackedWord get() {
+        String word = new String(buffer, start, length);
+        return new TrackedWord(word.toLowerCase(), word);
+    }
+}
@@ -1,187 +1,591 @@
 package appDomain;
 
+import implementations.AVLTree;
+import implementations.ArrayBSTree;
 import implementations.BSTree;
 import utilities.BSTreeADT;
 import utilities.Iterator;
 
 import java.io.*;
-import java.util.Scanner;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 // Main class for the WordTracker program
 public class WordTracker {
 
     // File used to save and load the tree between program runs
-    private static final String REPOSITORY_FILE = "repository.ser";
+    private static final String REPOSITORY_FILE = "repository.bin";
+
+    // Java serialized repository written by earlier versions, read once to migrate
+    private static final String LEGACY_REPOSITORY_FILE = "repository.ser";
+
+    // Characters buffered before the report is written out
+    private static final int REPORT_BUFFER_SIZE = 64 * 1024;
 
     // Program entry point
     public static void main(String[] args) {
 
-        // Check that enough command line arguments were provided
-        if (args.length < 2) {
-            System.err.println("Usage: java -jar WordTracker.jar <input.txt> -pf/-pl/-po [-f<output.txt>]");
+        // -merge combines saved repositories instead of reading text files
+        if (args.length > 0 && args[0].equals("-merge")) {
+            mergeRepositories(args);
             return;
         }
 
-        // Get input file and output option from arguments
-        String inputFile = args[0];
-        String option = args[1];
-        String outputFile = null;
-
-        // Check if an output file was specified
-        if (args.length == 3 && args[2].startsWith("-f")) {
-            outputFile = args[2].substring(2);
+        // Input files, directories and patterns come first, then the output option
+        List<String> inputs = new ArrayList<>();
+        int next = 0;
+        while (next < args.length && !args[next].startsWith("-")) {
+            inputs.add(args[next++]);
         }
 
-        // Load existing tree or create a new one
-        BSTreeADT<TrackedWord> tree = loadTree();
-
-        // Read the file and update the tree
-        processFile(inputFile, tree);
-
-        // Save the updated tree
-        saveTree(tree);
+        // Check that enough command line arguments were provided
+        if (inputs.isEmpty() || next >= args.length) {
+            System.err.println("Usage: java -jar WordTracker.jar <input.txt|dir|pattern>... -pf/-pl/-po/-pt<count> [-f<output.txt>] [-t<bst|avl|pool|trie>] [-w<prefix>|-r<from>:<to>|-n<first>:<last>] [-mmap] [-journal] [-split] [-stats]");
+            return;
+        }
 
-        StringBuilder report = new StringBuilder();
+        String option = args[next];
+        // -pt takes the number of words, as -pt10 or -pt 10
+        String top = null;
+        if (option.startsWith("-pt")) {
+            top = option.substring(3);
+            option = "-pt";
+            if (top.isEmpty() && next + 1 < args.length && !args[next + 1].startsWith("-")) {
+                top = args[++next];
+            }
+        }
+        String outputFile = null;
+        String treeType = null;
+        boolean mapped = false;
+        boolean journaled = false;
+        boolean split = false;
+        boolean stats = false;
+        String prefix = null;
+        String range = null;
+        String page = null;
+
+        // Check the optional arguments
+        for (int i = next + 1; i < args.length; i++) {
+            if (args[i].startsWith("-f")) {
+                outputFile = args[i].substring(2);
+            } else if (args[i].startsWith("-t")) {
+                treeType = args[i].substring(2);
+            } else if (args[i].startsWith("-w")) {
+                prefix = args[i].substring(2);
+            } else if (args[i].startsWith("-r")) {
+                range = args[i].substring(2);
+            } else if (args[i].startsWith("-n")) {
+                page = args[i].substring(2);
+            } else if (args[i].equals("-mmap")) {
+                mapped = true;
+            } else if (args[i].equals("-journal")) {
+                journaled = true;
+            } else if (args[i].equals("-split")) {
+                split = true;
+            } else if (args[i].equals("-stats")) {
+                stats = true;
+            }
+        }
 
-        // Determine which output format to use
-        switch (option) {
-            case "-pf":
-                report.append("Displaying -pf format\n");
-                break;
-            case "-pl":
-                report.append("Displaying -pl format\n");
-                break;
-            case "-po":
-                report.append("Displaying -po format\n");
-                break;
-            default:
-                System.err.println("Invalid option: " + option);
+        if (mapped && treeType != null) {
+            System.err.println("The -t and -mmap options cannot be used together.");
+            return;
+        }
+        if (prefix != null && range != null) {
+            System.err.println("The -w and -r options cannot be used together.");
+            return;
+        }
+        if (range != null && range.indexOf(':') < 0) {
+            System.err.println("Invalid range: " + range + " (expected -r<from>:<to>)");
+            return;
+        }
+        if (page != null && (prefix != null || range != null)) {
+            System.err.println("The -n option cannot be used with -w or -r.");
+            return;
+        }
+        // -n selects words by their position in the report, counting from 1
+        int firstWord = 0;
+        int lastWord = 0;
+        if (page != null) {
+            int colon = page.indexOf(':');
+            try {
+                firstWord = Integer.parseInt(page.substring(0, colon));
+                lastWord = Integer.parseInt(page.substring(colon + 1));
+            } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                firstWord = 0;
+            }
+            if (firstWord < 1 || lastWord < firstWord) {
+                System.err.println("Invalid page: " + page + " (expected -n<first>:<last>)");
                 return;
+            }
         }
-
-        // Go through the tree in alphabetical order
-        Iterator<TrackedWord> it = tree.inorderIterator();
-        while (it.hasNext()) {
-            TrackedWord word = it.next();
-
-            // Print the word being displayed
-            report.append("Key : ===")
-                  .append(word.getDisplayWord())
-                  .append("===");
-
-            // -po option shows total number of times the word appears
-            if (option.equals("-po")) {
-                int total = word.getFiles().values()
-                        .stream()
-                        .mapToInt(TrackedWord.FileInfo::getCount)
-                        .sum();
-                report.append(" number of entries: ").append(total);
+        // -pt lists the most frequent words, of those -w or -r select
+        int topWords = 0;
+        if (top != null) {
+            if (page != null) {
+                System.err.println("The -n option cannot be used with -pt.");
+                return;
             }
+            try {
+                topWords = Integer.parseInt(top);
+            } catch (NumberFormatException e) {
+                topWords = 0;
+            }
+            if (topWords < 1) {
+                System.err.println("Invalid count: " + top + " (expected -pt<count>)");
+                return;
+            }
+        }
 
-            boolean firstFile = true;
-
-            // Loop through each file where the word appears
-            for (String file : word.getFileList()) {
+        // -stats counts and times the run and prints a summary at the end
+        if (stats) {
+            Stats.setEnabled(true);
+        }
+        long phase = Stats.start();
+
+        // Load existing tree or create a new one; -mmap only reads the words
+        // that are looked up
+        BSTreeADT<TrackedWord> tree = mapped ? openMappedTree() : loadTree();
+
+        // Add the runs saved with -journal since the last full save, kept in
+        // repository.journal
+        RepositoryJournal journal = RepositoryJournal.forSnapshot(new File(REPOSITORY_FILE));
+        replayJournal(journal, tree);
+
+        // Switch to the requested tree type if one was given
+        if (treeType != null) {
+            BSTreeADT<TrackedWord> converted = newTree(treeType, Collections.<TrackedWord>emptyList());
+            if (converted == null) {
+                System.err.println("Invalid tree type: " + treeType);
+                return;
+            }
+            if (converted.getClass() != tree.getClass()) {
+                // Build the new tree balanced from the words in order in O(n)
+                // instead of adding them one at a time
+                List<TrackedWord> sorted = new ArrayList<>(tree.size());
+                Iterator<TrackedWord> copy = tree.inorderIterator();
+                while (copy.hasNext()) {
+                    sorted.add(copy.next());
+                }
+                tree = newTree(treeType, sorted);
+                // The journal cannot record a new tree type
+                deleteJournal(journal);
+            }
+        }
 
-                // Add spacing between file entries
-                if (!firstFile || option.equals("-pl") || option.equals("-po")) {
-                    report.append(" ");
+        Stats.end(Stats.Phase.LOAD, phase);
+
+        // Read the files in parallel, each into its own tree, and get their
+        // words back merged in file order. -split instead reads each file in
+        // parallel chunks, for a few very large files.
+        phase = Stats.start();
+        List<String> files = expandInputs(inputs);
+        List<TrackedWord> words;
+        if (split) {
+            words = new ArrayList<>();
+            for (String file : files) {
+                try {
+                    words = IndexTask.merge(words, ChunkIndexer.index(file, ForkJoinPool.commonPool()));
+                } catch (IOException e) {
+                    System.err.println("Error reading file: " + file);
                 }
+            }
+        } else {
+            words = ForkJoinPool.commonPool().invoke(new IndexTask(files));
+        }
 
-                report.append("found in file: ").append(file);
+        Stats.end(Stats.Phase.TOKENIZE, phase);
 
-                // -pl and -po options also show line numbers
-                if (option.equals("-pl") || option.equals("-po")) {
-                    report.append(" on lines: ");
-                    List<Integer> lines = word.getFiles().get(file).getLines();
-                    for (int i = 0; i < lines.size(); i++) {
-                        report.append(lines.get(i)).append(",");
-                    }
-                }
+        // Update the tree in one pass over the sorted words
+        phase = Stats.start();
+        tree = mergeWords(tree, words);
+        Stats.end(Stats.Phase.INSERT, phase);
 
-                firstFile = false;
+        phase = Stats.start();
+        if (journaled) {
+            // Only this run's occurrences go to the journal
+            saveJournal(tree, new AVLTree<>(words), journal);
+        } else {
+            // Save the updated tree; it now holds everything the journal did
+            if (saveTree(tree)) {
+                deleteJournal(journal);
             }
+        }
+        Stats.end(Stats.Phase.SAVE, phase);
 
-            report.append(System.lineSeparator());
+        // Check the output option before writing anything
+        if (!ReportWriter.isOption(option)) {
+            System.err.println("Invalid option: " + option);
+            return;
         }
 
-        // Output the report to a file or the console
+        // Stream the words straight from the tree instead of copying them
+        // first; nothing modifies the tree while the report is written
+        if (tree instanceof BSTree) {
+            ((BSTree<TrackedWord>) tree).setIteratorMode(BSTree.IteratorMode.FAIL_FAST);
+        } else if (tree instanceof ArrayBSTree) {
+            ((ArrayBSTree<TrackedWord>) tree).setIteratorMode(BSTree.IteratorMode.FAIL_FAST);
+        }
+
+        // Write the report to a file or the console as the tree is walked,
+        // in alphabetical order; -w, -r and -n only walk the words they select
+        phase = Stats.start();
+        Iterator<TrackedWord> selected = reportWords(tree, prefix, range, firstWord, lastWord);
         if (outputFile != null) {
-            try (PrintWriter out = new PrintWriter(outputFile)) {
-                out.print(report);
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(outputFile), Charset.defaultCharset()), REPORT_BUFFER_SIZE)) {
+                writeReport(out, option, selected, topWords);
             } catch (IOException e) {
                 System.err.println("Error writing to file: " + outputFile);
             }
         } else {
-            System.out.print(report);
+            // System.out is flushed but not closed
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, Charset.defaultCharset()),
+                    REPORT_BUFFER_SIZE);
+            try {
+                writeReport(out, option, selected, topWords);
+            } catch (IOException e) {
+                System.err.println("Error writing the report");
+            }
             System.out.println("Not exporting file.");
         }
+        Stats.end(Stats.Phase.REPORT, phase);
+
+        // The summary goes to stderr so the report stays unchanged
+        if (stats) {
+            Stats.print(System.err);
+        }
+    }
+
+    // Writes the report of the words, or with -pt of the topWords most
+    // frequent of them, highest total first
+    private static void writeReport(Writer out, String option, Iterator<TrackedWord> words, int topWords)
+            throws IOException {
+        ReportWriter writer = new ReportWriter(out, option);
+        if (topWords > 0) {
+            writer.write(TopWords.select(words, topWords));
+        } else {
+            writer.write(words);
+        }
+    }
+
+    // Returns the words the report lists in alphabetical order: those
+    // starting with the -w prefix, those from and to the -r keys, those at
+    // the -n positions, or all of them. The tree skips the subtrees outside
+    // the selection.
+    private static Iterator<TrackedWord> reportWords(BSTreeADT<TrackedWord> tree, String prefix, String range,
+                                                     int firstWord, int lastWord) {
+        if (firstWord > 0) {
+            // select() finds the words at both ends without counting from
+            // the start; a page past the end starts after the last word
+            int size = tree.size();
+            if (size == 0) {
+                return tree.inorderIterator();
+            }
+            if (firstWord > size) {
+                return tree.rangeIterator(tree.select(size - 1), false, null, true);
+            }
+            return tree.rangeIterator(tree.select(firstWord - 1), true,
+                    tree.select(Math.min(lastWord, size) - 1), true);
+        }
+        if (prefix != null) {
+            return tree.matchIterator(new WordPrefix(prefix));
+        }
+        if (range != null) {
+            // Either end may be left empty: -ra: or -r:m
+            int colon = range.indexOf(':');
+            return tree.rangeIterator(bound(range.substring(0, colon)), true,
+                    bound(range.substring(colon + 1)), true);
+        }
+        return tree.inorderIterator();
+    }
+
+    // Returns the key of one end of a -r range, or null for an open end
+    private static TrackedWord bound(String word) {
+        return word.isEmpty() ? null : new TrackedWord(word.toLowerCase());
+    }
+
+    // Merges the repository files named after -merge into the first one:
+    // -merge <output.bin> <input.bin>...
+    private static void mergeRepositories(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: java -jar WordTracker.jar -merge <output.bin> <input.bin>...");
+            return;
+        }
+        List<File> inputs = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            inputs.add(new File(args[i]));
+        }
+        try {
+            IndexMerger.mergeFiles(inputs, new File(args[1]));
+        } catch (IOException e) {
+            System.err.println("Failed to merge repositories: " + e.getMessage());
+        }
+    }
+
+    // Creates a balanced tree of the given type holding the sorted words, or
+    // null if the type is unknown
+    private static BSTreeADT<TrackedWord> newTree(String type, List<TrackedWord> sorted) {
+        switch (type) {
+            case "bst":
+                return new BSTree<>(sorted);
+            case "avl":
+                // Keeps the height O(log n) even for sorted input
+                return new AVLTree<>(sorted);
+            case "pool":
+                // Stores the nodes in parallel arrays instead of node objects
+                return new ArrayBSTree<>(sorted);
+            case "trie":
+                // Finds a word in O(key length) and stores shared prefixes once
+                return new WordTrie(sorted);
+            default:
+                return null;
+        }
     }
 
     // Loads the tree from the saved file if it exists
-    @SuppressWarnings("unchecked")
-	private static BSTreeADT<TrackedWord> loadTree() {
+    private static BSTreeADT<TrackedWord> loadTree() {
         File file = new File(REPOSITORY_FILE);
 
         if (file.exists()) {
-            try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
-                return (BSTreeADT<TrackedWord>) in.readObject();
-            } catch (Exception e) {
+            try {
+                return RepositoryFile.load(file);
+            } catch (IOException e) {
                 System.err.println("Failed to load repository, starting new tree.");
             }
+        } else if (new File(LEGACY_REPOSITORY_FILE).exists()) {
+            // Migrate: the next save writes the binary format
+            return loadLegacyTree();
         }
 
         // Return a new empty tree if loading fails
         return new BSTree<>();
     }
 
-    // Saves the tree to a file
-    private static void saveTree(BSTreeADT<TrackedWord> tree) {
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(REPOSITORY_FILE))) {
-            out.writeObject(tree);
+    // Maps the saved repository, falling back to loading it if it cannot be mapped
+    private static BSTreeADT<TrackedWord> openMappedTree() {
+        try {
+            return MappedRepository.open(new File(REPOSITORY_FILE));
+        } catch (IOException e) {
+            // Older files have no key index; the next save adds one
+            System.err.println("Cannot map repository, loading it instead.");
+        }
+        return loadTree();
+    }
+
+    // Loads a repository saved with Java serialization by earlier versions
+    @SuppressWarnings("unchecked")
+    private static BSTreeADT<TrackedWord> loadLegacyTree() {
+        try (ObjectInputStream in = new ObjectInputStream(
+                new BufferedInputStream(new FileInputStream(LEGACY_REPOSITORY_FILE)))) {
+            BSTreeADT<TrackedWord> tree = (BSTreeADT<TrackedWord>) in.readObject();
+            // Older versions added words one at a time, often in sorted order
+            if (tree instanceof BSTree) {
+                ((BSTree<TrackedWord>) tree).rebalance();
+            }
+            return tree;
+        } catch (Exception e) {
+            System.err.println("Failed to load repository, starting new tree.");
+        }
+        return new BSTree<>();
+    }
+
+    // Saves the tree to a file, returning false if it could not be written
+    private static boolean saveTree(BSTreeADT<TrackedWord> tree) {
+        try {
+            if (tree instanceof MappedRepository) {
+                // Writes back only the words that were looked up or added
+                ((MappedRepository) tree).save(new File(REPOSITORY_FILE));
+            } else {
+                RepositoryFile.save(tree, new File(REPOSITORY_FILE));
+            }
+            return true;
         } catch (IOException e) {
             System.err.println("Failed to save repository.");
         }
+        return false;
     }
 
-    // Reads the input file and tracks each word
-    private static void processFile(String filename, BSTreeADT<TrackedWord> tree) {
-        try (Scanner scanner = new Scanner(new File(filename))) {
-            int lineNum = 1;
+    // Applies the journal to the loaded tree
+    private static void replayJournal(RepositoryJournal journal, BSTreeADT<TrackedWord> tree) {
+        try {
+            journal.replay(tree);
+        } catch (IOException e) {
+            // The next save writes a full repository and a new journal
+            System.err.println("Failed to replay journal.");
+        }
+    }
 
-            // Read file line by line
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
+    // Appends this run's occurrences to the journal, or writes a full
+    // repository once the journal has grown too large
+    private static void saveJournal(BSTreeADT<TrackedWord> tree, BSTreeADT<TrackedWord> delta,
+                                    RepositoryJournal journal) {
+        try {
+            if (!journal.needsCompaction()) {
+                journal.append(delta);
+            } else if (saveTree(tree)) {
+                journal.compact();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to save journal.");
+        }
+    }
 
-                // Split the line into words
-                for (String word : line.split("[^a-zA-Z0-9']+")) {
-                    if (word.isEmpty()) continue;
+    // Removes the journal after a full save
+    private static void deleteJournal(RepositoryJournal journal) {
+        try {
+            journal.delete();
+        } catch (IOException e) {
+            System.err.println("Failed to delete journal.");
+        }
+    }
 
-                    // Convert word to lowercase for searching
-                    String key = word.toLowerCase();
-                    TrackedWord searchWord = new TrackedWord(key);
-                    TrackedWord found = null;
+    // Adds the words to the tree, merging the ones it already has, and
+    // returns the updated tree. When there are many words for the size of
+    // the tree, the tree and the words are merged in one pass into a new
+    // balanced tree instead, which also keeps a BSTree filled from sorted
+    // words from turning into a list.
+    private static BSTreeADT<TrackedWord> mergeWords(BSTreeADT<TrackedWord> tree, List<TrackedWord> words) {
+        if (!(tree instanceof MappedRepository) && IndexMerger.isCheaper(tree.size(), words.size())) {
+            BSTreeADT<TrackedWord> merged = IndexMerger.merge(tree, words);
+            if (Stats.isEnabled()) {
+                Stats.addInsert(words.size(), merged.size() - tree.size(), new Stats.Histogram());
+            }
+            return merged;
+        }
+        if (Stats.isEnabled()) {
+            mergeWordsCounted(tree, words);
+            return tree;
+        }
+        for (TrackedWord word : words) {
+            TrackedWord found = tree.getOrAdd(word);
+            if (found != word) {
+                found.merge(word);
+            }
+        }
+        return tree;
+    }
 
-                    // Check if the word already exists in the tree
-                    if (tree.contains(searchWord)) {
-                        found = tree.search(searchWord).getElement();
-                    }
+    // mergeWords for -stats, counting the compareTo calls of each lookup and
+    // the words that are new to the tree. A mapped repository searches its
+    // key index without compareTo, so its lookups are not counted.
+    private static void mergeWordsCounted(BSTreeADT<TrackedWord> tree, List<TrackedWord> words) {
+        boolean counted = !(tree instanceof MappedRepository);
+        Stats.Histogram lookups = new Stats.Histogram();
+        Stats.Probe probe = new Stats.Probe();
+        long added = 0;
+        for (TrackedWord word : words) {
+            TrackedWord found = tree.getOrAdd(probe.reset(word), probe);
+            if (counted) {
+                lookups.add(probe.calls());
+            }
+            if (found != word) {
+                found.merge(word);
+            } else {
+                added++;
+            }
+        }
+        Stats.addInsert(words.size(), added, lookups);
+    }
 
-                    // If the word is not found, add it
-                    if (found == null) {
-                        found = new TrackedWord(key, word);
-                        tree.add(found);
+    // Turns the input arguments into file names. A directory gives the files
+    // in it and a pattern such as res/*.txt gives the files it matches, both
+    // sorted by name; anything else is used as given
+    static List<String> expandInputs(List<String> inputs) {
+        List<String> files = new ArrayList<>();
+        for (String input : inputs) {
+            File file = new File(input);
+            if (file.isDirectory()) {
+                File[] children = file.listFiles(File::isFile);
+                if (children != null) {
+                    Arrays.sort(children);
+                    for (File child : children) {
+                        files.add(child.getPath());
                     }
-
-                    // Record where the word appears
-                    found.addOccurrence(filename, lineNum);
                 }
+            } else if (!file.exists() && isPattern(input)) {
+                List<String> matches = matchPattern(input);
+                if (matches.isEmpty()) {
+                    System.err.println("No files match: " + input);
+                }
+                files.addAll(matches);
+            } else {
+                files.add(input);
+            }
+        }
+        return files;
+    }
+
+    // Returns true if the argument contains glob wildcards
+    private static boolean isPattern(String input) {
+        return firstWildcard(input) >= 0;
+    }
 
-                lineNum++;
+    // Index of the first glob wildcard in the argument, or -1
+    private static int firstWildcard(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            if ("*?[{".indexOf(input.charAt(i)) >= 0) {
+                return i;
             }
+        }
+        return -1;
+    }
+
+    // Lists the files matching a glob pattern, sorted by name. The directory
+    // before the first wildcard is searched, as deep as the pattern reaches.
+    private static List<String> matchPattern(String input) {
+        int wildcard = firstWildcard(input);
+        int slash = Math.max(input.lastIndexOf('/', wildcard), input.lastIndexOf(File.separatorChar, wildcard));
+        Path base = Paths.get(slash < 0 ? "." : slash == 0 ? input.substring(0, 1) : input.substring(0, slash));
+        String pattern = input.substring(slash + 1);
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        int depth = pattern.contains("**") ? Integer.MAX_VALUE : pattern.split("[/\\\\]").length;
+
+        List<String> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(base, depth)) {
+            paths.filter(Files::isRegularFile)
+                 .filter(path -> matcher.matches(base.relativize(path)))
+                 .forEach(path -> files.add(slash < 0 ? base.relativize(path).toString() : path.toString()));
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error listing files: " + input);
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    // Reads the input file and tracks each word. The channel is a resource
+    // of its own, so it is closed even if the reader cannot be made.
+    public static void processFile(String filename, BSTreeADT<TrackedWord> tree) {
+        try (FileChannel channel = FileChannel.open(new File(filename).toPath(), StandardOpenOption.READ);
+             Reader reader = WordTokenizer.newReader(channel, Charset.defaultCharset())) {
+            new WordTokenizer(reader).indexLines(filename, tree);
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + filename);
+        }
+    }
+
+    // Reads the file like processFile, collecting its words in a hash table,
+    // and returns them sorted by key
+    public static List<TrackedWord> indexFile(String filename) {
+        WordTable table = new WordTable();
+        try (FileChannel channel = FileChannel.open(new File(filename).toPath(), StandardOpenOption.READ);
+             Reader reader = WordTokenizer.newReader(channel, Charset.defaultCharset())) {
+            new WordTokenizer(reader).indexLines(filename, table);
         } catch (IOException e) {
             System.err.println("Error reading file: " + filename);
         }
+        return table.sortedWords();
     }
 }
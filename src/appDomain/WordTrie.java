@@ -0,0 +1,615 @@
+package appDomain;
+
+import implementations.BSTree;
+import implementations.BSTreeNode;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+// Stores the words in a compressed radix (Patricia) trie on their keys
+// instead of a binary tree. A lookup reads each character of the key once,
+// picking a child by its first character and checking the rest of its label,
+// so it costs O(key length) whatever the number of words, where a binary
+// tree compares the whole key again at each of its log n levels.
+//
+// A node stands for the prefix made of the labels from the root down to it,
+// and has children only where words with that prefix continue differently,
+// so a prefix shared by many words is one node. Labels are not copied: a
+// node keeps its depth, the length of its prefix, and the key of one word
+// below it, and its label is that key from its parent's depth to its own.
+// The trie therefore holds no characters beyond the keys the words already
+// have.
+//
+// Walking the trie with each node before its children, children in order of
+// their first character, gives the words in key order, which is the order
+// TrackedWord.compareTo gives. There are no binary nodes, so like
+// MappedRepository it has no root to return, and search and removal return
+// a node made just to hold the word.
+public class WordTrie implements BSTreeADT<TrackedWord> {
+
+    // Used for object serialization
+    private static final long serialVersionUID = 1L;
+
+    // The empty prefix every word starts with; it is never removed
+    private Node root = new Node("", 0);
+
+    // Number of words stored
+    private int size;
+
+    // Counts changes, so iterators can tell the trie changed under them
+    private transient int modCount;
+
+    // Nodes on the way down to the node last added to or removed from,
+    // reused from one call to the next
+    private transient Node[] path = new Node[16];
+
+    // A node of the trie: the prefix of length depth of key, the word with
+    // exactly that key if there is one, and the nodes below it in order of
+    // the character at depth of their keys
+    private static class Node implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        // Key of a word in this subtree, whose first depth characters are
+        // the prefix of this node
+        private String key;
+        private final int depth;
+
+        // The word whose key is the prefix, or null
+        private TrackedWord element;
+
+        // Children, or null when there are none, and the first character of
+        // the label of each, so a child is found without visiting the others;
+        // kept exactly as long as needed since most nodes have few
+        private Node[] children;
+        private char[] firsts;
+
+        // Number of words in this subtree, for rank and select
+        private int count;
+
+        Node(String key, int depth) {
+            this.key = key;
+            this.depth = depth;
+        }
+
+        // Returns the first character of the label of a child
+        char first(Node child) {
+            return child.key.charAt(depth);
+        }
+
+        // Returns the position of the child whose label starts with c, or
+        // -(insertion point) - 1 if there is none
+        int find(char c) {
+            int lo = 0;
+            int hi = children == null ? -1 : children.length - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                char m = firsts[mid];
+                if (m < c) {
+                    lo = mid + 1;
+                } else if (m > c) {
+                    hi = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(lo + 1);
+        }
+
+        // Inserts a child at the position
+        void insert(int index, Node child) {
+            Node[] old = children == null ? new Node[0] : children;
+            char[] oldFirsts = firsts == null ? new char[0] : firsts;
+            children = new Node[old.length + 1];
+            firsts = new char[old.length + 1];
+            System.arraycopy(old, 0, children, 0, index);
+            System.arraycopy(oldFirsts, 0, firsts, 0, index);
+            children[index] = child;
+            firsts[index] = first(child);
+            System.arraycopy(old, index, children, index + 1, old.length - index);
+            System.arraycopy(oldFirsts, index, firsts, index + 1, old.length - index);
+        }
+
+        // Removes the child at the position
+        void remove(int index) {
+            if (children.length == 1) {
+                children = null;
+                firsts = null;
+                return;
+            }
+            Node[] old = children;
+            char[] oldFirsts = firsts;
+            children = new Node[old.length - 1];
+            firsts = new char[old.length - 1];
+            System.arraycopy(old, 0, children, 0, index);
+            System.arraycopy(oldFirsts, 0, firsts, 0, index);
+            System.arraycopy(old, index + 1, children, index, old.length - index - 1);
+            System.arraycopy(oldFirsts, index + 1, firsts, index, old.length - index - 1);
+        }
+
+        int childCount() {
+            return children == null ? 0 : children.length;
+        }
+    }
+
+    // Creates an empty trie
+    public WordTrie() {
+    }
+
+    // Creates a trie holding the words; each key is read once
+    public WordTrie(List<TrackedWord> words) {
+        for (TrackedWord word : words) {
+            add(word);
+        }
+    }
+
+    // Not supported: the trie has no binary nodes, which is why
+    // rangeIterator is overridden rather than walking down from a root
+    @Override
+    public BSTreeNode<TrackedWord> getRoot() throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("A trie has no binary node structure");
+    }
+
+    // Returns the number of nodes on the longest path down from the root,
+    // which is the most a lookup visits; the root only counts when it holds
+    // the empty word, so an empty trie has height 0 like the other trees
+    @Override
+    public int getHeight() {
+        if (size == 0) {
+            return 0;
+        }
+        int height = root.element == null ? -1 : 0;
+        Deque<Node> level = new ArrayDeque<>();
+        level.add(root);
+        while (!level.isEmpty()) {
+            height++;
+            for (int n = level.size(); n > 0; n--) {
+                Node node = level.poll();
+                for (int i = 0; i < node.childCount(); i++) {
+                    level.add(node.children[i]);
+                }
+            }
+        }
+        return height;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        root = new Node("", 0);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public boolean contains(TrackedWord entry) throws NullPointerException {
+        return find(key(entry)) != null;
+    }
+
+    // Returns a node holding the stored word with the key of the entry, or
+    // null if there is none; the node is not part of any tree
+    @Override
+    public BSTreeNode<TrackedWord> search(TrackedWord entry) throws NullPointerException {
+        TrackedWord found = find(key(entry));
+        return found == null ? null : new BSTreeNode<>(found);
+    }
+
+    @Override
+    public boolean add(TrackedWord newEntry) throws NullPointerException {
+        return getOrAdd(newEntry) == newEntry;
+    }
+
+    @Override
+    public TrackedWord getOrAdd(TrackedWord newEntry) throws NullPointerException {
+        return getOrAddKey(key(newEntry), () -> newEntry);
+    }
+
+    // Descends with the characters of the probe when it is a CharSequence
+    // holding the key, such as the current word of a WordTokenizer, so no
+    // key is made for a word already stored. Other probes cannot be read
+    // character by character, so the word is made first.
+    @Override
+    public TrackedWord getOrAdd(Comparable<? super TrackedWord> probe, Supplier<? extends TrackedWord> factory)
+            throws NullPointerException {
+        if (probe == null || factory == null) {
+            throw new NullPointerException("Null probe");
+        }
+        if (probe instanceof CharSequence) {
+            return getOrAddKey((CharSequence) probe, factory);
+        }
+        return getOrAdd(factory.get());
+    }
+
+    // Returns the key of an entry, which must not be null
+    private static String key(TrackedWord entry) {
+        if (entry == null) {
+            throw new NullPointerException("Null entry");
+        }
+        return entry.getKey();
+    }
+
+    // Returns the stored word with the key, or null
+    private TrackedWord find(CharSequence key) {
+        Node node = root;
+        while (node.depth < key.length()) {
+            int i = node.find(key.charAt(node.depth));
+            if (i < 0) {
+                return null;
+            }
+            Node child = node.children[i];
+            if (child.depth > key.length() || mismatch(child, key, node.depth + 1) < child.depth) {
+                return null;
+            }
+            node = child;
+        }
+        return node.element;
+    }
+
+    // Returns the first position from the given one where the key differs
+    // from the label of the node, or the node's depth if it does not
+    private static int mismatch(Node node, CharSequence key, int from) {
+        int end = Math.min(node.depth, key.length());
+        for (int j = from; j < end; j++) {
+            if (node.key.charAt(j) != key.charAt(j)) {
+                return j;
+            }
+        }
+        return end;
+    }
+
+    // Finds the word with the key, adding the word made by the factory at
+    // the place the search stopped if there is none
+    private TrackedWord getOrAddKey(CharSequence key, Supplier<? extends TrackedWord> factory) {
+        int length = key.length();
+        int depth = 0;
+        Node node = root;
+        record(depth++, node);
+        while (node.depth < length) {
+            int i = node.find(key.charAt(node.depth));
+            if (i < 0) {
+                // No word continues with this character: a new leaf
+                TrackedWord created = create(factory);
+                Node leaf = new Node(created.getKey(), length);
+                leaf.element = created;
+                leaf.count = 1;
+                node.insert(-(i + 1), leaf);
+                return added(depth, created);
+            }
+            Node child = node.children[i];
+            int split = mismatch(child, key, node.depth + 1);
+            if (split < child.depth) {
+                // The key leaves or ends inside the label of the child: the
+                // label is cut at that point by a new node
+                TrackedWord created = create(factory);
+                Node middle = new Node(child.key, split);
+                middle.count = child.count + 1;
+                middle.insert(0, child);
+                if (split == length) {
+                    middle.element = created;
+                    middle.key = created.getKey();
+                } else {
+                    Node leaf = new Node(created.getKey(), length);
+                    leaf.element = created;
+                    leaf.count = 1;
+                    middle.insert(key.charAt(split) < child.key.charAt(split) ? 0 : 1, leaf);
+                }
+                node.children[i] = middle;
+                return added(depth, created);
+            }
+            node = child;
+            record(depth++, node);
+        }
+        if (node.element != null) {
+            return node.element;
+        }
+        // The key ends at a node that only branched until now
+        TrackedWord created = create(factory);
+        node.element = created;
+        node.key = created.getKey();
+        return added(depth, created);
+    }
+
+    // Makes the word to add; its key must be the one searched for
+    private static TrackedWord create(Supplier<? extends TrackedWord> factory) {
+        TrackedWord created = factory.get();
+        if (created == null) {
+            throw new NullPointerException("Factory returned null");
+        }
+        return created;
+    }
+
+    // Counts the word just added in every node on the path to it
+    private TrackedWord added(int depth, TrackedWord created) {
+        for (int i = 0; i < depth; i++) {
+            path[i].count++;
+        }
+        size++;
+        modCount++;
+        return created;
+    }
+
+    // Puts a node on the path, making room for it if needed
+    private void record(int depth, Node node) {
+        if (path == null) {
+            path = new Node[16];
+        } else if (depth == path.length) {
+            path = Arrays.copyOf(path, depth * 2);
+        }
+        path[depth] = node;
+    }
+
+    // The smallest word is at the first node with a word on the way down
+    // the first children, since a node's key is a prefix of those below it
+    @Override
+    public BSTreeNode<TrackedWord> removeMin() {
+        return removeEnd(true);
+    }
+
+    // The largest word is at the end of the way down the last children
+    @Override
+    public BSTreeNode<TrackedWord> removeMax() {
+        return removeEnd(false);
+    }
+
+    // Removes the smallest or largest word and repairs the trie so every
+    // node other than the root again has a word or at least two children
+    private BSTreeNode<TrackedWord> removeEnd(boolean min) {
+        if (size == 0) {
+            return null;
+        }
+        int depth = 0;
+        Node node = root;
+        record(depth++, node);
+        while (node.children != null && (!min || node.element == null)) {
+            node = node.children[min ? 0 : node.children.length - 1];
+            record(depth++, node);
+        }
+        TrackedWord removed = node.element;
+        node.element = null;
+        for (int i = 0; i < depth; i++) {
+            path[i].count--;
+        }
+        size--;
+        modCount++;
+
+        if (node != root) {
+            Node parent = path[depth - 2];
+            int index = parent.find(parent.first(node));
+            if (node.children == null) {
+                parent.remove(index);
+                // The parent may now be a branch with one child left
+                if (parent != root && parent.element == null && parent.childCount() == 1) {
+                    Node grandparent = path[depth - 3];
+                    grandparent.children[grandparent.find(grandparent.first(parent))] = parent.children[0];
+                }
+            } else if (node.children.length == 1) {
+                parent.children[index] = node.children[0];
+            }
+        }
+        // Nodes labelled with the removed key take one that is still stored,
+        // so the key is not kept alive; deepest first, so each parent copies
+        // a child that has already been relabelled
+        for (int i = depth - 1; i >= 0; i--) {
+            if (path[i].key == removed.getKey() && path[i].children != null) {
+                path[i].key = path[i].children[0].key;
+            }
+        }
+        return new BSTreeNode<>(removed);
+    }
+
+    // Counts the words before the entry by adding up the subtrees passed
+    // on the way down its key
+    @Override
+    public int rank(TrackedWord entry) throws NullPointerException {
+        String key = key(entry);
+        int rank = 0;
+        Node node = root;
+        while (true) {
+            if (node.depth == key.length()) {
+                // Every word below is longer, so not before the key
+                return rank;
+            }
+            if (node.element != null) {
+                rank++;
+            }
+            char c = key.charAt(node.depth);
+            int i = node.find(c);
+            int end = i < 0 ? -(i + 1) : i;
+            for (int j = 0; j < end; j++) {
+                rank += node.children[j].count;
+            }
+            if (i < 0) {
+                return rank;
+            }
+            Node child = node.children[i];
+            int split = mismatch(child, key, node.depth + 1);
+            if (split < child.depth) {
+                // The key leaves the label: the whole child is before or after
+                if (split < key.length() && key.charAt(split) > child.key.charAt(split)) {
+                    rank += child.count;
+                }
+                return rank;
+            }
+            node = child;
+        }
+    }
+
+    // Finds the word at the index by skipping whole subtrees by their counts
+    @Override
+    public TrackedWord select(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        Node node = root;
+        while (true) {
+            if (node.element != null) {
+                if (index == 0) {
+                    return node.element;
+                }
+                index--;
+            }
+            for (Node child : node.children) {
+                if (index < child.count) {
+                    node = child;
+                    break;
+                }
+                index -= child.count;
+            }
+        }
+    }
+
+    @Override
+    public Iterator<TrackedWord> inorderIterator() {
+        return new TrieIterator(null, true, null, true);
+    }
+
+    // Walks the words in order from the first one not below low, skipping
+    // the subtrees whose largest word is below it, and stops at the first
+    // word above high
+    @Override
+    public Iterator<TrackedWord> rangeIterator(Comparable<? super TrackedWord> low, boolean lowInclusive,
+                                               Comparable<? super TrackedWord> high, boolean highInclusive) {
+        return new TrieIterator(low, lowInclusive, high, highInclusive);
+    }
+
+    // Pre-order has no meaning without binary nodes; this builds a balanced
+    // copy of the words
+    @Override
+    public Iterator<TrackedWord> preorderIterator() {
+        return balancedCopy().preorderIterator();
+    }
+
+    // Post-order has no meaning without binary nodes; this builds a balanced
+    // copy of the words
+    @Override
+    public Iterator<TrackedWord> postorderIterator() {
+        return balancedCopy().postorderIterator();
+    }
+
+    // Builds a balanced tree holding every word
+    private BSTree<TrackedWord> balancedCopy() {
+        List<TrackedWord> words = new ArrayList<>(size);
+        Iterator<TrackedWord> it = inorderIterator();
+        while (it.hasNext()) {
+            words.add(it.next());
+        }
+        return new BSTree<>(words);
+    }
+
+    // Restores the fields that are not saved
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        path = new Node[16];
+    }
+
+    // Walks the nodes with a stack, each node before its children; fails
+    // fast if the trie is changed other than through it
+    private class TrieIterator implements Iterator<TrackedWord> {
+
+        private final Deque<Node> stack = new ArrayDeque<>();
+        private Comparable<? super TrackedWord> low;
+        private final boolean lowInclusive;
+        private final Comparable<? super TrackedWord> high;
+        private final boolean highInclusive;
+        private final int expectedModCount = modCount;
+        private TrackedWord next;
+
+        TrieIterator(Comparable<? super TrackedWord> low, boolean lowInclusive,
+                     Comparable<? super TrackedWord> high, boolean highInclusive) {
+            this.low = low;
+            this.lowInclusive = lowInclusive;
+            this.high = high;
+            this.highInclusive = highInclusive;
+            stack.push(root);
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public TrackedWord next() throws NoSuchElementException {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            TrackedWord word = next;
+            advance();
+            return word;
+        }
+
+        // Finds the next word in range, or sets next to null at the end
+        private void advance() {
+            next = null;
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                if (low != null) {
+                    // Skip the subtree if every word in it is below the range
+                    TrackedWord largest = largest(node);
+                    if (largest == null || !aboveLow(largest)) {
+                        continue;
+                    }
+                }
+                for (int i = node.childCount() - 1; i >= 0; i--) {
+                    stack.push(node.children[i]);
+                }
+                if (node.element == null || !aboveLow(node.element)) {
+                    continue;
+                }
+                // Every later word is above low too
+                low = null;
+                if (high != null) {
+                    int cmp = high.compareTo(node.element);
+                    if (cmp < 0 || (cmp == 0 && !highInclusive)) {
+                        stack.clear();
+                        return;
+                    }
+                }
+                next = node.element;
+                return;
+            }
+        }
+
+        // Whether the word is within the lower bound
+        private boolean aboveLow(TrackedWord word) {
+            if (low == null) {
+                return true;
+            }
+            int cmp = low.compareTo(word);
+            return cmp < 0 || (cmp == 0 && lowInclusive);
+        }
+
+        // Returns the largest word below the node, the end of the way down
+        // its last children, or null for an empty root
+        private TrackedWord largest(Node node) {
+            while (node.children != null) {
+                node = node.children[node.children.length - 1];
+            }
+            return node.element;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package implementations;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Self-balancing variant of {@link BSTree}. After every insertion or removal
+ * the heights of the two subtrees of any node differ by at most one, so the
+ * height of the tree stays O(log n) regardless of the order in which elements
+ * are added. Searching and traversal are inherited unchanged from
+ * {@link BSTree}.
+ *
+ * @param <E> element type (must implement {@link Comparable})
+ */
+public class AVLTree<E extends Comparable<? super E>> extends BSTree<E>
+{
+	private static final long serialVersionUID = 1L;
+
+	/** Element found or inserted by the last call to {@link #insert}. */
+	private transient E match;
+
+	/** Constructs an empty AVL tree. */
+	public AVLTree()
+	{
+		super();
+	}
+
+	/**
+	 * Convenience constructor to create a tree with a single root element.
+	 *
+	 * @param element initial root element (ignored if null)
+	 */
+	public AVLTree( E element )
+	{
+		super( element );
+	}
+
+	/**
+	 * Builds a perfectly balanced tree from elements that are already in
+	 * strictly ascending order, in O(n) time.
+	 *
+	 * @param sorted elements in ascending order without duplicates
+	 * @throws NullPointerException if the list or any element is null
+	 * @throws IllegalArgumentException if the elements are not strictly
+	 *             ascending
+	 */
+	public AVLTree( List<? extends E> sorted ) throws NullPointerException, IllegalArgumentException
+	{
+		super( sorted );
+	}
+
+	/** Inserts a new element and rebalances the path back to the root. */
+	@Override
+	public boolean add( E newEntry ) throws NullPointerException
+	{
+		int before = size;
+		getOrAdd( newEntry );
+		return size != before;
+	}
+
+	/** Returns the matching element, inserting and rebalancing if it is new. */
+	@Override
+	public E getOrAdd( E newEntry ) throws NullPointerException
+	{
+		if( newEntry == null )
+			throw new NullPointerException( "Null entry" );
+		return getOrAdd( newEntry, newEntry, null );
+	}
+
+	/** Returns the element matching the probe, inserting one from the factory if it is new. */
+	@Override
+	public E getOrAdd( Comparable<? super E> probe, Supplier<? extends E> factory ) throws NullPointerException
+	{
+		if( probe == null || factory == null )
+			throw new NullPointerException( "Null probe" );
+		return getOrAdd( probe, null, factory );
+	}
+
+	/** Helper: shared by both getOrAdd methods. */
+	private E getOrAdd( Comparable<? super E> probe, E newEntry, Supplier<? extends E> factory )
+	{
+		int before = size;
+		root = insert( root, probe, newEntry, factory );
+		if( size != before )
+			modCount++;
+		E result = match;
+		match = null;
+		return result;
+	}
+
+	/**
+	 * Helper: inserts into the subtree and returns its (possibly new) root.
+	 * The element inserted is entry, or if that is null the one made by the
+	 * factory. The stored or inserted element is left in {@link #match}.
+	 */
+	private BSTreeNode<E> insert( BSTreeNode<E> node, Comparable<? super E> probe, E entry,
+			Supplier<? extends E> factory )
+	{
+		if( node == null )
+		{
+			match = BSTree.create( entry, factory );
+			size++;
+			return new BSTreeNode<E>( match );
+		}
+		int cmp = probe.compareTo( node.getElement() );
+		if( cmp == 0 )
+		{
+			match = node.getElement(); // duplicate, not inserted
+			return node;
+		}
+		else if( cmp < 0 )
+			node.setLeft( insert( node.getLeft(), probe, entry, factory ) );
+		else
+			node.setRight( insert( node.getRight(), probe, entry, factory ) );
+		return balance( node );
+	}
+
+	/** Removes and returns the node containing the smallest element. */
+	@Override
+	public BSTreeNode<E> removeMin()
+	{
+		if( root == null )
+			return null;
+		BSTreeNode<E> min = root;
+		while( min.getLeft() != null )
+			min = min.getLeft();
+		root = removeMin( root );
+		size--;
+		modCount++;
+		min.setRight( null );
+		update( min );
+		return min;
+	}
+
+	/** Helper: unlinks the minimum of the subtree and rebalances on the way up. */
+	private BSTreeNode<E> removeMin( BSTreeNode<E> node )
+	{
+		if( node.getLeft() == null )
+			return node.getRight();
+		node.setLeft( removeMin( node.getLeft() ) );
+		return balance( node );
+	}
+
+	/** Removes and returns the node containing the largest element. */
+	@Override
+	public BSTreeNode<E> removeMax()
+	{
+		if( root == null )
+			return null;
+		BSTreeNode<E> max = root;
+		while( max.getRight() != null )
+			max = max.getRight();
+		root = removeMax( root );
+		size--;
+		modCount++;
+		max.setLeft( null );
+		update( max );
+		return max;
+	}
+
+	/** Helper: unlinks the maximum of the subtree and rebalances on the way up. */
+	private BSTreeNode<E> removeMax( BSTreeNode<E> node )
+	{
+		if( node.getRight() == null )
+			return node.getLeft();
+		node.setRight( removeMax( node.getRight() ) );
+		return balance( node );
+	}
+
+	/**
+	 * Helper: restores the AVL property at the given node with at most two
+	 * rotations.
+	 *
+	 * @return the root of the rebalanced subtree
+	 */
+	private BSTreeNode<E> balance( BSTreeNode<E> node )
+	{
+		update( node );
+		int diff = height( node.getLeft() ) - height( node.getRight() );
+		if( diff > 1 )
+		{
+			if( height( node.getLeft().getLeft() ) < height( node.getLeft().getRight() ) )
+				node.setLeft( rotateLeft( node.getLeft() ) );
+			return rotateRight( node );
+		}
+		if( diff < -1 )
+		{
+			if( height( node.getRight().getRight() ) < height( node.getRight().getLeft() ) )
+				node.setRight( rotateRight( node.getRight() ) );
+			return rotateLeft( node );
+		}
+		return node;
+	}
+
+	/** Helper: rotates the subtree right and returns the new subtree root. */
+	private BSTreeNode<E> rotateRight( BSTreeNode<E> node )
+	{
+		BSTreeNode<E> pivot = node.getLeft();
+		node.setLeft( pivot.getRight() );
+		pivot.setRight( node );
+		update( node );
+		update( pivot );
+		return pivot;
+	}
+
+	/** Helper: rotates the subtree left and returns the new subtree root. */
+	private BSTreeNode<E> rotateLeft( BSTreeNode<E> node )
+	{
+		BSTreeNode<E> pivot = node.getRight();
+		node.setRight( pivot.getLeft() );
+		pivot.setLeft( node );
+		update( node );
+		update( pivot );
+		return pivot;
+	}
+}
@@ -0,0 +1,782 @@
+package implementations;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * Binary search tree that keeps its nodes in a pool of parallel arrays instead
+ * of one {@link BSTreeNode} object per element. Node <code>i</code> stores its
+ * element in <code>elements[i]</code> and the indices of its children in
+ * <code>left[i]</code> and <code>right[i]</code>, so a large tree is three
+ * arrays rather than millions of small objects. Two more arrays cache the
+ * size and height of the subtree under each slot, so {@link #getHeight()},
+ * {@link #rank(Comparable)} and {@link #select(int)} take one descent, the
+ * same as with {@link BSTreeNode}. Slots released by
+ * {@link #removeMin()} and {@link #removeMax()} are kept on a free list and
+ * reused by later insertions.
+ * <p>
+ * The ordering rules match {@link BSTree}: duplicates are not allowed and the
+ * tree is not rebalanced. Nodes returned by {@link #getRoot()} and
+ * {@link #search(Comparable)} are lightweight views that read and write the
+ * pool directly; they remain valid until the node they refer to is removed.
+ * </p>
+ *
+ * @param <E> element type (must implement {@link Comparable})
+ */
+public class ArrayBSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
+{
+	private static final long serialVersionUID = 1L;
+
+	/** Index used for a missing child or an empty tree. */
+	private static final int NIL = -1;
+
+	/** Initial number of slots in the pool. */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/** Element stored in each slot (null for free slots). */
+	private Object[] elements;
+
+	/** Left child index of each slot; next free slot for free slots. */
+	private int[] left;
+
+	/** Right child index of each slot. */
+	private int[] right;
+
+	/** Number of elements in the subtree under each slot. */
+	private int[] sizes;
+
+	/** Number of levels in the subtree under each slot. */
+	private int[] heights;
+
+	/** Index of the root slot (NIL when empty). */
+	private int root;
+
+	/** Number of elements stored in the tree. */
+	private int size;
+
+	/** Number of slots that have ever been handed out. */
+	private int used;
+
+	/** First slot on the free list (NIL when the list is empty). */
+	private int free;
+
+	/** Number of structural modifications, used by fail-fast iterators. */
+	private transient int modCount;
+
+	/** Iterator behaviour (null means {@link BSTree.IteratorMode#SNAPSHOT}). */
+	private transient BSTree.IteratorMode iteratorMode;
+
+	/** Scratch array a descent records its slots in; see {@link #path()}. */
+	private transient int[] path;
+
+	/**
+	 * True after a {@link NodeView} relinked a slot, which leaves the cached
+	 * sizes and heights unknown until {@link #recount()}.
+	 */
+	private transient boolean stale;
+
+	/** Constructs an empty tree with the default pool capacity. */
+	public ArrayBSTree()
+	{
+		this( DEFAULT_CAPACITY );
+	}
+
+	/**
+	 * Constructs an empty tree whose pool initially has room for the given
+	 * number of elements.
+	 *
+	 * @param capacity initial number of slots
+	 * @throws IllegalArgumentException if capacity is negative
+	 */
+	public ArrayBSTree( int capacity ) throws IllegalArgumentException
+	{
+		if( capacity < 0 )
+			throw new IllegalArgumentException( "Negative capacity: " + capacity );
+		elements = new Object[capacity];
+		left = new int[capacity];
+		right = new int[capacity];
+		sizes = new int[capacity];
+		heights = new int[capacity];
+		root = NIL;
+		size = 0;
+		used = 0;
+		free = NIL;
+	}
+
+	/**
+	 * Builds a perfectly balanced tree from elements that are already in
+	 * strictly ascending order, in O(n) time. The pool is sized to fit the
+	 * elements exactly.
+	 *
+	 * @param sorted elements in ascending order without duplicates
+	 * @throws NullPointerException if the list or any element is null
+	 * @throws IllegalArgumentException if the elements are not strictly
+	 *             ascending
+	 */
+	public ArrayBSTree( List<? extends E> sorted ) throws NullPointerException, IllegalArgumentException
+	{
+		this( sorted.size() );
+		for( int i = 0; i < sorted.size(); i++ )
+		{
+			if( sorted.get( i ) == null )
+				throw new NullPointerException( "Null entry" );
+			if( i > 0 && sorted.get( i - 1 ).compareTo( sorted.get( i ) ) >= 0 )
+				throw new IllegalArgumentException( "Elements are not in strictly ascending order at index " + i );
+		}
+		// slot i holds sorted[i], so only the links need to be computed
+		for( int i = 0; i < sorted.size(); i++ )
+			elements[i] = sorted.get( i );
+		used = sorted.size();
+		size = sorted.size();
+		root = link( 0, size - 1 );
+	}
+
+	/** Helper: links slots lo..hi into a balanced subtree and returns its root. */
+	private int link( int lo, int hi )
+	{
+		if( lo > hi )
+			return NIL;
+		int mid = ( lo + hi ) >>> 1;
+		left[mid] = link( lo, mid - 1 );
+		right[mid] = link( mid + 1, hi );
+		update( mid );
+		return mid;
+	}
+
+	/** Helper: cached number of elements under a possibly missing slot. */
+	private int sizeOf( int node )
+	{
+		return node == NIL ? 0 : sizes[node];
+	}
+
+	/** Helper: cached number of levels under a possibly missing slot. */
+	private int heightOf( int node )
+	{
+		return node == NIL ? 0 : heights[node];
+	}
+
+	/** Helper: recomputes the cached size and height of a slot from its children. */
+	private void update( int node )
+	{
+		sizes[node] = 1 + sizeOf( left[node] ) + sizeOf( right[node] );
+		heights[node] = 1 + Math.max( heightOf( left[node] ), heightOf( right[node] ) );
+	}
+
+	/**
+	 * Helper: recomputes every cached size and height after a view changed
+	 * the links. A pre-order list of the slots, read backwards, reaches every
+	 * child before its parent.
+	 */
+	private void recount()
+	{
+		if( !stale )
+			return;
+		int[] order = new int[size];
+		int count = 0;
+		if( root != NIL )
+			order[count++] = root;
+		for( int i = 0; i < count; i++ )
+		{
+			if( left[order[i]] != NIL )
+				order[count++] = left[order[i]];
+			if( right[order[i]] != NIL )
+				order[count++] = right[order[i]];
+		}
+		while( count > 0 )
+			update( order[--count] );
+		stale = false;
+	}
+
+	/** Returns the iterator behaviour used by the traversal methods. */
+	public BSTree.IteratorMode getIteratorMode()
+	{
+		return iteratorMode == null ? BSTree.IteratorMode.SNAPSHOT : iteratorMode;
+	}
+
+	/**
+	 * Sets the iterator behaviour used by the traversal methods.
+	 *
+	 * @param mode the new mode
+	 * @throws NullPointerException if mode is null
+	 */
+	public void setIteratorMode( BSTree.IteratorMode mode ) throws NullPointerException
+	{
+		if( mode == null )
+			throw new NullPointerException( "Null mode" );
+		iteratorMode = mode;
+	}
+
+	/** Returns the number of slots currently allocated in the pool. */
+	public int capacity()
+	{
+		return elements.length;
+	}
+
+	/** Returns a view of the root node, or throws NullPointerException when empty. */
+	@Override
+	public BSTreeNode<E> getRoot() throws NullPointerException
+	{
+		if( root == NIL )
+		{
+			throw new NullPointerException( "Tree is empty" );
+		}
+		return new NodeView( root );
+	}
+
+	/** Returns the height (number of levels) of the tree. */
+	@Override
+	public int getHeight()
+	{
+		recount();
+		return heightOf( root );
+	}
+
+	/** Returns the number of elements in the tree. */
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	/** Returns true when tree contains no elements. */
+	@Override
+	public boolean isEmpty()
+	{
+		return root == NIL;
+	}
+
+	/** Clears the tree and releases every slot. The pool keeps its capacity. */
+	@Override
+	public void clear()
+	{
+		Arrays.fill( elements, 0, used, null );
+		root = NIL;
+		size = 0;
+		used = 0;
+		free = NIL;
+		modCount++;
+	}
+
+	/** Checks whether the tree contains the specified entry. */
+	@Override
+	public boolean contains( E entry ) throws NullPointerException
+	{
+		if( entry == null )
+			throw new NullPointerException( "Null entry" );
+		return find( entry ) != NIL;
+	}
+
+	/**
+	 * Searches for a node containing the specified entry.
+	 *
+	 * @param entry element to find
+	 * @return view of the node containing the element or null when not found
+	 */
+	@Override
+	public BSTreeNode<E> search( E entry ) throws NullPointerException
+	{
+		if( entry == null )
+			throw new NullPointerException( "Null entry" );
+		int node = find( entry );
+		return node == NIL ? null : new NodeView( node );
+	}
+
+	/** Helper: returns the slot holding the entry, or NIL. */
+	private int find( E entry )
+	{
+		int current = root;
+		while( current != NIL )
+		{
+			int cmp = entry.compareTo( element( current ) );
+			if( cmp == 0 )
+				return current;
+			current = cmp < 0 ? left[current] : right[current];
+		}
+		return NIL;
+	}
+
+	/**
+	 * Returns the number of elements less than the entry in one descent,
+	 * using the cached subtree sizes.
+	 */
+	@Override
+	public int rank( E entry ) throws NullPointerException
+	{
+		if( entry == null )
+			throw new NullPointerException( "Null entry" );
+		recount();
+		int rank = 0;
+		int current = root;
+		while( current != NIL )
+		{
+			int cmp = entry.compareTo( element( current ) );
+			if( cmp == 0 )
+				return rank + sizeOf( left[current] );
+			else if( cmp < 0 )
+				current = left[current];
+			else
+			{
+				rank += sizeOf( left[current] ) + 1;
+				current = right[current];
+			}
+		}
+		return rank;
+	}
+
+	/**
+	 * Returns the element at the given in-order position in one descent,
+	 * using the cached subtree sizes.
+	 */
+	@Override
+	public E select( int index ) throws IndexOutOfBoundsException
+	{
+		if( index < 0 || index >= size )
+			throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size );
+		recount();
+		int current = root;
+		while( true )
+		{
+			int before = sizeOf( left[current] );
+			if( index == before )
+				return element( current );
+			else if( index < before )
+				current = left[current];
+			else
+			{
+				index -= before + 1;
+				current = right[current];
+			}
+		}
+	}
+
+	/** Inserts a new element into the BST. Duplicates are not allowed. */
+	@Override
+	public boolean add( E newEntry ) throws NullPointerException
+	{
+		int before = size;
+		getOrAdd( newEntry );
+		return size != before;
+	}
+
+	/** Returns the matching element, inserting the entry first if it is new. */
+	@Override
+	public E getOrAdd( E newEntry ) throws NullPointerException
+	{
+		if( newEntry == null )
+			throw new NullPointerException( "Null entry" );
+		return getOrAdd( newEntry, newEntry, null );
+	}
+
+	/** Returns the element matching the probe, adding one from the factory if it is new. */
+	@Override
+	public E getOrAdd( Comparable<? super E> probe, Supplier<? extends E> factory ) throws NullPointerException
+	{
+		if( probe == null || factory == null )
+			throw new NullPointerException( "Null probe" );
+		return getOrAdd( probe, null, factory );
+	}
+
+	/** Helper: single descent shared by both getOrAdd methods. */
+	private E getOrAdd( Comparable<? super E> probe, E newEntry, Supplier<? extends E> factory )
+	{
+		if( root == NIL )
+		{
+			root = allocate( BSTree.create( newEntry, factory ) );
+			return element( root );
+		}
+
+		recount();
+		int current = root;
+		int[] path = path();
+		int depth = 0;
+		while( true )
+		{
+			E element = element( current );
+			int cmp = probe.compareTo( element );
+			if( cmp == 0 )
+				return element;
+			path[depth++] = current;
+			int next = cmp < 0 ? left[current] : right[current];
+			if( next == NIL )
+			{
+				// allocate may grow the arrays, so index them afterwards
+				int slot = allocate( BSTree.create( newEntry, factory ) );
+				if( cmp < 0 )
+					left[current] = slot;
+				else
+					right[current] = slot;
+				grow( depth );
+				return element( slot );
+			}
+			current = next;
+		}
+	}
+
+	/**
+	 * Helper: returns the array a descent records its slots in, long enough
+	 * for the deepest path in the tree.
+	 */
+	private int[] path()
+	{
+		int height = heightOf( root );
+		if( path == null || path.length < height )
+			path = new int[Math.max( height * 2, 32 )];
+		return path;
+	}
+
+	/**
+	 * Helper: after a leaf was added below the first count slots of the
+	 * recorded path, adds one to their sizes and raises their heights to
+	 * reach the leaf.
+	 */
+	private void grow( int count )
+	{
+		for( int depth = 0; depth < count; depth++ )
+		{
+			int node = path[depth];
+			sizes[node]++;
+			if( heights[node] < count - depth + 1 )
+				heights[node] = count - depth + 1;
+		}
+	}
+
+	/**
+	 * Helper: after a slot below the first count slots of the recorded path
+	 * was unlinked, recomputes their sizes and heights from the deepest up.
+	 */
+	private void shrink( int count )
+	{
+		while( count > 0 )
+			update( path[--count] );
+	}
+
+	/** Removes the smallest element and returns it in a detached node. */
+	@Override
+	public BSTreeNode<E> removeMin()
+	{
+		if( root == NIL )
+			return null;
+		recount();
+		int[] path = path();
+		int depth = 0;
+		int current = root;
+		while( left[current] != NIL )
+		{
+			path[depth++] = current;
+			current = left[current];
+		}
+		if( depth == 0 )
+			root = right[current];
+		else
+			left[path[depth - 1]] = right[current];
+		shrink( depth );
+		return new BSTreeNode<E>( release( current ) );
+	}
+
+	/** Removes the largest element and returns it in a detached node. */
+	@Override
+	public BSTreeNode<E> removeMax()
+	{
+		if( root == NIL )
+			return null;
+		recount();
+		int[] path = path();
+		int depth = 0;
+		int current = root;
+		while( right[current] != NIL )
+		{
+			path[depth++] = current;
+			current = right[current];
+		}
+		if( depth == 0 )
+			root = left[current];
+		else
+			right[path[depth - 1]] = left[current];
+		shrink( depth );
+		return new BSTreeNode<E>( release( current ) );
+	}
+
+	/** Helper: element stored in a slot. */
+	@SuppressWarnings( "unchecked" )
+	private E element( int node )
+	{
+		return (E)elements[node];
+	}
+
+	/** Helper: takes a slot from the free list, or a new one, for the element. */
+	private int allocate( E element )
+	{
+		int slot;
+		if( free != NIL )
+		{
+			slot = free;
+			free = left[slot];
+		}
+		else
+		{
+			if( used == elements.length )
+			{
+				int capacity = Math.max( DEFAULT_CAPACITY, elements.length * 2 );
+				elements = Arrays.copyOf( elements, capacity );
+				left = Arrays.copyOf( left, capacity );
+				right = Arrays.copyOf( right, capacity );
+				sizes = Arrays.copyOf( sizes, capacity );
+				heights = Arrays.copyOf( heights, capacity );
+			}
+			slot = used++;
+		}
+		elements[slot] = element;
+		left[slot] = NIL;
+		right[slot] = NIL;
+		sizes[slot] = 1;
+		heights[slot] = 1;
+		size++;
+		modCount++;
+		return slot;
+	}
+
+	/** Helper: puts an unlinked slot on the free list and returns its element. */
+	private E release( int slot )
+	{
+		E element = element( slot );
+		elements[slot] = null;
+		left[slot] = free;
+		right[slot] = NIL;
+		free = slot;
+		size--;
+		modCount++;
+		return element;
+	}
+
+	/**
+	 * Reads the tree and recomputes the cached sizes and heights if it was
+	 * saved by a version that did not keep them.
+	 */
+	private void readObject( ObjectInputStream in ) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		if( sizes == null )
+		{
+			sizes = new int[elements.length];
+			heights = new int[elements.length];
+			stale = true;
+			recount();
+		}
+	}
+
+	/** Returns an iterator that traverses the tree in in-order (sorted) order. */
+	@Override
+	public Iterator<E> inorderIterator()
+	{
+		return iterator( new PoolIterator( PoolIterator.INORDER ) );
+	}
+
+	/** Returns an iterator that traverses the tree in pre-order (root first). */
+	@Override
+	public Iterator<E> preorderIterator()
+	{
+		return iterator( new PoolIterator( PoolIterator.PREORDER ) );
+	}
+
+	/** Returns an iterator that traverses the tree in post-order (root last). */
+	@Override
+	public Iterator<E> postorderIterator()
+	{
+		return iterator( new PoolIterator( PoolIterator.POSTORDER ) );
+	}
+
+	/** Helper: applies the iterator mode to a lazy traversal. */
+	private Iterator<E> iterator( final PoolIterator it )
+	{
+		if( getIteratorMode() == BSTree.IteratorMode.FAIL_FAST )
+			return it;
+		final List<E> list = new ArrayList<>( size );
+		while( it.hasNext() )
+			list.add( it.next() );
+		return new Iterator<E>()
+		{
+			private int index = 0;
+
+			@Override
+			public boolean hasNext()
+			{
+				return index < list.size();
+			}
+
+			@Override
+			public E next() throws NoSuchElementException
+			{
+				if( !hasNext() )
+					throw new NoSuchElementException();
+				return list.get( index++ );
+			}
+		};
+	}
+
+	/**
+	 * Lazy traversal over the pool that keeps the pending slots on a primitive
+	 * int stack of O(height) size.
+	 */
+	private class PoolIterator implements Iterator<E>
+	{
+		static final int INORDER = 0;
+		static final int PREORDER = 1;
+		static final int POSTORDER = 2;
+
+		private final int order;
+		private final int expectedModCount = modCount;
+		private int[] stack = new int[16];
+		private int top = 0;
+
+		public PoolIterator( int order )
+		{
+			this.order = order;
+			if( order == INORDER )
+				pushLeft( root );
+			else if( order == PREORDER )
+			{
+				if( root != NIL )
+					push( root );
+			}
+			else
+				pushFirstLeaf( root );
+		}
+
+		/** Returns true if there are remaining elements in the iteration. */
+		@Override
+		public boolean hasNext()
+		{
+			return top > 0;
+		}
+
+		/** Returns the next element in the iteration. */
+		@Override
+		public E next() throws NoSuchElementException
+		{
+			if( modCount != expectedModCount )
+				throw new ConcurrentModificationException();
+			if( top == 0 )
+				throw new NoSuchElementException();
+			int node = stack[--top];
+			if( order == INORDER )
+				pushLeft( right[node] );
+			else if( order == PREORDER )
+			{
+				if( right[node] != NIL )
+					push( right[node] );
+				if( left[node] != NIL )
+					push( left[node] );
+			}
+			else if( top > 0 && left[stack[top - 1]] == node )
+				pushFirstLeaf( right[stack[top - 1]] );
+			return element( node );
+		}
+
+		private void push( int node )
+		{
+			if( top == stack.length )
+				stack = Arrays.copyOf( stack, top * 2 );
+			stack[top++] = node;
+		}
+
+		private void pushLeft( int node )
+		{
+			while( node != NIL )
+			{
+				push( node );
+				node = left[node];
+			}
+		}
+
+		private void pushFirstLeaf( int node )
+		{
+			while( node != NIL )
+			{
+				push( node );
+				node = left[node] != NIL ? left[node] : right[node];
+			}
+		}
+	}
+
+	/**
+	 * {@link BSTreeNode} view of one slot in the pool. Reads and writes go
+	 * straight to the arrays, so the view holds nothing but the slot index.
+	 */
+	private class NodeView extends BSTreeNode<E>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int index;
+
+		public NodeView( int index )
+		{
+			super( null );
+			this.index = index;
+		}
+
+		@Override
+		public E getElement()
+		{
+			return element( index );
+		}
+
+		@Override
+		public void setElement( E element )
+		{
+			elements[index] = element;
+		}
+
+		@Override
+		public BSTreeNode<E> getLeft()
+		{
+			return left[index] == NIL ? null : new NodeView( left[index] );
+		}
+
+		@Override
+		public void setLeft( BSTreeNode<E> node )
+		{
+			left[index] = indexOf( node );
+			stale = true;
+			modCount++;
+		}
+
+		@Override
+		public BSTreeNode<E> getRight()
+		{
+			return right[index] == NIL ? null : new NodeView( right[index] );
+		}
+
+		@Override
+		public void setRight( BSTreeNode<E> node )
+		{
+			right[index] = indexOf( node );
+			stale = true;
+			modCount++;
+		}
+
+		/** Helper: slot behind a view of this tree, or NIL for null. */
+		private int indexOf( BSTreeNode<E> node )
+		{
+			if( node == null )
+				return NIL;
+			if( !( node instanceof ArrayBSTree.NodeView ) || ( (ArrayBSTree<?>.NodeView)node ).owner() != ArrayBSTree.this )
+				throw new IllegalArgumentException( "Node does not belong to this tree" );
+			return ( (ArrayBSTree<?>.NodeView)node ).index;
+		}
+
+		/** Helper: tree this view belongs to. */
+		private ArrayBSTree<E> owner()
+		{
+			return ArrayBSTree.this;
+		}
+	}
+}
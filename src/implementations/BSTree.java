@@ -1,8 +1,16 @@
 package implementations;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import utilities.BSTreeADT;
 import utilities.Iterator;
@@ -10,7 +18,10 @@ import utilities.Iterator;
 /**
  * The implementation stores comparable elements, disallows duplicates, and
  * provides basic operations such as insertion, search, removal of min/max and
- * traversal iterators (in-order, pre-order, post-order).
+ * traversal iterators (in-order, pre-order, post-order). Every node caches the
+ * size and height of its subtree, so {@link #getHeight()} is O(1) and
+ * {@link #rank(Comparable)} and {@link #select(int)} take one descent. The
+ * forEach traversals walk the tree with constant extra memory.
  *
  * @param <E> element type (must implement {@link Comparable})
  */
@@ -18,11 +29,43 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
 {
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * Selects what the traversal iterators do when the tree is modified while
+	 * they are in use.
+	 */
+	public enum IteratorMode
+	{
+		/**
+		 * The iterator copies the elements when it is created and is unaffected
+		 * by later changes to the tree.
+		 */
+		SNAPSHOT,
+
+		/**
+		 * The iterator walks the nodes lazily with a stack of O(height) size and
+		 * throws {@link ConcurrentModificationException} if the tree is
+		 * structurally modified after it was created.
+		 */
+		FAIL_FAST
+	}
+
 	/** Root node of the tree (null when empty). */
-	private BSTreeNode<E> root;
+	protected BSTreeNode<E> root;
 
 	/** Number of elements stored in the tree. */
-	private int size;
+	protected int size;
+
+	/** Number of structural modifications, used by fail-fast iterators. */
+	protected transient int modCount;
+
+	/** Iterator behaviour (null means {@link IteratorMode#SNAPSHOT}). */
+	private transient IteratorMode iteratorMode;
+
+	/**
+	 * Nodes passed by the last descent of add or getOrAdd, so the sizes and
+	 * heights above a new leaf can be updated without comparing again.
+	 */
+	private transient BSTreeNode<?>[] path;
 
 	/** Constructs an empty BST. */
 	public BSTree()
@@ -46,6 +89,91 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
 		}
 	}
 
+	/**
+	 * Builds a perfectly balanced tree from elements that are already in
+	 * strictly ascending order, in O(n) time and without comparing elements
+	 * more than once each.
+	 *
+	 * @param sorted elements in ascending order without duplicates
+	 * @throws NullPointerException if the list or any element is null
+	 * @throws IllegalArgumentException if the elements are not strictly
+	 *             ascending
+	 */
+	public BSTree( List<? extends E> sorted ) throws NullPointerException, IllegalArgumentException
+	{
+		this();
+		for( int i = 0; i < sorted.size(); i++ )
+		{
+			if( sorted.get( i ) == null )
+				throw new NullPointerException( "Null entry" );
+			if( i > 0 && sorted.get( i - 1 ).compareTo( sorted.get( i ) ) >= 0 )
+				throw new IllegalArgumentException( "Elements are not in strictly ascending order at index " + i );
+		}
+		List<BSTreeNode<E>> nodes = new ArrayList<>( sorted.size() );
+		for( E element : sorted )
+			nodes.add( new BSTreeNode<E>( element ) );
+		root = link( nodes, 0, nodes.size() - 1 );
+		size = sorted.size();
+	}
+
+	/**
+	 * Rebuilds the tree into a perfectly balanced shape in O(n) time, for a
+	 * tree that was filled in sorted order or loaded from an older version.
+	 * The existing nodes are relinked in place and no elements are compared.
+	 * Iterators in fail-fast mode that are in use become invalid.
+	 */
+	public void rebalance()
+	{
+		List<BSTreeNode<E>> nodes = new ArrayList<>( size );
+		Deque<BSTreeNode<E>> stack = new ArrayDeque<>();
+		BSTreeNode<E> current = root;
+		while( current != null || !stack.isEmpty() )
+		{
+			while( current != null )
+			{
+				stack.push( current );
+				current = current.getLeft();
+			}
+			current = stack.pop();
+			nodes.add( current );
+			current = current.getRight();
+		}
+		root = link( nodes, 0, nodes.size() - 1 );
+		modCount++;
+	}
+
+	/** Helper: links nodes[lo..hi] into a balanced subtree and returns its root. */
+	private BSTreeNode<E> link( List<BSTreeNode<E>> nodes, int lo, int hi )
+	{
+		if( lo > hi )
+			return null;
+		int mid = ( lo + hi ) >>> 1;
+		BSTreeNode<E> node = nodes.get( mid );
+		node.setLeft( link( nodes, lo, mid - 1 ) );
+		node.setRight( link( nodes, mid + 1, hi ) );
+		update( node );
+		return node;
+	}
+
+	/** Returns the iterator behaviour used by the traversal methods. */
+	public IteratorMode getIteratorMode()
+	{
+		return iteratorMode == null ? IteratorMode.SNAPSHOT : iteratorMode;
+	}
+
+	/**
+	 * Sets the iterator behaviour used by the traversal methods.
+	 *
+	 * @param mode the new mode
+	 * @throws NullPointerException if mode is null
+	 */
+	public void setIteratorMode( IteratorMode mode ) throws NullPointerException
+	{
+		if( mode == null )
+			throw new NullPointerException( "Null mode" );
+		iteratorMode = mode;
+	}
+
 	/** Returns the root node, or throws NullPointerException when empty. */
 	@Override
 	public BSTreeNode<E> getRoot() throws NullPointerException
@@ -57,21 +185,30 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
 		return root;
 	}
 
-	/** Returns the height (number of levels) of the tree. */
+	/** Returns the height (number of levels) of the tree from the cached root height. */
 	@Override
 	public int getHeight()
 	{
 		return height( root );
 	}
 
-	/** Helper: recursively computes subtree height. */
-	private int height( BSTreeNode<E> node )
+	/** Helper: cached height of a possibly empty subtree. */
+	static int height( BSTreeNode<?> node )
+	{
+		return node == null ? 0 : node.getHeight();
+	}
+
+	/** Helper: cached number of elements in a possibly empty subtree. */
+	static int sizeOf( BSTreeNode<?> node )
 	{
-		if( node == null )
-			return 0;
-		int lh = height( node.getLeft() );
-		int rh = height( node.getRight() );
-		return 1 + Math.max( lh, rh );
+		return node == null ? 0 : node.getSize();
+	}
+
+	/** Helper: recomputes the cached size and height of a node from its children. */
+	static void update( BSTreeNode<?> node )
+	{
+		node.setHeight( 1 + Math.max( height( node.getLeft() ), height( node.getRight() ) ) );
+		node.setSize( 1 + sizeOf( node.getLeft() ) + sizeOf( node.getRight() ) );
 	}
 
 	/** Returns the number of elements in the tree. */
@@ -94,6 +231,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
 	{
 		root = null;
 		size = 0;
+		modCount++;
 	}
 
 	/** Checks whether the tree contains the specified entry. */
@@ -140,37 +278,182 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
 		{
 			root = new BSTreeNode<E>( newEntry );
 			size = 1;
+			modCount++;
 			return true;
 		}
 
 		BSTreeNode<E> parent = null;
 		BSTreeNode<E> current = root;
-		while( current != null )
+		BSTreeNode<?>[] path = path();
+		int depth = 0;
+		try
 		{
-			parent = current;
-			int cmp = newEntry.compareTo( current.getElement() );
-			if( cmp == 0 )
-			{
-				return false; // duplicate, not inserted
-			}
-			else if( cmp < 0 )
+			while( current != null )
 			{
-				current = current.getLeft();
+				parent = current;
+				path[depth++] = current;
+				int cmp = newEntry.compareTo( current.getElement() );
+				if( cmp == 0 )
+				{
+					return false; // duplicate, not inserted
+				}
+				else if( cmp < 0 )
+				{
+					current = current.getLeft();
+				}
+				else
+				{
+					current = current.getRight();
+				}
 			}
+
+			int cmp = newEntry.compareTo( parent.getElement() );
+			if( cmp < 0 )
+				parent.setLeft( new BSTreeNode<E>( newEntry ) );
 			else
+				parent.setRight( new BSTreeNode<E>( newEntry ) );
+			grow( depth );
+
+			size++;
+			modCount++;
+			return true;
+		}
+		finally
+		{
+			clearPath( depth );
+		}
+	}
+
+	/**
+	 * Returns the element equal to the entry, inserting the entry first when
+	 * it is not in the tree. Walks from the root to the match or the insertion
+	 * point once.
+	 */
+	@Override
+	public E getOrAdd( E newEntry ) throws NullPointerException
+	{
+		if( newEntry == null )
+			throw new NullPointerException( "Null entry" );
+		return getOrAdd( newEntry, newEntry, null );
+	}
+
+	/** Returns the element matching the probe, adding one from the factory if it is new. */
+	@Override
+	public E getOrAdd( Comparable<? super E> probe, Supplier<? extends E> factory ) throws NullPointerException
+	{
+		if( probe == null || factory == null )
+			throw new NullPointerException( "Null probe" );
+		return getOrAdd( probe, null, factory );
+	}
+
+	/**
+	 * Helper: single descent shared by both getOrAdd methods. The element
+	 * added is newEntry, or if that is null the one made by the factory.
+	 */
+	private E getOrAdd( Comparable<? super E> probe, E newEntry, Supplier<? extends E> factory )
+	{
+		if( root == null )
+		{
+			root = new BSTreeNode<E>( create( newEntry, factory ) );
+			size = 1;
+			modCount++;
+			return root.getElement();
+		}
+
+		BSTreeNode<E> current = root;
+		BSTreeNode<?>[] path = path();
+		int depth = 0;
+		try
+		{
+			while( true )
 			{
-				current = current.getRight();
+				int cmp = probe.compareTo( current.getElement() );
+				if( cmp == 0 )
+					return current.getElement();
+				path[depth++] = current;
+				BSTreeNode<E> next = cmp < 0 ? current.getLeft() : current.getRight();
+				if( next == null )
+				{
+					next = new BSTreeNode<E>( create( newEntry, factory ) );
+					if( cmp < 0 )
+						current.setLeft( next );
+					else
+						current.setRight( next );
+					grow( depth );
+					size++;
+					modCount++;
+					return next.getElement();
+				}
+				current = next;
 			}
 		}
+		finally
+		{
+			clearPath( depth );
+		}
+	}
 
-		int cmp = newEntry.compareTo( parent.getElement() );
-		if( cmp < 0 )
-			parent.setLeft( new BSTreeNode<E>( newEntry ) );
-		else
-			parent.setRight( new BSTreeNode<E>( newEntry ) );
+	/**
+	 * Helper: returns the array a descent records its nodes in, long enough
+	 * for the deepest path in the tree.
+	 */
+	private BSTreeNode<?>[] path()
+	{
+		int height = height( root );
+		if( path == null || path.length < height )
+			path = new BSTreeNode<?>[Math.max( height * 2, 32 )];
+		return path;
+	}
+
+	/**
+	 * Helper: after a leaf was added below the first count nodes of the
+	 * recorded path, adds one to their sizes and raises their heights to
+	 * reach the leaf.
+	 */
+	private void grow( int count )
+	{
+		for( int depth = 0; depth < count; depth++ )
+		{
+			BSTreeNode<?> node = path[depth];
+			node.setSize( node.getSize() + 1 );
+			if( node.getHeight() < count - depth + 1 )
+				node.setHeight( count - depth + 1 );
+		}
+	}
 
-		size++;
-		return true;
+	/**
+	 * Helper: drops the first count nodes of the recorded path, so the
+	 * scratch array does not keep nodes alive after they are removed. Called
+	 * on every way out of a descent: an insertion, a duplicate or a compareTo
+	 * that throws.
+	 */
+	private void clearPath( int count )
+	{
+		Arrays.fill( path, 0, count, null );
+	}
+
+	/**
+	 * Helper: after a node below the path was unlinked, recomputes the sizes
+	 * and heights of the nodes on the path from the deepest one up.
+	 */
+	private static <E> void shrink( Deque<BSTreeNode<E>> path )
+	{
+		while( !path.isEmpty() )
+			update( path.pop() );
+	}
+
+	/**
+	 * Helper: returns newEntry, or the element made by the factory if
+	 * newEntry is null.
+	 */
+	static <E> E create( E newEntry, Supplier<? extends E> factory )
+	{
+		if( newEntry != null )
+			return newEntry;
+		E created = factory.get();
+		if( created == null )
+			throw new NullPointerException( "Factory returned null" );
+		return created;
 	}
 
 	/** Removes and returns the node containing the smallest element in the tree. */
@@ -179,27 +462,30 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
 	{
 		if( root == null )
 			return null;
-		BSTreeNode<E> parent = null;
+		Deque<BSTreeNode<E>> path = new ArrayDeque<>();
 		BSTreeNode<E> current = root;
 		while( current.getLeft() != null )
 		{
-			parent = current;
+			path.push( current );
 			current = current.getLeft();
 		}
 		// current is min
-		if( parent == null )
+		if( path.isEmpty() )
 		{
 			// root is min
 			root = current.getRight();
 		}
 		else
 		{
-			parent.setLeft( current.getRight() );
+			path.peek().setLeft( current.getRight() );
 		}
+		shrink( path );
 		size--;
+		modCount++;
 		// detach children from returned node
 		current.setLeft( null );
 		current.setRight( null );
+		update( current );
 		return current;
 	}
 
@@ -209,90 +495,382 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
 	{
 		if( root == null )
 			return null;
-		BSTreeNode<E> parent = null;
+		Deque<BSTreeNode<E>> path = new ArrayDeque<>();
 		BSTreeNode<E> current = root;
 		while( current.getRight() != null )
 		{
-			parent = current;
+			path.push( current );
 			current = current.getRight();
 		}
 		// current is max
-		if( parent == null )
+		if( path.isEmpty() )
 		{
 			// root is max
 			root = current.getLeft();
 		}
 		else
 		{
-			parent.setRight( current.getLeft() );
+			path.peek().setRight( current.getLeft() );
 		}
+		shrink( path );
 		size--;
+		modCount++;
 		current.setLeft( null );
 		current.setRight( null );
+		update( current );
 		return current;
 	}
 
-	/** Returns an iterator that traverses the tree in in-order (sorted) order. */
+	/**
+	 * Counts the elements less than the entry in one descent, adding up the
+	 * cached sizes of the left subtrees passed on the way.
+	 */
 	@Override
-	public Iterator<E> inorderIterator()
+	public int rank( E entry ) throws NullPointerException
 	{
-		List<E> list = new ArrayList<>();
-		inorder( root, list );
-		return new SimpleIterator( list );
+		if( entry == null )
+			throw new NullPointerException( "Null entry" );
+		return rank( root, entry );
 	}
 
-	/** Helper: collects elements from the subtree in in-order. */
-	private void inorder( BSTreeNode<E> node, List<E> list )
+	/**
+	 * Returns the element at the index in sorted order in one descent, steered
+	 * by the cached sizes of the left subtrees.
+	 */
+	@Override
+	public E select( int index ) throws IndexOutOfBoundsException
 	{
-		if( node == null )
-			return;
-		inorder( node.getLeft(), list );
-		list.add( node.getElement() );
-		inorder( node.getRight(), list );
+		if( index < 0 || index >= size )
+			throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size );
+		return select( root, index );
 	}
 
-	/** Returns an iterator that traverses the tree in pre-order (root first). */
+	/** Helper: number of elements in the subtree less than the entry. */
+	static <E> int rank( BSTreeNode<E> node, Comparable<? super E> entry )
+	{
+		int rank = 0;
+		while( node != null )
+		{
+			int cmp = entry.compareTo( node.getElement() );
+			if( cmp == 0 )
+				return rank + sizeOf( node.getLeft() );
+			else if( cmp < 0 )
+				node = node.getLeft();
+			else
+			{
+				rank += sizeOf( node.getLeft() ) + 1;
+				node = node.getRight();
+			}
+		}
+		return rank;
+	}
+
+	/** Helper: element at the index in the subtree, which must hold more than index elements. */
+	static <E> E select( BSTreeNode<E> node, int index )
+	{
+		while( true )
+		{
+			int left = sizeOf( node.getLeft() );
+			if( index == left )
+				return node.getElement();
+			else if( index < left )
+				node = node.getLeft();
+			else
+			{
+				index -= left + 1;
+				node = node.getRight();
+			}
+		}
+	}
+
+	/**
+	 * Reads the tree and recomputes the cached sizes and heights if it was
+	 * saved by a version that did not keep them.
+	 */
+	private void readObject( ObjectInputStream in ) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		if( root != null && root.getSize() != size )
+		{
+			PostorderIterator it = new PostorderIterator();
+			while( it.hasNext() )
+				update( it.advance() );
+		}
+	}
+
+	/** Returns an iterator that traverses the tree in in-order (sorted) order. */
 	@Override
-	public Iterator<E> preorderIterator()
+	public Iterator<E> inorderIterator()
 	{
-		List<E> list = new ArrayList<>();
-		preorder( root, list );
-		return new SimpleIterator( list );
+		Iterator<E> it = new InorderIterator();
+		return getIteratorMode() == IteratorMode.SNAPSHOT ? snapshot( it ) : it;
 	}
 
-	/** Helper: collects elements from the subtree in pre-order. */
-	private void preorder( BSTreeNode<E> node, List<E> list )
+	/** Returns an iterator that traverses the tree in pre-order (root first). */
+	@Override
+	public Iterator<E> preorderIterator()
 	{
-		if( node == null )
-			return;
-		list.add( node.getElement() );
-		preorder( node.getLeft(), list );
-		preorder( node.getRight(), list );
+		Iterator<E> it = new PreorderIterator();
+		return getIteratorMode() == IteratorMode.SNAPSHOT ? snapshot( it ) : it;
 	}
 
 	/** Returns an iterator that traverses the tree in post-order (root last). */
 	@Override
 	public Iterator<E> postorderIterator()
 	{
-		List<E> list = new ArrayList<>();
-		postorder( root, list );
-		return new SimpleIterator( list );
+		Iterator<E> it = new PostorderIterator();
+		return getIteratorMode() == IteratorMode.SNAPSHOT ? snapshot( it ) : it;
+	}
+
+	/**
+	 * Returns an iterator over the elements within the bounds in sorted
+	 * order, visiting only the subtrees that can hold them.
+	 */
+	@Override
+	public Iterator<E> rangeIterator( Comparable<? super E> low, boolean lowInclusive, Comparable<? super E> high,
+			boolean highInclusive )
+	{
+		Iterator<E> it = new RangeIterator<E>( root, low, lowInclusive, high, highInclusive );
+		if( getIteratorMode() == IteratorMode.SNAPSHOT )
+		{
+			List<E> list = new ArrayList<>();
+			while( it.hasNext() )
+				list.add( it.next() );
+			return new SimpleIterator( list );
+		}
+		return new CheckedIterator( it );
+	}
+
+	/**
+	 * Passes every element to the action in in-order (sorted) order using
+	 * Morris traversal: no recursion, no stack and no copy of the elements,
+	 * so the extra memory is constant however deep the tree is. Empty right
+	 * links are pointed back at in-order successors while the walk is under
+	 * them and cleared again before this method returns, even if the action
+	 * throws. The action must not read or modify this tree.
+	 *
+	 * @param action called with each element
+	 * @throws NullPointerException if the action is null
+	 * @throws ConcurrentModificationException if the action modified the
+	 *             tree
+	 */
+	public void forEachInorder( Consumer<? super E> action )
+			throws NullPointerException, ConcurrentModificationException
+	{
+		Visitor visitor = new Visitor( action );
+		BSTreeNode<E> current = root;
+		while( current != null )
+		{
+			if( current.getLeft() == null )
+			{
+				visitor.visit( current );
+				current = current.getRight();
+				continue;
+			}
+			BSTreeNode<E> predecessor = predecessor( current );
+			if( predecessor.getRight() == null )
+			{
+				// first time here: thread back and walk the left subtree
+				predecessor.setRight( current );
+				current = current.getLeft();
+			}
+			else
+			{
+				// back through the thread: the left subtree is done
+				predecessor.setRight( null );
+				visitor.visit( current );
+				current = current.getRight();
+			}
+		}
+		visitor.finish();
+	}
+
+	/**
+	 * Passes every element to the action in pre-order (root first) using
+	 * Morris traversal, with constant extra memory. The tree is threaded and
+	 * restored the same way as by {@link #forEachInorder(Consumer)}, and the
+	 * action must not read or modify this tree.
+	 *
+	 * @param action called with each element
+	 * @throws NullPointerException if the action is null
+	 * @throws ConcurrentModificationException if the action modified the
+	 *             tree
+	 */
+	public void forEachPreorder( Consumer<? super E> action )
+			throws NullPointerException, ConcurrentModificationException
+	{
+		Visitor visitor = new Visitor( action );
+		BSTreeNode<E> current = root;
+		while( current != null )
+		{
+			if( current.getLeft() == null )
+			{
+				visitor.visit( current );
+				current = current.getRight();
+				continue;
+			}
+			BSTreeNode<E> predecessor = predecessor( current );
+			if( predecessor.getRight() == null )
+			{
+				visitor.visit( current );
+				predecessor.setRight( current );
+				current = current.getLeft();
+			}
+			else
+			{
+				predecessor.setRight( null );
+				current = current.getRight();
+			}
+		}
+		visitor.finish();
+	}
+
+	/**
+	 * Passes every element to the action in post-order (root last) using
+	 * Morris traversal, with constant extra memory. When the walk comes back
+	 * to a node through its thread, the right spine of its left subtree is
+	 * reversed in place, visited from the bottom up and reversed back. The
+	 * tree is restored the same way as by {@link #forEachInorder(Consumer)},
+	 * and the action must not read or modify this tree.
+	 *
+	 * @param action called with each element
+	 * @throws NullPointerException if the action is null
+	 * @throws ConcurrentModificationException if the action modified the
+	 *             tree
+	 */
+	public void forEachPostorder( Consumer<? super E> action )
+			throws NullPointerException, ConcurrentModificationException
+	{
+		Visitor visitor = new Visitor( action );
+		// the whole tree is the left subtree of a node that is never visited
+		BSTreeNode<E> top = new BSTreeNode<E>( null );
+		top.setLeft( root );
+		BSTreeNode<E> current = top;
+		while( current != null )
+		{
+			if( current.getLeft() == null )
+			{
+				current = current.getRight();
+				continue;
+			}
+			BSTreeNode<E> predecessor = predecessor( current );
+			if( predecessor.getRight() == null )
+			{
+				predecessor.setRight( current );
+				current = current.getLeft();
+			}
+			else
+			{
+				reverse( current.getLeft(), predecessor );
+				for( BSTreeNode<E> node = predecessor; ; node = node.getRight() )
+				{
+					visitor.visit( node );
+					if( node == current.getLeft() )
+						break;
+				}
+				reverse( predecessor, current.getLeft() );
+				predecessor.setRight( null );
+				current = current.getRight();
+			}
+		}
+		visitor.finish();
 	}
 
-	/** Helper: collects elements from the subtree in post-order. */
-	private void postorder( BSTreeNode<E> node, List<E> list )
+	/**
+	 * Helper: the rightmost node of the left subtree of a node that has one,
+	 * stopping at a thread that already leads back to the node.
+	 */
+	private static <E> BSTreeNode<E> predecessor( BSTreeNode<E> node )
 	{
-		if( node == null )
+		BSTreeNode<E> predecessor = node.getLeft();
+		while( predecessor.getRight() != null && predecessor.getRight() != node )
+			predecessor = predecessor.getRight();
+		return predecessor;
+	}
+
+	/**
+	 * Helper: reverses the right links of the chain from one node down its
+	 * right links to another, leaving the right link of the last node as it
+	 * is.
+	 */
+	private static <E> void reverse( BSTreeNode<E> from, BSTreeNode<E> to )
+	{
+		if( from == to )
 			return;
-		postorder( node.getLeft(), list );
-		postorder( node.getRight(), list );
-		list.add( node.getElement() );
+		BSTreeNode<E> previous = from;
+		BSTreeNode<E> current = from.getRight();
+		while( previous != to )
+		{
+			BSTreeNode<E> next = current.getRight();
+			current.setRight( previous );
+			previous = current;
+			current = next;
+		}
 	}
 
 	/**
-	 * Simple iterator implementation used by the traversal methods. The
-	 * iterator makes a defensive copy of the traversal list so it is safe to
-	 * use after the tree is modified.
+	 * Calls the action of a Morris traversal. After the action throws or
+	 * modifies the tree it is not called again, so the traversal can finish
+	 * clearing its threads before the failure is reported.
+	 */
+	private class Visitor
+	{
+		private final Consumer<? super E> action;
+		private final int expectedModCount = modCount;
+		private RuntimeException failure;
+		private Error error;
+
+		public Visitor( Consumer<? super E> action )
+		{
+			if( action == null )
+				throw new NullPointerException( "Null action" );
+			this.action = action;
+		}
+
+		/** Passes the node's element to the action unless it has failed. */
+		public void visit( BSTreeNode<E> node )
+		{
+			if( failure != null || error != null )
+				return;
+			try
+			{
+				action.accept( node.getElement() );
+				if( modCount != expectedModCount )
+					failure = new ConcurrentModificationException();
+			}
+			catch( RuntimeException e )
+			{
+				failure = e;
+			}
+			catch( Error e )
+			{
+				error = e;
+			}
+		}
+
+		/** Rethrows the failure of the action, if any. */
+		public void finish()
+		{
+			if( error != null )
+				throw error;
+			if( failure != null )
+				throw failure;
+		}
+	}
+
+	/** Helper: drains a lazy traversal into a list sized for the whole tree. */
+	private Iterator<E> snapshot( Iterator<E> it )
+	{
+		List<E> list = new ArrayList<>( size );
+		while( it.hasNext() )
+			list.add( it.next() );
+		return new SimpleIterator( list );
+	}
+
+	/**
+	 * Simple iterator implementation used for snapshot traversals. The list is
+	 * filled by the traversal methods and owned by the iterator, so it is safe
+	 * to use after the tree is modified.
 	 */
 	private class SimpleIterator implements Iterator<E>
 	{
@@ -301,8 +879,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
 
 		public SimpleIterator( List<E> data )
 		{
-			// defensive copy
-			this.data = new ArrayList<>( data );
+			this.data = data;
 		}
 
 		/** Returns true if there are remaining elements in the iteration. */
@@ -321,4 +898,145 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
 			return data.get( index++ );
 		}
 	}
+
+	/**
+	 * Fail-fast wrapper for traversals that walk the nodes without the
+	 * LazyIterator base class.
+	 */
+	private class CheckedIterator implements Iterator<E>
+	{
+		private final Iterator<E> it;
+		private final int expectedModCount = modCount;
+
+		public CheckedIterator( Iterator<E> it )
+		{
+			this.it = it;
+		}
+
+		/** Returns true if there are remaining elements in the iteration. */
+		@Override
+		public boolean hasNext()
+		{
+			return it.hasNext();
+		}
+
+		/** Returns the next element in the iteration. */
+		@Override
+		public E next() throws NoSuchElementException
+		{
+			if( modCount != expectedModCount )
+				throw new ConcurrentModificationException();
+			return it.next();
+		}
+	}
+
+	/**
+	 * Base class for the lazy traversals. Each subclass keeps only the nodes
+	 * on the path it still has to visit, so memory use is O(height) and the
+	 * first element is available without walking the whole tree.
+	 */
+	private abstract class LazyIterator implements Iterator<E>
+	{
+		protected final Deque<BSTreeNode<E>> stack = new ArrayDeque<>();
+		private final int expectedModCount = modCount;
+
+		/** Returns true if there are remaining elements in the iteration. */
+		@Override
+		public boolean hasNext()
+		{
+			return !stack.isEmpty();
+		}
+
+		/** Returns the next element in the iteration. */
+		@Override
+		public E next() throws NoSuchElementException
+		{
+			if( modCount != expectedModCount )
+				throw new ConcurrentModificationException();
+			if( stack.isEmpty() )
+				throw new NoSuchElementException();
+			return advance().getElement();
+		}
+
+		/** Removes the next node from the stack and queues its successors. */
+		protected abstract BSTreeNode<E> advance();
+	}
+
+	/** Lazy in-order traversal: the stack holds the left spine still to visit. */
+	private class InorderIterator extends LazyIterator
+	{
+		public InorderIterator()
+		{
+			pushLeft( root );
+		}
+
+		@Override
+		protected BSTreeNode<E> advance()
+		{
+			BSTreeNode<E> node = stack.pop();
+			pushLeft( node.getRight() );
+			return node;
+		}
+
+		private void pushLeft( BSTreeNode<E> node )
+		{
+			while( node != null )
+			{
+				stack.push( node );
+				node = node.getLeft();
+			}
+		}
+	}
+
+	/** Lazy pre-order traversal: right children wait on the stack. */
+	private class PreorderIterator extends LazyIterator
+	{
+		public PreorderIterator()
+		{
+			if( root != null )
+				stack.push( root );
+		}
+
+		@Override
+		protected BSTreeNode<E> advance()
+		{
+			BSTreeNode<E> node = stack.pop();
+			if( node.getRight() != null )
+				stack.push( node.getRight() );
+			if( node.getLeft() != null )
+				stack.push( node.getLeft() );
+			return node;
+		}
+	}
+
+	/**
+	 * Lazy post-order traversal: the stack holds the path down to the next
+	 * node whose children have both been visited.
+	 */
+	private class PostorderIterator extends LazyIterator
+	{
+		public PostorderIterator()
+		{
+			pushFirstLeaf( root );
+		}
+
+		@Override
+		protected BSTreeNode<E> advance()
+		{
+			BSTreeNode<E> node = stack.pop();
+			BSTreeNode<E> parent = stack.peek();
+			if( parent != null && parent.getLeft() == node )
+				pushFirstLeaf( parent.getRight() );
+			return node;
+		}
+
+		private void pushFirstLeaf( BSTreeNode<E> node )
+		{
+			while( node != null )
+			{
+				stack.push( node );
+				node = node.getLeft() != null ? node.getLeft() : node.getRight();
+			}
+		}
+	}
 }
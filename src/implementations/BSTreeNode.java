@@ -20,6 +20,18 @@ public class BSTreeNode<E> implements Serializable
 	/** Right child (values &gt; element). */
 	private BSTreeNode<E> right;
 
+	/**
+	 * Number of levels in the subtree rooted at this node. Maintained by
+	 * {@link BSTree}, its subclasses and {@link PersistentBSTree}.
+	 */
+	private int height;
+
+	/**
+	 * Number of elements in the subtree rooted at this node, used to answer
+	 * rank and select queries. Maintained by the same trees as the height.
+	 */
+	private int size;
+
 	/**
 	 * Constructs a new node containing the specified element. Children are
 	 * initially null.
@@ -31,6 +43,8 @@ public class BSTreeNode<E> implements Serializable
 		this.element = element;
 		this.left = null;
 		this.right = null;
+		this.height = 1;
+		this.size = 1;
 	}
 
 	/** Returns the element stored in this node. */
@@ -68,4 +82,28 @@ public class BSTreeNode<E> implements Serializable
 	{
 		this.right = right;
 	}
+
+	/** Returns the cached height of the subtree rooted at this node. */
+	int getHeight()
+	{
+		return height;
+	}
+
+	/** Sets the cached height of the subtree rooted at this node. */
+	void setHeight( int height )
+	{
+		this.height = height;
+	}
+
+	/** Returns the cached number of elements in the subtree rooted at this node. */
+	int getSize()
+	{
+		return size;
+	}
+
+	/** Sets the cached number of elements in the subtree rooted at this node. */
+	void setSize( int size )
+	{
+		this.size = size;
+	}
 }
@@ -0,0 +1,782 @@
+package implementations;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * Binary search tree that any number of threads can add to and search at the
+ * same time. Insertions never lock: a new node is linked into the empty child
+ * slot it belongs in with a single compare-and-set, and an insertion that
+ * loses the race for a slot carries on from that slot. Searches and iterators
+ * never lock or wait. Only {@link #removeMin()}, {@link #removeMax()},
+ * {@link #clear()} and {@link #rebalance()} take a lock, which they share
+ * with each other but not with insertions.
+ * <p>
+ * Since insertions only ever fill empty slots, a removal keeps insertions out
+ * of the node it unlinks by marking that node's empty slots as frozen first;
+ * an insertion that meets a frozen slot starts again from the root. The
+ * ordering rules match {@link BSTree}: duplicates are not allowed and the tree
+ * is not rebalanced as it grows, so it should be filled in random order or
+ * rebalanced with {@link #rebalance()}.
+ * </p>
+ * <p>
+ * Iterators are weakly consistent: they never throw
+ * {@link java.util.ConcurrentModificationException}, return every element
+ * that was in the tree when they were created and not removed since, and may
+ * or may not return elements added after that. {@link #size()} is exact only
+ * while no other thread is changing the tree.
+ * </p>
+ * <p>
+ * Each node caches the size and height of its subtree, so
+ * {@link #getHeight()}, {@link #rank(Comparable)} and {@link #select(int)}
+ * take one descent. An insertion updates them atomically on its way back up
+ * through the parent links once its node is linked, so like {@link #size()}
+ * they are exact only while no other thread is changing the tree.
+ * </p>
+ *
+ * @param <E> element type (must implement {@link Comparable})
+ */
+public class ConcurrentBSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Stored in an empty child slot that must not be filled any more, because
+	 * its node is being removed or the tree is being rebuilt.
+	 */
+	private static final Node<?> FROZEN = new Node<>( null );
+
+	/** Current nodes and size; replaced as a whole by clear and rebalance. */
+	private transient volatile Holder<E> holder;
+
+	/** Held by removeMin, removeMax, clear and rebalance, never by add. */
+	private final ReentrantLock removeLock = new ReentrantLock();
+
+	/** Constructs an empty tree. */
+	public ConcurrentBSTree()
+	{
+		holder = new Holder<E>();
+	}
+
+	/**
+	 * Convenience constructor to create a tree with a single root element.
+	 *
+	 * @param element initial root element (ignored if null)
+	 */
+	public ConcurrentBSTree( E element )
+	{
+		this();
+		if( element != null )
+			add( element );
+	}
+
+	/**
+	 * Builds a perfectly balanced tree from elements that are already in
+	 * strictly ascending order, in O(n) time.
+	 *
+	 * @param sorted elements in ascending order without duplicates
+	 * @throws NullPointerException if the list or any element is null
+	 * @throws IllegalArgumentException if the elements are not strictly
+	 *             ascending
+	 */
+	public ConcurrentBSTree( List<? extends E> sorted ) throws NullPointerException, IllegalArgumentException
+	{
+		for( int i = 0; i < sorted.size(); i++ )
+		{
+			if( sorted.get( i ) == null )
+				throw new NullPointerException( "Null entry" );
+			if( i > 0 && sorted.get( i - 1 ).compareTo( sorted.get( i ) ) >= 0 )
+				throw new IllegalArgumentException( "Elements are not in strictly ascending order at index " + i );
+		}
+		holder = build( sorted );
+	}
+
+	/**
+	 * Rebuilds the tree into a perfectly balanced shape in O(n) time. Other
+	 * threads may keep adding and searching while it runs: the current nodes
+	 * are frozen so no insertion is lost, and insertions that reach a frozen
+	 * slot wait for the new tree and are made there.
+	 */
+	public void rebalance()
+	{
+		removeLock.lock();
+		try
+		{
+			Holder<E> old = holder;
+			List<E> elements = new ArrayList<>();
+			Deque<Node<E>> stack = new ArrayDeque<>();
+			Node<E> current = freeze( old.head, true );
+			while( current != null || !stack.isEmpty() )
+			{
+				while( current != null )
+				{
+					stack.push( current );
+					current = freeze( current, true );
+				}
+				current = stack.pop();
+				elements.add( current.getElement() );
+				current = freeze( current, false );
+			}
+			holder = build( elements );
+		}
+		finally
+		{
+			removeLock.unlock();
+		}
+	}
+
+	/** Returns the root node, or throws NullPointerException when empty. */
+	@Override
+	public BSTreeNode<E> getRoot() throws NullPointerException
+	{
+		BSTreeNode<E> root = holder.head.getLeft();
+		if( root == null )
+		{
+			throw new NullPointerException( "Tree is empty" );
+		}
+		return root;
+	}
+
+	/** Returns the height (number of levels) of the tree. */
+	@Override
+	public int getHeight()
+	{
+		return BSTree.height( holder.head.getLeft() );
+	}
+
+	/**
+	 * Returns the number of elements less than the entry in one descent,
+	 * using the cached subtree sizes.
+	 */
+	@Override
+	public int rank( E entry ) throws NullPointerException
+	{
+		if( entry == null )
+			throw new NullPointerException( "Null entry" );
+		return BSTree.rank( holder.head.getLeft(), entry );
+	}
+
+	/**
+	 * Returns the element at the given in-order position in one descent,
+	 * using the cached subtree sizes. If insertions still updating the sizes
+	 * lead the descent off the tree, the position is counted in order instead.
+	 */
+	@Override
+	public E select( int index ) throws IndexOutOfBoundsException
+	{
+		if( index < 0 || index >= size() )
+			throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size() );
+		int position = index;
+		BSTreeNode<E> current = holder.head.getLeft();
+		while( current != null )
+		{
+			int before = BSTree.sizeOf( current.getLeft() );
+			if( position == before )
+				return current.getElement();
+			else if( position < before )
+				current = current.getLeft();
+			else
+			{
+				position -= before + 1;
+				current = current.getRight();
+			}
+		}
+		return BSTreeADT.super.select( index );
+	}
+
+	/** Returns the number of elements in the tree. */
+	@Override
+	public int size()
+	{
+		return (int)holder.size.sum();
+	}
+
+	/** Returns true when tree contains no elements. */
+	@Override
+	public boolean isEmpty()
+	{
+		return holder.head.getLeft() == null;
+	}
+
+	/** Clears the tree, removing all nodes. */
+	@Override
+	public void clear()
+	{
+		removeLock.lock();
+		try
+		{
+			// Insertions still running in the old nodes count as made before
+			holder = new Holder<E>();
+		}
+		finally
+		{
+			removeLock.unlock();
+		}
+	}
+
+	/** Checks whether the tree contains the specified entry. */
+	@Override
+	public boolean contains( E entry ) throws NullPointerException
+	{
+		if( entry == null )
+			throw new NullPointerException( "Null entry" );
+		return search( entry ) != null;
+	}
+
+	/**
+	 * Searches for a node containing the specified entry without locking.
+	 *
+	 * @param entry element to find
+	 * @return node containing the element or null when not found
+	 */
+	@Override
+	public BSTreeNode<E> search( E entry ) throws NullPointerException
+	{
+		if( entry == null )
+			throw new NullPointerException( "Null entry" );
+		BSTreeNode<E> current = holder.head.getLeft();
+		while( current != null )
+		{
+			int cmp = entry.compareTo( current.getElement() );
+			if( cmp == 0 )
+				return current;
+			else if( cmp < 0 )
+				current = current.getLeft();
+			else
+				current = current.getRight();
+		}
+		return null;
+	}
+
+	/** Inserts a new element into the BST. Duplicates are not allowed. */
+	@Override
+	public boolean add( E newEntry ) throws NullPointerException
+	{
+		if( newEntry == null )
+			throw new NullPointerException( "Null entry" );
+		Node<E> node = new Node<E>( newEntry );
+		return insert( newEntry, node, null, null ) == node;
+	}
+
+	/**
+	 * Returns the element equal to the entry, inserting the entry first when
+	 * it is not in the tree. When several threads add equal elements at once,
+	 * all of them get back the one that was inserted.
+	 */
+	@Override
+	public E getOrAdd( E newEntry ) throws NullPointerException
+	{
+		if( newEntry == null )
+			throw new NullPointerException( "Null entry" );
+		return insert( newEntry, null, newEntry, null ).getElement();
+	}
+
+	/**
+	 * Returns the element matching the probe, adding one from the factory if
+	 * it is new. The factory is called at most once, but its element may be
+	 * dropped if another thread inserts an equal element first.
+	 */
+	@Override
+	public E getOrAdd( Comparable<? super E> probe, Supplier<? extends E> factory ) throws NullPointerException
+	{
+		if( probe == null || factory == null )
+			throw new NullPointerException( "Null probe" );
+		return insert( probe, null, null, factory ).getElement();
+	}
+
+	/**
+	 * Helper: lock-free descent shared by add and both getOrAdd methods.
+	 * Returns the node holding the matching element, which is created if the
+	 * element was added. Unless add made it already, created is made from
+	 * newEntry, or if that is null from the factory, when it is first needed.
+	 */
+	private Node<E> insert( Comparable<? super E> probe, Node<E> created, E newEntry, Supplier<? extends E> factory )
+	{
+		restart: while( true )
+		{
+			Holder<E> current = holder;
+			Node<E> parent = current.head;
+			boolean left = true;
+			while( true )
+			{
+				Node<E> child = parent.child( left );
+				if( child == FROZEN )
+				{
+					// The node is being removed or the tree rebuilt; let the
+					// thread doing it run
+					Thread.yield();
+					continue restart;
+				}
+				if( child == null )
+				{
+					if( created == null )
+						created = new Node<E>( BSTree.create( newEntry, factory ) );
+					// Set before the node is published, for the walk back up
+					created.parent = parent;
+					if( parent.casChild( left, null, created ) )
+					{
+						current.size.increment();
+						recount( parent, 1 );
+						return created;
+					}
+					// Another thread filled or froze the slot; read it again
+					continue;
+				}
+				int cmp = probe.compareTo( child.getElement() );
+				if( cmp == 0 )
+					return child;
+				parent = child;
+				left = cmp < 0;
+			}
+		}
+	}
+
+	/** Removes and returns a node holding the smallest element in the tree. */
+	@Override
+	public BSTreeNode<E> removeMin()
+	{
+		return remove( true );
+	}
+
+	/** Removes and returns a node holding the largest element in the tree. */
+	@Override
+	public BSTreeNode<E> removeMax()
+	{
+		return remove( false );
+	}
+
+	/**
+	 * Helper: unlinks the leftmost node when min is true, else the rightmost.
+	 * The node's empty slots are frozen first so that no insertion can end up
+	 * under it once it is unlinked. Threads still reading the unlinked node
+	 * see its remaining child, so the node itself is left as it is and a new
+	 * node with its element is returned.
+	 */
+	private BSTreeNode<E> remove( boolean min )
+	{
+		removeLock.lock();
+		try
+		{
+			Holder<E> current = holder;
+			Node<E> parent = current.head;
+			boolean side = true;
+			Node<E> node = parent.child( side );
+			if( node == null )
+				return null;
+			while( true )
+			{
+				Node<E> next = node.child( min );
+				if( next == null )
+				{
+					if( node.casChild( min, null, FROZEN ) )
+						break;
+					// An insertion filled the slot; look again
+					continue;
+				}
+				parent = node;
+				side = min;
+				node = next;
+			}
+			Node<E> other = freeze( node, !min );
+			// Only removals change a slot that holds a node, and they hold the lock
+			parent.setChild( side, other );
+			current.size.decrement();
+			recount( parent, -1 );
+			return new BSTreeNode<E>( node.getElement() );
+		}
+		finally
+		{
+			removeLock.unlock();
+		}
+	}
+
+	/**
+	 * Helper: returns the child on the given side, first freezing the slot if
+	 * it is empty so nothing can be added there.
+	 */
+	private Node<E> freeze( Node<E> node, boolean left )
+	{
+		while( true )
+		{
+			Node<E> child = node.child( left );
+			if( child != null )
+				return child;
+			if( node.casChild( left, null, FROZEN ) )
+				return null;
+		}
+	}
+
+	/**
+	 * Helper: after a node was linked below node (delta 1) or unlinked from
+	 * below it (delta -1), adds delta to the sizes of node and its ancestors
+	 * and recomputes their heights. Each height is replaced only if it has
+	 * not changed since its children were read, so an insertion and a
+	 * removal passing the same node cannot undo each other.
+	 */
+	private static <E> void recount( Node<E> node, int delta )
+	{
+		// The head node has no parent and caches nothing
+		for( ; node.parent != null; node = node.parent )
+		{
+			Node.COUNT.addAndGet( node, delta );
+			while( true )
+			{
+				int levels = node.levels;
+				int needed = 1 + Math.max( BSTree.height( node.getLeft() ), BSTree.height( node.getRight() ) );
+				if( ( delta > 0 && needed <= levels ) || Node.LEVELS.compareAndSet( node, levels, needed ) )
+					break;
+			}
+		}
+	}
+
+	/** Helper: makes a new holder with the sorted elements in balanced nodes. */
+	private static <E> Holder<E> build( List<? extends E> sorted )
+	{
+		Holder<E> built = new Holder<E>();
+		built.head.setChild( true, link( sorted, 0, sorted.size() - 1 ) );
+		built.size.add( sorted.size() );
+		return built;
+	}
+
+	/** Helper: links sorted[lo..hi] into a balanced subtree and returns its root. */
+	private static <E> Node<E> link( List<? extends E> sorted, int lo, int hi )
+	{
+		if( lo > hi )
+			return null;
+		int mid = ( lo + hi ) >>> 1;
+		Node<E> node = new Node<E>( sorted.get( mid ) );
+		node.setChild( true, link( sorted, lo, mid - 1 ) );
+		node.setChild( false, link( sorted, mid + 1, hi ) );
+		BSTree.update( node );
+		return node;
+	}
+
+	/** Returns a weakly consistent iterator in in-order (sorted) order. */
+	@Override
+	public Iterator<E> inorderIterator()
+	{
+		return new InorderIterator();
+	}
+
+	/** Returns a weakly consistent iterator in pre-order (root first). */
+	@Override
+	public Iterator<E> preorderIterator()
+	{
+		return new PreorderIterator();
+	}
+
+	/** Returns a weakly consistent iterator in post-order (root last). */
+	@Override
+	public Iterator<E> postorderIterator()
+	{
+		return new PostorderIterator();
+	}
+
+	/** Writes the number of elements, then the elements in order. */
+	private void writeObject( ObjectOutputStream out ) throws IOException
+	{
+		out.defaultWriteObject();
+		List<E> elements = new ArrayList<>();
+		Iterator<E> it = inorderIterator();
+		while( it.hasNext() )
+			elements.add( it.next() );
+		out.writeInt( elements.size() );
+		for( E element : elements )
+			out.writeObject( element );
+	}
+
+	/** Reads the elements written by writeObject into a balanced tree. */
+	@SuppressWarnings( "unchecked" )
+	private void readObject( ObjectInputStream in ) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		int count = in.readInt();
+		List<E> elements = new ArrayList<>( count );
+		for( int i = 0; i < count; i++ )
+			elements.add( (E)in.readObject() );
+		holder = build( elements );
+	}
+
+	/**
+	 * Node whose child links are volatile and updated with compare-and-set.
+	 * {@link #getLeft()} and {@link #getRight()} report frozen slots as empty,
+	 * so code written for {@link BSTreeNode} can walk the tree. The cached
+	 * size and height are kept in fields of their own that can be updated
+	 * atomically, and each node links back to its parent so an insertion can
+	 * update them without recording its path.
+	 */
+	static final class Node<E> extends BSTreeNode<E>
+	{
+		private static final long serialVersionUID = 1L;
+
+		@SuppressWarnings( "rawtypes" )
+		private static final AtomicReferenceFieldUpdater<Node, Node> LEFT = AtomicReferenceFieldUpdater
+				.newUpdater( Node.class, Node.class, "leftChild" );
+
+		@SuppressWarnings( "rawtypes" )
+		private static final AtomicReferenceFieldUpdater<Node, Node> RIGHT = AtomicReferenceFieldUpdater
+				.newUpdater( Node.class, Node.class, "rightChild" );
+
+		/** Left child, null if empty or FROZEN if it may not be filled. */
+		private volatile Node<E> leftChild;
+
+		@SuppressWarnings( "rawtypes" )
+		static final AtomicIntegerFieldUpdater<Node> COUNT = AtomicIntegerFieldUpdater.newUpdater( Node.class,
+				"count" );
+
+		@SuppressWarnings( "rawtypes" )
+		static final AtomicIntegerFieldUpdater<Node> LEVELS = AtomicIntegerFieldUpdater.newUpdater( Node.class,
+				"levels" );
+
+		/** Right child, null if empty or FROZEN if it may not be filled. */
+		private volatile Node<E> rightChild;
+
+		/** Node this one was last linked under; null for a head node. */
+		volatile Node<E> parent;
+
+		/** Number of elements in the subtree rooted at this node. */
+		volatile int count = 1;
+
+		/** Number of levels in the subtree rooted at this node. */
+		volatile int levels = 1;
+
+		Node( E element )
+		{
+			super( element );
+		}
+
+		@Override
+		int getHeight()
+		{
+			return levels;
+		}
+
+		@Override
+		void setHeight( int height )
+		{
+			levels = height;
+		}
+
+		@Override
+		int getSize()
+		{
+			return count;
+		}
+
+		@Override
+		void setSize( int size )
+		{
+			count = size;
+		}
+
+		/** Returns the left child (may be null). */
+		@Override
+		public BSTreeNode<E> getLeft()
+		{
+			Node<E> child = leftChild;
+			return child == FROZEN ? null : child;
+		}
+
+		/**
+		 * Sets the left child reference. Not safe while other threads use the
+		 * tree.
+		 *
+		 * @throws IllegalArgumentException if the child is not a node of a
+		 *             ConcurrentBSTree
+		 */
+		@Override
+		public void setLeft( BSTreeNode<E> left )
+		{
+			setChild( true, cast( left ) );
+		}
+
+		/** Returns the right child (may be null). */
+		@Override
+		public BSTreeNode<E> getRight()
+		{
+			Node<E> child = rightChild;
+			return child == FROZEN ? null : child;
+		}
+
+		/**
+		 * Sets the right child reference. Not safe while other threads use the
+		 * tree.
+		 *
+		 * @throws IllegalArgumentException if the child is not a node of a
+		 *             ConcurrentBSTree
+		 */
+		@Override
+		public void setRight( BSTreeNode<E> right )
+		{
+			setChild( false, cast( right ) );
+		}
+
+		/** Returns the raw child on the given side, which may be FROZEN. */
+		Node<E> child( boolean left )
+		{
+			return left ? leftChild : rightChild;
+		}
+
+		/** Sets the child on the given side and makes this node its parent. */
+		void setChild( boolean left, Node<E> child )
+		{
+			if( child != null )
+				child.parent = this;
+			if( left )
+				leftChild = child;
+			else
+				rightChild = child;
+		}
+
+		/** Atomically replaces the child on the given side if it is expected. */
+		boolean casChild( boolean left, Node<?> expected, Node<?> child )
+		{
+			return ( left ? LEFT : RIGHT ).compareAndSet( this, expected, child );
+		}
+
+		/** Helper: checks that a node passed in belongs to this kind of tree. */
+		@SuppressWarnings( "unchecked" )
+		private static <E> Node<E> cast( BSTreeNode<E> node )
+		{
+			if( node != null && !( node instanceof Node ) )
+				throw new IllegalArgumentException( "Not a ConcurrentBSTree node" );
+			return (Node<E>)node;
+		}
+	}
+
+	/**
+	 * The nodes and size of one version of the tree. The root is the left
+	 * child of a head node that holds no element, so the root slot is filled
+	 * and frozen like any other.
+	 */
+	private static final class Holder<E>
+	{
+		final Node<E> head = new Node<E>( null );
+		final LongAdder size = new LongAdder();
+	}
+
+	/**
+	 * Base class for the lazy traversals. They keep the nodes on the path
+	 * still to visit, taken from the tree when the iterator was created.
+	 */
+	private abstract class LazyIterator implements Iterator<E>
+	{
+		protected final Deque<BSTreeNode<E>> stack = new ArrayDeque<>();
+		protected final BSTreeNode<E> root = holder.head.getLeft();
+
+		/** Returns true if there are remaining elements in the iteration. */
+		@Override
+		public boolean hasNext()
+		{
+			return !stack.isEmpty();
+		}
+
+		/** Returns the next element in the iteration. */
+		@Override
+		public E next() throws NoSuchElementException
+		{
+			if( stack.isEmpty() )
+				throw new NoSuchElementException();
+			return advance().getElement();
+		}
+
+		/** Removes the next node from the stack and queues its successors. */
+		protected abstract BSTreeNode<E> advance();
+	}
+
+	/** Lazy in-order traversal: the stack holds the left spine still to visit. */
+	private class InorderIterator extends LazyIterator
+	{
+		public InorderIterator()
+		{
+			pushLeft( root );
+		}
+
+		@Override
+		protected BSTreeNode<E> advance()
+		{
+			BSTreeNode<E> node = stack.pop();
+			pushLeft( node.getRight() );
+			return node;
+		}
+
+		private void pushLeft( BSTreeNode<E> node )
+		{
+			while( node != null )
+			{
+				stack.push( node );
+				node = node.getLeft();
+			}
+		}
+	}
+
+	/** Lazy pre-order traversal: right children wait on the stack. */
+	private class PreorderIterator extends LazyIterator
+	{
+		public PreorderIterator()
+		{
+			if( root != null )
+				stack.push( root );
+		}
+
+		@Override
+		protected BSTreeNode<E> advance()
+		{
+			BSTreeNode<E> node = stack.pop();
+			BSTreeNode<E> right = node.getRight();
+			BSTreeNode<E> left = node.getLeft();
+			if( right != null )
+				stack.push( right );
+			if( left != null )
+				stack.push( left );
+			return node;
+		}
+	}
+
+	/**
+	 * Lazy post-order traversal: the stack holds the path down to the next
+	 * node whose children have both been visited. A left child added after
+	 * the walk passed its parent is skipped.
+	 */
+	private class PostorderIterator extends LazyIterator
+	{
+		public PostorderIterator()
+		{
+			pushFirstLeaf( root );
+		}
+
+		@Override
+		protected BSTreeNode<E> advance()
+		{
+			BSTreeNode<E> node = stack.pop();
+			BSTreeNode<E> parent = stack.peek();
+			if( parent != null && parent.getLeft() == node )
+				pushFirstLeaf( parent.getRight() );
+			return node;
+		}
+
+		private void pushFirstLeaf( BSTreeNode<E> node )
+		{
+			while( node != null )
+			{
+				stack.push( node );
+				BSTreeNode<E> left = node.getLeft();
+				node = left != null ? left : node.getRight();
+			}
+		}
+	}
+}
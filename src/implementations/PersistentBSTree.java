@@ -0,0 +1,705 @@
+package implementations;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * Self-balancing tree whose versions share structure. {@link #snapshot()}
+ * returns a tree that keeps the current contents in O(1) time, without
+ * copying, and {@link #plus(Comparable)} returns a new version with one more
+ * element. Later changes to either tree copy the nodes on the path they
+ * change instead of modifying nodes the other can reach, so every version
+ * stays as it was while unchanged subtrees are shared.
+ * <p>
+ * Nodes made since the last snapshot belong to the tree alone and are changed
+ * in place, so a run of changes between snapshots costs no more than in
+ * {@link AVLTree}. The traversal iterators take a snapshot when they are
+ * created, so a report can walk a consistent version while another thread
+ * keeps adding to the tree. The changing methods and {@link #snapshot()}
+ * share the tree's lock, and the nodes of a snapshot are never changed again,
+ * so the snapshot can be read on any thread without locking.
+ * </p>
+ * <p>
+ * Elements that are changed in place, such as a TrackedWord that
+ * occurrences are added to, need a copier: {@link #getOrAdd(Comparable)}
+ * then returns a copy of an element that an older version still holds, so
+ * changing it leaves that version unaffected. The element must be changed
+ * before the next snapshot is taken; when other threads take snapshots,
+ * change it with {@link #update(Comparable, Supplier, Consumer)} instead,
+ * which does so under the tree's lock. Nodes returned by
+ * {@link #getRoot()} and {@link #search(Comparable)} and their elements may
+ * be shared with other versions and must not be changed.
+ * </p>
+ *
+ * @param <E> element type (must implement {@link Comparable})
+ */
+public class PersistentBSTree<E extends Comparable<? super E>> implements BSTreeADT<E>
+{
+	private static final long serialVersionUID = 1L;
+
+	/** Root node of the tree (null when empty). */
+	private transient Node<E> root;
+
+	/** Number of elements stored in the tree. */
+	private transient int size;
+
+	/** Marks the nodes made by this tree since its last snapshot. */
+	private transient Object owner = new Object();
+
+	/**
+	 * Copies an element before getOrAdd returns it for changing, or null if
+	 * elements are never changed. Must be serializable for the tree to be.
+	 */
+	private final UnaryOperator<E> copier;
+
+	/** Node found or inserted by the last call to {@link #insert}. */
+	private transient Node<E> match;
+
+	/** Constructs an empty tree for elements that are never changed. */
+	public PersistentBSTree()
+	{
+		this( (UnaryOperator<E>)null );
+	}
+
+	/**
+	 * Constructs an empty tree for elements that are changed in place.
+	 *
+	 * @param copier makes an independent copy of an element, or null if
+	 *            elements are never changed
+	 */
+	public PersistentBSTree( UnaryOperator<E> copier )
+	{
+		this.copier = copier;
+	}
+
+	/**
+	 * Builds a perfectly balanced tree from elements that are already in
+	 * strictly ascending order, in O(n) time.
+	 *
+	 * @param sorted elements in ascending order without duplicates
+	 * @param copier makes an independent copy of an element, or null if
+	 *            elements are never changed
+	 * @throws NullPointerException if the list or any element is null
+	 * @throws IllegalArgumentException if the elements are not strictly
+	 *             ascending
+	 */
+	public PersistentBSTree( List<? extends E> sorted, UnaryOperator<E> copier )
+			throws NullPointerException, IllegalArgumentException
+	{
+		this( copier );
+		for( int i = 0; i < sorted.size(); i++ )
+		{
+			if( sorted.get( i ) == null )
+				throw new NullPointerException( "Null entry" );
+			if( i > 0 && sorted.get( i - 1 ).compareTo( sorted.get( i ) ) >= 0 )
+				throw new IllegalArgumentException( "Elements are not in strictly ascending order at index " + i );
+		}
+		root = link( sorted, 0, sorted.size() - 1 );
+		size = sorted.size();
+	}
+
+	/** Helper: a version sharing the given nodes, none of which it owns. */
+	private PersistentBSTree( Node<E> root, int size, UnaryOperator<E> copier )
+	{
+		this( copier );
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * Returns a tree holding the current contents, in O(1) time. Neither tree
+	 * sees the changes later made to the other.
+	 *
+	 * @return the snapshot
+	 */
+	public synchronized PersistentBSTree<E> snapshot()
+	{
+		// The nodes made so far are now shared and are copied before changing
+		owner = new Object();
+		return new PersistentBSTree<E>( root, size, copier );
+	}
+
+	/**
+	 * Returns a new version with the element added, leaving this tree as it
+	 * is. Only the O(log n) nodes on the path to the new element are new.
+	 *
+	 * @param newEntry the element to add
+	 * @return the new version, holding the same elements if newEntry was
+	 *         already in the tree
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+	public synchronized PersistentBSTree<E> plus( E newEntry ) throws NullPointerException
+	{
+		PersistentBSTree<E> next = snapshot();
+		next.add( newEntry );
+		return next;
+	}
+
+	/** Returns the root node, or throws NullPointerException when empty. */
+	@Override
+	public synchronized BSTreeNode<E> getRoot() throws NullPointerException
+	{
+		if( root == null )
+		{
+			throw new NullPointerException( "Tree is empty" );
+		}
+		return root;
+	}
+
+	/** Returns the height of the tree in O(1) using the cached root height. */
+	@Override
+	public synchronized int getHeight()
+	{
+		return BSTree.height( root );
+	}
+
+	/** Returns the number of elements in the tree. */
+	@Override
+	public synchronized int size()
+	{
+		return size;
+	}
+
+	/** Returns true when tree contains no elements. */
+	@Override
+	public synchronized boolean isEmpty()
+	{
+		return root == null;
+	}
+
+	/** Clears the tree; snapshots keep their elements. */
+	@Override
+	public synchronized void clear()
+	{
+		root = null;
+		size = 0;
+	}
+
+	/** Checks whether the tree contains the specified entry. */
+	@Override
+	public boolean contains( E entry ) throws NullPointerException
+	{
+		if( entry == null )
+			throw new NullPointerException( "Null entry" );
+		return search( entry ) != null;
+	}
+
+	/**
+	 * Searches for a node containing the specified entry.
+	 *
+	 * @param entry element to find
+	 * @return node containing the element or null when not found
+	 */
+	@Override
+	public synchronized BSTreeNode<E> search( E entry ) throws NullPointerException
+	{
+		if( entry == null )
+			throw new NullPointerException( "Null entry" );
+		BSTreeNode<E> current = root;
+		while( current != null )
+		{
+			int cmp = entry.compareTo( current.getElement() );
+			if( cmp == 0 )
+				return current;
+			else if( cmp < 0 )
+				current = current.getLeft();
+			else
+				current = current.getRight();
+		}
+		return null;
+	}
+
+	/** Inserts a new element, copying the path if it is shared. */
+	@Override
+	public synchronized boolean add( E newEntry ) throws NullPointerException
+	{
+		if( newEntry == null )
+			throw new NullPointerException( "Null entry" );
+		int before = size;
+		root = insert( root, newEntry, newEntry, null, false );
+		match = null;
+		return size != before;
+	}
+
+	/**
+	 * Returns the element equal to the entry, inserting the entry first when
+	 * it is not in the tree. An element that an older version still holds is
+	 * first replaced by a copy, which is returned.
+	 */
+	@Override
+	public synchronized E getOrAdd( E newEntry ) throws NullPointerException
+	{
+		if( newEntry == null )
+			throw new NullPointerException( "Null entry" );
+		return getOrAdd( newEntry, newEntry, null );
+	}
+
+	/** Returns the element matching the probe, inserting one from the factory if it is new. */
+	@Override
+	public synchronized E getOrAdd( Comparable<? super E> probe, Supplier<? extends E> factory )
+			throws NullPointerException
+	{
+		if( probe == null || factory == null )
+			throw new NullPointerException( "Null probe" );
+		return getOrAdd( probe, null, factory );
+	}
+
+	/** Helper: shared by both getOrAdd methods. */
+	private E getOrAdd( Comparable<? super E> probe, E newEntry, Supplier<? extends E> factory )
+	{
+		root = insert( root, probe, newEntry, factory, copier != null );
+		E result = match.getElement();
+		match = null;
+		return result;
+	}
+
+	/**
+	 * Finds the element matching the probe, adding one from the factory if it
+	 * is new, and changes it while holding the tree's lock, so no snapshot
+	 * sees the change half made. The change is made on a copy if an older
+	 * version holds the element.
+	 *
+	 * @param probe compares to the stored elements the way the wanted element
+	 *            would
+	 * @param factory makes the element to add, which must compare equal to
+	 *            the probe
+	 * @param change applied to the element found or added
+	 * @return the element that was changed
+	 * @throws NullPointerException if an argument or the element made by the
+	 *             factory is null
+	 */
+	public synchronized E update( Comparable<? super E> probe, Supplier<? extends E> factory,
+			Consumer<? super E> change ) throws NullPointerException
+	{
+		if( probe == null || factory == null || change == null )
+			throw new NullPointerException( "Null probe" );
+		E element = getOrAdd( probe, null, factory );
+		change.accept( element );
+		return element;
+	}
+
+	/**
+	 * Helper: inserts into the subtree and returns its root, which is a copy
+	 * if anything below it changed and it was shared. A shared subtree whose
+	 * root comes back the same did not change at all; an owned one may have
+	 * grown in place and is rebalanced. The element inserted is
+	 * entry, or if that is null the one made by the factory. When private is
+	 * true a matching element is made private to this tree. The node holding
+	 * the match is left in {@link #match}.
+	 */
+	private Node<E> insert( Node<E> node, Comparable<? super E> probe, E entry, Supplier<? extends E> factory,
+			boolean makePrivate )
+	{
+		if( node == null )
+		{
+			size++;
+			match = new Node<E>( BSTree.create( entry, factory ), owner, true );
+			return match;
+		}
+		int cmp = probe.compareTo( node.getElement() );
+		if( cmp == 0 )
+		{
+			if( !makePrivate || ( node.owner == owner && node.elementOwned ) )
+			{
+				match = node;
+				return node;
+			}
+			match = own( node );
+			match.setElement( copier.apply( node.getElement() ) );
+			match.elementOwned = true;
+			return match;
+		}
+		if( cmp < 0 )
+		{
+			Node<E> left = insert( node.left(), probe, entry, factory, makePrivate );
+			if( left == node.left() && node.owner != owner )
+				return node;
+			node = own( node );
+			node.setLeft( left );
+		}
+		else
+		{
+			Node<E> right = insert( node.right(), probe, entry, factory, makePrivate );
+			if( right == node.right() && node.owner != owner )
+				return node;
+			node = own( node );
+			node.setRight( right );
+		}
+		return balance( node );
+	}
+
+	/** Counts the elements less than the entry in one descent. */
+	@Override
+	public synchronized int rank( E entry ) throws NullPointerException
+	{
+		if( entry == null )
+			throw new NullPointerException( "Null entry" );
+		return BSTree.rank( root, entry );
+	}
+
+	/** Returns the element at the index in sorted order in one descent. */
+	@Override
+	public synchronized E select( int index ) throws IndexOutOfBoundsException
+	{
+		if( index < 0 || index >= size )
+			throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size );
+		return BSTree.select( root, index );
+	}
+
+	/** Removes and returns a node holding the smallest element. */
+	@Override
+	public synchronized BSTreeNode<E> removeMin()
+	{
+		if( root == null )
+			return null;
+		Node<E> min = root;
+		while( min.left() != null )
+			min = min.left();
+		root = removeMin( root );
+		size--;
+		return new BSTreeNode<E>( min.getElement() );
+	}
+
+	/** Helper: unlinks the minimum of the subtree, copying the path. */
+	private Node<E> removeMin( Node<E> node )
+	{
+		if( node.left() == null )
+			return node.right();
+		node = own( node );
+		node.setLeft( removeMin( node.left() ) );
+		return balance( node );
+	}
+
+	/** Removes and returns a node holding the largest element. */
+	@Override
+	public synchronized BSTreeNode<E> removeMax()
+	{
+		if( root == null )
+			return null;
+		Node<E> max = root;
+		while( max.right() != null )
+			max = max.right();
+		root = removeMax( root );
+		size--;
+		return new BSTreeNode<E>( max.getElement() );
+	}
+
+	/** Helper: unlinks the maximum of the subtree, copying the path. */
+	private Node<E> removeMax( Node<E> node )
+	{
+		if( node.right() == null )
+			return node.left();
+		node = own( node );
+		node.setRight( removeMax( node.right() ) );
+		return balance( node );
+	}
+
+	/**
+	 * Helper: returns the node if this tree made it since its last snapshot,
+	 * or else a copy of it that the tree may change.
+	 */
+	private Node<E> own( Node<E> node )
+	{
+		if( node.owner == owner )
+			return node;
+		Node<E> copy = new Node<E>( node.getElement(), owner, false );
+		copy.setLeft( node.getLeft() );
+		copy.setRight( node.getRight() );
+		copy.setHeight( node.getHeight() );
+		copy.setSize( node.getSize() );
+		return copy;
+	}
+
+	/**
+	 * Helper: restores the AVL property at a node this tree owns with at most
+	 * two rotations, copying the children it rotates if they are shared.
+	 *
+	 * @return the root of the rebalanced subtree
+	 */
+	private Node<E> balance( Node<E> node )
+	{
+		BSTree.update( node );
+		int diff = BSTree.height( node.getLeft() ) - BSTree.height( node.getRight() );
+		if( diff > 1 )
+		{
+			Node<E> left = own( node.left() );
+			if( BSTree.height( left.getLeft() ) < BSTree.height( left.getRight() ) )
+				left = rotateLeft( left );
+			node.setLeft( left );
+			return rotateRight( node );
+		}
+		if( diff < -1 )
+		{
+			Node<E> right = own( node.right() );
+			if( BSTree.height( right.getRight() ) < BSTree.height( right.getLeft() ) )
+				right = rotateRight( right );
+			node.setRight( right );
+			return rotateLeft( node );
+		}
+		return node;
+	}
+
+	/** Helper: rotates an owned subtree right and returns the new subtree root. */
+	private Node<E> rotateRight( Node<E> node )
+	{
+		Node<E> pivot = own( node.left() );
+		node.setLeft( pivot.getRight() );
+		pivot.setRight( node );
+		BSTree.update( node );
+		BSTree.update( pivot );
+		return pivot;
+	}
+
+	/** Helper: rotates an owned subtree left and returns the new subtree root. */
+	private Node<E> rotateLeft( Node<E> node )
+	{
+		Node<E> pivot = own( node.right() );
+		node.setRight( pivot.getLeft() );
+		pivot.setLeft( node );
+		BSTree.update( node );
+		BSTree.update( pivot );
+		return pivot;
+	}
+
+	/** Helper: links sorted[lo..hi] into a balanced subtree and returns its root. */
+	private Node<E> link( List<? extends E> sorted, int lo, int hi )
+	{
+		if( lo > hi )
+			return null;
+		int mid = ( lo + hi ) >>> 1;
+		Node<E> node = new Node<E>( sorted.get( mid ), owner, true );
+		node.setLeft( link( sorted, lo, mid - 1 ) );
+		node.setRight( link( sorted, mid + 1, hi ) );
+		BSTree.update( node );
+		return node;
+	}
+
+	/** Helper: takes a snapshot of the nodes for an iterator. */
+	private synchronized Node<E> freeze()
+	{
+		owner = new Object();
+		return root;
+	}
+
+	/**
+	 * Returns an iterator over a snapshot in in-order (sorted) order. The
+	 * tree may be changed while it is in use.
+	 */
+	@Override
+	public Iterator<E> inorderIterator()
+	{
+		return new InorderIterator( freeze() );
+	}
+
+	/**
+	 * Returns an iterator over a snapshot in pre-order (root first). The tree
+	 * may be changed while it is in use.
+	 */
+	@Override
+	public Iterator<E> preorderIterator()
+	{
+		return new PreorderIterator( freeze() );
+	}
+
+	/**
+	 * Returns an iterator over a snapshot in post-order (root last). The tree
+	 * may be changed while it is in use.
+	 */
+	@Override
+	public Iterator<E> postorderIterator()
+	{
+		return new PostorderIterator( freeze() );
+	}
+
+	/** Returns an iterator over the elements of a snapshot within the bounds. */
+	@Override
+	public Iterator<E> rangeIterator( Comparable<? super E> low, boolean lowInclusive, Comparable<? super E> high,
+			boolean highInclusive )
+	{
+		return new RangeIterator<E>( freeze(), low, lowInclusive, high, highInclusive );
+	}
+
+	/** Writes the number of elements, then the elements in order. */
+	private void writeObject( ObjectOutputStream out ) throws IOException
+	{
+		out.defaultWriteObject();
+		List<E> elements = new ArrayList<>();
+		Iterator<E> it = inorderIterator();
+		while( it.hasNext() )
+			elements.add( it.next() );
+		out.writeInt( elements.size() );
+		for( E element : elements )
+			out.writeObject( element );
+	}
+
+	/** Reads the elements written by writeObject into a balanced tree. */
+	@SuppressWarnings( "unchecked" )
+	private void readObject( ObjectInputStream in ) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		owner = new Object();
+		int count = in.readInt();
+		List<E> elements = new ArrayList<>( count );
+		for( int i = 0; i < count; i++ )
+			elements.add( (E)in.readObject() );
+		root = link( elements, 0, count - 1 );
+		size = count;
+	}
+
+	/**
+	 * Node that records which tree may change it, and whether its element
+	 * was made or copied by that tree.
+	 */
+	static final class Node<E> extends BSTreeNode<E>
+	{
+		private static final long serialVersionUID = 1L;
+
+		/** The owner of the tree that made the node. */
+		final transient Object owner;
+
+		/**
+		 * True if the element was made or copied by the tree that made the
+		 * node, so no other version holds it while that tree owns the node.
+		 */
+		transient boolean elementOwned;
+
+		Node( E element, Object owner, boolean elementOwned )
+		{
+			super( element );
+			this.owner = owner;
+			this.elementOwned = elementOwned;
+		}
+
+		/** Returns the left child as a node of this tree. */
+		@SuppressWarnings( "unchecked" )
+		Node<E> left()
+		{
+			return (Node<E>)getLeft();
+		}
+
+		/** Returns the right child as a node of this tree. */
+		@SuppressWarnings( "unchecked" )
+		Node<E> right()
+		{
+			return (Node<E>)getRight();
+		}
+	}
+
+	/**
+	 * Base class for the lazy traversals. Each keeps only the nodes on the
+	 * path it still has to visit, in a version no tree changes any more.
+	 */
+	private abstract class LazyIterator implements Iterator<E>
+	{
+		protected final Deque<BSTreeNode<E>> stack = new ArrayDeque<>();
+
+		/** Returns true if there are remaining elements in the iteration. */
+		@Override
+		public boolean hasNext()
+		{
+			return !stack.isEmpty();
+		}
+
+		/** Returns the next element in the iteration. */
+		@Override
+		public E next() throws NoSuchElementException
+		{
+			if( stack.isEmpty() )
+				throw new NoSuchElementException();
+			return advance().getElement();
+		}
+
+		/** Removes the next node from the stack and queues its successors. */
+		protected abstract BSTreeNode<E> advance();
+	}
+
+	/** Lazy in-order traversal: the stack holds the left spine still to visit. */
+	private class InorderIterator extends LazyIterator
+	{
+		public InorderIterator( BSTreeNode<E> root )
+		{
+			pushLeft( root );
+		}
+
+		@Override
+		protected BSTreeNode<E> advance()
+		{
+			BSTreeNode<E> node = stack.pop();
+			pushLeft( node.getRight() );
+			return node;
+		}
+
+		private void pushLeft( BSTreeNode<E> node )
+		{
+			while( node != null )
+			{
+				stack.push( node );
+				node = node.getLeft();
+			}
+		}
+	}
+
+	/** Lazy pre-order traversal: right children wait on the stack. */
+	private class PreorderIterator extends LazyIterator
+	{
+		public PreorderIterator( BSTreeNode<E> root )
+		{
+			if( root != null )
+				stack.push( root );
+		}
+
+		@Override
+		protected BSTreeNode<E> advance()
+		{
+			BSTreeNode<E> node = stack.pop();
+			if( node.getRight() != null )
+				stack.push( node.getRight() );
+			if( node.getLeft() != null )
+				stack.push( node.getLeft() );
+			return node;
+		}
+	}
+
+	/**
+	 * Lazy post-order traversal: the stack holds the path down to the next
+	 * node whose children have both been visited.
+	 */
+	private class PostorderIterator extends LazyIterator
+	{
+		public PostorderIterator( BSTreeNode<E> root )
+		{
+			pushFirstLeaf( root );
+		}
+
+		@Override
+		protected BSTreeNode<E> advance()
+		{
+			BSTreeNode<E> node = stack.pop();
+			BSTreeNode<E> parent = stack.peek();
+			if( parent != null && parent.getLeft() == node )
+				pushFirstLeaf( parent.getRight() );
+			return node;
+		}
+
+		private void pushFirstLeaf( BSTreeNode<E> node )
+		{
+			while( node != null )
+			{
+				stack.push( node );
+				node = node.getLeft() != null ? node.getLeft() : node.getRight();
+			}
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package implementations;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.NoSuchElementException;
+
+import utilities.Iterator;
+
+/**
+ * Lazy in-order traversal of the elements of a tree that lie between two
+ * bounds. Subtrees entirely below the lower bound are never entered, and the
+ * walk stops at the first element above the upper bound, so returning k
+ * elements costs O(height + k) comparisons instead of a walk of the whole
+ * tree.
+ * <p>
+ * Bounds are probes that compare themselves against stored elements, so they
+ * need not be elements themselves. A probe may compare equal to a whole run of
+ * consecutive elements, such as every word starting with a prefix.
+ * </p>
+ *
+ * @param <E> element type
+ */
+public class RangeIterator<E> implements Iterator<E>
+{
+	/** Lower bound, or null for no lower bound. */
+	private final Comparable<? super E> low;
+
+	/** Whether elements equal to the lower bound are included. */
+	private final boolean lowInclusive;
+
+	/** Upper bound, or null for no upper bound. */
+	private final Comparable<? super E> high;
+
+	/** Whether elements equal to the upper bound are included. */
+	private final boolean highInclusive;
+
+	/** Nodes on the left spine still to visit, all above the lower bound. */
+	private final Deque<BSTreeNode<E>> stack = new ArrayDeque<>();
+
+	/**
+	 * Creates an iterator over the subtree rooted at the given node.
+	 *
+	 * @param root root of the subtree to walk (may be null)
+	 * @param low lower bound, or null for none
+	 * @param lowInclusive whether elements equal to low are included
+	 * @param high upper bound, or null for none
+	 * @param highInclusive whether elements equal to high are included
+	 */
+	public RangeIterator( BSTreeNode<E> root, Comparable<? super E> low, boolean lowInclusive,
+			Comparable<? super E> high, boolean highInclusive )
+	{
+		this.low = low;
+		this.lowInclusive = lowInclusive;
+		this.high = high;
+		this.highInclusive = highInclusive;
+		pushLeft( root );
+		checkHigh();
+	}
+
+	/** Returns true if there are remaining elements in the range. */
+	@Override
+	public boolean hasNext()
+	{
+		return !stack.isEmpty();
+	}
+
+	/** Returns the next element in the range. */
+	@Override
+	public E next() throws NoSuchElementException
+	{
+		if( stack.isEmpty() )
+			throw new NoSuchElementException();
+		BSTreeNode<E> node = stack.pop();
+		pushLeft( node.getRight() );
+		checkHigh();
+		return node.getElement();
+	}
+
+	/**
+	 * Helper: pushes the nodes on the way down to the smallest element of the
+	 * subtree that is not below the lower bound. A node below the bound is
+	 * skipped with its whole left subtree.
+	 */
+	private void pushLeft( BSTreeNode<E> node )
+	{
+		while( node != null )
+		{
+			if( aboveLow( node.getElement() ) )
+			{
+				stack.push( node );
+				node = node.getLeft();
+			}
+			else
+				node = node.getRight();
+		}
+	}
+
+	/**
+	 * Helper: ends the iteration once the next element is above the upper
+	 * bound, since every element after it is too.
+	 */
+	private void checkHigh()
+	{
+		if( !stack.isEmpty() && !belowHigh( stack.peek().getElement() ) )
+			stack.clear();
+	}
+
+	/** Helper: whether the element is within the lower bound. */
+	private boolean aboveLow( E element )
+	{
+		if( low == null )
+			return true;
+		int cmp = low.compareTo( element );
+		return cmp < 0 || ( cmp == 0 && lowInclusive );
+	}
+
+	/** Helper: whether the element is within the upper bound. */
+	private boolean belowHigh( E element )
+	{
+		if( high == null )
+			return true;
+		int cmp = high.compareTo( element );
+		return cmp > 0 || ( cmp == 0 && highInclusive );
+	}
+}
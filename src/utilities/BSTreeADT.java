@@ -4,8 +4,10 @@
 package utilities;
 
 import java.io.Serializable;
+import java.util.function.Supplier;
 
 import implementations.BSTreeNode;
+import implementations.RangeIterator;
 
 /**
  * <p>
@@ -20,12 +22,18 @@ import implementations.BSTreeNode;
 public interface BSTreeADT<E extends Comparable<? super E>> extends	Serializable
 {
 	/**
-	 * The node at the root of the Binary Search Tree will be returned.
+	 * The node at the root of the Binary Search Tree will be returned. This
+	 * operation is optional: a tree that is not built from binary nodes may
+	 * throw instead, and must then override
+	 * {@link #rangeIterator(Comparable, boolean, Comparable, boolean)}, whose
+	 * default walks down from the root. {@link #matchIterator(Comparable)}
+	 * relies on it in turn.
 	 * 
 	 * @return node stored at the root of tree is returned
 	 * @throws NullPointerException if the tree is empty and there is no root node.
+	 * @throws UnsupportedOperationException if the tree has no binary node structure.
 	 */
-	public BSTreeNode<E> getRoot() throws NullPointerException;
+	public BSTreeNode<E> getRoot() throws NullPointerException, UnsupportedOperationException;
 
 	/**
 	 * Determines the row height of the tree and returns that value as an integer
@@ -86,6 +94,44 @@ public interface BSTreeADT<E extends Comparable<? super E>> extends	Serializable
 	 */
 	public boolean add( E newEntry ) throws NullPointerException;
 
+	/**
+	 * Finds the element equal to the entry passed in, adding the entry to the
+	 * tree if no such element is stored yet. Both happen in a single descent
+	 * from the root, so callers do not need to call contains, search and add
+	 * one after another.
+	 * 
+	 * @param newEntry the element to find, and to add if it is not found
+	 * @return the element already stored in the tree, or newEntry if it was
+	 *         added
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+	public E getOrAdd( E newEntry ) throws NullPointerException;
+
+	/**
+	 * Finds the element the probe compares equal to, adding the element made
+	 * by the factory if no such element is stored yet. The probe only has to
+	 * compare itself against stored elements, so a caller can search without
+	 * building an element first; the factory is called only when one is added.
+	 * Implementations should override this to descend with the probe; this
+	 * version always calls the factory.
+	 * 
+	 * @param probe compares to the stored elements the way the wanted element
+	 *            would
+	 * @param factory makes the element to add, which must compare equal to
+	 *            the probe
+	 * @return the element already stored in the tree, or the element made by
+	 *         the factory if it was added
+	 * @throws NullPointerException if the probe, the factory or the element it
+	 *             makes is null
+	 */
+	public default E getOrAdd( Comparable<? super E> probe, Supplier<? extends E> factory )
+			throws NullPointerException
+	{
+		if( probe == null || factory == null )
+			throw new NullPointerException( "Null probe" );
+		return getOrAdd( factory.get() );
+	}
+
 	/**
 	 * Removes the smallest element in the tree according to the natural ordering
 	 * established by the Comparable implementation.
@@ -102,6 +148,49 @@ public interface BSTreeADT<E extends Comparable<? super E>> extends	Serializable
 	 */
 	public BSTreeNode<E> removeMax();
 
+	/**
+	 * Counts the elements that are less than the entry, which is the position
+	 * the entry has, or would have, in an in-order traversal. Implementations
+	 * should override this to use cached subtree sizes; this version walks the
+	 * tree in order.
+	 * 
+	 * @param entry the element whose position is wanted; it need not be in the
+	 *            tree
+	 * @return the number of elements less than entry
+	 * @throws NullPointerException if the element being passed in is null
+	 */
+	public default int rank( E entry ) throws NullPointerException
+	{
+		if( entry == null )
+			throw new NullPointerException( "Null entry" );
+		int rank = 0;
+		Iterator<E> it = inorderIterator();
+		while( it.hasNext() && it.next().compareTo( entry ) < 0 )
+			rank++;
+		return rank;
+	}
+
+	/**
+	 * Returns the element at the given position in an in-order traversal, so
+	 * that select(rank(e)) is e for every element e in the tree.
+	 * Implementations should override this to use cached subtree sizes; this
+	 * version walks the tree in order.
+	 * 
+	 * @param index position of the element, starting at 0
+	 * @return the element at that position
+	 * @throws IndexOutOfBoundsException if the index is negative or not less
+	 *             than size()
+	 */
+	public default E select( int index ) throws IndexOutOfBoundsException
+	{
+		if( index < 0 || index >= size() )
+			throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size() );
+		Iterator<E> it = inorderIterator();
+		for( int i = 0; i < index; i++ )
+			it.next();
+		return it.next();
+	}
+
 	/**
 	 * Generates an in-order iteration over the contents of the tree. Elements are
 	 * in their natural order.
@@ -110,6 +199,42 @@ public interface BSTreeADT<E extends Comparable<? super E>> extends	Serializable
 	 */
 	public Iterator<E> inorderIterator();
 
+	/**
+	 * Generates an in-order iteration over the elements between two bounds.
+	 * Subtrees outside the bounds are skipped, so the cost is O(height + k)
+	 * for k elements returned. The bounds compare themselves against stored
+	 * elements, so they need not be elements of the tree.
+	 * 
+	 * @param low lower bound, or null for no lower bound
+	 * @param lowInclusive true if elements equal to low are included
+	 * @param high upper bound, or null for no upper bound
+	 * @param highInclusive true if elements equal to high are included
+	 * @return an iterator with the elements in the range in natural order
+	 */
+	public default Iterator<E> rangeIterator( Comparable<? super E> low, boolean lowInclusive,
+			Comparable<? super E> high, boolean highInclusive )
+	{
+		return new RangeIterator<E>( isEmpty() ? null : getRoot(), low, lowInclusive, high, highInclusive );
+	}
+
+	/**
+	 * Generates an in-order iteration over the elements the probe compares
+	 * equal to, such as every word starting with a prefix. The matching
+	 * elements must be consecutive in the natural order, with the probe
+	 * comparing greater than every element before them and less than every
+	 * element after them.
+	 * 
+	 * @param probe compares equal to the wanted elements
+	 * @return an iterator with the matching elements in natural order
+	 * @throws NullPointerException if the probe is null
+	 */
+	public default Iterator<E> matchIterator( Comparable<? super E> probe ) throws NullPointerException
+	{
+		if( probe == null )
+			throw new NullPointerException( "Null probe" );
+		return rangeIterator( probe, true, probe, true );
+	}
+
 	/**
 	 * Generates a pre-order iteration over the contents of the tree. Elements are
 	 * order in such a way as the root element is first.
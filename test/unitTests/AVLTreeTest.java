@@ -0,0 +1,253 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import utilities.Iterator;
+
+import implementations.AVLTree;
+import implementations.BSTree;
+
+/**
+ * Class Description: Tests for the self-balancing AVLTree variant of the
+ * BSTreeADT. The tests focus on the height bound, since the rest of the
+ * behaviour is shared with BSTree.
+ */
+public class AVLTreeTest
+{
+	// Attributes
+	private AVLTree<Integer> tree;
+
+	/**
+	 * Initializes a new AVLTree instance before each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		tree = new AVLTree<Integer>();
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		tree = null;
+	}
+
+	/**
+	 * Largest height an AVL tree with n nodes may have: 1.44 * log2(n + 2).
+	 */
+	private static int maxHeight( int n )
+	{
+		return (int)Math.floor( 1.4405 * Math.log( n + 2 ) / Math.log( 2 ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.AVLTree#add(java.lang.Comparable)}
+	 * to keep the height logarithmic when adding sorted input.
+	 */
+	@Test
+	public void testAdd_SortedHeightBound()
+	{
+		int n = 100000;
+		for( int i = 0; i < n; i++ )
+		{
+			assertTrue( tree.add( i ) );
+		}
+		assertEquals( "Failed to update size correctly.", n, tree.size() );
+		assertTrue( "Height of sorted input exceeds AVL bound: " + tree.getHeight(),
+				tree.getHeight() <= maxHeight( n ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.AVLTree#add(java.lang.Comparable)}
+	 * to keep the height logarithmic when adding reverse sorted input.
+	 */
+	@Test
+	public void testAdd_ReverseSortedHeightBound()
+	{
+		int n = 100000;
+		for( int i = n; i > 0; i-- )
+		{
+			tree.add( i );
+		}
+		assertTrue( "Height of reverse input exceeds AVL bound: " + tree.getHeight(),
+				tree.getHeight() <= maxHeight( n ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.AVLTree#getHeight()} to match the
+	 * height of a perfectly balanced tree for 2^k - 1 sorted elements.
+	 */
+	@Test
+	public void testGetHeight_Sorted()
+	{
+		for( int i = 1; i <= 7; i++ )
+		{
+			tree.add( i * 11 );
+		}
+		assertEquals( "Failed to return correct height.", 3, tree.getHeight() );
+		assertEquals( "Failed to rotate the root.", 44, (int)tree.getRoot().getElement() );
+	}
+
+	/**
+	 * Test method for {@link implementations.AVLTree#add(java.lang.Comparable)}
+	 * to reject duplicates without changing the size.
+	 */
+	@Test
+	public void testAdd_Duplicate()
+	{
+		tree.add( 11 );
+		tree.add( 22 );
+		assertFalse( "Failed to reject duplicate.", tree.add( 11 ) );
+		assertEquals( "Failed to keep size.", 2, tree.size() );
+	}
+
+	/**
+	 * Test method for {@link implementations.AVLTree#add(java.lang.Comparable)}
+	 * to throw a NullPointerException when passing a null.
+	 */
+	@Test
+	public void testAddForNullPointerException()
+	{
+		try
+		{
+			tree.add( null );
+			fail( "Add method failed to throw NullPointerException." );
+		}
+		catch( NullPointerException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.AVLTree#inorderIterator()} to
+	 * return the elements in sorted order after rotations.
+	 */
+	@Test
+	public void testInorderIterator()
+	{
+		for( int i = 100; i > 0; i-- )
+		{
+			tree.add( i );
+		}
+		Iterator<Integer> it = tree.inorderIterator();
+		int expected = 1;
+		while( it.hasNext() )
+		{
+			assertEquals( "In-order iterator is out of order ", expected++, (int)it.next() );
+		}
+		assertEquals( "Failed to iterate over every element.", 101, expected );
+	}
+
+	/**
+	 * Test method for {@link implementations.AVLTree#removeMin()} and
+	 * {@link implementations.AVLTree#removeMax()} to keep the tree balanced
+	 * while it is drained from both ends.
+	 */
+	@Test
+	public void testRemoveMinMax_Balanced()
+	{
+		int n = 1000;
+		for( int i = 0; i < n; i++ )
+		{
+			tree.add( i );
+		}
+		for( int i = 0; i < n / 4; i++ )
+		{
+			assertEquals( "Failed to remove minimum value.", i, (int)tree.removeMin().getElement() );
+			assertEquals( "Failed to remove maximum value.", n - 1 - i, (int)tree.removeMax().getElement() );
+			assertTrue( "Height exceeds AVL bound after removal.", tree.getHeight() <= maxHeight( tree.size() ) );
+		}
+		assertEquals( "Failed to update size.", n / 2, tree.size() );
+		assertFalse( tree.contains( 0 ) );
+		assertTrue( tree.contains( n / 2 ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.AVLTree#removeMin()} to return null
+	 * when tree is empty.
+	 */
+	@Test
+	public void testRemoveMinNull()
+	{
+		assertNull( "Failed to return null.", tree.removeMin() );
+		assertNull( "Failed to return null.", tree.removeMax() );
+	}
+
+	/**
+	 * Test method for {@link implementations.AVLTree#getOrAdd(java.lang.Comparable)}
+	 * to return the stored element for an existing key and rebalance for a new
+	 * one.
+	 */
+	@Test
+	public void testGetOrAdd()
+	{
+		AVLTree<Key> keys = new AVLTree<Key>();
+		Key stored = new Key( 1000 );
+		Key probe = new Key( 1000 );
+		assertNotSame( stored, probe );
+		assertSame( "Failed to return the added element.", stored, keys.getOrAdd( stored ) );
+		assertSame( "Failed to return the stored element.", stored, keys.getOrAdd( probe ) );
+		for( int i = 0; i < 1024; i++ )
+		{
+			keys.getOrAdd( new Key( i ) );
+		}
+		assertEquals( "Failed to update size.", 1024, keys.size() );
+		assertTrue( "Height exceeds AVL bound.", keys.getHeight() <= maxHeight( 1024 ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.AVLTree#rank(Comparable)} and
+	 * {@link implementations.AVLTree#select(int)} to follow the rotations made
+	 * while adding and removing.
+	 */
+	@Test
+	public void testRankSelect_Rotations()
+	{
+		int n = 1000;
+		for( int i = n - 1; i >= 0; i-- )
+		{
+			tree.add( i );
+		}
+		for( int i = 0; i < 100; i++ )
+		{
+			tree.removeMin();
+			tree.removeMax();
+		}
+		for( int i = 0; i < n - 200; i++ )
+		{
+			assertEquals( "Failed to select index " + i, 100 + i, (int)tree.select( i ) );
+			assertEquals( "Failed to rank " + ( 100 + i ), i, tree.rank( 100 + i ) );
+		}
+		assertEquals( 0, tree.rank( 0 ) );
+		assertEquals( n - 200, tree.rank( n ) );
+	}
+
+	/**
+	 * Compares the height of an AVLTree and a plain BSTree built from the same
+	 * sorted input.
+	 */
+	@Test
+	public void testHeight_ComparedToBSTree()
+	{
+		BSTree<Integer> plain = new BSTree<Integer>();
+		for( int i = 0; i < 1000; i++ )
+		{
+			plain.add( i );
+			tree.add( i );
+		}
+		assertEquals( "Plain tree should degenerate.", 1000, plain.getHeight() );
+		assertEquals( "Failed to balance sorted input.", 10, tree.getHeight() );
+	}
+}
@@ -0,0 +1,275 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import utilities.Iterator;
+
+import implementations.ArrayBSTree;
+import implementations.BSTree;
+import implementations.BSTreeNode;
+
+/**
+ * Class Description: Tests for the array-backed ArrayBSTree implementation of
+ * the BSTreeADT, including slot recycling and the node views returned by
+ * getRoot and search.
+ */
+public class ArrayBSTreeTest
+{
+	// Attributes
+	private ArrayBSTree<Integer> tree;
+
+	/**
+	 * Initializes a new ArrayBSTree instance holding seven elements before each
+	 * test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		tree = new ArrayBSTree<Integer>();
+		tree.add( 44 );
+		tree.add( 22 );
+		tree.add( 66 );
+		tree.add( 11 );
+		tree.add( 55 );
+		tree.add( 33 );
+		tree.add( 77 );
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		tree = null;
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#add(java.lang.Comparable)}
+	 * to store elements with the same shape as BSTree.
+	 */
+	@Test
+	public void testAdd_Shape()
+	{
+		assertEquals( "Failed to update size correctly.", 7, tree.size() );
+		assertEquals( "Failed to update height correctly.", 3, tree.getHeight() );
+		assertFalse( "Failed to reject duplicate.", tree.add( 44 ) );
+		assertEquals( "Failed to return the root element.", 44, (int)tree.getRoot().getElement() );
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#contains(java.lang.Comparable)}
+	 * and {@link implementations.ArrayBSTree#search(java.lang.Comparable)}.
+	 */
+	@Test
+	public void testContainsAndSearch()
+	{
+		assertTrue( tree.contains( 33 ) );
+		assertFalse( tree.contains( 34 ) );
+		assertEquals( "Failed to return the correct element.", 55, (int)tree.search( 55 ).getElement() );
+		assertNull( "Failed to return null.", tree.search( 99 ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#getRoot()} to navigate
+	 * the pool through node views.
+	 */
+	@Test
+	public void testGetRoot_View()
+	{
+		BSTreeNode<Integer> root = tree.getRoot();
+		assertEquals( 22, (int)root.getLeft().getElement() );
+		assertEquals( 33, (int)root.getLeft().getRight().getElement() );
+		assertEquals( 77, (int)root.getRight().getRight().getElement() );
+		assertNull( root.getLeft().getLeft().getLeft() );
+
+		// writes through a view change the tree itself
+		root.getRight().setRight( null );
+		assertFalse( tree.contains( 77 ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#getHeight()} after a
+	 * view relinks the tree, which the cached heights must follow.
+	 */
+	@Test
+	public void testGetHeight_AfterRelink()
+	{
+		// rotate right at 66, so 55 takes its place and 66 and 77 go down
+		BSTreeNode<Integer> root = tree.getRoot();
+		BSTreeNode<Integer> pivot = root.getRight();
+		BSTreeNode<Integer> child = pivot.getLeft();
+		pivot.setLeft( null );
+		child.setRight( pivot );
+		root.setRight( child );
+		assertEquals( "Failed to update height correctly.", 4, tree.getHeight() );
+		assertEquals( 5, tree.rank( 66 ) );
+		assertEquals( 55, (int)tree.select( 4 ) );
+		assertEquals( 77, (int)tree.select( 6 ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#getRoot()} to throw
+	 * NullPointerException when the tree is empty.
+	 */
+	@Test
+	public void testGetRoot_NullPointerException()
+	{
+		tree.clear();
+		try
+		{
+			tree.getRoot();
+			fail( "Failed to throw NullPointerException." );
+		}
+		catch( NullPointerException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#removeMin()} and
+	 * {@link implementations.ArrayBSTree#removeMax()}.
+	 */
+	@Test
+	public void testRemoveMinMax()
+	{
+		assertEquals( "Failed to return minimum value.", 11, (int)tree.removeMin().getElement() );
+		assertEquals( "Failed to remove the maximum value.", 77, (int)tree.removeMax().getElement() );
+		assertEquals( "Failed to update size.", 5, tree.size() );
+		assertFalse( tree.contains( 11 ) );
+		assertFalse( tree.contains( 77 ) );
+		tree.clear();
+		assertNull( "Failed to return null.", tree.removeMin() );
+		assertNull( "Failed to return null.", tree.removeMax() );
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#rank(Comparable)},
+	 * {@link implementations.ArrayBSTree#select(int)} and
+	 * {@link implementations.ArrayBSTree#getHeight()} to agree with a BSTree
+	 * given the same adds and removals, as slots are released and reused.
+	 */
+	@Test
+	public void testRankSelect_SameAsBSTree()
+	{
+		ArrayBSTree<Integer> pool = new ArrayBSTree<Integer>( 4 );
+		BSTree<Integer> expected = new BSTree<Integer>();
+		Random random = new Random( 21 );
+		for( int round = 0; round < 20; round++ )
+		{
+			for( int i = 0; i < 200; i++ )
+			{
+				int value = random.nextInt( 5000 );
+				assertEquals( expected.add( value ), pool.add( value ) );
+			}
+			for( int i = 0; i < 50; i++ )
+			{
+				if( random.nextBoolean() )
+					assertEquals( expected.removeMin().getElement(), pool.removeMin().getElement() );
+				else
+					assertEquals( expected.removeMax().getElement(), pool.removeMax().getElement() );
+			}
+			assertEquals( "Failed to update height correctly.", expected.getHeight(), pool.getHeight() );
+			for( int i = 0; i < expected.size(); i++ )
+				assertEquals( expected.select( i ), pool.select( i ) );
+			for( int value = -1; value <= 5000; value += 7 )
+				assertEquals( "Failed to rank " + value, expected.rank( value ), pool.rank( value ) );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#removeMin()} to recycle
+	 * released slots instead of growing the pool.
+	 */
+	@Test
+	public void testRemoveMin_RecyclesSlots()
+	{
+		ArrayBSTree<Integer> pool = new ArrayBSTree<Integer>( 4 );
+		for( int i = 0; i < 4; i++ )
+		{
+			pool.add( i );
+		}
+		for( int i = 4; i < 1000; i++ )
+		{
+			pool.removeMin();
+			pool.add( i );
+		}
+		assertEquals( "Failed to keep size.", 4, pool.size() );
+		assertEquals( "Pool grew although slots were free.", 4, pool.capacity() );
+		assertEquals( "Failed to return minimum value.", 996, (int)pool.removeMin().getElement() );
+	}
+
+	/**
+	 * Test method for the traversal iterators in both iterator modes.
+	 */
+	@Test
+	public void testIterators()
+	{
+		Integer[] inorder = { 11, 22, 33, 44, 55, 66, 77 };
+		Integer[] preorder = { 44, 22, 11, 33, 66, 55, 77 };
+		Integer[] postorder = { 11, 33, 22, 55, 77, 66, 44 };
+		for( BSTree.IteratorMode mode : BSTree.IteratorMode.values() )
+		{
+			tree.setIteratorMode( mode );
+			assertArrayEquals( "In-order iterator is out of order ", inorder, drain( tree.inorderIterator() ) );
+			assertArrayEquals( "Preorder iterator is out of order ", preorder, drain( tree.preorderIterator() ) );
+			assertArrayEquals( "Postorder iterator is out of order ", postorder, drain( tree.postorderIterator() ) );
+		}
+	}
+
+	/**
+	 * Test method for serializing the pool and reading it back.
+	 *
+	 * @throws Exception if serialization fails
+	 */
+	@Test
+	@SuppressWarnings( "unchecked" )
+	public void testSerialization() throws Exception
+	{
+		tree.removeMin();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try( ObjectOutputStream out = new ObjectOutputStream( bytes ) )
+		{
+			out.writeObject( tree );
+		}
+		ArrayBSTree<Integer> copy;
+		try( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) )
+		{
+			copy = (ArrayBSTree<Integer>)in.readObject();
+		}
+		assertEquals( "Failed to keep size.", 6, copy.size() );
+		assertArrayEquals( new Integer[] { 22, 33, 44, 55, 66, 77 }, drain( copy.inorderIterator() ) );
+		copy.add( 10 );
+		assertEquals( "Failed to reuse the free slot.", 10, (int)copy.removeMin().getElement() );
+	}
+
+	/**
+	 * Helper: collects the remaining elements of an iterator.
+	 */
+	private static Integer[] drain( Iterator<Integer> it )
+	{
+		List<Integer> list = new ArrayList<Integer>();
+		while( it.hasNext() )
+		{
+			list.add( it.next() );
+		}
+		return list.toArray( new Integer[0] );
+	}
+}
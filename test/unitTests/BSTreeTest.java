@@ -2,6 +2,10 @@ package unitTests;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -607,4 +611,540 @@ public class BSTreeTest
 	{
 		assertNull( "Failed to return maximum value.", tree.removeMax() );
 	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#inorderIterator()},
+	 * {@link implementations.BSTree#preorderIterator()} and
+	 * {@link implementations.BSTree#postorderIterator()} to return the same
+	 * order from the lazy fail-fast iterators as from the snapshot iterators.
+	 */
+	@Test
+	public void testFailFastIterators_Order()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( five );
+		tree.add( three );
+		tree.add( seven );
+		tree.setIteratorMode( BSTree.IteratorMode.FAIL_FAST );
+
+		Integer[] inorder = { one, two, three, four, five, six, seven };
+		Integer[] preorder = { four, two, one, three, six, five, seven };
+		Integer[] postorder = { one, three, two, five, seven, six, four };
+		assertArrayEquals( "In-order iterator is out of order ", inorder, drain( tree.inorderIterator() ) );
+		assertArrayEquals( "Preorder iterator is out of order ", preorder, drain( tree.preorderIterator() ) );
+		assertArrayEquals( "Postorder iterator is out of order ", postorder, drain( tree.postorderIterator() ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#postorderIterator()} in
+	 * fail-fast mode on trees with single-child nodes.
+	 */
+	@Test
+	public void testFailFastIterators_Skewed()
+	{
+		tree.add( four );
+		tree.add( one );
+		tree.add( three );
+		tree.add( two );
+		tree.add( five );
+		tree.add( seven );
+		tree.add( six );
+		tree.setIteratorMode( BSTree.IteratorMode.FAIL_FAST );
+
+		Integer[] postorder = { two, three, one, six, seven, five, four };
+		assertArrayEquals( "Postorder iterator is out of order ", postorder, drain( tree.postorderIterator() ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#inorderIterator()} in
+	 * fail-fast mode to throw ConcurrentModificationException after the tree is
+	 * modified.
+	 */
+	@Test
+	public void testFailFastIterator_ConcurrentModification()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.setIteratorMode( BSTree.IteratorMode.FAIL_FAST );
+
+		Iterator<Integer> it = tree.inorderIterator();
+		it.next();
+		tree.add( six );
+		try
+		{
+			it.next();
+			fail( "Failed to throw ConcurrentModificationException." );
+		}
+		catch( ConcurrentModificationException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#inorderIterator()} in
+	 * snapshot mode to be unaffected by later changes to the tree.
+	 */
+	@Test
+	public void testSnapshotIterator_Unaffected()
+	{
+		tree.add( four );
+		tree.add( two );
+
+		Iterator<Integer> it = tree.inorderIterator();
+		tree.add( six );
+		tree.removeMin();
+		assertArrayEquals( "Snapshot iterator changed.", new Integer[] { two, four }, drain( it ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#inorderIterator()} in
+	 * fail-fast mode on a degenerate tree too deep for a recursive walk.
+	 */
+	@Test
+	public void testFailFastIterator_Degenerate()
+	{
+		int n = 100000;
+		for( int i = 0; i < n; i++ )
+		{
+			tree.add( i );
+		}
+		tree.setIteratorMode( BSTree.IteratorMode.FAIL_FAST );
+
+		Iterator<Integer> it = tree.inorderIterator();
+		int expected = 0;
+		while( it.hasNext() )
+		{
+			assertEquals( "In-order iterator is out of order ", expected++, (int)it.next() );
+		}
+		assertEquals( "Failed to iterate over every element.", n, expected );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#getOrAdd(java.lang.Comparable)}
+	 * to add an element that is not in the tree and return it.
+	 */
+	@Test
+	public void testGetOrAdd_New()
+	{
+		tree.add( four );
+		tree.add( two );
+
+		assertSame( "Failed to return the added element.", six, tree.getOrAdd( six ) );
+		assertEquals( "Failed to update size.", 3, tree.size() );
+		assertTrue( tree.contains( six ) );
+		assertSame( "Failed to add element into an empty tree.", one, new BSTree<Integer>().getOrAdd( one ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#getOrAdd(java.lang.Comparable)}
+	 * to return the stored element rather than the probe when it already exists.
+	 */
+	@Test
+	public void testGetOrAdd_Existing()
+	{
+		BSTree<Key> keys = new BSTree<Key>();
+		Key stored = new Key( 1000 );
+		Key probe = new Key( 1000 );
+		assertNotSame( stored, probe );
+		keys.add( new Key( 4 ) );
+		keys.add( stored );
+
+		assertSame( "Failed to return the stored element.", stored, keys.getOrAdd( probe ) );
+		assertEquals( "Size should not change.", 2, keys.size() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#getOrAdd(java.lang.Comparable)}
+	 * to throw NullPointerException when passing a null.
+	 */
+	@Test
+	public void testGetOrAdd_NullPointerException()
+	{
+		try
+		{
+			tree.getOrAdd( null );
+			fail( "Failed to throw NullPointerException." );
+		}
+		catch( NullPointerException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#rebalance()} to turn a tree
+	 * filled in sorted order into a perfectly balanced one with the same
+	 * elements.
+	 */
+	@Test
+	public void testRebalance_Degenerate()
+	{
+		tree.add( one );
+		tree.add( two );
+		tree.add( three );
+		tree.add( four );
+		tree.add( five );
+		tree.add( six );
+		tree.add( seven );
+		BSTreeNode<Integer> oldRoot = tree.getRoot();
+		tree.rebalance();
+
+		assertEquals( "Failed to balance the tree.", 3, tree.getHeight() );
+		assertEquals( "Size should not change.", 7, tree.size() );
+		assertArrayEquals( new Integer[] { four, two, one, three, six, five, seven }, drain( tree.preorderIterator() ) );
+		assertArrayEquals( new Integer[] { one, two, three, four, five, six, seven }, drain( tree.inorderIterator() ) );
+		assertSame( "Failed to reuse the nodes.", oldRoot, tree.search( one ) );
+		assertTrue( "Failed to keep searching.", tree.contains( five ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#rebalance()} on an empty
+	 * tree and a tree of 10000 elements added in order.
+	 */
+	@Test
+	public void testRebalance_Sizes()
+	{
+		tree.rebalance();
+		assertTrue( tree.isEmpty() );
+
+		for( int i = 0; i < 10000; i++ )
+		{
+			tree.add( i );
+		}
+		tree.rebalance();
+		assertEquals( "Failed to balance the tree.", 14, tree.getHeight() );
+		tree.add( -1 );
+		assertEquals( "Failed to keep adding.", 10001, tree.size() );
+		assertEquals( Integer.valueOf( -1 ), tree.removeMin().getElement() );
+		assertEquals( Integer.valueOf( 9999 ), tree.removeMax().getElement() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#rebalance()} to invalidate
+	 * fail-fast iterators in use.
+	 */
+	@Test
+	public void testRebalance_ConcurrentModification()
+	{
+		tree.setIteratorMode( BSTree.IteratorMode.FAIL_FAST );
+		tree.add( one );
+		tree.add( two );
+		Iterator<Integer> it = tree.inorderIterator();
+		tree.rebalance();
+		try
+		{
+			it.next();
+			fail( "Failed to throw ConcurrentModificationException." );
+		}
+		catch( ConcurrentModificationException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#rangeIterator(Comparable, boolean, Comparable, boolean)}
+	 * with inclusive, exclusive and open bounds.
+	 */
+	@Test
+	public void testRangeIterator_Bounds()
+	{
+		for( Integer value : new Integer[] { four, two, six, one, three, five, seven } )
+		{
+			tree.add( value );
+		}
+		assertArrayEquals( new Integer[] { two, three, four }, drain( tree.rangeIterator( two, true, four, true ) ) );
+		assertArrayEquals( new Integer[] { three }, drain( tree.rangeIterator( two, false, four, false ) ) );
+		assertArrayEquals( new Integer[] { two, three }, drain( tree.rangeIterator( 12, true, 40, true ) ) );
+		assertArrayEquals( new Integer[] { one, two }, drain( tree.rangeIterator( null, true, three, false ) ) );
+		assertArrayEquals( new Integer[] { six, seven }, drain( tree.rangeIterator( five, false, null, false ) ) );
+		assertArrayEquals( new Integer[0], drain( tree.rangeIterator( 80, true, 90, true ) ) );
+		assertArrayEquals( new Integer[0], drain( tree.rangeIterator( four, false, four, true ) ) );
+		assertArrayEquals( new Integer[0], drain( new BSTree<Integer>().rangeIterator( one, true, two, true ) ) );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#rangeIterator(Comparable, boolean, Comparable, boolean)}
+	 * to compare only against the elements on the paths to the bounds and the
+	 * elements returned.
+	 */
+	@Test
+	public void testRangeIterator_Pruned()
+	{
+		List<Integer> sorted = new ArrayList<Integer>();
+		for( int i = 0; i < 65535; i++ )
+		{
+			sorted.add( i );
+		}
+		tree = new BSTree<Integer>( sorted );
+		int[] calls = new int[1];
+		Comparable<Integer> low = other -> {
+			calls[0]++;
+			return Integer.compare( 30000, other );
+		};
+		Comparable<Integer> high = other -> {
+			calls[0]++;
+			return Integer.compare( 30009, other );
+		};
+		Integer[] found = drain( tree.rangeIterator( low, true, high, true ) );
+		assertEquals( 10, found.length );
+		assertEquals( Integer.valueOf( 30000 ), found[0] );
+		assertTrue( "Failed to prune: " + calls[0] + " comparisons.", calls[0] <= 2 * 16 + 2 * 10 + 2 );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#matchIterator(Comparable)}
+	 * to return the run of elements a probe compares equal to.
+	 */
+	@Test
+	public void testMatchIterator()
+	{
+		for( int i = 0; i < 100; i++ )
+		{
+			tree.add( ( i * 37 ) % 100 );
+		}
+		// Equal to every element in the thirties
+		Comparable<Integer> thirties = other -> other / 10 == 3 ? 0 : Integer.compare( 3, other / 10 );
+		assertArrayEquals( new Integer[] { 30, 31, 32, 33, 34, 35, 36, 37, 38, 39 },
+				drain( tree.matchIterator( thirties ) ) );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#rangeIterator(Comparable, boolean, Comparable, boolean)}
+	 * to fail fast when the tree changes in fail-fast mode.
+	 */
+	@Test
+	public void testRangeIterator_ConcurrentModification()
+	{
+		tree.setIteratorMode( BSTree.IteratorMode.FAIL_FAST );
+		tree.add( one );
+		tree.add( two );
+		Iterator<Integer> it = tree.rangeIterator( one, true, two, true );
+		tree.add( three );
+		try
+		{
+			it.next();
+			fail( "Failed to throw ConcurrentModificationException." );
+		}
+		catch( ConcurrentModificationException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#rank(Comparable)} and
+	 * {@link implementations.BSTree#select(int)} to agree with the sorted
+	 * order while elements are added and removed from both ends.
+	 */
+	@Test
+	public void testRankSelect()
+	{
+		List<Integer> sorted = new ArrayList<Integer>();
+		for( int i = 0; i < 500; i++ )
+		{
+			int value = ( i * 211 ) % 500 * 2;
+			if( i % 2 == 0 )
+			{
+				tree.add( value );
+			}
+			else
+			{
+				tree.getOrAdd( value );
+			}
+		}
+		tree.add( 0 );
+		tree.removeMin();
+		tree.removeMax();
+		tree.removeMax();
+		for( int value = 2; value < 996; value += 2 )
+		{
+			sorted.add( value );
+		}
+		assertEquals( sorted.size(), tree.size() );
+		for( int i = 0; i < sorted.size(); i++ )
+		{
+			assertEquals( "Failed to select index " + i, sorted.get( i ), tree.select( i ) );
+			assertEquals( "Failed to rank " + sorted.get( i ), i, tree.rank( sorted.get( i ) ) );
+			assertEquals( "Failed to rank a missing element.", i + 1, tree.rank( sorted.get( i ) + 1 ) );
+		}
+		assertEquals( 0, tree.rank( -5 ) );
+		assertEquals( sorted.size(), tree.rank( 5000 ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#select(int)} to throw
+	 * IndexOutOfBoundsException outside the tree.
+	 */
+	@Test
+	public void testSelect_IndexOutOfBoundsException()
+	{
+		tree.add( one );
+		for( int index : new int[] { -1, 1 } )
+		{
+			try
+			{
+				tree.select( index );
+				fail( "Failed to throw IndexOutOfBoundsException." );
+			}
+			catch( IndexOutOfBoundsException e )
+			{
+				assertTrue( true );
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#getHeight()} to keep the
+	 * cached heights right as a skewed tree grows and shrinks.
+	 */
+	@Test
+	public void testGetHeight_Cached()
+	{
+		for( int i = 1; i <= 10; i++ )
+		{
+			tree.add( i );
+		}
+		tree.add( 0 );
+		assertEquals( 10, tree.getHeight() );
+		tree.removeMax();
+		assertEquals( 9, tree.getHeight() );
+		tree.removeMin();
+		tree.removeMin();
+		assertEquals( 8, tree.getHeight() );
+		assertEquals( 8, height( tree.getRoot() ) );
+		tree.getOrAdd( 20 );
+		assertEquals( 9, tree.getHeight() );
+		assertEquals( 9, tree.size() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#forEachInorder(java.util.function.Consumer)},
+	 * {@link implementations.BSTree#forEachPreorder(java.util.function.Consumer)} and
+	 * {@link implementations.BSTree#forEachPostorder(java.util.function.Consumer)}
+	 * to visit the elements in the same order as the iterators and leave the
+	 * tree as it was.
+	 */
+	@Test
+	public void testForEach_Orders()
+	{
+		for( int i = 0; i < 200; i++ )
+		{
+			tree.add( ( i * 73 ) % 200 );
+		}
+		Integer[] inorder = drain( tree.inorderIterator() );
+		Integer[] preorder = drain( tree.preorderIterator() );
+		Integer[] postorder = drain( tree.postorderIterator() );
+
+		List<Integer> seen = new ArrayList<Integer>();
+		tree.forEachInorder( seen::add );
+		assertArrayEquals( inorder, seen.toArray( new Integer[0] ) );
+		seen.clear();
+		tree.forEachPreorder( seen::add );
+		assertArrayEquals( preorder, seen.toArray( new Integer[0] ) );
+		seen.clear();
+		tree.forEachPostorder( seen::add );
+		assertArrayEquals( postorder, seen.toArray( new Integer[0] ) );
+
+		assertArrayEquals( "Failed to restore the links.", preorder, drain( tree.preorderIterator() ) );
+		assertArrayEquals( "Failed to restore the links.", postorder, drain( tree.postorderIterator() ) );
+		new BSTree<Integer>().forEachPostorder( seen::add );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#forEachInorder(java.util.function.Consumer)}
+	 * and {@link implementations.BSTree#forEachPostorder(java.util.function.Consumer)}
+	 * on a tree as deep as it is large.
+	 */
+	@Test
+	public void testForEach_Degenerate()
+	{
+		int n = 20000;
+		for( int i = n - 1; i >= 0; i-- )
+		{
+			tree.add( i );
+		}
+		// every node is the left child of the one before, so in-order and
+		// post-order are ascending and pre-order is descending
+		int[] expected = { 0 };
+		tree.forEachInorder( value -> assertEquals( expected[0]++, (int)value ) );
+		assertEquals( n, expected[0] );
+		tree.forEachPreorder( value -> assertEquals( --expected[0], (int)value ) );
+		assertEquals( 0, expected[0] );
+		tree.forEachPostorder( value -> assertEquals( expected[0]++, (int)value ) );
+		assertEquals( n, expected[0] );
+		assertEquals( n, tree.getHeight() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#forEachInorder(java.util.function.Consumer)}
+	 * to restore the tree when the action throws, and to stop with
+	 * ConcurrentModificationException when the action adds to the tree.
+	 */
+	@Test
+	public void testForEach_ActionFails()
+	{
+		for( Integer value : new Integer[] { four, two, six, one, three, five, seven } )
+		{
+			tree.add( value );
+		}
+		Integer[] preorder = drain( tree.preorderIterator() );
+		List<Integer> seen = new ArrayList<Integer>();
+		try
+		{
+			tree.forEachInorder( value -> {
+				seen.add( value );
+				if( value.equals( two ) )
+					throw new IllegalStateException();
+			} );
+			fail( "Failed to rethrow the exception." );
+		}
+		catch( IllegalStateException e )
+		{
+			assertEquals( "Failed to stop calling the action.", 2, seen.size() );
+		}
+		assertArrayEquals( "Failed to restore the links.", preorder, drain( tree.preorderIterator() ) );
+
+		try
+		{
+			tree.forEachInorder( value -> tree.add( 100 ) );
+			fail( "Failed to throw ConcurrentModificationException." );
+		}
+		catch( ConcurrentModificationException e )
+		{
+			assertTrue( tree.contains( 100 ) );
+		}
+	}
+
+	/**
+	 * Helper: counts the levels below a node without the cached heights.
+	 */
+	private static int height( BSTreeNode<Integer> node )
+	{
+		if( node == null )
+		{
+			return 0;
+		}
+		return 1 + Math.max( height( node.getLeft() ), height( node.getRight() ) );
+	}
+
+	/**
+	 * Helper: collects the remaining elements of an iterator.
+	 */
+	private static Integer[] drain( Iterator<Integer> it )
+	{
+		List<Integer> list = new ArrayList<Integer>();
+		while( it.hasNext() )
+		{
+			list.add( it.next() );
+		}
+		return list.toArray( new Integer[0] );
+	}
 }
@@ -0,0 +1,145 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+import static unitTests.RepositoryFixture.dump;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import appDomain.ChunkIndexer;
+import appDomain.TrackedWord;
+import appDomain.WordTracker;
+import implementations.BSTree;
+import utilities.Iterator;
+
+/**
+ * Class Description: Tests that ChunkIndexer gives the same words, postings
+ * and line numbers as reading the file with WordTracker.processFile.
+ */
+public class ChunkIndexerTest
+{
+	// Attributes
+	private File file;
+	private ForkJoinPool pool;
+
+	/**
+	 * Creates a temporary input file and a pool of four workers before each
+	 * test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		file = File.createTempFile( "input", ".txt" );
+		pool = new ForkJoinPool( 4 );
+	}
+
+	/**
+	 * Removes the temporary file and stops the pool after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		file.delete();
+		pool.shutdown();
+	}
+
+	/**
+	 * Helper: the words of a list as an iterator.
+	 */
+	private static Iterator<TrackedWord> iterate( final List<TrackedWord> words )
+	{
+		return new Iterator<TrackedWord>()
+		{
+			private int next = 0;
+
+			@Override
+			public boolean hasNext()
+			{
+				return next < words.size();
+			}
+
+			@Override
+			public TrackedWord next()
+			{
+				return words.get( next++ );
+			}
+		};
+	}
+
+	/**
+	 * Helper: indexes the file both ways and compares the results.
+	 */
+	private void assertSameAsProcessFile() throws IOException
+	{
+		BSTree<TrackedWord> expected = new BSTree<TrackedWord>();
+		WordTracker.processFile( file.getPath(), expected );
+		assertEquals( "Failed to match processFile.", dump( expected ),
+				dump( iterate( ChunkIndexer.index( file.getPath(), pool ) ) ) );
+	}
+
+	/**
+	 * Test method for {@link appDomain.ChunkIndexer#index} on a file large
+	 * enough to be split, with every kind of line break.
+	 *
+	 * @throws IOException if the file cannot be written or read
+	 */
+	@Test
+	public void testIndex_LineBreaks() throws IOException
+	{
+		String[] breaks = { "\n", "\r\n", "\r", " ", "\n\n" };
+		StringBuilder sb = new StringBuilder();
+		for( int i = 0; sb.length() < 3 * 1024 * 1024; i++ )
+		{
+			sb.append( "Word" ).append( i % 5000 ).append( " word" ).append( i % 7 ).append( " it's caf\u00e9 " )
+					.append( i % 3 == 0 ? "Hello" : "hello" ).append( breaks[i % breaks.length] );
+		}
+		Files.write( file.toPath(), sb.toString().getBytes( Charset.defaultCharset() ) );
+		assertSameAsProcessFile();
+	}
+
+	/**
+	 * Test method for {@link appDomain.ChunkIndexer#index} on a small file,
+	 * which is read as one chunk, and on an empty file.
+	 *
+	 * @throws IOException if the file cannot be written or read
+	 */
+	@Test
+	public void testIndex_Small() throws IOException
+	{
+		Files.write( file.toPath(), "one two\nTwo three\r\nthree".getBytes( "UTF-8" ) );
+		assertSameAsProcessFile();
+		Files.write( file.toPath(), new byte[0] );
+		assertTrue( "Failed to index an empty file.", ChunkIndexer.index( file.getPath(), pool ).isEmpty() );
+	}
+
+	/**
+	 * Test method for {@link appDomain.ChunkIndexer#index} with a file that
+	 * does not exist.
+	 */
+	@Test
+	public void testIndex_Missing()
+	{
+		file.delete();
+		try
+		{
+			ChunkIndexer.index( file.getPath(), pool );
+			fail( "Failed to report a missing file." );
+		}
+		catch( IOException e )
+		{
+			assertTrue( true );
+		}
+	}
+}
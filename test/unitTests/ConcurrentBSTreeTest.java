@@ -0,0 +1,383 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import appDomain.TrackedWord;
+import appDomain.WordTracker;
+import implementations.BSTreeNode;
+import implementations.ConcurrentBSTree;
+import utilities.Iterator;
+
+/**
+ * Class Description: Tests for ConcurrentBSTree. The single-threaded tests
+ * check that it behaves like BSTree; the stress tests run several threads
+ * against one tree and check that no element is lost or duplicated.
+ */
+public class ConcurrentBSTreeTest
+{
+	// Attributes
+	private static final int THREADS = 8;
+	private ConcurrentBSTree<Integer> tree;
+
+	/**
+	 * Initializes a new ConcurrentBSTree instance before each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		tree = new ConcurrentBSTree<Integer>();
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		tree = null;
+	}
+
+	/**
+	 * Helper: starts the task on THREADS threads at once, passing each its
+	 * number, and waits for all of them. Rethrows the first failure.
+	 */
+	private static void runThreads( ThreadTask task ) throws Exception
+	{
+		CountDownLatch start = new CountDownLatch( 1 );
+		List<Throwable> failures = Collections.synchronizedList( new ArrayList<>() );
+		List<Thread> threads = new ArrayList<>();
+		for( int t = 0; t < THREADS; t++ )
+		{
+			int id = t;
+			Thread thread = new Thread( () -> {
+				try
+				{
+					start.await();
+					task.run( id );
+				}
+				catch( Throwable e )
+				{
+					failures.add( e );
+				}
+			} );
+			thread.start();
+			threads.add( thread );
+		}
+		start.countDown();
+		for( Thread thread : threads )
+			thread.join();
+		if( !failures.isEmpty() )
+			throw new AssertionError( failures.get( 0 ) );
+	}
+
+	/** Code run by each thread of a stress test. */
+	private interface ThreadTask
+	{
+		void run( int id ) throws Exception;
+	}
+
+	/**
+	 * Helper: reads an iterator into a list.
+	 */
+	private static List<Integer> drain( Iterator<Integer> it )
+	{
+		List<Integer> list = new ArrayList<>();
+		while( it.hasNext() )
+			list.add( it.next() );
+		return list;
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree} to add, search,
+	 * traverse and remove like BSTree on a single thread.
+	 */
+	@Test
+	public void testSingleThread_LikeBSTree()
+	{
+		for( int value : new int[] { 50, 30, 70, 20, 40, 60, 80 } )
+			assertTrue( tree.add( value ) );
+		assertFalse( "Failed to reject duplicate.", tree.add( 40 ) );
+		assertEquals( 7, tree.size() );
+		assertEquals( 3, tree.getHeight() );
+		assertEquals( 50, (int)tree.getRoot().getElement() );
+		assertTrue( tree.contains( 60 ) );
+		assertNull( tree.search( 65 ) );
+		assertEquals( Arrays.asList( 20, 30, 40, 50, 60, 70, 80 ), drain( tree.inorderIterator() ) );
+		assertEquals( Arrays.asList( 50, 30, 20, 40, 70, 60, 80 ), drain( tree.preorderIterator() ) );
+		assertEquals( Arrays.asList( 20, 40, 30, 60, 80, 70, 50 ), drain( tree.postorderIterator() ) );
+
+		assertEquals( 20, (int)tree.removeMin().getElement() );
+		assertEquals( 80, (int)tree.removeMax().getElement() );
+		assertEquals( Arrays.asList( 30, 40, 50, 60, 70 ), drain( tree.inorderIterator() ) );
+		assertEquals( 5, tree.size() );
+
+		tree.clear();
+		assertTrue( tree.isEmpty() );
+		assertNull( tree.removeMin() );
+		assertNull( tree.removeMax() );
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree#removeMin()} to
+	 * let elements be added below the place of a removed node afterwards.
+	 */
+	@Test
+	public void testRemoveMin_ThenAddSmaller()
+	{
+		tree.add( 10 );
+		tree.add( 5 );
+		tree.removeMin();
+		assertTrue( tree.add( 1 ) );
+		assertTrue( tree.add( 7 ) );
+		assertEquals( Arrays.asList( 1, 7, 10 ), drain( tree.inorderIterator() ) );
+		tree.removeMin();
+		tree.removeMin();
+		tree.removeMin();
+		assertTrue( tree.isEmpty() );
+		assertTrue( tree.add( 3 ) );
+		assertEquals( 3, (int)tree.getRoot().getElement() );
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree#rebalance()} to
+	 * turn a tree filled in sorted order into a balanced one that can still
+	 * be added to.
+	 */
+	@Test
+	public void testRebalance_Degenerate()
+	{
+		for( int i = 1; i <= 1023; i++ )
+			tree.add( i );
+		assertEquals( 1023, tree.getHeight() );
+		tree.rebalance();
+		assertEquals( 10, tree.getHeight() );
+		assertEquals( 1023, tree.size() );
+		assertTrue( tree.add( 0 ) );
+		assertEquals( 0, (int)drain( tree.inorderIterator() ).get( 0 ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree#getHeight()} on a
+	 * tree filled in sorted order, which is as deep as it is large.
+	 */
+	@Test
+	public void testGetHeight_Degenerate()
+	{
+		int n = 20000;
+		for( int i = 0; i < n; i++ )
+			tree.add( i );
+		assertEquals( n, tree.getHeight() );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.ConcurrentBSTree#ConcurrentBSTree(java.util.List)}
+	 * to reject elements that are not in ascending order.
+	 */
+	@Test
+	public void testSortedConstructor()
+	{
+		tree = new ConcurrentBSTree<>( Arrays.asList( 1, 2, 3, 4, 5, 6, 7 ) );
+		assertEquals( 3, tree.getHeight() );
+		assertEquals( 4, (int)tree.getRoot().getElement() );
+		try
+		{
+			new ConcurrentBSTree<>( Arrays.asList( 2, 1 ) );
+			fail( "Failed to throw IllegalArgumentException." );
+		}
+		catch( IllegalArgumentException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree#add(Comparable)}
+	 * from several threads adding overlapping keys: every key ends up in the
+	 * tree once, and exactly one add call reports it as new.
+	 */
+	@Test
+	public void testAdd_Concurrent() throws Exception
+	{
+		int keys = 20000;
+		AtomicInteger added = new AtomicInteger();
+		runThreads( id -> {
+			List<Integer> order = new ArrayList<>();
+			for( int i = 0; i < keys; i++ )
+				order.add( i );
+			Collections.shuffle( order, new Random( id ) );
+			for( int key : order )
+			{
+				if( tree.add( key ) )
+					added.incrementAndGet();
+			}
+		} );
+		assertEquals( keys, added.get() );
+		assertEquals( keys, tree.size() );
+		List<Integer> inorder = drain( tree.inorderIterator() );
+		assertEquals( keys, inorder.size() );
+		for( int i = 0; i < keys; i++ )
+			assertEquals( i, (int)inorder.get( i ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree} with half the
+	 * threads adding keys and the other half removing the minimum or maximum:
+	 * every key is either removed exactly once or still in the tree.
+	 */
+	@Test
+	public void testAddRemove_Concurrent() throws Exception
+	{
+		int perThread = 10000;
+		ConcurrentHashMap<Integer, Boolean> removed = new ConcurrentHashMap<>();
+		AtomicInteger duplicates = new AtomicInteger();
+		runThreads( id -> {
+			if( id % 2 == 0 )
+			{
+				List<Integer> values = new ArrayList<>();
+				for( int i = 0; i < perThread; i++ )
+					values.add( i * THREADS + id );
+				Collections.shuffle( values, new Random( id ) );
+				for( int value : values )
+					assertTrue( tree.add( value ) );
+			}
+			else
+			{
+				for( int i = 0; i < perThread / 4; i++ )
+				{
+					BSTreeNode<Integer> node = id % 4 == 1 ? tree.removeMin() : tree.removeMax();
+					if( node != null && removed.put( node.getElement(), Boolean.TRUE ) != null )
+						duplicates.incrementAndGet();
+				}
+			}
+		} );
+		assertEquals( "Removed an element twice.", 0, duplicates.get() );
+		List<Integer> left = drain( tree.inorderIterator() );
+		assertEquals( tree.size(), left.size() );
+		for( int i = 1; i < left.size(); i++ )
+			assertTrue( left.get( i - 1 ) < left.get( i ) );
+		for( int value : left )
+			assertFalse( "Element both removed and present: " + value, removed.containsKey( value ) );
+		assertEquals( ( THREADS / 2 ) * perThread, left.size() + removed.size() );
+
+		// The cached sizes and heights are exact once the threads are done
+		for( int i = 0; i < left.size(); i++ )
+		{
+			assertEquals( i, tree.rank( left.get( i ) ) );
+			assertEquals( left.get( i ), tree.select( i ) );
+		}
+		assertEquals( "Failed to update height correctly.", levels( tree.getRoot() ), tree.getHeight() );
+	}
+
+	/**
+	 * Helper: number of levels below the node, counted one level at a time.
+	 */
+	private static int levels( BSTreeNode<Integer> root )
+	{
+		List<BSTreeNode<Integer>> level = new ArrayList<>();
+		level.add( root );
+		int height = 0;
+		while( !level.isEmpty() )
+		{
+			height++;
+			List<BSTreeNode<Integer>> next = new ArrayList<>();
+			for( BSTreeNode<Integer> node : level )
+			{
+				if( node.getLeft() != null )
+					next.add( node.getLeft() );
+				if( node.getRight() != null )
+					next.add( node.getRight() );
+			}
+			level = next;
+		}
+		return height;
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree#rebalance()}
+	 * while other threads keep adding: no key is lost.
+	 */
+	@Test
+	public void testRebalance_Concurrent() throws Exception
+	{
+		int perThread = 10000;
+		runThreads( id -> {
+			if( id == 0 )
+			{
+				for( int i = 0; i < 50; i++ )
+					tree.rebalance();
+				return;
+			}
+			for( int i = 0; i < perThread; i++ )
+				assertTrue( tree.add( i * THREADS + id ) );
+		} );
+		assertEquals( ( THREADS - 1 ) * perThread, tree.size() );
+		assertEquals( ( THREADS - 1 ) * perThread, drain( tree.inorderIterator() ).size() );
+	}
+
+	/**
+	 * Test method for {@link appDomain.TrackedWord#addSharedOccurrence(int, int)}
+	 * with several threads indexing the same file into one tree: every word
+	 * counts the file's occurrences once per thread.
+	 */
+	@Test
+	public void testProcessFile_Concurrent() throws Exception
+	{
+		File file = File.createTempFile( "input", ".txt" );
+		try
+		{
+			try( Writer out = new FileWriter( file ) )
+			{
+				Random random = new Random( 7 );
+				for( int line = 0; line < 2000; line++ )
+				{
+					for( int w = 0; w < 8; w++ )
+						out.write( "w" + random.nextInt( 500 ) + " " );
+					out.write( "\n" );
+				}
+			}
+			ConcurrentBSTree<TrackedWord> shared = new ConcurrentBSTree<>();
+			runThreads( id -> WordTracker.processFile( file.getPath(), shared ) );
+
+			ConcurrentBSTree<TrackedWord> single = new ConcurrentBSTree<>();
+			WordTracker.processFile( file.getPath(), single );
+			assertEquals( single.size(), shared.size() );
+			Iterator<TrackedWord> expected = single.inorderIterator();
+			Iterator<TrackedWord> actual = shared.inorderIterator();
+			while( expected.hasNext() )
+			{
+				TrackedWord e = expected.next();
+				TrackedWord a = actual.next();
+				assertEquals( e.getKey(), a.getKey() );
+				assertEquals( THREADS * e.getFile( file.getPath() ).getCount(),
+						a.getFile( file.getPath() ).getCount() );
+				assertEquals( e.getFile( file.getPath() ).getLineCount(),
+						a.getFile( file.getPath() ).getLineCount() );
+			}
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+}
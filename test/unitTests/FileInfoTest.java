@@ -0,0 +1,187 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import appDomain.TrackedWord;
+
+/**
+ * Class Description: Tests that TrackedWord.FileInfo keeps the same unique
+ * lines, in the same order, as the LinkedHashSet it replaced, whether the
+ * lines are stored as varints or as a bitmap.
+ */
+public class FileInfoTest
+{
+	/**
+	 * Helper: adds the lines to a FileInfo and to a LinkedHashSet and
+	 * compares the two.
+	 */
+	private static TrackedWord.FileInfo assertSameAsSet( int[] lines )
+	{
+		TrackedWord.FileInfo fi = new TrackedWord.FileInfo();
+		LinkedHashSet<Integer> expected = new LinkedHashSet<>();
+		for( int line : lines )
+		{
+			fi.addLine( line );
+			expected.add( line );
+		}
+		assertEquals( "Failed to count occurrences.", lines.length, fi.getCount() );
+		assertEquals( "Failed to count lines.", expected.size(), fi.getLineCount() );
+		assertEquals( "Failed to keep the lines.", new ArrayList<>( expected ), fi.getLines() );
+		return fi;
+	}
+
+	/**
+	 * Test method for {@link appDomain.TrackedWord.FileInfo#addLine(int)} with
+	 * ascending lines, repeated lines and a file read twice.
+	 */
+	@Test
+	public void testAddLine_Ascending()
+	{
+		TrackedWord.FileInfo fi = assertSameAsSet( new int[] { 1, 1, 3, 200, 200, 70000, 1, 3, 200, 70000 } );
+		assertEquals( "[lines: 1, 3, 200, 70000]", fi.linesString() );
+		assertSameAsSet( new int[0] );
+	}
+
+	/**
+	 * Test method for {@link appDomain.TrackedWord.FileInfo#addLine(int)} with a
+	 * word on most lines, which is kept as a bitmap, then read again and then
+	 * given lines far past the others.
+	 */
+	@Test
+	public void testAddLine_Dense()
+	{
+		List<Integer> lines = new ArrayList<>();
+		for( int pass = 0; pass < 2; pass++ )
+		{
+			for( int i = 1; i <= 5000; i++ )
+			{
+				if( i % 3 != 0 )
+				{
+					lines.add( i );
+					if( i % 7 == 0 )
+						lines.add( i );
+				}
+			}
+		}
+		lines.add( 1000000 );
+		lines.add( 1000001 );
+		lines.add( 2500 );
+		lines.add( 2501 );
+		lines.add( 3 );
+		assertSameAsSet( toArray( lines ) );
+	}
+
+	/**
+	 * Test method for {@link appDomain.TrackedWord.FileInfo#addLine(int)} with
+	 * random lines, as when a changed file is read again.
+	 */
+	@Test
+	public void testAddLine_Random()
+	{
+		Random random = new Random( 304 );
+		for( int round = 0; round < 50; round++ )
+		{
+			int[] lines = new int[random.nextInt( 400 )];
+			int range = 1 + random.nextInt( round % 2 == 0 ? 100 : 100000 );
+			int next = 1;
+			for( int i = 0; i < lines.length; i++ )
+			{
+				// Mostly ascending runs with the odd jump back
+				next = random.nextInt( 10 ) == 0 ? 1 + random.nextInt( range ) : next + random.nextInt( 3 );
+				lines[i] = next;
+			}
+			assertSameAsSet( lines );
+		}
+	}
+
+	/**
+	 * Test method for {@link appDomain.TrackedWord.FileInfo#lineIterator()} to
+	 * stop after the last line.
+	 */
+	@Test
+	public void testLineIterator()
+	{
+		TrackedWord.FileInfo fi = assertSameAsSet( new int[] { 4, 2 } );
+		PrimitiveIterator.OfInt it = fi.lineIterator();
+		assertEquals( 4, it.nextInt() );
+		assertEquals( 2, it.nextInt() );
+		assertFalse( it.hasNext() );
+		try
+		{
+			it.nextInt();
+			fail( "Failed to throw NoSuchElementException." );
+		}
+		catch( NoSuchElementException e )
+		{
+			assertTrue( true );
+		}
+
+		final StringBuilder sb = new StringBuilder();
+		fi.forEachLine( line -> sb.append( line ).append( ';' ) );
+		assertEquals( "4;2;", sb.toString() );
+	}
+
+	/**
+	 * Test method for serializing {@link appDomain.TrackedWord.FileInfo}, which
+	 * still writes and reads the fields of earlier versions.
+	 *
+	 * @throws Exception if the word cannot be serialized
+	 */
+	@Test
+	public void testSerialize() throws Exception
+	{
+		TrackedWord word = new TrackedWord( "word" );
+		for( int i = 1; i <= 100; i++ )
+		{
+			word.addOccurrence( "a.txt", i );
+		}
+		word.addOccurrence( "a.txt", 50 );
+		word.addOccurrence( "b.txt", 9 );
+		word.addOccurrence( "b.txt", 2 );
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try( ObjectOutputStream out = new ObjectOutputStream( bytes ) )
+		{
+			out.writeObject( word );
+		}
+		TrackedWord copy;
+		try( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) )
+		{
+			copy = (TrackedWord)in.readObject();
+		}
+		assertEquals( "Failed to restore count.", 101, copy.getFile( "a.txt" ).getCount() );
+		assertEquals( "Failed to restore lines.", word.getFile( "a.txt" ).getLines(),
+				copy.getFile( "a.txt" ).getLines() );
+		assertEquals( "Failed to restore lines.", "[lines: 9, 2]", copy.getFile( "b.txt" ).linesString() );
+
+		copy.addOccurrence( "b.txt", 5 );
+		assertEquals( "Failed to add to a restored FileInfo.", "[lines: 9, 2, 5]",
+				copy.getFile( "b.txt" ).linesString() );
+	}
+
+	/**
+	 * Helper: copies a list to an array.
+	 */
+	private static int[] toArray( List<Integer> list )
+	{
+		int[] array = new int[list.size()];
+		for( int i = 0; i < array.length; i++ )
+		{
+			array[i] = list.get( i );
+		}
+		return array;
+	}
+}
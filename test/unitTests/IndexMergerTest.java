@@ -0,0 +1,196 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+import static unitTests.RepositoryFixture.add;
+import static unitTests.RepositoryFixture.dump;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import appDomain.IndexMerger;
+import appDomain.RepositoryFile;
+import appDomain.RepositoryJournal;
+import appDomain.TrackedWord;
+import implementations.AVLTree;
+import implementations.ArrayBSTree;
+import implementations.BSTree;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * Class Description: Tests that IndexMerger gives the same words and postings
+ * as adding the words of the second index to the first one at a time, in a
+ * balanced tree of the same kind as the first.
+ */
+public class IndexMergerTest
+{
+	/**
+	 * Helper: fills two trees and the tree expected from merging them with
+	 * random words, some of them in both.
+	 */
+	private static String fill( BSTreeADT<TrackedWord> first, BSTreeADT<TrackedWord> second, long seed )
+	{
+		BSTreeADT<TrackedWord> expected = new AVLTree<TrackedWord>();
+		Random random = new Random( seed );
+		for( int i = 0; i < 500; i++ )
+		{
+			String word = "w" + random.nextInt( 300 );
+			add( first, word, "m-a.txt", i );
+			add( expected, word, "m-a.txt", i );
+		}
+		for( int i = 0; i < 500; i++ )
+		{
+			String word = ( i % 2 == 0 ? "W" : "v" ) + random.nextInt( 300 );
+			String file = i % 3 == 0 ? "m-a.txt" : "m-b.txt";
+			add( second, word, file, i );
+			add( expected, word, file, i );
+		}
+		return dump( expected );
+	}
+
+	/**
+	 * Test method for
+	 * {@link appDomain.IndexMerger#merge(BSTreeADT, BSTreeADT)} with
+	 * overlapping words and postings in the same and different files.
+	 */
+	@Test
+	public void testMerge_Trees()
+	{
+		BSTreeADT<TrackedWord> first = new BSTree<TrackedWord>();
+		BSTreeADT<TrackedWord> second = new AVLTree<TrackedWord>();
+		String expected = fill( first, second, 17 );
+		int size = first.size() + second.size();
+
+		BSTreeADT<TrackedWord> merged = IndexMerger.merge( first, second );
+		assertEquals( "Failed to merge postings.", expected, dump( merged ) );
+		assertTrue( "Failed to keep the kind of tree.", merged.getClass() == BSTree.class );
+		assertTrue( "Failed to drop duplicates.", merged.size() < size );
+		assertTrue( "Failed to balance the tree.", merged.getHeight() <= 32 - Integer.numberOfLeadingZeros( size ) );
+	}
+
+	/**
+	 * Test method for {@link appDomain.IndexMerger#merge(BSTreeADT, java.util.List)}
+	 * into an empty tree and into a pool tree, and with nothing to merge.
+	 */
+	@Test
+	public void testMerge_List()
+	{
+		BSTreeADT<TrackedWord> empty = new BSTree<TrackedWord>();
+		BSTreeADT<TrackedWord> words = new AVLTree<TrackedWord>();
+		add( words, "b", "m-a.txt", 1 );
+		add( words, "a", "m-a.txt", 2 );
+		BSTreeADT<TrackedWord> merged = IndexMerger.merge( empty, sorted( words ) );
+		assertEquals( "a/a m-a.txt=1[lines: 2]\nb/b m-a.txt=1[lines: 1]\n", dump( merged ) );
+
+		BSTreeADT<TrackedWord> pool = new ArrayBSTree<TrackedWord>();
+		add( pool, "a", "m-b.txt", 5 );
+		merged = IndexMerger.merge( pool, sorted( words ) );
+		assertTrue( "Failed to keep the kind of tree.", merged instanceof ArrayBSTree );
+		assertEquals( "a/a m-b.txt=1[lines: 5] m-a.txt=1[lines: 2]\nb/b m-a.txt=1[lines: 1]\n", dump( merged ) );
+		assertEquals( dump( merged ), dump( IndexMerger.merge( merged, Arrays.<TrackedWord>asList() ) ) );
+	}
+
+	/**
+	 * Test method for {@link appDomain.IndexMerger#mergeFiles} to save the
+	 * merged repositories.
+	 *
+	 * @throws IOException if a repository cannot be written or read
+	 */
+	@Test
+	public void testMergeFiles() throws IOException
+	{
+		BSTreeADT<TrackedWord> first = new AVLTree<TrackedWord>();
+		BSTreeADT<TrackedWord> second = new BSTree<TrackedWord>();
+		String expected = fill( first, second, 99 );
+		File a = File.createTempFile( "merge", ".bin" );
+		File b = File.createTempFile( "merge", ".bin" );
+		File out = File.createTempFile( "merged", ".bin" );
+		try
+		{
+			RepositoryFile.save( first, a );
+			RepositoryFile.save( second, b );
+			IndexMerger.mergeFiles( Arrays.asList( a, b ), out );
+			BSTreeADT<TrackedWord> loaded = RepositoryFile.load( out );
+			assertEquals( "Failed to merge the files.", expected, dump( loaded ) );
+			assertTrue( "Failed to keep the kind of tree.", loaded instanceof AVLTree );
+		}
+		finally
+		{
+			a.delete();
+			b.delete();
+			out.delete();
+		}
+	}
+
+	/**
+	 * Test method for {@link appDomain.IndexMerger#mergeFiles} with a journal
+	 * next to one of the repositories, whose runs must be merged as well.
+	 *
+	 * @throws IOException if a repository cannot be written or read
+	 */
+	@Test
+	public void testMergeFiles_Journal() throws IOException
+	{
+		BSTreeADT<TrackedWord> first = new AVLTree<TrackedWord>();
+		BSTreeADT<TrackedWord> second = new BSTree<TrackedWord>();
+		fill( first, second, 99 );
+		File a = File.createTempFile( "merge", ".bin" );
+		File b = File.createTempFile( "merge", ".bin" );
+		File out = File.createTempFile( "merged", ".bin" );
+		RepositoryJournal journal = RepositoryJournal.forSnapshot( b );
+		try
+		{
+			RepositoryFile.save( first, a );
+			RepositoryFile.save( second, b );
+			journal.compact();
+			BSTreeADT<TrackedWord> run = new BSTree<TrackedWord>();
+			add( run, "w1", "m-c.txt", 3 );
+			add( run, "Journal", "m-c.txt", 4 );
+			journal.append( run );
+			add( second, "w1", "m-c.txt", 3 );
+			add( second, "Journal", "m-c.txt", 4 );
+			String expected = dump( IndexMerger.merge( RepositoryFile.load( a ), second ) );
+
+			IndexMerger.mergeFiles( Arrays.asList( a, b ), out );
+			String merged = dump( RepositoryFile.load( out ) );
+			assertTrue( "Failed to merge the journal.", merged.contains( "journal/Journal m-c.txt=1[lines: 4]\n" ) );
+			assertEquals( "Failed to merge the files.", expected, merged );
+		}
+		finally
+		{
+			journal.delete();
+			a.delete();
+			b.delete();
+			out.delete();
+		}
+	}
+
+	/**
+	 * Test method for {@link appDomain.IndexMerger#isCheaper(int, int)}.
+	 */
+	@Test
+	public void testIsCheaper()
+	{
+		assertTrue( IndexMerger.isCheaper( 0, 0 ) );
+		assertTrue( IndexMerger.isCheaper( 1000, 100 ) );
+		assertFalse( IndexMerger.isCheaper( 1000000, 1000 ) );
+	}
+
+	/**
+	 * Helper: the words of a tree in sorted order.
+	 */
+	private static List<TrackedWord> sorted( BSTreeADT<TrackedWord> tree )
+	{
+		List<TrackedWord> list = new ArrayList<>();
+		Iterator<TrackedWord> it = tree.inorderIterator();
+		while( it.hasNext() )
+			list.add( it.next() );
+		return list;
+	}
+}
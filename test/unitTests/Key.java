@@ -0,0 +1,28 @@
+package unitTests;
+
+/**
+ * Class Description: Comparable test element ordered by its value only, so
+ * that two keys with the same value compare equal while staying distinct
+ * objects. Lets tests tell the element a tree stored from an equal probe.
+ */
+final class Key implements Comparable<Key>
+{
+	private final int value;
+
+	Key( int value )
+	{
+		this.value = value;
+	}
+
+	@Override
+	public int compareTo( Key other )
+	{
+		return Integer.compare( value, other.value );
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Key(" + value + ")";
+	}
+}
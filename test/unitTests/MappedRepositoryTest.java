@@ -0,0 +1,264 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+import static unitTests.RepositoryFixture.add;
+import static unitTests.RepositoryFixture.dump;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import appDomain.MappedRepository;
+import appDomain.RepositoryFile;
+import appDomain.TrackedWord;
+import appDomain.WordPrefix;
+import implementations.BSTree;
+import utilities.Iterator;
+
+/**
+ * Class Description: Tests for MappedRepository, which reads a saved
+ * repository through a memory mapping and only materializes the words that
+ * are looked up.
+ */
+public class MappedRepositoryTest
+{
+	// Attributes
+	private File file;
+	private BSTree<TrackedWord> expected;
+	private MappedRepository repository;
+
+	/**
+	 * Saves a repository of 100 words and maps it before each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		file = File.createTempFile( "repository", ".bin" );
+		expected = new BSTree<TrackedWord>();
+		for( int i = 0; i < 100; i++ )
+		{
+			String key = String.format( "w%03d", i );
+			add( expected, key, i % 2 == 0 ? key : key.toUpperCase(), "a.txt", i + 1 );
+			add( expected, key, key, i % 3 == 0 ? "b.txt" : "a.txt", i + 2 );
+		}
+		RepositoryFile.save( expected, file );
+		repository = MappedRepository.open( file );
+	}
+
+	/**
+	 * Removes the temporary file after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		repository = null;
+		file.delete();
+		new File( file.getPath() + ".tmp" ).delete();
+	}
+
+	/**
+	 * Test method for {@link appDomain.MappedRepository#open(File)} to map the
+	 * file without materializing any word.
+	 */
+	@Test
+	public void testOpen_Lazy()
+	{
+		assertEquals( "Failed to return size.", 100, repository.size() );
+		assertEquals( "Opening should not materialize words.", 0, repository.materializedCount() );
+		assertTrue( repository.contains( new TrackedWord( "w042" ) ) );
+		assertFalse( repository.contains( new TrackedWord( "w100" ) ) );
+		assertEquals( "Contains should not materialize words.", 0, repository.materializedCount() );
+	}
+
+	/**
+	 * Test method for {@link appDomain.MappedRepository#search(TrackedWord)} to
+	 * materialize only the word that is looked up.
+	 */
+	@Test
+	public void testSearch_Materializes()
+	{
+		TrackedWord word = repository.search( new TrackedWord( "w043" ) ).getElement();
+		assertEquals( "Failed to read display word.", "W043", word.getDisplayWord() );
+		assertEquals( "Failed to read postings.", "[lines: 44, 45]", word.getFile( "a.txt" ).linesString() );
+		assertEquals( "Failed to materialize one word.", 1, repository.materializedCount() );
+		assertSame( "Failed to reuse the materialized word.", word,
+				repository.getOrAdd( new TrackedWord( "w043" ) ) );
+		assertNull( "Failed to return null.", repository.search( new TrackedWord( "zzz" ) ) );
+	}
+
+	/**
+	 * Test method for {@link appDomain.MappedRepository#save(File)} to write
+	 * changed and new words back and copy the rest unchanged.
+	 *
+	 * @throws IOException if the file cannot be written or read
+	 */
+	@Test
+	public void testSave_WritesBack() throws IOException
+	{
+		add( repository, "w010", "w010", "c.txt", 7 );
+		add( repository, "a", "A", "c.txt", 1 );
+		add( repository, "w0505", "w0505", "a.txt", 3 );
+		add( expected, "w010", "w010", "c.txt", 7 );
+		add( expected, "a", "A", "c.txt", 1 );
+		add( expected, "w0505", "w0505", "a.txt", 3 );
+		assertEquals( "Failed to count new words.", 102, repository.size() );
+		assertEquals( "Failed to merge in order.", dump( expected ), dump( repository ) );
+
+		repository.save( file );
+		assertEquals( "Save should release materialized words.", 0, repository.materializedCount() );
+		assertEquals( "Failed to remap saved file.", dump( expected ), dump( repository ) );
+		assertEquals( "Failed to write a loadable file.", dump( expected ), dump( RepositoryFile.load( file ) ) );
+	}
+
+	/**
+	 * Test method for {@link appDomain.MappedRepository#save(File)} called
+	 * again on the file it mapped in the same process, which must release the
+	 * old mapping before replacing the file.
+	 *
+	 * @throws IOException if the file cannot be written or read
+	 */
+	@Test
+	public void testSave_Twice() throws IOException
+	{
+		add( repository, "w010", "w010", "c.txt", 7 );
+		add( expected, "w010", "w010", "c.txt", 7 );
+		repository.save( file );
+		assertEquals( "Failed to remap saved file.", dump( expected ), dump( repository ) );
+
+		add( repository, "w020", "w020", "d.txt", 9 );
+		add( repository, "a", "A", "d.txt", 1 );
+		add( expected, "w020", "w020", "d.txt", 9 );
+		add( expected, "a", "A", "d.txt", 1 );
+		repository.save( file );
+		assertEquals( "Failed to save again.", dump( expected ), dump( repository ) );
+		assertEquals( "Failed to write a loadable file.", dump( expected ), dump( RepositoryFile.load( file ) ) );
+		assertEquals( "[lines: 7]", repository.search( new TrackedWord( "w010" ) ).getElement()
+				.getFile( "c.txt" ).linesString() );
+		assertFalse( "Failed to remove the temporary file.", new File( file.getPath() + ".tmp" ).exists() );
+	}
+
+	/**
+	 * Test method for {@link appDomain.MappedRepository#removeMin()} and
+	 * {@link appDomain.MappedRepository#removeMax()} across mapped and new
+	 * words.
+	 *
+	 * @throws IOException if the file cannot be written or read
+	 */
+	@Test
+	public void testRemoveMinMax() throws IOException
+	{
+		add( repository, "a", "a", "c.txt", 1 );
+		repository.search( new TrackedWord( "w099" ) );
+
+		assertEquals( "a", repository.removeMin().getElement().getKey() );
+		assertEquals( "w000", repository.removeMin().getElement().getKey() );
+		assertEquals( "w099", repository.removeMax().getElement().getKey() );
+		assertEquals( "w098", repository.removeMax().getElement().getKey() );
+		assertEquals( "Failed to update size.", 97, repository.size() );
+		assertFalse( repository.contains( new TrackedWord( "w000" ) ) );
+
+		expected.removeMin();
+		expected.removeMax();
+		expected.removeMax();
+		repository.save( file );
+		assertEquals( "Failed to save removals.", dump( expected ), dump( RepositoryFile.load( file ) ) );
+	}
+
+	/**
+	 * Test method for
+	 * {@link appDomain.MappedRepository#rangeIterator(Comparable, boolean, Comparable, boolean)}
+	 * and prefix queries to merge new words with the mapped words in range
+	 * and materialize none of them.
+	 */
+	@Test
+	public void testRangeIterator_Mapped()
+	{
+		add( repository, "w0505", "w0505", "a.txt", 3 );
+		add( repository, "w0x", "w0x", "a.txt", 3 );
+		StringBuilder keys = new StringBuilder();
+		Iterator<TrackedWord> it = repository.rangeIterator( new TrackedWord( "w049" ), false,
+				new TrackedWord( "w052" ), true );
+		while( it.hasNext() )
+		{
+			keys.append( it.next().getKey() ).append( ' ' );
+		}
+		assertEquals( "w050 w0505 w051 w052 ", keys.toString() );
+		assertEquals( "Range should not materialize words.", 2, repository.materializedCount() );
+
+		keys.setLength( 0 );
+		it = repository.matchIterator( new WordPrefix( "W09" ) );
+		while( it.hasNext() )
+		{
+			keys.append( it.next().getKey() ).append( ' ' );
+		}
+		assertEquals( "w090 w091 w092 w093 w094 w095 w096 w097 w098 w099 ", keys.toString() );
+
+		it = repository.matchIterator( new WordPrefix( "w0" ) );
+		int count = 0;
+		while( it.hasNext() )
+		{
+			it.next();
+			count++;
+		}
+		assertEquals( "Failed to include new words.", 102, count );
+		assertFalse( repository.rangeIterator( null, true, new TrackedWord( "a" ), true ).hasNext() );
+	}
+
+	/**
+	 * Test method for {@link appDomain.MappedRepository#rank(TrackedWord)} and
+	 * {@link appDomain.MappedRepository#select(int)} to find positions in the
+	 * file while materializing only the word selected, and to count new words.
+	 */
+	@Test
+	public void testRankSelect_Mapped()
+	{
+		assertEquals( 42, repository.rank( new TrackedWord( "w042" ) ) );
+		assertEquals( 43, repository.rank( new TrackedWord( "w0425" ) ) );
+		assertEquals( 0, repository.rank( new TrackedWord( "a" ) ) );
+		assertEquals( "Rank should not materialize words.", 0, repository.materializedCount() );
+		TrackedWord word = repository.select( 43 );
+		assertEquals( "W043", word.getDisplayWord() );
+		assertEquals( "Failed to materialize one word.", 1, repository.materializedCount() );
+		assertSame( "Failed to reuse the materialized word.", word, repository.select( 43 ) );
+
+		add( repository, "w0425", "w0425", "a.txt", 3 );
+		assertEquals( 44, repository.rank( new TrackedWord( "w043" ) ) );
+		assertEquals( "w0425", repository.select( 43 ).getKey() );
+		assertEquals( "w099", repository.select( 100 ).getKey() );
+	}
+
+	/**
+	 * Test method for {@link appDomain.MappedRepository#open(File)} with a
+	 * missing file, which gives an empty repository that can be saved.
+	 *
+	 * @throws IOException if the file cannot be written or read
+	 */
+	@Test
+	public void testOpen_Missing() throws IOException
+	{
+		file.delete();
+		MappedRepository empty = MappedRepository.open( file );
+		assertTrue( empty.isEmpty() );
+		assertNull( empty.removeMin() );
+		add( empty, "hello", "Hello", "a.txt", 1 );
+		empty.save( file );
+		assertEquals( "Failed to save new repository.", "hello/Hello a.txt=1[lines: 1]\n", dump( RepositoryFile.load( file ) ) );
+	}
+
+	/**
+	 * Test method for {@link appDomain.MappedRepository#getRoot()}, which a
+	 * mapped repository does not have.
+	 */
+	@Test( expected = UnsupportedOperationException.class )
+	public void testGetRoot_Unsupported()
+	{
+		repository.getRoot();
+	}
+}
@@ -0,0 +1,247 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import appDomain.TrackedWord;
+import implementations.PersistentBSTree;
+import utilities.Iterator;
+
+/**
+ * Class Description: Tests that the versions of a PersistentBSTree do not see
+ * each other's changes, share their unchanged nodes, and can be read by one
+ * thread while another keeps adding.
+ */
+public class PersistentBSTreeTest
+{
+	// Attributes
+	private PersistentBSTree<Integer> tree;
+
+	/**
+	 * Initializes a new PersistentBSTree instance before each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		tree = new PersistentBSTree<Integer>();
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		tree = null;
+	}
+
+	/**
+	 * Helper: reads an iterator into a list.
+	 */
+	private static <E> List<E> drain( Iterator<E> it )
+	{
+		List<E> list = new ArrayList<>();
+		while( it.hasNext() )
+			list.add( it.next() );
+		return list;
+	}
+
+	/**
+	 * Test method for {@link implementations.PersistentBSTree#snapshot()} to
+	 * keep its contents while the tree is added to and removed from.
+	 */
+	@Test
+	public void testSnapshot_Unaffected()
+	{
+		for( int value : new int[] { 50, 30, 70, 20, 40 } )
+			tree.add( value );
+		PersistentBSTree<Integer> snapshot = tree.snapshot();
+		tree.add( 60 );
+		tree.add( 10 );
+		tree.removeMax();
+		tree.removeMin();
+
+		assertEquals( Arrays.asList( 20, 30, 40, 50, 70 ), drain( snapshot.inorderIterator() ) );
+		assertEquals( 5, snapshot.size() );
+		assertEquals( Arrays.asList( 20, 30, 40, 50, 60 ), drain( tree.inorderIterator() ) );
+		assertEquals( 5, tree.size() );
+	}
+
+	/**
+	 * Test method for {@link implementations.PersistentBSTree#plus(Comparable)}
+	 * to leave the original version unchanged and share the subtree it did not
+	 * touch.
+	 */
+	@Test
+	public void testPlus_SharesUnchangedSubtree()
+	{
+		tree = new PersistentBSTree<>( Arrays.asList( 1, 2, 3, 4, 5, 6, 7 ), null );
+		PersistentBSTree<Integer> next = tree.plus( 8 );
+
+		assertEquals( 7, tree.size() );
+		assertFalse( tree.contains( 8 ) );
+		assertEquals( 8, next.size() );
+		assertTrue( next.contains( 8 ) );
+		assertNotSame( tree.getRoot(), next.getRoot() );
+		assertSame( "Failed to share the left subtree.", tree.getRoot().getLeft(), next.getRoot().getLeft() );
+	}
+
+	/**
+	 * Test method for {@link implementations.PersistentBSTree#add(Comparable)}
+	 * to keep the height logarithmic when adding sorted input.
+	 */
+	@Test
+	public void testAdd_SortedHeightBound()
+	{
+		int n = 100000;
+		for( int i = 0; i < n; i++ )
+		{
+			assertTrue( tree.add( i ) );
+			if( i % 1000 == 0 )
+				tree.snapshot();
+		}
+		assertFalse( tree.add( 5 ) );
+		assertEquals( n, tree.size() );
+		int bound = (int)Math.floor( 1.4405 * Math.log( n + 2 ) / Math.log( 2 ) );
+		assertTrue( "Height exceeds AVL bound: " + tree.getHeight(), tree.getHeight() <= bound );
+		List<Integer> inorder = drain( tree.inorderIterator() );
+		for( int i = 0; i < n; i++ )
+			assertEquals( i, (int)inorder.get( i ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.PersistentBSTree#getOrAdd(Comparable)}
+	 * to return a copy of a word an older version holds, so occurrences added
+	 * to it do not show in that version.
+	 */
+	@Test
+	public void testGetOrAdd_CopiesSharedElement()
+	{
+		PersistentBSTree<TrackedWord> words = new PersistentBSTree<>( TrackedWord::copy );
+		words.getOrAdd( new TrackedWord( "apple" ) ).addOccurrence( "a.txt", 1 );
+		PersistentBSTree<TrackedWord> snapshot = words.snapshot();
+
+		TrackedWord changed = words.getOrAdd( new TrackedWord( "apple" ) );
+		changed.addOccurrence( "a.txt", 2 );
+		assertSame( "Failed to reuse its own copy.", changed, words.getOrAdd( new TrackedWord( "apple" ) ) );
+
+		TrackedWord old = snapshot.search( new TrackedWord( "apple" ) ).getElement();
+		assertNotSame( old, changed );
+		assertEquals( 1, old.getFile( "a.txt" ).getCount() );
+		assertEquals( 2, changed.getFile( "a.txt" ).getCount() );
+		assertEquals( Arrays.asList( 1, 2 ), changed.getFile( "a.txt" ).getLines() );
+	}
+
+	/**
+	 * Test method for {@link implementations.PersistentBSTree#rank(Comparable)}
+	 * and {@link implementations.PersistentBSTree#select(int)} to answer for
+	 * each version separately.
+	 */
+	@Test
+	public void testRankSelect_Versions()
+	{
+		for( int i = 0; i < 100; i += 2 )
+			tree.add( i );
+		PersistentBSTree<Integer> snapshot = tree.snapshot();
+		for( int i = 1; i < 100; i += 2 )
+			tree.add( i );
+		tree.removeMin();
+
+		assertEquals( 50, snapshot.size() );
+		assertEquals( 20, snapshot.rank( 40 ) );
+		assertEquals( 20, snapshot.rank( 39 ) );
+		assertEquals( 40, (int)snapshot.select( 20 ) );
+		assertEquals( 39, tree.rank( 40 ) );
+		assertEquals( 41, (int)tree.select( 40 ) );
+		assertEquals( 99, (int)tree.select( tree.size() - 1 ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.PersistentBSTree#inorderIterator()}
+	 * to walk the version it was created from while the tree changes.
+	 */
+	@Test
+	public void testInorderIterator_WhileAdding()
+	{
+		for( int i = 0; i < 100; i += 2 )
+			tree.add( i );
+		Iterator<Integer> it = tree.inorderIterator();
+		for( int i = 1; i < 100; i += 2 )
+			tree.add( i );
+		tree.removeMin();
+		List<Integer> seen = drain( it );
+		assertEquals( 50, seen.size() );
+		for( int i = 0; i < 50; i++ )
+			assertEquals( i * 2, (int)seen.get( i ) );
+		assertEquals( 99, tree.size() );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.PersistentBSTree#update(Comparable, java.util.function.Supplier, java.util.function.Consumer)}
+	 * with a writer thread adding occurrences while the main thread takes
+	 * snapshots: every snapshot is sorted and its words' totals never change
+	 * after it was taken.
+	 */
+	@Test
+	public void testUpdate_SnapshotsWhileWriting() throws Exception
+	{
+		PersistentBSTree<TrackedWord> words = new PersistentBSTree<>( TrackedWord::copy );
+		int lines = 20000;
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread writer = new Thread( () -> {
+			try
+			{
+				for( int line = 1; line <= lines; line++ )
+				{
+					String key = "w" + ( line * 7919 % 257 );
+					TrackedWord probe = new TrackedWord( key );
+					int n = line;
+					words.update( probe, () -> new TrackedWord( key ), w -> w.addOccurrence( "f.txt", n ) );
+				}
+			}
+			catch( Throwable e )
+			{
+				failure.set( e );
+			}
+		} );
+		writer.start();
+		while( writer.isAlive() )
+		{
+			PersistentBSTree<TrackedWord> snapshot = words.snapshot();
+			long before = total( snapshot );
+			Thread.yield();
+			assertEquals( "Snapshot changed after it was taken.", before, total( snapshot ) );
+			List<TrackedWord> list = drain( snapshot.inorderIterator() );
+			for( int i = 1; i < list.size(); i++ )
+				assertTrue( list.get( i - 1 ).compareTo( list.get( i ) ) < 0 );
+		}
+		writer.join();
+		assertNull( failure.get() );
+		assertEquals( lines, total( words ) );
+	}
+
+	/**
+	 * Helper: sum of the counts of every word in the tree.
+	 */
+	private static long total( PersistentBSTree<TrackedWord> words )
+	{
+		long total = 0;
+		Iterator<TrackedWord> it = words.inorderIterator();
+		while( it.hasNext() )
+			total += it.next().getFile( "f.txt" ).getCount();
+		return total;
+	}
+}
@@ -0,0 +1,176 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import appDomain.ReportWriter;
+import appDomain.TopWords;
+import appDomain.TrackedWord;
+import implementations.ArrayBSTree;
+import implementations.BSTree;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * Class Description: Tests that ReportWriter writes the -pf, -pl and -po
+ * reports in the format WordTracker printed them in before, and the -pt report
+ * of the most frequent words.
+ */
+public class ReportWriterTest
+{
+	private static final String NL = System.lineSeparator();
+
+	/**
+	 * Helper: writes the report of a small tree with the option.
+	 */
+	private static String report( String option ) throws IOException
+	{
+		BSTreeADT<TrackedWord> tree = new BSTree<TrackedWord>();
+		TrackedWord hello = new TrackedWord( "hello", "Hello" );
+		hello.addOccurrence( "rw-b.txt", 12 );
+		hello.addOccurrence( "rw-b.txt", 3 );
+		hello.addOccurrence( "rw-b.txt", 12 );
+		hello.addOccurrence( "rw-a.txt", 1000000 );
+		tree.add( hello );
+		TrackedWord apple = new TrackedWord( "apple" );
+		apple.addOccurrence( "rw-a.txt", 7 );
+		tree.add( apple );
+
+		StringWriter out = new StringWriter();
+		new ReportWriter( out, option ).write( tree.inorderIterator() );
+		return out.toString();
+	}
+
+	/**
+	 * Helper: writes the -po report of the words at positions first to last,
+	 * counting from 1, the way WordTracker selects them for -n.
+	 */
+	private static String page( BSTreeADT<TrackedWord> tree, int first, int last ) throws IOException
+	{
+		int size = tree.size();
+		Iterator<TrackedWord> words = first > size ? tree.rangeIterator( tree.select( size - 1 ), false, null, true )
+				: tree.rangeIterator( tree.select( first - 1 ), true, tree.select( Math.min( last, size ) - 1 ), true );
+		StringWriter out = new StringWriter();
+		new ReportWriter( out, "-po" ).write( words );
+		return out.toString();
+	}
+
+	/**
+	 * Test method for {@link appDomain.ReportWriter#write} with each option.
+	 *
+	 * @throws IOException if the report cannot be written
+	 */
+	@Test
+	public void testWrite() throws IOException
+	{
+		assertEquals( "Displaying -pf format\n"
+				+ "Key : ===apple===found in file: rw-a.txt" + NL
+				+ "Key : ===Hello===found in file: rw-b.txt found in file: rw-a.txt" + NL, report( "-pf" ) );
+		assertEquals( "Displaying -pl format\n"
+				+ "Key : ===apple=== found in file: rw-a.txt on lines: 7," + NL
+				+ "Key : ===Hello=== found in file: rw-b.txt on lines: 12,3, found in file: rw-a.txt on lines: 1000000,"
+				+ NL, report( "-pl" ) );
+		assertEquals( "Displaying -po format\n"
+				+ "Key : ===apple=== number of entries: 1 found in file: rw-a.txt on lines: 7," + NL
+				+ "Key : ===Hello=== number of entries: 4 found in file: rw-b.txt on lines: 12,3,"
+				+ " found in file: rw-a.txt on lines: 1000000," + NL, report( "-po" ) );
+	}
+
+	/**
+	 * Test method for {@link appDomain.ReportWriter#write} with the pages of
+	 * -n read from the pool tree of -tpool, which must match the BSTree of
+	 * -tbst holding the same words.
+	 *
+	 * @throws IOException if the report cannot be written
+	 */
+	@Test
+	public void testWrite_PoolPagesSameAsBST() throws IOException
+	{
+		BSTreeADT<TrackedWord> bst = new BSTree<TrackedWord>();
+		BSTreeADT<TrackedWord> pool = new ArrayBSTree<TrackedWord>();
+		Random random = new Random( 21 );
+		for( int line = 1; line <= 2000; line++ )
+		{
+			String key = "w" + random.nextInt( 700 );
+			bst.getOrAdd( new TrackedWord( key ) ).addOccurrence( "rw-n.txt", line );
+			pool.getOrAdd( new TrackedWord( key ) ).addOccurrence( "rw-n.txt", line );
+		}
+		assertEquals( bst.size(), pool.size() );
+		int[][] pages = { { 1, 1 }, { 1, 25 }, { 100, 150 }, { 598, 10000 }, { bst.size(), bst.size() },
+				{ bst.size() + 1, bst.size() + 10 } };
+		for( int[] page : pages )
+			assertEquals( "Failed to list -n" + page[0] + ":" + page[1], page( bst, page[0], page[1] ),
+					page( pool, page[0], page[1] ) );
+	}
+
+	/**
+	 * Test method for {@link appDomain.ReportWriter#write(java.util.List)}
+	 * with the -pt words picked by {@link appDomain.TopWords#select}: highest
+	 * total first, ties in alphabetical order, and at most the count asked
+	 * for.
+	 *
+	 * @throws IOException if the report cannot be written
+	 */
+	@Test
+	public void testWrite_Top() throws IOException
+	{
+		BSTreeADT<TrackedWord> tree = new BSTree<TrackedWord>();
+		for( int i = 0; i < 200; i++ )
+		{
+			TrackedWord word = new TrackedWord( "w" + i );
+			for( int n = 0; n < i % 50; n++ )
+				word.addOccurrence( "rw-a.txt", n + 1 );
+			tree.add( word );
+		}
+
+		List<TrackedWord> top = TopWords.select( tree.inorderIterator(), 5 );
+		List<String> keys = new ArrayList<>();
+		for( TrackedWord word : top )
+			keys.add( word.getKey() );
+		assertEquals( "Failed to pick the most frequent words.",
+				Arrays.asList( "w149", "w199", "w49", "w99", "w148" ), keys );
+		assertEquals( 200, TopWords.select( tree.inorderIterator(), 1000 ).size() );
+
+		StringWriter out = new StringWriter();
+		new ReportWriter( out, "-pt" ).write( top.subList( 0, 2 ) );
+		assertEquals( "Displaying -pt format\n"
+				+ "Key : ===w149=== number of entries: 49 found in file: rw-a.txt" + NL
+				+ "Key : ===w199=== number of entries: 49 found in file: rw-a.txt" + NL, out.toString() );
+	}
+
+	/**
+	 * Test method for {@link appDomain.TopWords#select} with a count below 1.
+	 */
+	@Test( expected = IllegalArgumentException.class )
+	public void testSelect_InvalidCount()
+	{
+		TopWords.select( new BSTree<TrackedWord>().inorderIterator(), 0 );
+	}
+
+	/**
+	 * Test method for {@link appDomain.ReportWriter#ReportWriter} with an
+	 * unknown option.
+	 */
+	@Test
+	public void testReportWriter_InvalidOption()
+	{
+		assertFalse( ReportWriter.isOption( "-px" ) );
+		try
+		{
+			new ReportWriter( new StringWriter(), "-px" );
+			fail( "Failed to throw IllegalArgumentException." );
+		}
+		catch( IllegalArgumentException e )
+		{
+			assertTrue( true );
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+import static unitTests.RepositoryFixture.add;
+import static unitTests.RepositoryFixture.dump;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import appDomain.RepositoryFile;
+import appDomain.TrackedWord;
+import implementations.AVLTree;
+import implementations.BSTree;
+import utilities.BSTreeADT;
+
+/**
+ * Class Description: Tests that the binary repository format written by
+ * RepositoryFile reads back into an equal, balanced tree.
+ */
+public class RepositoryFileTest
+{
+	// Attributes
+	private File file;
+	private BSTree<TrackedWord> tree;
+
+	/**
+	 * Creates a temporary repository file and a small tree before each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		file = File.createTempFile( "repository", ".bin" );
+		tree = new BSTree<TrackedWord>();
+		add( tree, "hello", "Hello", "a.txt", 1 );
+		add( tree, "hello", "hello", "a.txt", 1 );
+		add( tree, "hello", "HELLO", "b.txt", 7 );
+		add( tree, "kitty", "Kitty", "a.txt", 2 );
+		add( tree, "it's", "it's", "b.txt", 300 );
+		add( tree, "it's", "it's", "b.txt", 2 );
+		add( tree, "\u00e9t\u00e9", "\u00c9t\u00e9", "c d.txt", 5 );
+	}
+
+	/**
+	 * Removes the temporary file after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		file.delete();
+		tree = null;
+	}
+
+	/**
+	 * Test method for {@link appDomain.RepositoryFile#save} and
+	 * {@link appDomain.RepositoryFile#load} to preserve words, display words,
+	 * file order, counts and line order.
+	 *
+	 * @throws IOException if the file cannot be written or read
+	 */
+	@Test
+	public void testRoundTrip() throws IOException
+	{
+		RepositoryFile.save( tree, file );
+		BSTreeADT<TrackedWord> loaded = RepositoryFile.load( file );
+
+		assertEquals( "Failed to restore size.", tree.size(), loaded.size() );
+		assertEquals( "Failed to restore contents.", dump( tree ), dump( loaded ) );
+		assertTrue( "Failed to restore tree type.", loaded instanceof BSTree );
+		assertEquals( "Failed to restore count.", 2,
+				loaded.search( new TrackedWord( "hello" ) ).getElement().getFile( "a.txt" ).getCount() );
+		assertEquals( "Failed to restore the total.",
+				tree.search( new TrackedWord( "hello" ) ).getElement().getTotalCount(),
+				loaded.search( new TrackedWord( "hello" ) ).getElement().getTotalCount() );
+	}
+
+	/**
+	 * Test method for {@link appDomain.RepositoryFile#load} to rebuild sorted
+	 * input as a balanced tree and keep the tree type.
+	 *
+	 * @throws IOException if the file cannot be written or read
+	 */
+	@Test
+	public void testLoad_Balanced() throws IOException
+	{
+		AVLTree<TrackedWord> avl = new AVLTree<TrackedWord>();
+		BSTree<TrackedWord> plain = new BSTree<TrackedWord>();
+		for( int i = 0; i < 1023; i++ )
+		{
+			String key = String.format( "w%05d", i );
+			add( avl, key, key, "a.txt", i + 1 );
+			add( plain, key, key, "a.txt", i + 1 );
+		}
+		assertEquals( "Plain tree should degenerate.", 1023, plain.getHeight() );
+
+		RepositoryFile.save( plain, file );
+		BSTreeADT<TrackedWord> loaded = RepositoryFile.load( file );
+		assertEquals( "Failed to balance the loaded tree.", 10, loaded.getHeight() );
+
+		RepositoryFile.save( avl, file );
+		loaded = RepositoryFile.load( file );
+		assertTrue( "Failed to restore tree type.", loaded instanceof AVLTree );
+		assertEquals( "Failed to balance the loaded tree.", 10, loaded.getHeight() );
+		assertEquals( "Failed to restore contents.", dump( avl ), dump( loaded ) );
+	}
+
+	/**
+	 * Test method for {@link appDomain.RepositoryFile#save} with an empty tree.
+	 *
+	 * @throws IOException if the file cannot be written or read
+	 */
+	@Test
+	public void testRoundTrip_Empty() throws IOException
+	{
+		RepositoryFile.save( new BSTree<TrackedWord>(), file );
+		assertTrue( "Failed to load an empty tree.", RepositoryFile.load( file ).isEmpty() );
+	}
+
+	/**
+	 * Test method for {@link appDomain.RepositoryFile#load} to reject files
+	 * that are not repositories or are cut short.
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	@Test
+	public void testLoad_Invalid() throws IOException
+	{
+		try( FileOutputStream out = new FileOutputStream( file ) )
+		{
+			out.write( "not a repository".getBytes( "UTF-8" ) );
+		}
+		try
+		{
+			RepositoryFile.load( file );
+			fail( "Failed to reject a file with the wrong magic number." );
+		}
+		catch( IOException e )
+		{
+			assertTrue( true );
+		}
+
+		RepositoryFile.save( tree, file );
+		byte[] bytes = Files.readAllBytes( file.toPath() );
+		Files.write( file.toPath(), Arrays.copyOf( bytes, bytes.length / 2 ) );
+		try
+		{
+			RepositoryFile.load( file );
+			fail( "Failed to reject a truncated file." );
+		}
+		catch( IOException e )
+		{
+			assertTrue( true );
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package unitTests;
+
+import appDomain.TrackedWord;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * Class Description: Helpers shared by the tests that index, save, load,
+ * map, journal and merge repositories, to fill a tree with occurrences and
+ * to render its words and postings for comparison.
+ */
+final class RepositoryFixture
+{
+	private RepositoryFixture()
+	{
+	}
+
+	/**
+	 * Helper: records an occurrence the same way WordTracker does.
+	 */
+	static void add( BSTreeADT<TrackedWord> tree, String key, String word, String filename, int line )
+	{
+		tree.getOrAdd( new TrackedWord( key, word ) ).addOccurrence( filename, line );
+	}
+
+	/**
+	 * Helper: records an occurrence of a word under its lowercase key, as
+	 * WordTracker keys the words it reads.
+	 */
+	static void add( BSTreeADT<TrackedWord> tree, String word, String filename, int line )
+	{
+		add( tree, word.toLowerCase(), word, filename, line );
+	}
+
+	/**
+	 * Helper: renders every word with its postings in tree order.
+	 */
+	static String dump( BSTreeADT<TrackedWord> tree )
+	{
+		return dump( tree.inorderIterator() );
+	}
+
+	/**
+	 * Helper: renders every word the iterator returns with its postings.
+	 */
+	static String dump( Iterator<TrackedWord> it )
+	{
+		StringBuilder sb = new StringBuilder();
+		while( it.hasNext() )
+		{
+			TrackedWord word = it.next();
+			sb.append( word.getKey() ).append( '/' ).append( word.getDisplayWord() );
+			for( String name : word.getFileList() )
+			{
+				TrackedWord.FileInfo fi = word.getFile( name );
+				sb.append( ' ' ).append( name ).append( '=' ).append( fi.getCount() ).append( fi.linesString() );
+			}
+			sb.append( '\n' );
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,168 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+import static unitTests.RepositoryFixture.add;
+import static unitTests.RepositoryFixture.dump;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import appDomain.RepositoryFile;
+import appDomain.RepositoryJournal;
+import appDomain.TrackedWord;
+import implementations.BSTree;
+import utilities.BSTreeADT;
+
+/**
+ * Class Description: Tests that the occurrences appended to a
+ * RepositoryJournal replay on top of the snapshot they were written for.
+ */
+public class RepositoryJournalTest
+{
+	// Attributes
+	private File snapshot;
+	private File file;
+	private BSTree<TrackedWord> tree;
+	private RepositoryJournal journal;
+
+	/**
+	 * Saves a small snapshot and starts an empty journal for it before each
+	 * test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		snapshot = File.createTempFile( "repository", ".bin" );
+		file = File.createTempFile( "repository", ".journal" );
+		tree = new BSTree<TrackedWord>();
+		add( tree, "hello", "Hello", "a.txt", 1 );
+		add( tree, "kitty", "Kitty", "a.txt", 2 );
+		RepositoryFile.save( tree, snapshot );
+		journal = new RepositoryJournal( file, snapshot );
+		journal.compact();
+	}
+
+	/**
+	 * Removes the temporary files after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		snapshot.delete();
+		file.delete();
+		tree = null;
+	}
+
+	/**
+	 * Helper: one run's occurrences, added to both the delta and the expected
+	 * tree.
+	 */
+	private BSTree<TrackedWord> run( String filename, String... words )
+	{
+		BSTree<TrackedWord> delta = new BSTree<TrackedWord>();
+		for( int i = 0; i < words.length; i++ )
+		{
+			add( delta, words[i].toLowerCase(), words[i], filename, i / 2 + 1 );
+			add( tree, words[i].toLowerCase(), words[i], filename, i / 2 + 1 );
+		}
+		return delta;
+	}
+
+	/**
+	 * Test method for {@link appDomain.RepositoryJournal#append} and
+	 * {@link appDomain.RepositoryJournal#replay} to give the same words,
+	 * counts and line order as adding the occurrences directly.
+	 *
+	 * @throws IOException if the files cannot be written or read
+	 */
+	@Test
+	public void testAppendReplay() throws IOException
+	{
+		journal.append( run( "b.txt", "Kitty", "kitty", "new", "HELLO" ) );
+		journal.append( run( "a.txt", "New", "hello", "hello", "Zebra" ) );
+
+		BSTreeADT<TrackedWord> loaded = RepositoryFile.load( snapshot );
+		assertEquals( "Failed to replay both records.", 2, new RepositoryJournal( file, snapshot ).replay( loaded ) );
+		assertEquals( "Failed to restore contents.", dump( tree ), dump( loaded ) );
+	}
+
+	/**
+	 * Test method for {@link appDomain.RepositoryJournal#replay} to ignore a
+	 * record that was cut short and drop it on the next append.
+	 *
+	 * @throws IOException if the files cannot be written or read
+	 */
+	@Test
+	public void testReplay_TornRecord() throws IOException
+	{
+		journal.append( run( "b.txt", "Kitty", "new" ) );
+		String expected = dump( tree );
+		journal.append( run( "c.txt", "lost" ) );
+		byte[] bytes = Files.readAllBytes( file.toPath() );
+		Files.write( file.toPath(), Arrays.copyOf( bytes, bytes.length - 3 ) );
+
+		BSTreeADT<TrackedWord> loaded = RepositoryFile.load( snapshot );
+		RepositoryJournal reopened = new RepositoryJournal( file, snapshot );
+		assertEquals( "Failed to stop at the torn record.", 1, reopened.replay( loaded ) );
+		assertEquals( "Failed to restore contents.", expected, dump( loaded ) );
+
+		add( loaded, "again", "again", "d.txt", 1 );
+		BSTree<TrackedWord> delta = new BSTree<TrackedWord>();
+		add( delta, "again", "again", "d.txt", 1 );
+		reopened.append( delta );
+		loaded = RepositoryFile.load( snapshot );
+		assertEquals( "Failed to replace the torn record.", 2, new RepositoryJournal( file, snapshot ).replay( loaded ) );
+		assertNull( "Replayed a torn record.", loaded.search( new TrackedWord( "lost" ) ) );
+		assertNotNull( "Failed to replay the new record.", loaded.search( new TrackedWord( "again" ) ) );
+	}
+
+	/**
+	 * Test method for {@link appDomain.RepositoryJournal#replay} to skip a
+	 * journal written for an older snapshot.
+	 *
+	 * @throws IOException if the files cannot be written or read
+	 */
+	@Test
+	public void testReplay_Stale() throws IOException
+	{
+		journal.append( run( "b.txt", "stale" ) );
+		add( tree, "more", "more", "c.txt", 1 );
+		RepositoryFile.save( tree, snapshot );
+
+		BSTreeADT<TrackedWord> loaded = RepositoryFile.load( snapshot );
+		RepositoryJournal reopened = new RepositoryJournal( file, snapshot );
+		assertEquals( "Replayed a stale journal.", 0, reopened.replay( loaded ) );
+		assertTrue( "Failed to require compaction.", reopened.needsCompaction() );
+		try
+		{
+			reopened.append( new BSTree<TrackedWord>() );
+			fail( "Failed to refuse appending to a stale journal." );
+		}
+		catch( IllegalStateException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link appDomain.RepositoryJournal#needsCompaction()}
+	 * on a new journal.
+	 */
+	@Test
+	public void testNeedsCompaction()
+	{
+		assertFalse( "Failed to accept a small journal.", journal.needsCompaction() );
+		file.delete();
+		assertTrue( "Failed to require a journal.", new RepositoryJournal( file, snapshot ).needsCompaction() );
+	}
+}
@@ -0,0 +1,75 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Test;
+
+import appDomain.Stats;
+import appDomain.TrackedWord;
+import appDomain.WordTokenizer;
+import implementations.BSTree;
+
+/**
+ * Class Description: Tests that Stats counts the words a tokenizer reads only
+ * while it is enabled, and publishes the counters over JMX.
+ */
+public class StatsTest
+{
+	/**
+	 * Turns collection off again after each test.
+	 */
+	@After
+	public void tearDown()
+	{
+		Stats.setEnabled( false );
+	}
+
+	/**
+	 * Test method for {@link appDomain.Stats#getTokens()} after a tokenizer
+	 * made while enabled reads a file, with the compareTo calls of each lookup
+	 * in a tree that is a list.
+	 */
+	@Test
+	public void testGetTokens_Enabled()
+	{
+		Stats.setEnabled( true );
+		new WordTokenizer( new StringReader( "a b c d\na b" ) ).indexLines( "stats.txt",
+				new BSTree<TrackedWord>() );
+		assertEquals( "Failed to count words.", 6, Stats.getTokens() );
+		// a, b, c and d are added as a list: 0, 1, 2 and 3 calls, then 1 and 2
+		assertEquals( "Failed to count compareTo calls.", 9.0 / 6, Stats.getTokenizeComparesPerLookup(), 1e-9 );
+	}
+
+	/**
+	 * Test method for {@link appDomain.Stats#getTokens()} with collection off.
+	 */
+	@Test
+	public void testGetTokens_Disabled()
+	{
+		Stats.setEnabled( false );
+		new WordTokenizer( new StringReader( "a b c" ) ).indexLines( "stats.txt", new BSTree<TrackedWord>() );
+		assertEquals( "Failed to skip counting.", 0, Stats.getTokens() );
+	}
+
+	/**
+	 * Test method for {@link appDomain.Stats#setEnabled(boolean)} to register
+	 * the counters with the platform MBean server.
+	 *
+	 * @throws Exception if the counters cannot be read over JMX
+	 */
+	@Test
+	public void testSetEnabled_Jmx() throws Exception
+	{
+		Stats.setEnabled( true );
+		new WordTokenizer( new StringReader( "x y" ) ).indexLines( "stats.txt", new BSTree<TrackedWord>() );
+		Object tokens = ManagementFactory.getPlatformMBeanServer().getAttribute( new ObjectName( Stats.OBJECT_NAME ),
+				"Tokens" );
+		assertEquals( 2L, tokens );
+	}
+}
@@ -0,0 +1,122 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import appDomain.FileTable;
+import appDomain.TrackedWord;
+
+/**
+ * Class Description: Tests that TrackedWord keeps the files it appears in, by
+ * FileTable id, in the order they were first added.
+ */
+public class TrackedWordTest
+{
+	/**
+	 * Test method for {@link appDomain.TrackedWord#addOccurrence(String, int)}
+	 * with the first file kept inline and later files in arrays, added in an
+	 * order that differs from the order of their ids.
+	 */
+	@Test
+	public void testAddOccurrence_Files()
+	{
+		String[] names = { "tw-c.txt", "tw-a.txt", "tw-b.txt", "tw-d.txt", "tw-e.txt" };
+		FileTable.idOf( "tw-e.txt" );
+		TrackedWord word = new TrackedWord( "word" );
+		for( int i = 0; i < names.length; i++ )
+		{
+			word.addOccurrence( names[i], i + 1 );
+			word.addOccurrence( names[0], 100 + i );
+		}
+		word.addOccurrence( names[2], 3 );
+
+		assertEquals( "Failed to count files.", names.length, word.getFileCount() );
+		assertEquals( "Failed to keep the order of the files.", Arrays.asList( names ), word.getFileList() );
+		assertEquals( "Failed to keep the order of the files.", Arrays.asList( names ),
+				Arrays.asList( word.getFiles().keySet().toArray() ) );
+		for( int i = 0; i < names.length; i++ )
+		{
+			assertEquals( FileTable.idOf( names[i] ), word.getFileId( i ) );
+			assertSame( word.getFileInfo( i ), word.getFile( names[i] ) );
+			assertSame( word.getFileInfo( i ), word.getFile( FileTable.idOf( names[i] ) ) );
+			assertEquals( names[i], FileTable.nameOf( word.getFileId( i ) ) );
+		}
+		assertEquals( "[lines: 1, 100, 101, 102, 103, 104]", word.getFile( names[0] ).linesString() );
+		assertEquals( 2, word.getFile( names[2] ).getCount() );
+	}
+
+	/**
+	 * Test method for {@link appDomain.TrackedWord#getFile(String)} with a
+	 * file the word is not in and a name that has no id.
+	 */
+	@Test
+	public void testGetFile_Missing()
+	{
+		TrackedWord word = new TrackedWord( "word" );
+		assertNull( word.getFile( "tw-a.txt" ) );
+		word.addOccurrence( "tw-a.txt", 1 );
+		assertNull( word.getFile( "tw-other.txt" ) );
+		assertNull( word.getFile( "tw-never-added.txt" ) );
+		assertEquals( "Failed to leave the table unchanged.", -1, FileTable.find( "tw-never-added.txt" ) );
+	}
+
+	/**
+	 * Test method for {@link appDomain.TrackedWord#getFileInfo(int)} with a
+	 * position past the last file.
+	 */
+	@Test
+	public void testGetFileInfo_OutOfRange()
+	{
+		TrackedWord word = new TrackedWord( "word" );
+		word.addOccurrence( "tw-a.txt", 1 );
+		try
+		{
+			word.getFileInfo( 1 );
+			fail( "Failed to throw IndexOutOfBoundsException." );
+		}
+		catch( IndexOutOfBoundsException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link appDomain.TrackedWord#getTotalCount()} to follow
+	 * every occurrence added, and to be kept by copies and serialized words.
+	 *
+	 * @throws Exception if the word cannot be serialized
+	 */
+	@Test
+	public void testGetTotalCount() throws Exception
+	{
+		TrackedWord word = new TrackedWord( "word" );
+		assertEquals( 0, word.getTotalCount() );
+		word.addOccurrence( "tw-a.txt", 1 );
+		word.addOccurrence( "tw-a.txt", 1 );
+		word.addOccurrence( "tw-b.txt", 4 );
+		word.addSharedOccurrence( FileTable.idOf( "tw-c.txt" ), 2 );
+		assertEquals( "Failed to count every occurrence.", 4, word.getTotalCount() );
+
+		TrackedWord copy = word.copy();
+		copy.addOccurrence( "tw-a.txt", 9 );
+		assertEquals( "Failed to keep the total in the copy.", 5, copy.getTotalCount() );
+		assertEquals( 4, word.getTotalCount() );
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try( ObjectOutputStream out = new ObjectOutputStream( bytes ) )
+		{
+			out.writeObject( copy );
+		}
+		try( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) )
+		{
+			assertEquals( "Failed to restore the total.", 5, ( (TrackedWord)in.readObject() ).getTotalCount() );
+		}
+	}
+}
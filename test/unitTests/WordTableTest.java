@@ -0,0 +1,118 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import appDomain.TrackedWord;
+import appDomain.WordTable;
+import appDomain.WordTokenizer;
+import implementations.BSTree;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * Class Description: Tests that WordTable keeps one word per key as it grows,
+ * returns its words sorted, and that indexing into it finds the same words as
+ * indexing into a tree.
+ */
+public class WordTableTest
+{
+	// Attributes
+	private WordTable table;
+
+	/**
+	 * Initializes a new WordTable instance before each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		table = new WordTable( 4 );
+	}
+
+	/**
+	 * Test method for {@link appDomain.WordTable#getOrAdd(TrackedWord)} to
+	 * return the stored word for a key it already holds, also after growing.
+	 */
+	@Test
+	public void testGetOrAdd_SameInstance()
+	{
+		TrackedWord apple = new TrackedWord( "apple" );
+		assertSame( apple, table.getOrAdd( apple ) );
+		for( int i = 0; i < 5000; i++ )
+			table.getOrAdd( new TrackedWord( "w" + i ) );
+		assertSame( "Failed to find the word after growing.", apple, table.getOrAdd( new TrackedWord( "apple" ) ) );
+		assertEquals( 5001, table.size() );
+	}
+
+	/**
+	 * Test method for {@link appDomain.WordTable#WordTable(int)} with a
+	 * negative size.
+	 */
+	@Test( expected = IllegalArgumentException.class )
+	public void testWordTable_NegativeSize()
+	{
+		new WordTable( -1 );
+	}
+
+	/**
+	 * Test method for {@link appDomain.WordTable#sortedWords()} to return
+	 * every word in key order and leave the table empty.
+	 */
+	@Test
+	public void testSortedWords()
+	{
+		for( int i = 0; i < 1000; i++ )
+			table.getOrAdd( new TrackedWord( "w" + ( i * 7919 % 1000 ) ) );
+		List<TrackedWord> sorted = table.sortedWords();
+		assertEquals( 1000, sorted.size() );
+		for( int i = 1; i < sorted.size(); i++ )
+			assertTrue( "Failed to sort the words.", sorted.get( i - 1 ).compareTo( sorted.get( i ) ) < 0 );
+		assertEquals( 0, table.size() );
+	}
+
+	/**
+	 * Test method for {@link appDomain.WordTokenizer#indexLines(String, WordTable)}
+	 * to find the same words, spellings and lines as indexing into a tree.
+	 */
+	@Test
+	public void testIndexLines_SameAsTree()
+	{
+		byte[] bytes = ( "The cat and the Hat\n" + "don't STOP, the end's near\n\n" + "Cat cat CAT 42 42x\n" )
+				.getBytes( StandardCharsets.UTF_8 );
+
+		BSTreeADT<TrackedWord> tree = new BSTree<TrackedWord>();
+		int treeLines = new WordTokenizer( WordTokenizer.newReader(
+				Channels.newChannel( new ByteArrayInputStream( bytes ) ), StandardCharsets.UTF_8 ) )
+						.indexLines( "f", tree );
+		List<TrackedWord> expected = new ArrayList<>();
+		Iterator<TrackedWord> it = tree.inorderIterator();
+		while( it.hasNext() )
+			expected.add( it.next() );
+
+		int tableLines = new WordTokenizer( WordTokenizer.newReader(
+				Channels.newChannel( new ByteArrayInputStream( bytes ) ), StandardCharsets.UTF_8 ) )
+						.indexLines( "f", table );
+		List<TrackedWord> actual = table.sortedWords();
+
+		assertEquals( treeLines, tableLines );
+		assertEquals( expected.size(), actual.size() );
+		for( int i = 0; i < expected.size(); i++ )
+		{
+			TrackedWord e = expected.get( i );
+			TrackedWord a = actual.get( i );
+			assertEquals( e.getKey(), a.getKey() );
+			assertEquals( "Failed to keep the first spelling.", e.getDisplayWord(), a.getDisplayWord() );
+			assertEquals( e.getFile( "f" ).getLines(), a.getFile( "f" ).getLines() );
+		}
+	}
+}
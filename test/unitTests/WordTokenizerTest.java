@@ -0,0 +1,130 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+import static unitTests.RepositoryFixture.add;
+import static unitTests.RepositoryFixture.dump;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+
+import org.junit.Test;
+
+import appDomain.TrackedWord;
+import appDomain.WordTokenizer;
+import implementations.AVLTree;
+import implementations.BSTree;
+import utilities.BSTreeADT;
+
+/**
+ * Class Description: Tests that WordTokenizer finds the same words on the
+ * same lines as reading with Scanner.nextLine and splitting each line with
+ * the regular expression WordTracker used before.
+ */
+public class WordTokenizerTest
+{
+	private static final Charset UTF8 = StandardCharsets.UTF_8;
+
+	/**
+	 * Helper: indexes the bytes with both tokenizers and compares the words
+	 * and the number of lines.
+	 */
+	private static void assertSameAsScanner( byte[] bytes )
+	{
+		BSTreeADT<TrackedWord> expected = new BSTree<TrackedWord>();
+		int lines = 0;
+		try( Scanner scanner = new Scanner( Channels.newChannel( new ByteArrayInputStream( bytes ) ), "UTF-8" ) )
+		{
+			while( scanner.hasNextLine() )
+			{
+				lines++;
+				for( String word : scanner.nextLine().split( "[^a-zA-Z0-9']+" ) )
+				{
+					if( !word.isEmpty() )
+						add( expected, word, "f", lines );
+				}
+			}
+		}
+
+		BSTreeADT<TrackedWord> actual = new AVLTree<TrackedWord>();
+		WordTokenizer tokenizer = new WordTokenizer(
+				WordTokenizer.newReader( Channels.newChannel( new ByteArrayInputStream( bytes ) ), UTF8 ) );
+		assertEquals( "Failed to count lines.", lines, tokenizer.indexLines( "f", actual ) );
+		assertEquals( "Failed to find the same words.", dump( expected ), dump( actual ) );
+	}
+
+	/**
+	 * Test method for {@link appDomain.WordTokenizer#indexLines} with every
+	 * line break Scanner recognises and words that are only separators,
+	 * digits or apostrophes.
+	 */
+	@Test
+	public void testIndexLines_LineBreaks()
+	{
+		assertSameAsScanner( ( "Hello, it's  HELLO!\r\nhello\rworld\n\nWorld\u2028x\u2029y\u0085z\n"
+				+ "'' 42 a1'b   \t caf\u00e9 na\u00efve \r\n\r\r\n\n-- end" ).getBytes( UTF8 ) );
+		assertSameAsScanner( "one\n".getBytes( UTF8 ) );
+		assertSameAsScanner( "\n\n".getBytes( UTF8 ) );
+		assertSameAsScanner( "   ".getBytes( UTF8 ) );
+		assertSameAsScanner( new byte[0] );
+	}
+
+	/**
+	 * Test method for {@link appDomain.WordTokenizer#indexLines} with words
+	 * and CR LF pairs that cross the end of the read buffer, and a word
+	 * longer than the buffer.
+	 */
+	@Test
+	public void testIndexLines_BufferBoundaries()
+	{
+		StringBuilder sb = new StringBuilder();
+		for( int i = 0; sb.length() < 100000; i++ )
+		{
+			sb.append( "Alpha" ).append( i % 13 ).append( i % 2 == 0 ? "\r\n" : " beta\r" );
+			if( i % 997 == 0 )
+				sb.append( ' ' );
+		}
+		for( int i = 0; i < 20000; i++ )
+		{
+			sb.append( (char)( 'a' + i % 26 ) );
+		}
+		sb.append( "\r\nlast" );
+		assertSameAsScanner( sb.toString().getBytes( UTF8 ) );
+	}
+
+	/**
+	 * Test method for {@link appDomain.WordTokenizer#indexLines} to stop at
+	 * bytes that are not valid UTF-8, as Scanner does.
+	 */
+	@Test
+	public void testIndexLines_Malformed()
+	{
+		byte[] bytes = "first line\nsecond \u00ff line\nthird\n".getBytes( StandardCharsets.ISO_8859_1 );
+		assertSameAsScanner( bytes );
+
+		WordTokenizer tokenizer = new WordTokenizer(
+				WordTokenizer.newReader( Channels.newChannel( new ByteArrayInputStream( bytes ) ), UTF8 ) );
+		tokenizer.indexLines( "f", new BSTree<TrackedWord>() );
+		assertTrue( "Failed to report the decoding error.", tokenizer.ioException() instanceof IOException );
+	}
+
+	/**
+	 * Test method for {@link appDomain.WordTokenizer#compareTo} to order words
+	 * the way their lowercase keys are ordered.
+	 */
+	@Test
+	public void testIndexLines_Order()
+	{
+		BSTreeADT<TrackedWord> tree = new BSTree<TrackedWord>();
+		tree.add( new TrackedWord( "ab" ) );
+		tree.add( new TrackedWord( "b" ) );
+		new WordTokenizer( WordTokenizer.newReader(
+				Channels.newChannel( new ByteArrayInputStream( "A AB Ab' B b' a".getBytes( UTF8 ) ) ), UTF8 ) )
+						.indexLines( "f", tree );
+		assertEquals( "a/A f=2[lines: 1]\nab/ab f=1[lines: 1]\nab'/Ab' f=1[lines: 1]\nb/b f=1[lines: 1]\nb'/b' f=1[lines: 1]\n",
+				dump( tree ) );
+	}
+}
@@ -0,0 +1,375 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import appDomain.RepositoryFile;
+import appDomain.TrackedWord;
+import appDomain.WordPrefix;
+import appDomain.WordTokenizer;
+import appDomain.WordTrie;
+import implementations.BSTree;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * Class Description: Tests that WordTrie keeps the same words in the same
+ * order as a BSTree through adds, lookups, range queries and removals at
+ * both ends, including keys that are prefixes of other keys.
+ */
+public class WordTrieTest
+{
+	// Attributes
+	private WordTrie trie;
+
+	/**
+	 * Initializes a new WordTrie instance before each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		trie = new WordTrie();
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		trie = null;
+	}
+
+	/**
+	 * Helper: reads an iterator into a list of keys.
+	 */
+	private static List<String> keys( Iterator<TrackedWord> it )
+	{
+		List<String> keys = new ArrayList<>();
+		while( it.hasNext() )
+			keys.add( it.next().getKey() );
+		return keys;
+	}
+
+	/**
+	 * Helper: random keys over a small alphabet, so many share prefixes and
+	 * many are prefixes of others.
+	 */
+	private static List<String> randomKeys( int count, Random random )
+	{
+		List<String> keys = new ArrayList<>();
+		for( int i = 0; i < count; i++ )
+		{
+			StringBuilder sb = new StringBuilder();
+			int length = random.nextInt( 7 );
+			for( int c = 0; c < length; c++ )
+				sb.append( "abce'9".charAt( random.nextInt( 6 ) ) );
+			keys.add( sb.toString() );
+		}
+		return keys;
+	}
+
+	/**
+	 * Test method for {@link appDomain.WordTrie#getOrAdd(TrackedWord)} to
+	 * keep one word per key, in key order, and find each of them again.
+	 */
+	@Test
+	public void testGetOrAdd_SameAsTreeSet()
+	{
+		Random random = new Random( 25 );
+		TreeSet<String> expected = new TreeSet<>();
+		for( String key : randomKeys( 3000, random ) )
+		{
+			TrackedWord word = new TrackedWord( key );
+			TrackedWord found = trie.getOrAdd( word );
+			assertEquals( "Failed to tell new words from stored ones.", expected.add( key ), found == word );
+			assertEquals( key, found.getKey() );
+		}
+		assertEquals( expected.size(), trie.size() );
+		assertEquals( "Failed to keep the words in key order.", new ArrayList<>( expected ),
+				keys( trie.inorderIterator() ) );
+		for( String key : expected )
+		{
+			assertTrue( trie.contains( new TrackedWord( key ) ) );
+			assertEquals( key, trie.search( new TrackedWord( key ) ).getElement().getKey() );
+			assertFalse( trie.add( new TrackedWord( key ) ) );
+		}
+		assertNull( trie.search( new TrackedWord( "abcabcabc" ) ) );
+		assertFalse( trie.contains( new TrackedWord( "d" ) ) );
+	}
+
+	/**
+	 * Test method for
+	 * {@link appDomain.WordTrie#getOrAdd(Comparable, java.util.function.Supplier)}
+	 * with a WordTokenizer as the probe, read character by character, finding
+	 * the same words and lines as indexing into a BSTree.
+	 */
+	@Test
+	public void testGetOrAdd_TokenizerProbe()
+	{
+		byte[] bytes = ( "The theme of the THEATRE\n" + "then there, the end\n" + "the them They\n" )
+				.getBytes( StandardCharsets.UTF_8 );
+		BSTreeADT<TrackedWord> tree = new BSTree<TrackedWord>();
+		new WordTokenizer( WordTokenizer.newReader( Channels.newChannel( new ByteArrayInputStream( bytes ) ),
+				StandardCharsets.UTF_8 ) ).indexLines( "trie-t.txt", tree );
+		new WordTokenizer( WordTokenizer.newReader( Channels.newChannel( new ByteArrayInputStream( bytes ) ),
+				StandardCharsets.UTF_8 ) ).indexLines( "trie-t.txt", trie );
+
+		assertEquals( keys( tree.inorderIterator() ), keys( trie.inorderIterator() ) );
+		Iterator<TrackedWord> expected = tree.inorderIterator();
+		Iterator<TrackedWord> actual = trie.inorderIterator();
+		while( expected.hasNext() )
+		{
+			TrackedWord e = expected.next();
+			TrackedWord a = actual.next();
+			assertEquals( "Failed to keep the first spelling.", e.getDisplayWord(), a.getDisplayWord() );
+			assertEquals( e.getFile( "trie-t.txt" ).getLines(), a.getFile( "trie-t.txt" ).getLines() );
+		}
+	}
+
+	/**
+	 * Test method for {@link appDomain.WordTrie#removeMin()} and
+	 * {@link appDomain.WordTrie#removeMax()} taken in turns until the trie is
+	 * empty, checking the words left, their ranks and their positions after
+	 * each removal.
+	 */
+	@Test
+	public void testRemoveMinMax_UntilEmpty()
+	{
+		Random random = new Random( 7 );
+		TreeSet<String> expected = new TreeSet<>();
+		for( String key : randomKeys( 800, random ) )
+		{
+			expected.add( key );
+			trie.add( new TrackedWord( key ) );
+		}
+		while( !expected.isEmpty() )
+		{
+			boolean min = random.nextBoolean();
+			String key = min ? expected.pollFirst() : expected.pollLast();
+			assertEquals( "Failed to remove the end word.", key,
+					( min ? trie.removeMin() : trie.removeMax() ).getElement().getKey() );
+			assertEquals( expected.size(), trie.size() );
+			if( expected.size() % 50 == 0 )
+			{
+				List<String> left = new ArrayList<>( expected );
+				assertEquals( left, keys( trie.inorderIterator() ) );
+				for( int i = 0; i < left.size(); i++ )
+				{
+					assertEquals( i, trie.rank( new TrackedWord( left.get( i ) ) ) );
+					assertEquals( left.get( i ), trie.select( i ).getKey() );
+				}
+			}
+		}
+		assertNull( trie.removeMin() );
+		assertNull( trie.removeMax() );
+		assertFalse( trie.inorderIterator().hasNext() );
+	}
+
+	/**
+	 * Test method for {@link appDomain.WordTrie#removeMin()} where the removed
+	 * word labels a branch above nodes also labelled with it, so no node may
+	 * keep the removed key.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testRemoveMin_DropsKey() throws Exception
+	{
+		for( String key : new String[] { "ab", "abc", "abd", "ac" } )
+			trie.add( new TrackedWord( key ) );
+		String removed = trie.removeMin().getElement().getKey();
+		assertEquals( "ab", removed );
+		Field rootField = WordTrie.class.getDeclaredField( "root" );
+		rootField.setAccessible( true );
+		assertNoKey( rootField.get( trie ), removed );
+		assertEquals( Arrays.asList( "abc", "abd", "ac" ), keys( trie.inorderIterator() ) );
+	}
+
+	/**
+	 * Helper: fails if the node or any node below it is labelled with the
+	 * given key String.
+	 */
+	private static void assertNoKey( Object node, String key ) throws Exception
+	{
+		Field keyField = node.getClass().getDeclaredField( "key" );
+		Field childrenField = node.getClass().getDeclaredField( "children" );
+		keyField.setAccessible( true );
+		childrenField.setAccessible( true );
+		assertNotSame( "Failed to drop the removed key.", key, keyField.get( node ) );
+		Object[] children = (Object[]) childrenField.get( node );
+		if( children != null )
+			for( Object child : children )
+				if( child != null )
+					assertNoKey( child, key );
+	}
+
+	/**
+	 * Test method for {@link appDomain.WordTrie#rank(TrackedWord)} with keys
+	 * that are not stored, inside labels and past the ends.
+	 */
+	@Test
+	public void testRank_MissingKeys()
+	{
+		BSTreeADT<TrackedWord> tree = new BSTree<TrackedWord>();
+		for( String key : new String[] { "", "car", "card", "care", "cart", "do", "dog", "zebra" } )
+		{
+			trie.add( new TrackedWord( key ) );
+			tree.add( new TrackedWord( key ) );
+		}
+		for( String key : new String[] { "", "a", "c", "ca", "carb", "card", "cardz", "cas", "d", "doe", "z",
+				"zz" } )
+			assertEquals( "Failed to rank " + key, tree.rank( new TrackedWord( key ) ),
+					trie.rank( new TrackedWord( key ) ) );
+	}
+
+	/**
+	 * Test method for {@link appDomain.WordTrie#rangeIterator} and
+	 * {@link appDomain.WordTrie#matchIterator} to return the same words as a
+	 * BSTree for the same bounds.
+	 */
+	@Test
+	public void testRangeIterator_SameAsTree()
+	{
+		BSTreeADT<TrackedWord> tree = new BSTree<TrackedWord>();
+		for( String key : randomKeys( 500, new Random( 3 ) ) )
+		{
+			trie.add( new TrackedWord( key ) );
+			tree.add( new TrackedWord( key ) );
+		}
+		String[] bounds = { "a", "ab", "abc", "b", "c9", "e'", "z" };
+		for( String low : bounds )
+		{
+			for( String high : bounds )
+			{
+				TrackedWord from = new TrackedWord( low );
+				TrackedWord to = new TrackedWord( high );
+				assertEquals( keys( tree.rangeIterator( from, true, to, false ) ),
+						keys( trie.rangeIterator( from, true, to, false ) ) );
+				assertEquals( keys( tree.rangeIterator( from, false, to, true ) ),
+						keys( trie.rangeIterator( from, false, to, true ) ) );
+			}
+			assertEquals( keys( tree.matchIterator( new WordPrefix( low ) ) ),
+					keys( trie.matchIterator( new WordPrefix( low ) ) ) );
+		}
+	}
+
+	/**
+	 * Test method for {@link appDomain.WordTrie#inorderIterator()} to fail
+	 * when the trie is changed during the walk.
+	 */
+	@Test
+	public void testInorderIterator_ConcurrentModification()
+	{
+		trie.add( new TrackedWord( "a" ) );
+		trie.add( new TrackedWord( "b" ) );
+		Iterator<TrackedWord> it = trie.inorderIterator();
+		it.next();
+		trie.add( new TrackedWord( "c" ) );
+		try
+		{
+			it.next();
+			fail( "Failed to throw ConcurrentModificationException." );
+		}
+		catch( ConcurrentModificationException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link appDomain.WordTrie} saved with RepositoryFile
+	 * and with Java serialization, keeping its type and its words.
+	 *
+	 * @throws Exception if the trie cannot be written or read
+	 */
+	@Test
+	public void testSave_RoundTrip() throws Exception
+	{
+		for( String key : new String[] { "romane", "romanus", "romulus", "rubens", "ruber", "rubicon" } )
+			trie.getOrAdd( new TrackedWord( key ) ).addOccurrence( "trie-a.txt", key.length() );
+		List<String> expected = keys( trie.inorderIterator() );
+
+		File file = File.createTempFile( "trie", ".bin" );
+		try
+		{
+			RepositoryFile.save( trie, file );
+			BSTreeADT<TrackedWord> loaded = RepositoryFile.load( file );
+			assertTrue( "Failed to restore tree type.", loaded instanceof WordTrie );
+			assertEquals( expected, keys( loaded.inorderIterator() ) );
+			TrackedWord ruber = loaded.search( new TrackedWord( "ruber" ) ).getElement();
+			assertEquals( 1, ruber.getTotalCount() );
+			assertEquals( "[lines: 5]", ruber.getFile( "trie-a.txt" ).linesString() );
+		}
+		finally
+		{
+			file.delete();
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try( ObjectOutputStream out = new ObjectOutputStream( bytes ) )
+		{
+			out.writeObject( trie );
+		}
+		try( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) )
+		{
+			WordTrie copy = (WordTrie)in.readObject();
+			assertEquals( expected, keys( copy.inorderIterator() ) );
+			assertTrue( copy.add( new TrackedWord( "rub" ) ) );
+			assertEquals( 7, copy.size() );
+		}
+	}
+
+	/**
+	 * Test method for {@link appDomain.WordTrie#getHeight()} to count the
+	 * root only when it holds the empty word, as the other trees count an
+	 * empty tree as height 0.
+	 */
+	@Test
+	public void testGetHeight_Root()
+	{
+		assertEquals( "Failed to give an empty trie height 0.", 0, trie.getHeight() );
+		trie.add( new TrackedWord( "ab" ) );
+		assertEquals( 1, trie.getHeight() );
+		trie.add( new TrackedWord( "ac" ) );
+		assertEquals( 2, trie.getHeight() );
+		trie.add( new TrackedWord( "" ) );
+		assertEquals( "Failed to count the root holding the empty word.", 3, trie.getHeight() );
+		trie.removeMin();
+		trie.removeMin();
+		trie.removeMin();
+		assertEquals( 0, trie.getHeight() );
+	}
+
+	/**
+	 * Test method for {@link appDomain.WordTrie#getRoot()}, which a trie
+	 * does not have.
+	 */
+	@Test( expected = UnsupportedOperationException.class )
+	public void testGetRoot_Unsupported()
+	{
+		trie.getRoot();
+	}
+}